@@ -0,0 +1,124 @@
+package s2.adapi.framework.batch;
+
+/**
+ * 청크 배치의 실행 상태를 담는다. BatchJobRepository 에 의하여 job 별로 저장된다.
+ * @author kimhd
+ */
+public class BatchCheckpoint {
+	
+	public static final String STATUS_STARTED = "STARTED";
+	public static final String STATUS_COMPLETED = "COMPLETED";
+	public static final String STATUS_FAILED = "FAILED";
+	
+	private final String jobName;
+	private String status = STATUS_STARTED;
+	private String checkpoint = null;
+	private long readCount = 0;
+	private long writeCount = 0;
+	private long filterCount = 0;
+	private long chunkCount = 0;
+	
+	/**
+	 * 저장되어 있는지 여부, 저장 시 INSERT 와 UPDATE 를 구분하기 위하여 사용한다.
+	 */
+	private boolean persisted = false;
+	
+	public BatchCheckpoint(String jobName) {
+		this.jobName = jobName;
+	}
+	
+	public String getJobName() {
+		return jobName;
+	}
+	
+	public String getStatus() {
+		return status;
+	}
+	
+	public void setStatus(String status) {
+		this.status = status;
+	}
+	
+	/**
+	 * 마지막으로 commit 된 청크의 읽기 위치 (ItemReader.getCheckpoint() 값)
+	 */
+	public String getCheckpoint() {
+		return checkpoint;
+	}
+	
+	public void setCheckpoint(String checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+	
+	public long getReadCount() {
+		return readCount;
+	}
+	
+	public void setReadCount(long readCount) {
+		this.readCount = readCount;
+	}
+	
+	public long getWriteCount() {
+		return writeCount;
+	}
+	
+	public void setWriteCount(long writeCount) {
+		this.writeCount = writeCount;
+	}
+	
+	public long getFilterCount() {
+		return filterCount;
+	}
+	
+	public void setFilterCount(long filterCount) {
+		this.filterCount = filterCount;
+	}
+	
+	public long getChunkCount() {
+		return chunkCount;
+	}
+	
+	public void setChunkCount(long chunkCount) {
+		this.chunkCount = chunkCount;
+	}
+	
+	/**
+	 * 이전 실행에 이어서 재시작하는 경우인지 여부
+	 */
+	public boolean isRestart() {
+		return persisted && !STATUS_COMPLETED.equals(status);
+	}
+	
+	/**
+	 * 처음부터 다시 실행하기 위하여 위치와 처리 건수를 초기화한다.
+	 */
+	public void reset() {
+		status = STATUS_STARTED;
+		checkpoint = null;
+		readCount = 0;
+		writeCount = 0;
+		filterCount = 0;
+		chunkCount = 0;
+	}
+	
+	boolean isPersisted() {
+		return persisted;
+	}
+	
+	void setPersisted(boolean persisted) {
+		this.persisted = persisted;
+	}
+	
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(jobName).append(" |").append(status).append("|");
+		sb.append("checkpoint=").append(checkpoint).append("|");
+		sb.append(chunkCount).append(" chunks|");
+		sb.append(readCount).append(" read|");
+		sb.append(writeCount).append(" written|");
+		sb.append(filterCount).append(" filtered");
+		
+		return sb.toString();
+	}
+}
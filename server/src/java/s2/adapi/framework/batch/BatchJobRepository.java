@@ -0,0 +1,142 @@
+package s2.adapi.framework.batch;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import s2.adapi.framework.dao.JdbcDAO;
+import s2.adapi.framework.dao.SqlQueryException;
+import s2.adapi.framework.dao.sql.DataSource;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * 청크 배치(ChunkBatchMain)의 실행 상태(BatchCheckpoint)를 테이블에 저장하고 읽어온다.
+ * 저장은 현재 쓰레드의 Transaction 에서 수행되므로 청크의 처리 결과와 함께 commit 된다.
+ * 업무 데이터와 같은 DataSource 를 사용하면 청크 처리 결과와 checkpoint 가 하나의 DB 트랜젝션으로 기록된다.
+ * </p>
+ * 테이블 생성 예)
+ * <pre>
+ *    CREATE TABLE s2adapi_batch_job (
+ *        job_name     VARCHAR(500)  NOT NULL PRIMARY KEY,
+ *        status       VARCHAR(20)   NOT NULL,
+ *        checkpoint   VARCHAR(1000),
+ *        read_cnt     BIGINT,
+ *        write_cnt    BIGINT,
+ *        filter_cnt   BIGINT,
+ *        chunk_cnt    BIGINT,
+ *        updt_dt      TIMESTAMP
+ *    )
+ * </pre>
+ * @author kimhd
+ */
+public class BatchJobRepository extends JdbcDAO {
+	
+	public static final String DEFAULT_TABLE_NAME = "s2adapi_batch_job";
+	
+	private String tableName = DEFAULT_TABLE_NAME;
+	
+	private String selectSql = null;
+	private String insertSql = null;
+	private String updateSql = null;
+	
+	public BatchJobRepository() {
+		this(null);
+	}
+	
+	public BatchJobRepository(DataSource ds) {
+		super(ds);
+		buildSql();
+	}
+	
+	/**
+	 * 실행 상태를 저장할 테이블명을 지정한다. (디폴트 s2adapi_batch_job)
+	 * @param tableName
+	 */
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+		buildSql();
+	}
+	
+	public String getTableName() {
+		return tableName;
+	}
+	
+	private void buildSql() {
+		selectSql = "SELECT status, checkpoint, read_cnt, write_cnt, filter_cnt, chunk_cnt FROM " + tableName
+				+ " WHERE job_name = ?";
+		insertSql = "INSERT INTO " + tableName 
+				+ " (job_name, status, checkpoint, read_cnt, write_cnt, filter_cnt, chunk_cnt, updt_dt)"
+				+ " VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+		updateSql = "UPDATE " + tableName 
+				+ " SET status = ?, checkpoint = ?, read_cnt = ?, write_cnt = ?, filter_cnt = ?, chunk_cnt = ?,"
+				+ " updt_dt = CURRENT_TIMESTAMP WHERE job_name = ?";
+	}
+	
+	/**
+	 * jobName 의 실행 상태를 읽어온다. 저장된 상태가 없으면 새로운 BatchCheckpoint 를 반환한다.
+	 * @param jobName
+	 * @return
+	 * @throws SqlQueryException
+	 */
+	public BatchCheckpoint load(String jobName) throws SqlQueryException {
+		BatchCheckpoint cp = new BatchCheckpoint(jobName);
+		
+		List<Object> param = new ArrayList<Object>(1);
+		param.add(jobName);
+		
+		Connection con = null;
+		try {
+			con = getConnection();
+			
+			ValueObject rVO = executeQuery(con, selectSql, param);
+			if (rVO.size() > 0) {
+				cp.setStatus(rVO.getString("status"));
+				cp.setCheckpoint(rVO.getString("checkpoint"));
+				cp.setReadCount(rVO.getLong("read_cnt", 0L));
+				cp.setWriteCount(rVO.getLong("write_cnt", 0L));
+				cp.setFilterCount(rVO.getLong("filter_cnt", 0L));
+				cp.setChunkCount(rVO.getLong("chunk_cnt", 0L));
+				cp.setPersisted(true);
+			}
+		}
+		finally {
+			close(con);
+		}
+		
+		return cp;
+	}
+	
+	/**
+	 * 실행 상태를 저장한다. 현재 Transaction 이 commit 될 때 반영된다.
+	 * @param cp
+	 * @throws SqlQueryException
+	 */
+	public void save(BatchCheckpoint cp) throws SqlQueryException {
+		List<Object> param = new ArrayList<Object>(8);
+		
+		Connection con = null;
+		try {
+			con = getConnection();
+			
+			param.add(cp.getStatus());
+			param.add(cp.getCheckpoint());
+			param.add(cp.getReadCount());
+			param.add(cp.getWriteCount());
+			param.add(cp.getFilterCount());
+			param.add(cp.getChunkCount());
+			param.add(cp.getJobName());
+			
+			// 처음 저장하는 청크가 rollback 된 경우에도 올바로 저장되도록 UPDATE 결과가 없으면 INSERT 한다.
+			int rowCount = executeUpdate(con, updateSql, param, "batch.checkpoint.update");
+			if (rowCount == 0) {
+				param.add(0, param.remove(param.size() - 1));
+				executeUpdate(con, insertSql, param, "batch.checkpoint.insert");
+			}
+			cp.setPersisted(true);
+		}
+		finally {
+			close(con);
+		}
+	}
+}
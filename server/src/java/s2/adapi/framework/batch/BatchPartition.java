@@ -0,0 +1,74 @@
+package s2.adapi.framework.batch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 분할 배치(PartitionedBatchMain)에서 하나의 파티션을 나타낸다.
+ * BatchPartitioner 가 생성하며, 파티션이 처리할 범위(key 범위, modulo 값 등)를 파라메터로 담아
+ * BatchPartitionWorker 에 전달된다.
+ * </p>
+ * <p>
+ * 각 파티션은 하나의 쓰레드에서만 처리되므로 이 객체는 동기화되지 않는다.
+ * </p>
+ * @author kimhd
+ */
+public class BatchPartition {
+	
+	private final String name;
+	private final int index;
+	private final Map<String,Object> params;
+	
+	/**
+	 * 워커가 처리한 건수, 처리량 계산에 사용된다.
+	 */
+	private long processedCount = 0;
+	
+	public BatchPartition(String name, int index, Map<String,Object> params) {
+		this.name = name;
+		this.index = index;
+		this.params = (params == null)?new HashMap<String,Object>():params;
+	}
+	
+	public BatchPartition(String name, int index) {
+		this(name, index, null);
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int getIndex() {
+		return index;
+	}
+	
+	public Map<String,Object> getParams() {
+		return params;
+	}
+	
+	public Object get(String key) {
+		return params.get(key);
+	}
+	
+	public BatchPartition set(String key, Object value) {
+		params.put(key, value);
+		return this;
+	}
+	
+	/**
+	 * 처리한 건수를 더한다. 워커는 처리 진행에 따라 호출하여 처리량이 보고되도록 한다.
+	 * @param count
+	 */
+	public void addProcessedCount(long count) {
+		processedCount += count;
+	}
+	
+	public long getProcessedCount() {
+		return processedCount;
+	}
+	
+	public String toString() {
+		return name + params;
+	}
+}
@@ -0,0 +1,82 @@
+package s2.adapi.framework.batch;
+
+/**
+ * 분할 배치에서 파티션 하나의 처리 결과를 담는다.
+ * @author kimhd
+ */
+public class BatchPartitionResult {
+	
+	public static final String STATUS_COMPLETED = "COMPLETED";
+	public static final String STATUS_FAILED = "FAILED";
+	public static final String STATUS_SKIPPED = "SKIPPED";
+	
+	private final BatchPartition partition;
+	private final String status;
+	private final Object result;
+	private final Throwable error;
+	private final long elapsedMillis;
+	
+	BatchPartitionResult(BatchPartition partition, String status, Object result, Throwable error, long elapsedMillis) {
+		this.partition = partition;
+		this.status = status;
+		this.result = result;
+		this.error = error;
+		this.elapsedMillis = elapsedMillis;
+	}
+	
+	public BatchPartition getPartition() {
+		return partition;
+	}
+	
+	public String getStatus() {
+		return status;
+	}
+	
+	public boolean isCompleted() {
+		return STATUS_COMPLETED.equals(status);
+	}
+	
+	/**
+	 * BatchPartitionWorker.execute() 가 반환한 결과
+	 */
+	public Object getResult() {
+		return result;
+	}
+	
+	public Throwable getError() {
+		return error;
+	}
+	
+	public long getProcessedCount() {
+		return partition.getProcessedCount();
+	}
+	
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+	
+	/**
+	 * 초당 처리 건수
+	 */
+	public double getThroughput() {
+		if (elapsedMillis <= 0) {
+			return 0.0d;
+		}
+		
+		return partition.getProcessedCount() * 1000.0d / elapsedMillis;
+	}
+	
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(partition.getName()).append(" |").append(status).append("|");
+		sb.append(partition.getProcessedCount()).append(" records|");
+		sb.append(elapsedMillis).append(" msec|");
+		sb.append(String.format("%.1f", getThroughput())).append(" records/sec");
+		if (error != null) {
+			sb.append("|error=").append(error.getMessage());
+		}
+		
+		return sb.toString();
+	}
+}
@@ -0,0 +1,19 @@
+package s2.adapi.framework.batch;
+
+/**
+ * 분할 배치(PartitionedBatchMain)에서 파티션 하나를 처리하는 로직을 구현한다.
+ * execute() 는 파티션마다 별도의 쓰레드와 별도의 Transaction 에서 동시에 호출되므로
+ * 구현 클래스는 쓰레드에 안전해야 한다. 처리 건수는 partition.addProcessedCount() 로 알려준다.
+ * @author kimhd
+ */
+public interface BatchPartitionWorker {
+	
+	/**
+	 * 파티션 하나를 처리한다. 예외가 발생하면 해당 파티션의 Transaction 은 rollback 된다.
+	 * @param partition 처리할 파티션
+	 * @param args 배치 실행 인자
+	 * @return 파티션 처리 결과
+	 * @throws Exception
+	 */
+	public Object execute(BatchPartition partition, String[] args) throws Exception;
+}
@@ -0,0 +1,19 @@
+package s2.adapi.framework.batch;
+
+import java.util.List;
+
+/**
+ * 분할 배치(PartitionedBatchMain)의 처리 대상을 여러 개의 파티션으로 나눈다.
+ * 각 파티션은 서로 겹치지 않는 범위를 가져야 한다.
+ * @author kimhd
+ */
+public interface BatchPartitioner {
+	
+	/**
+	 * 처리 대상을 파티션들로 나누어 반환한다.
+	 * @param args 배치 실행 인자
+	 * @return 파티션 목록
+	 * @throws Exception
+	 */
+	public List<BatchPartition> partition(String[] args) throws Exception;
+}
@@ -0,0 +1,83 @@
+package s2.adapi.framework.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 분할 배치(PartitionedBatchMain)의 전체 처리 결과를 담는다. 파티션별 결과와 합계를 제공한다.
+ * @author kimhd
+ */
+public class BatchResult {
+	
+	private final List<BatchPartitionResult> partitionResults;
+	private final long elapsedMillis;
+	
+	BatchResult(List<BatchPartitionResult> results, long elapsedMillis) {
+		this.partitionResults = Collections.unmodifiableList(results);
+		this.elapsedMillis = elapsedMillis;
+	}
+	
+	public List<BatchPartitionResult> getPartitionResults() {
+		return partitionResults;
+	}
+	
+	/**
+	 * 실패하거나 실행되지 않은 파티션의 결과 목록을 반환한다.
+	 */
+	public List<BatchPartitionResult> getFailures() {
+		List<BatchPartitionResult> failures = new ArrayList<BatchPartitionResult>();
+		
+		for(BatchPartitionResult r:partitionResults) {
+			if (!r.isCompleted()) {
+				failures.add(r);
+			}
+		}
+		
+		return failures;
+	}
+	
+	/**
+	 * 모든 파티션이 정상 처리되었는지 여부
+	 */
+	public boolean isSuccess() {
+		return getFailures().isEmpty();
+	}
+	
+	public long getProcessedCount() {
+		long count = 0;
+		
+		for(BatchPartitionResult r:partitionResults) {
+			count += r.getProcessedCount();
+		}
+		
+		return count;
+	}
+	
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+	
+	/**
+	 * 전체 초당 처리 건수
+	 */
+	public double getThroughput() {
+		if (elapsedMillis <= 0) {
+			return 0.0d;
+		}
+		
+		return getProcessedCount() * 1000.0d / elapsedMillis;
+	}
+	
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(partitionResults.size()).append(" partitions|");
+		sb.append(getFailures().size()).append(" failed|");
+		sb.append(getProcessedCount()).append(" records|");
+		sb.append(elapsedMillis).append(" msec|");
+		sb.append(String.format("%.1f", getThroughput())).append(" records/sec");
+		
+		return sb.toString();
+	}
+}
@@ -0,0 +1,298 @@
+package s2.adapi.framework.batch;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.dao.sql.Transaction;
+import s2.adapi.framework.exception.ApplicationException;
+
+/**
+ * <p>
+ * 처리 대상을 청크 단위로 나누어 처리하고 청크마다 commit 하는 BatchMain 구현 클래스이다.
+ * BatchContainer 에서 일반 BatchMain 과 동일하게 실행되며 다음과 같이 동작한다.
+ * <ol>
+ * <li> reader 에서 chunkSize 개의 항목을 읽는다.
+ * <li> processor 가 지정된 경우 항목별로 가공한다. null 이 반환된 항목은 기록하지 않는다.
+ * <li> writer 로 청크의 항목들을 기록한다.
+ * <li> 읽기 위치(checkpoint)와 처리 건수를 jobRepository 에 저장하고 commit 한다.
+ * </ol>
+ * 처리 도중 오류가 발생하면 해당 청크만 rollback 되고 상태가 FAILED 로 기록된다.
+ * 같은 인자로 다시 실행하면 마지막으로 commit 된 청크의 다음 위치부터 이어서 처리한다.
+ * 정상 종료(COMPLETED)된 job 을 다시 실행하면 처음부터 새로 실행한다.
+ * </p>
+ * <p>
+ * job 은 서비스명(또는 jobName)과 나머지 실행 인자를 합친 값으로 구분한다.
+ * jobRepository 를 지정하지 않으면 청크 단위 commit 만 수행하며 재시작은 지원되지 않는다.
+ * </p>
+ * 설정 예)
+ * <pre>
+ *     &lt;service name="batch.order.settle"
+ *             class="s2.adapi.framework.batch.ChunkBatchMain"&gt;
+ *         &lt;property name="reader" ref="batch.order.reader"/&gt;
+ *         &lt;property name="processor" ref="batch.order.processor"/&gt;
+ *         &lt;property name="writer" ref="batch.order.writer"/&gt;
+ *         &lt;property name="jobRepository" ref="batch.jobRepository"/&gt;
+ *         &lt;property name="chunkSize" value="500"/&gt;
+ *     &lt;/service&gt;
+ * </pre>
+ * @author kimhd
+ */
+public class ChunkBatchMain implements BatchMain {
+	
+	private static final Logger log = LoggerFactory.getLogger(ChunkBatchMain.class);
+	
+	private static final String CHUNK_SIZE_KEY = "s2adapi.batch.chunk.size";
+	
+	private static int defaultChunkSize = 100;
+	static {
+		try {
+			defaultChunkSize = ConfiguratorFactory.getConfigurator().getInt(CHUNK_SIZE_KEY, 100);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private ItemReader<Object> reader = null;
+	private ItemProcessor<Object,Object> processor = null;
+	private ItemWriter<Object> writer = null;
+	private BatchJobRepository jobRepository = null;
+	private int chunkSize = defaultChunkSize;
+	private String jobName = null;
+	
+	@SuppressWarnings("unchecked")
+	public void setReader(ItemReader<?> reader) {
+		this.reader = (ItemReader<Object>)reader;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public void setProcessor(ItemProcessor<?,?> processor) {
+		this.processor = (ItemProcessor<Object,Object>)processor;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public void setWriter(ItemWriter<?> writer) {
+		this.writer = (ItemWriter<Object>)writer;
+	}
+	
+	public void setJobRepository(BatchJobRepository jobRepository) {
+		this.jobRepository = jobRepository;
+	}
+	
+	/**
+	 * 한 번에 commit 할 항목 수를 지정한다. 디폴트는 s2adapi.batch.chunk.size 값(100)이다.
+	 * @param chunkSize
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+	
+	/**
+	 * jobRepository 에 저장할 job 명칭을 지정한다. 지정하지 않으면 서비스명(args[0])을 사용한다.
+	 * @param jobName
+	 */
+	public void setJobName(String jobName) {
+		this.jobName = jobName;
+	}
+	
+	public Object execute(String[] args) {
+		String jobKey = getJobKey(args);
+		long stime = System.currentTimeMillis();
+		
+		BatchCheckpoint cp = null;
+		try {
+			cp = loadCheckpoint(jobKey);
+			if (cp.isRestart()) {
+				log.info("## batch restart : " + cp);
+			}
+			else {
+				cp.reset();
+			}
+			
+			reader.open(cp.getCheckpoint(), args);
+			try {
+				runChunks(cp);
+			}
+			finally {
+				reader.close();
+			}
+			
+			cp.setStatus(BatchCheckpoint.STATUS_COMPLETED);
+			saveCheckpoint(cp);
+			commit();
+		}
+		catch (Throwable thr) {
+			log.error("## batch chunk failed : " + jobKey, thr);
+			
+			rollback();
+			markFailed(jobKey);
+			
+			throw (thr instanceof ApplicationException)?(ApplicationException)thr:new ApplicationException(thr);
+		}
+		finally {
+			// BatchContainer 가 종료 시 end() 할 수 있도록 Transaction 을 다시 시작해 둔다.
+			begin();
+		}
+		
+		long elapsed = System.currentTimeMillis() - stime;
+		log.info("## batch chunk result : " + cp + "|" + elapsed + " msec|" 
+				+ String.format("%.1f", (elapsed > 0)?(cp.getReadCount() * 1000.0d / elapsed):0.0d) + " records/sec");
+		
+		return cp;
+	}
+	
+	/**
+	 * 청크 단위로 읽기, 가공, 기록 후 checkpoint 를 저장하고 commit 한다.
+	 */
+	private void runChunks(BatchCheckpoint cp) throws Exception {
+		List<Object> items = new ArrayList<Object>(chunkSize);
+		boolean eof = false;
+		
+		while (!eof) {
+			begin();
+			
+			long ctime = System.currentTimeMillis();
+			int readCount = 0;
+			int filterCount = 0;
+			items.clear();
+			
+			while (readCount < chunkSize) {
+				Object item = reader.read();
+				if (item == null) {
+					eof = true;
+					break;
+				}
+				readCount++;
+				
+				Object out = (processor == null)?item:processor.process(item);
+				if (out == null) {
+					filterCount++;
+				}
+				else {
+					items.add(out);
+				}
+			}
+			
+			if (readCount == 0) {
+				break;
+			}
+			
+			if (items.size() > 0) {
+				writer.write(items);
+			}
+			
+			cp.setCheckpoint(reader.getCheckpoint());
+			cp.setReadCount(cp.getReadCount() + readCount);
+			cp.setWriteCount(cp.getWriteCount() + items.size());
+			cp.setFilterCount(cp.getFilterCount() + filterCount);
+			cp.setChunkCount(cp.getChunkCount() + 1);
+			cp.setStatus(BatchCheckpoint.STATUS_STARTED);
+			
+			saveCheckpoint(cp);
+			commit();
+			
+			if (log.isDebugEnabled()) {
+				log.debug("## chunk " + cp.getChunkCount() + " : " + readCount + " read, " + items.size() 
+						+ " written, " + (System.currentTimeMillis() - ctime) + " msec, checkpoint=" + cp.getCheckpoint());
+			}
+		}
+	}
+	
+	/**
+	 * job 을 구분하는 key 를 만든다. 서비스명(또는 jobName) 뒤에 나머지 실행 인자들을 붙인다.
+	 */
+	protected String getJobKey(String[] args) {
+		StringBuilder sb = new StringBuilder();
+		
+		if (jobName != null) {
+			sb.append(jobName);
+		}
+		else if (args != null && args.length > 0) {
+			sb.append(args[0]);
+		}
+		
+		if (args != null) {
+			for(int i=1;i<args.length;i++) {
+				sb.append(" ").append(args[i]);
+			}
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * 저장된 checkpoint 를 읽는다. BatchContainer 가 시작한 트랜젝션을 commit 하지 않도록 별도의 트랜젝션에서 읽는다.
+	 */
+	private BatchCheckpoint loadCheckpoint(final String jobKey) throws Exception {
+		if (jobRepository == null) {
+			return new BatchCheckpoint(jobKey);
+		}
+		
+		return Transaction.executeInNewTransaction(new Callable<BatchCheckpoint>() {
+			public BatchCheckpoint call() throws Exception {
+				return jobRepository.load(jobKey);
+			}
+		});
+	}
+	
+	private void saveCheckpoint(BatchCheckpoint cp) throws Exception {
+		if (jobRepository != null) {
+			jobRepository.save(cp);
+		}
+	}
+	
+	/**
+	 * 실패한 청크가 rollback 된 후 마지막으로 commit 된 상태를 다시 읽어 FAILED 로 기록한다.
+	 */
+	private void markFailed(String jobKey) {
+		if (jobRepository == null) {
+			return;
+		}
+		
+		try {
+			begin();
+			
+			BatchCheckpoint cp = jobRepository.load(jobKey);
+			cp.setStatus(BatchCheckpoint.STATUS_FAILED);
+			jobRepository.save(cp);
+			
+			commit();
+		}
+		catch (Exception ex) {
+			log.error("## batch checkpoint save error : " + jobKey, ex);
+			rollback();
+		}
+	}
+	
+	private void begin() {
+		Transaction tr = Transaction.current();
+		if (!tr.isActive()) {
+			tr.begin();
+		}
+	}
+	
+	private void commit() throws SQLException {
+		Transaction tr = Transaction.current();
+		if (tr.isActive()) {
+			tr.commit();
+		}
+	}
+	
+	private void rollback() {
+		Transaction tr = Transaction.current();
+		if (tr.isActive()) {
+			try {
+				tr.rollback();
+			}
+			catch (SQLException ex) {
+				log.error("## batch rollback error.", ex);
+			}
+		}
+	}
+}
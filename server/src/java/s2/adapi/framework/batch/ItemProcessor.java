@@ -0,0 +1,16 @@
+package s2.adapi.framework.batch;
+
+/**
+ * 청크 배치(ChunkBatchMain)에서 읽어온 항목을 가공하여 기록할 항목으로 변환한다.
+ * @author kimhd
+ */
+public interface ItemProcessor<I,O> {
+	
+	/**
+	 * 항목 하나를 가공한다.
+	 * @param item 읽어온 항목
+	 * @return 기록할 항목, null 이면 해당 항목은 기록하지 않는다. (filter)
+	 * @throws Exception
+	 */
+	public O process(I item) throws Exception;
+}
@@ -0,0 +1,38 @@
+package s2.adapi.framework.batch;
+
+/**
+ * 청크 배치(ChunkBatchMain)에서 처리 대상 항목을 하나씩 읽어온다.
+ * <p>
+ * 재시작을 지원하기 위하여 마지막으로 읽은 항목의 위치(key 값 또는 offset)를 getCheckpoint() 로 제공하며,
+ * 이 값은 청크가 commit 될 때 job repository 에 저장되었다가 재시작 시 open() 으로 다시 전달된다.
+ * </p>
+ * @author kimhd
+ */
+public interface ItemReader<T> {
+	
+	/**
+	 * 읽기를 시작한다.
+	 * @param checkpoint 이전 실행에서 마지막으로 commit 된 위치, 처음 실행하는 경우에는 null
+	 * @param args 배치 실행 인자
+	 * @throws Exception
+	 */
+	public void open(String checkpoint, String[] args) throws Exception;
+	
+	/**
+	 * 다음 항목을 읽는다.
+	 * @return 다음 항목, 더 이상 읽을 항목이 없으면 null
+	 * @throws Exception
+	 */
+	public T read() throws Exception;
+	
+	/**
+	 * 마지막으로 read() 한 항목의 위치를 반환한다. 이 위치부터 다시 open() 하면 그 다음 항목부터 읽어야 한다.
+	 * @return
+	 */
+	public String getCheckpoint();
+	
+	/**
+	 * 읽기를 종료하고 사용한 자원을 반환한다.
+	 */
+	public void close();
+}
@@ -0,0 +1,18 @@
+package s2.adapi.framework.batch;
+
+import java.util.List;
+
+/**
+ * 청크 배치(ChunkBatchMain)에서 가공된 항목들을 청크 단위로 기록한다.
+ * write() 는 청크의 Transaction 안에서 호출되며 write() 후에 checkpoint 와 함께 commit 된다.
+ * @author kimhd
+ */
+public interface ItemWriter<O> {
+	
+	/**
+	 * 청크 하나의 항목들을 기록한다.
+	 * @param items 기록할 항목들
+	 * @throws Exception
+	 */
+	public void write(List<? extends O> items) throws Exception;
+}
@@ -0,0 +1,46 @@
+package s2.adapi.framework.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * 처리 대상을 key 값의 나머지(modulo)로 나누는 BatchPartitioner 이다.
+ * count 개의 파티션을 생성하며 각 파티션에는 다음의 파라메터가 담긴다.
+ * <ul>
+ * <li> mod_count : 전체 파티션 수
+ * <li> mod_index : 파티션 번호 (0 ~ mod_count-1)
+ * </ul>
+ * 워커는 이 값을 사용하여 예를 들면 <code>WHERE MOD(seq_no, #mod_count#) = #mod_index#</code> 와 같이 조회한다.
+ * </p>
+ * @author kimhd
+ */
+public class ModuloPartitioner implements BatchPartitioner {
+	
+	private int count = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * 생성할 파티션 수를 지정한다. 디폴트는 CPU 수이다.
+	 * @param count
+	 */
+	public void setCount(int count) {
+		this.count = count;
+	}
+	
+	public int getCount() {
+		return count;
+	}
+	
+	public List<BatchPartition> partition(String[] args) throws Exception {
+		List<BatchPartition> partitions = new ArrayList<BatchPartition>(count);
+		
+		for(int i=0;i<count;i++) {
+			BatchPartition partition = new BatchPartition("mod-" + i, i);
+			partition.set("mod_count", count);
+			partition.set("mod_index", i);
+			partitions.add(partition);
+		}
+		
+		return partitions;
+	}
+}
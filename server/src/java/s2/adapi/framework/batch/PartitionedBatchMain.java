@@ -0,0 +1,236 @@
+package s2.adapi.framework.batch;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.context.ContextExecutors;
+import s2.adapi.framework.context.ContextManager;
+import s2.adapi.framework.dao.sql.Transaction;
+import s2.adapi.framework.exception.ApplicationException;
+
+/**
+ * <p>
+ * 처리 대상을 여러 파티션으로 나누어 동시에 처리하는 BatchMain 구현 클래스이다.
+ * BatchContainer 에서 일반 BatchMain 과 동일하게 실행되며 다음과 같이 동작한다.
+ * <ol>
+ * <li> partitioner 로 처리 대상을 파티션들로 나눈다.
+ * <li> 최대 threads 개의 쓰레드에서 파티션별로 worker 를 동시에 실행한다.
+ * <li> 각 파티션은 별도의 Transaction 과 Diagnostic Context 에서 실행된다.
+ * 정상 종료되면 commit 되고 예외가 발생하면 해당 파티션만 rollback 된다.
+ * <li> 모든 파티션이 끝나면 파티션별 처리 건수, 수행시간, 처리량을 로그로 남기고 BatchResult 를 반환한다.
+ * 실패하거나 실행되지 않은 파티션이 있으면 ApplicationException 을 던져 BatchContainer 가 오류로 처리하도록 한다.
+ * </ol>
+ * </p>
+ * 설정 예)
+ * <pre>
+ *     &lt;service name="batch.order.settle"
+ *             class="s2.adapi.framework.batch.PartitionedBatchMain"&gt;
+ *         &lt;property name="partitioner" ref="batch.order.partitioner"/&gt;
+ *         &lt;property name="worker" ref="batch.order.worker"/&gt;
+ *         &lt;property name="threads" value="8"/&gt;
+ *     &lt;/service&gt;
+ * </pre>
+ * @author kimhd
+ */
+public class PartitionedBatchMain implements BatchMain {
+	
+	private static final Logger log = LoggerFactory.getLogger(PartitionedBatchMain.class);
+	
+	private static final String PARTITION_THREADS_KEY = "s2adapi.batch.partition.threads";
+	
+	private static int defaultThreads = Runtime.getRuntime().availableProcessors();
+	static {
+		try {
+			defaultThreads = ConfiguratorFactory.getConfigurator()
+					.getInt(PARTITION_THREADS_KEY, defaultThreads);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private BatchPartitioner partitioner = null;
+	private BatchPartitionWorker worker = null;
+	private int threads = defaultThreads;
+	private boolean stopOnError = false;
+	
+	public void setPartitioner(BatchPartitioner partitioner) {
+		this.partitioner = partitioner;
+	}
+	
+	public void setWorker(BatchPartitionWorker worker) {
+		this.worker = worker;
+	}
+	
+	/**
+	 * 동시에 실행할 최대 파티션 수를 지정한다. 파티션마다 DB Connection 을 사용하므로
+	 * Connection Pool 의 크기를 넘지 않도록 한다. 디폴트는 s2adapi.batch.partition.threads 값이다.
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+	
+	/**
+	 * true 이면 하나의 파티션이 실패한 후에는 아직 시작하지 않은 파티션들을 실행하지 않는다. (디폴트 false)
+	 * @param stopOnError
+	 */
+	public void setStopOnError(boolean stopOnError) {
+		this.stopOnError = stopOnError;
+	}
+	
+	public Object execute(final String[] args) {
+		long stime = System.currentTimeMillis();
+		
+		List<BatchPartition> partitions = null;
+		try {
+			partitions = partitioner.partition(args);
+		}
+		catch (Exception ex) {
+			throw new ApplicationException(ex);
+		}
+		
+		log.info("## batch partitions : " + partitions.size() + ", threads : " + threads);
+		
+		List<BatchPartitionResult> results = new ArrayList<BatchPartitionResult>(partitions.size());
+		if (partitions.size() > 0) {
+			runPartitions(partitions, args, results);
+		}
+		
+		BatchResult batchResult = new BatchResult(results, System.currentTimeMillis() - stime);
+		
+		for(BatchPartitionResult r:results) {
+			if (r.isCompleted()) {
+				log.info("## partition " + r);
+			}
+			else {
+				log.error("## partition " + r);
+			}
+		}
+		log.info("## batch result : " + batchResult);
+		
+		if (!batchResult.isSuccess()) {
+			Throwable thr = firstError(batchResult);
+			throw (thr instanceof ApplicationException)?(ApplicationException)thr:new ApplicationException(thr);
+		}
+		
+		return batchResult;
+	}
+	
+	/**
+	 * 실패한 파티션 중 첫번째 파티션의 예외를 반환한다.
+	 */
+	private Throwable firstError(BatchResult batchResult) {
+		for(BatchPartitionResult r:batchResult.getFailures()) {
+			if (r.getError() != null) {
+				return r.getError();
+			}
+		}
+		
+		return null;
+	}
+	
+	private void runPartitions(List<BatchPartition> partitions, final String[] args, List<BatchPartitionResult> results) {
+		final AtomicBoolean failed = new AtomicBoolean(false);
+		
+		ExecutorService executor = ContextExecutors.newFixedThreadPool("s2adapi-batch",
+				Math.max(1, Math.min(threads, partitions.size())));
+		
+		List<Future<BatchPartitionResult>> futures = new ArrayList<Future<BatchPartitionResult>>(partitions.size());
+		try {
+			for(final BatchPartition partition:partitions) {
+				futures.add(executor.submit(new Callable<BatchPartitionResult>() {
+					public BatchPartitionResult call() {
+						return executePartition(partition, args, failed);
+					}
+				}));
+			}
+			
+			for(int i=0;i<futures.size();i++) {
+				try {
+					results.add(futures.get(i).get());
+				}
+				catch (ExecutionException ex) {
+					// executePartition() 은 예외를 던지지 않으므로 발생하지 않는다.
+					throw new ApplicationException(ex.getCause());
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			log.error("## batch interrupted.");
+			executor.shutdownNow();
+			
+			for(int i=results.size();i<partitions.size();i++) {
+				results.add(new BatchPartitionResult(partitions.get(i),
+						BatchPartitionResult.STATUS_SKIPPED, null, ex, 0));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * 파티션 하나를 별도의 Transaction 과 Diagnostic Context 에서 실행한다.
+	 * 실행 쓰레드의 원래 컨텍스트는 ContextExecutors 에 의하여 복원된다.
+	 */
+	private BatchPartitionResult executePartition(BatchPartition partition, String[] args, AtomicBoolean failed) {
+		if (stopOnError && failed.get()) {
+			return new BatchPartitionResult(partition, BatchPartitionResult.STATUS_SKIPPED, null, null, 0);
+		}
+		
+		long stime = System.currentTimeMillis();
+		
+		HashMap<String,Object> diagMap = new HashMap<String,Object>();
+		diagMap.put("diag.batch.partition.name", partition.getName());
+		diagMap.put("diag.batch.partition.stime", stime);
+		ContextManager.setDiagnosticContext(diagMap);
+		MDC.put("partition", partition.getName());
+		
+		Transaction tr = new Transaction();
+		Transaction.bind(tr);
+		tr.begin();
+		
+		try {
+			Object result = worker.execute(partition, args);
+			tr.commit();
+			
+			return new BatchPartitionResult(partition, BatchPartitionResult.STATUS_COMPLETED,
+					result, null, System.currentTimeMillis() - stime);
+		}
+		catch (Throwable thr) {
+			failed.set(true);
+			log.error("## partition " + partition.getName() + " failed.", thr);
+			
+			if (tr.isActive()) {
+				try {
+					tr.rollback();
+				}
+				catch (SQLException ex) {
+					log.error("## partition " + partition.getName() + " rollback error.", ex);
+				}
+			}
+			
+			return new BatchPartitionResult(partition, BatchPartitionResult.STATUS_FAILED,
+					null, thr, System.currentTimeMillis() - stime);
+		}
+		finally {
+			long etime = System.currentTimeMillis();
+			diagMap.put("diag.batch.partition.etime", etime);
+			diagMap.put("diag.batch.partition.rtime", (etime - stime));
+		}
+	}
+}
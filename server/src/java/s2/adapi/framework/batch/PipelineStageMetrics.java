@@ -0,0 +1,106 @@
+package s2.adapi.framework.batch;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 파이프라인 배치(PipelinedBatchMain)의 단계(read, process, write)별 처리 통계를 담는다.
+ * 여러 쓰레드에서 동시에 기록되므로 LongAdder 를 사용한다.
+ * @author kimhd
+ */
+public class PipelineStageMetrics {
+	
+	private final String name;
+	private final int threads;
+	
+	/**
+	 * 이 단계의 출력 큐, 큐 길이(backpressure 상태)를 확인하기 위하여 사용한다.
+	 */
+	private final BlockingQueue<?> outQueue;
+	
+	private final LongAdder count = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder busyNanos = new LongAdder();
+	private final long startNanos = System.nanoTime();
+	
+	PipelineStageMetrics(String name, int threads, BlockingQueue<?> outQueue) {
+		this.name = name;
+		this.threads = threads;
+		this.outQueue = outQueue;
+	}
+	
+	void record(long items, long nanos) {
+		count.add(items);
+		busyNanos.add(nanos);
+	}
+	
+	void recordError() {
+		errors.increment();
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * 처리한 항목 수
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+	
+	/**
+	 * 오류가 발생한 항목 수 (skip 된 항목 포함)
+	 */
+	public long getErrors() {
+		return errors.sum();
+	}
+	
+	/**
+	 * 출력 큐에 대기중인 항목 수, 출력 큐가 없는 단계(write)는 0 이다.
+	 */
+	public int getQueueDepth() {
+		return (outQueue == null)?0:outQueue.size();
+	}
+	
+	/**
+	 * 처리 시간의 합계 (밀리초), 큐에서 대기한 시간은 포함되지 않는다.
+	 */
+	public long getBusyMillis() {
+		return busyNanos.sum() / 1000000L;
+	}
+	
+	/**
+	 * 시작 후 초당 처리 건수
+	 */
+	public double getThroughput() {
+		long elapsed = System.nanoTime() - startNanos;
+		
+		return (elapsed <= 0)?0.0d:(getCount() * 1000000000.0d / elapsed);
+	}
+	
+	/**
+	 * 쓰레드들이 실제 처리에 사용한 시간의 비율(0 ~ 1), 값이 작은 단계는 다른 단계를 기다리고 있는 것이다.
+	 */
+	public double getUtilization() {
+		long elapsed = (System.nanoTime() - startNanos) * threads;
+		
+		return (elapsed <= 0)?0.0d:((double)busyNanos.sum() / elapsed);
+	}
+	
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(name).append(" |").append(getCount()).append(" records|");
+		sb.append(getErrors()).append(" errors|");
+		sb.append("queue=").append(getQueueDepth()).append("|");
+		sb.append(String.format("%.1f", getThroughput())).append(" records/sec|");
+		sb.append(String.format("%.0f", getUtilization() * 100)).append("% busy");
+		
+		return sb.toString();
+	}
+}
@@ -0,0 +1,524 @@
+package s2.adapi.framework.batch;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import s2.adapi.framework.config.Configurator;
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.context.ContextExecutors;
+import s2.adapi.framework.dao.sql.Transaction;
+import s2.adapi.framework.exception.ApplicationException;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * 읽기, 가공, 기록을 서로 다른 쓰레드에서 동시에 수행하는 BatchMain 구현 클래스이다.
+ * BatchContainer 에서 일반 BatchMain 과 동일하게 실행되며 다음과 같이 동작한다.
+ * <ol>
+ * <li> read : 하나의 쓰레드에서 reader 로 항목을 읽어 처리 큐에 넣는다.
+ * <li> process : threads 개의 쓰레드에서 processor 로 항목을 가공하여 기록 큐에 넣는다.
+ * <li> write : 하나의 쓰레드에서 writeSize 건씩 모아 writer 로 기록하고 commit 한다.
+ * </ol>
+ * 단계 사이의 큐는 크기가 제한되어 있으므로 뒤 단계가 느리면 앞 단계는 큐에 자리가 생길 때까지 기다린다. (backpressure)
+ * 각 단계는 별도의 Transaction 에서 실행되므로 서로 다른 DB 에서 읽고 쓸 수 있다. 
+ * reader 의 Transaction 은 읽기가 끝날 때까지 유지되므로 QueryCursorItemReader 를 사용할 수 있다.
+ * </p>
+ * <p>
+ * 순서와 오류 처리는 다음과 같이 지정한다.
+ * <ul>
+ * <li> ordered : true 이면 읽은 순서대로 기록한다. false(디폴트)이면 가공이 끝난 순서대로 기록한다.
+ * <li> skipErrors : true 이면 가공 중 오류가 발생한 항목은 로그를 남기고 건너뛴다. 
+ *      skipLimit 를 넘으면 중단한다. false(디폴트)이면 첫번째 오류에서 중단한다.
+ * </ul>
+ * 중단되는 경우 기록중인 묶음만 rollback 되며 이미 commit 된 묶음은 유지된다.
+ * 중단 후 이어서 처리하여야 하는 경우에는 ChunkBatchMain 을 사용한다.
+ * </p>
+ * <p>
+ * 실행 중에는 reportInterval 초마다 단계별 처리 건수, 큐 길이, 처리량, 사용률을 로그로 남기며
+ * 종료 후에는 단계별 통계를 담은 ValueObject 를 반환한다.
+ * </p>
+ * 설정 예)
+ * <pre>
+ *     &lt;service name="batch.order.migrate"
+ *             class="s2.adapi.framework.batch.PipelinedBatchMain"&gt;
+ *         &lt;property name="reader" ref="batch.order.cursorReader"/&gt;
+ *         &lt;property name="processor" ref="batch.order.processor"/&gt;
+ *         &lt;property name="writer" ref="batch.order.writer"/&gt;
+ *         &lt;property name="threads" value="4"/&gt;
+ *         &lt;property name="writeSize" value="500"/&gt;
+ *     &lt;/service&gt;
+ * </pre>
+ * @author kimhd
+ */
+public class PipelinedBatchMain implements BatchMain {
+	
+	private static final Logger log = LoggerFactory.getLogger(PipelinedBatchMain.class);
+	
+	private static final String PIPELINE_THREADS_KEY = "s2adapi.batch.pipeline.threads";
+	private static final String PIPELINE_QUEUE_KEY = "s2adapi.batch.pipeline.queue";
+	
+	private static int defaultThreads = Runtime.getRuntime().availableProcessors();
+	private static int defaultQueueSize = 1000;
+	static {
+		try {
+			Configurator config = ConfiguratorFactory.getConfigurator();
+			defaultThreads = config.getInt(PIPELINE_THREADS_KEY, defaultThreads);
+			defaultQueueSize = config.getInt(PIPELINE_QUEUE_KEY, defaultQueueSize);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	/**
+	 * 큐에서 대기할 때 중단 여부를 확인하는 간격 (밀리초)
+	 */
+	private static final long POLL_MILLIS = 100;
+	
+	/**
+	 * 읽기가 끝났음을 다음 단계에 알리는 표시
+	 */
+	private static final Envelope END = new Envelope(-1, null);
+	
+	private ItemReader<Object> reader = null;
+	private ItemProcessor<Object,Object> processor = null;
+	private ItemWriter<Object> writer = null;
+	private int threads = defaultThreads;
+	private int queueSize = defaultQueueSize;
+	private int writeSize = 100;
+	private boolean ordered = false;
+	private boolean skipErrors = false;
+	private long skipLimit = 0;
+	private int reportInterval = 60;
+	
+	@SuppressWarnings("unchecked")
+	public void setReader(ItemReader<?> reader) {
+		this.reader = (ItemReader<Object>)reader;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public void setProcessor(ItemProcessor<?,?> processor) {
+		this.processor = (ItemProcessor<Object,Object>)processor;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public void setWriter(ItemWriter<?> writer) {
+		this.writer = (ItemWriter<Object>)writer;
+	}
+	
+	/**
+	 * 가공 단계의 쓰레드 수를 지정한다. 디폴트는 s2adapi.batch.pipeline.threads 값이다.
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+	
+	/**
+	 * 단계 사이의 큐 크기를 지정한다. 디폴트는 s2adapi.batch.pipeline.queue 값(1000)이다.
+	 * @param queueSize
+	 */
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+	
+	/**
+	 * 한 번에 기록하고 commit 할 항목 수를 지정한다. (디폴트 100)
+	 * @param writeSize
+	 */
+	public void setWriteSize(int writeSize) {
+		this.writeSize = writeSize;
+	}
+	
+	/**
+	 * true 이면 읽은 순서대로 기록한다. (디폴트 false)
+	 * @param ordered
+	 */
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+	
+	/**
+	 * true 이면 가공 중 오류가 발생한 항목을 건너뛴다. (디폴트 false)
+	 * @param skipErrors
+	 */
+	public void setSkipErrors(boolean skipErrors) {
+		this.skipErrors = skipErrors;
+	}
+	
+	/**
+	 * 건너뛸 수 있는 최대 오류 건수를 지정한다. 0 이면 제한하지 않는다. (디폴트 0)
+	 * @param skipLimit
+	 */
+	public void setSkipLimit(long skipLimit) {
+		this.skipLimit = skipLimit;
+	}
+	
+	/**
+	 * 진행 상황을 로그로 남길 간격(초)을 지정한다. (디폴트 60)
+	 * @param reportInterval
+	 */
+	public void setReportInterval(int reportInterval) {
+		this.reportInterval = reportInterval;
+	}
+	
+	public Object execute(String[] args) {
+		return new Pipeline(args).run();
+	}
+	
+	/**
+	 * 큐로 전달되는 항목, ordered 인 경우 순서를 맞추기 위하여 읽은 순번을 함께 담는다.
+	 */
+	private static class Envelope {
+		final long seq;
+		final Object item;
+		
+		Envelope(long seq, Object item) {
+			this.seq = seq;
+			this.item = item;
+		}
+	}
+	
+	/**
+	 * 다른 단계의 오류로 파이프라인이 중단되었음을 알린다.
+	 */
+	private static class AbortedException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+	
+	/**
+	 * execute() 한 번의 실행 상태를 담는다.
+	 */
+	private class Pipeline {
+		
+		private final String[] args;
+		private final int processThreads = Math.max(1, threads);
+		
+		private final BlockingQueue<Envelope> processQueue = new ArrayBlockingQueue<Envelope>(queueSize);
+		private final BlockingQueue<Envelope> writeQueue = new ArrayBlockingQueue<Envelope>(queueSize);
+		
+		/**
+		 * ordered 인 경우 순서를 맞추기 위하여 대기하는 항목 수도 제한되도록 
+		 * 읽은 후 아직 기록되지 않은 전체 항목 수를 제한한다.
+		 */
+		private final Semaphore inflight = new Semaphore(queueSize * 2 + processThreads);
+		
+		private final PipelineStageMetrics readMetrics = new PipelineStageMetrics("read", 1, processQueue);
+		private final PipelineStageMetrics processMetrics = new PipelineStageMetrics("process", processThreads, writeQueue);
+		private final PipelineStageMetrics writeMetrics = new PipelineStageMetrics("write", 1, null);
+		
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		private final AtomicLong skipped = new AtomicLong(0);
+		private final CountDownLatch done = new CountDownLatch(processThreads + 2);
+		
+		Pipeline(String[] args) {
+			this.args = args;
+		}
+		
+		Object run() {
+			long stime = System.currentTimeMillis();
+			log.info("## batch pipeline start : process threads " + processThreads + ", queue " + queueSize 
+					+ ", ordered " + ordered);
+			
+			ExecutorService executor = ContextExecutors.newFixedThreadPool("s2adapi-pipeline", processThreads + 2);
+			try {
+				executor.execute(new Stage() {
+					void runStage() throws Exception {
+						read();
+					}
+				});
+				for(int i=0;i<processThreads;i++) {
+					executor.execute(new Stage() {
+						void runStage() throws Exception {
+							process();
+						}
+					});
+				}
+				executor.execute(new Stage() {
+					void runStage() throws Exception {
+						write();
+					}
+				});
+				
+				while (!done.await(Math.max(1, reportInterval), TimeUnit.SECONDS)) {
+					log.info("## batch pipeline progress : " + readMetrics + " / " + processMetrics + " / " + writeMetrics);
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				fail(ex);
+				executor.shutdownNow();
+			}
+			finally {
+				executor.shutdown();
+			}
+			
+			log.info("## batch pipeline read : " + readMetrics);
+			log.info("## batch pipeline process : " + processMetrics + ", " + skipped.get() + " skipped");
+			log.info("## batch pipeline write : " + writeMetrics);
+			log.info("## batch pipeline end : " + (System.currentTimeMillis() - stime) + " msec");
+			
+			Throwable thr = failure.get();
+			if (thr != null) {
+				throw (thr instanceof ApplicationException)?(ApplicationException)thr:new ApplicationException(thr);
+			}
+			
+			ValueObject resultVO = new ValueObject();
+			addMetrics(resultVO, readMetrics);
+			addMetrics(resultVO, processMetrics);
+			addMetrics(resultVO, writeMetrics);
+			
+			return resultVO;
+		}
+		
+		private void addMetrics(ValueObject resultVO, PipelineStageMetrics metrics) {
+			Map<String,Object> row = new HashMap<String,Object>();
+			
+			row.put("stage", metrics.getName());
+			row.put("threads", metrics.getThreads());
+			row.put("count", metrics.getCount());
+			row.put("errors", metrics.getErrors());
+			row.put("busy_msec", metrics.getBusyMillis());
+			row.put("throughput", metrics.getThroughput());
+			row.put("utilization", metrics.getUtilization());
+			
+			resultVO.add(row);
+		}
+		
+		private void read() throws Exception {
+			Transaction tr = beginTransaction();
+			try {
+				reader.open(null, args);
+				try {
+					long seq = 0;
+					while (true) {
+						if (ordered) {
+							acquire();
+						}
+						
+						long t = System.nanoTime();
+						Object item = reader.read();
+						if (item == null) {
+							break;
+						}
+						readMetrics.record(1, System.nanoTime() - t);
+						
+						put(processQueue, new Envelope(seq++, item));
+					}
+				}
+				finally {
+					reader.close();
+				}
+				
+				for(int i=0;i<processThreads;i++) {
+					put(processQueue, END);
+				}
+				
+				tr.commit();
+			}
+			finally {
+				rollback(tr);
+			}
+		}
+		
+		private void process() throws Exception {
+			Transaction tr = beginTransaction();
+			try {
+				while (true) {
+					Envelope env = take(processQueue);
+					if (env == END) {
+						put(writeQueue, END);
+						break;
+					}
+					
+					Object out = null;
+					long t = System.nanoTime();
+					try {
+						out = (processor == null)?env.item:processor.process(env.item);
+						processMetrics.record(1, System.nanoTime() - t);
+					}
+					catch (Exception ex) {
+						processMetrics.recordError();
+						if (!skip(ex, env.item)) {
+							throw ex;
+						}
+					}
+					
+					// 건너뛴 항목도 ordered 인 경우 순서를 맞추기 위하여 전달한다.
+					put(writeQueue, new Envelope(env.seq, out));
+				}
+				
+				tr.commit();
+			}
+			finally {
+				rollback(tr);
+			}
+		}
+		
+		private void write() throws Exception {
+			List<Object> items = new ArrayList<Object>(writeSize);
+			Map<Long,Envelope> pending = new HashMap<Long,Envelope>();
+			long nextSeq = 0;
+			int ends = 0;
+			
+			while (ends < processThreads) {
+				Envelope env = take(writeQueue);
+				if (env == END) {
+					ends++;
+					continue;
+				}
+				
+				if (ordered) {
+					pending.put(env.seq, env);
+					while ((env = pending.remove(nextSeq)) != null) {
+						nextSeq++;
+						inflight.release();
+						add(items, env);
+					}
+				}
+				else {
+					add(items, env);
+				}
+			}
+			
+			flush(items);
+		}
+		
+		private void add(List<Object> items, Envelope env) throws Exception {
+			if (env.item != null) {
+				items.add(env.item);
+				if (items.size() >= writeSize) {
+					flush(items);
+				}
+			}
+		}
+		
+		private void flush(List<Object> items) throws Exception {
+			if (items.isEmpty()) {
+				return;
+			}
+			checkAborted();
+			
+			Transaction tr = beginTransaction();
+			long t = System.nanoTime();
+			try {
+				writer.write(items);
+				tr.commit();
+				
+				writeMetrics.record(items.size(), System.nanoTime() - t);
+				items.clear();
+			}
+			catch (Exception ex) {
+				writeMetrics.recordError();
+				throw ex;
+			}
+			finally {
+				rollback(tr);
+			}
+		}
+		
+		private boolean skip(Exception ex, Object item) {
+			if (!skipErrors) {
+				return false;
+			}
+			
+			long count = skipped.incrementAndGet();
+			if (skipLimit > 0 && count > skipLimit) {
+				log.error("## batch pipeline skip limit exceeded : " + skipLimit);
+				return false;
+			}
+			
+			log.warn("## batch pipeline skip item : " + item, ex);
+			return true;
+		}
+		
+		private Transaction beginTransaction() {
+			Transaction tr = new Transaction();
+			Transaction.bind(tr);
+			tr.begin();
+			
+			return tr;
+		}
+		
+		private void rollback(Transaction tr) {
+			if (tr.isActive()) {
+				try {
+					tr.rollback();
+				}
+				catch (SQLException ex) {
+					log.error("## batch pipeline rollback error.", ex);
+				}
+			}
+		}
+		
+		private void put(BlockingQueue<Envelope> queue, Envelope env) throws InterruptedException {
+			while (!queue.offer(env, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkAborted();
+			}
+		}
+		
+		private Envelope take(BlockingQueue<Envelope> queue) throws InterruptedException {
+			Envelope env = null;
+			while ((env = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+				checkAborted();
+			}
+			
+			return env;
+		}
+		
+		private void acquire() throws InterruptedException {
+			while (!inflight.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkAborted();
+			}
+		}
+		
+		private void checkAborted() {
+			if (failure.get() != null) {
+				throw new AbortedException();
+			}
+		}
+		
+		private void fail(Throwable thr) {
+			if (failure.compareAndSet(null, thr)) {
+				log.error("## batch pipeline aborted.", thr);
+			}
+		}
+		
+		/**
+		 * 단계 하나를 실행하는 작업, 오류가 발생하면 파이프라인 전체를 중단시킨다.
+		 */
+		private abstract class Stage implements Runnable {
+			
+			abstract void runStage() throws Exception;
+			
+			public void run() {
+				try {
+					runStage();
+				}
+				catch (AbortedException ex) {
+					// 다른 단계의 오류로 중단됨
+				}
+				catch (Throwable thr) {
+					fail(thr);
+				}
+				finally {
+					done.countDown();
+				}
+			}
+		}
+	}
+}
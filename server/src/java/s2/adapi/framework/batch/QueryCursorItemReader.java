@@ -0,0 +1,106 @@
+package s2.adapi.framework.batch;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import s2.adapi.framework.dao.JdbcCursor;
+import s2.adapi.framework.dao.SqlQueryDAO;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * 조회 query 를 한 번 실행하고 그 결과를 커서(JdbcCursor)로 한 row 씩 읽어오는 ItemReader 이다.
+ * DB 에서는 fetchSize 건씩 나누어 가져오므로 대량의 데이터를 일정한 메모리로 읽을 수 있다.
+ * </p>
+ * <p>
+ * 커서는 읽는 동안 Transaction 의 Connection 을 계속 사용하므로 읽기 전용 쓰레드에서 실행되는 
+ * PipelinedBatchMain 에서 사용한다. 청크마다 commit 하는 ChunkBatchMain 에서는 QueryItemReader 를 사용한다.
+ * query 파라메터로는 배치 실행 인자가 arg0, arg1, ... 으로 전달되며 
+ * keyColumn 이 지정된 경우 재시작 위치가 last_key 로 전달된다. (QueryItemReader 참고)
+ * </p>
+ * @author kimhd
+ */
+public class QueryCursorItemReader implements ItemReader<Map<String,Object>> {
+	
+	private static final Logger log = LoggerFactory.getLogger(QueryCursorItemReader.class);
+	
+	private SqlQueryDAO dao = null;
+	private String query = null;
+	private String keyColumn = null;
+	private int fetchSize = 1000;
+	
+	private JdbcCursor cursor = null;
+	private String lastKey = null;
+	
+	public void setDao(SqlQueryDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * 조회할 query 의 statement ID 를 지정한다.
+	 * @param queryname
+	 */
+	public void setQuery(String queryname) {
+		query = queryname;
+	}
+	
+	/**
+	 * checkpoint 로 사용할 key 컬럼명을 지정한다. 지정하지 않으면 재시작 위치를 제공하지 않는다.
+	 * @param keyColumn
+	 */
+	public void setKeyColumn(String keyColumn) {
+		this.keyColumn = keyColumn;
+	}
+	
+	/**
+	 * DB 에서 한 번에 가져올 row 수를 지정한다. (디폴트 1000)
+	 * @param fetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+	
+	public void open(String checkpoint, String[] args) throws Exception {
+		ValueObject paramVO = new ValueObject();
+		if (args != null) {
+			for(int i=0;i<args.length;i++) {
+				paramVO.set("arg" + i, args[i]);
+			}
+		}
+		if (checkpoint != null && keyColumn != null) {
+			paramVO.set("last_key", checkpoint);
+		}
+		
+		lastKey = checkpoint;
+		cursor = dao.openCursor(query, paramVO, fetchSize);
+	}
+	
+	public Map<String,Object> read() throws Exception {
+		Map<String,Object> row = cursor.next();
+		
+		if (row != null && keyColumn != null) {
+			Object key = row.get(keyColumn);
+			lastKey = (key == null)?null:String.valueOf(key);
+		}
+		
+		return row;
+	}
+	
+	public String getCheckpoint() {
+		return lastKey;
+	}
+	
+	public void close() {
+		if (cursor != null) {
+			try {
+				cursor.close();
+			}
+			catch (Exception ex) {
+				log.error("## cursor close error : " + query, ex);
+			}
+			cursor = null;
+		}
+	}
+}
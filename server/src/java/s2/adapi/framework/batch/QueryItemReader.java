@@ -0,0 +1,132 @@
+package s2.adapi.framework.batch;
+
+import java.util.Map;
+
+import s2.adapi.framework.dao.SqlQueryDAO;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * 조회 query 를 key 순서로 fetchSize 건씩 나누어 조회하는 ItemReader 이다. (keyset paging)
+ * 조회 결과의 row(Map) 하나가 항목 하나가 되며, 마지막으로 읽은 row 의 keyColumn 값이 checkpoint 가 된다.
+ * </p>
+ * <p>
+ * query 에는 다음의 파라메터가 전달된다.
+ * <ul>
+ * <li> arg0, arg1, ... : 배치 실행 인자 (arg0 은 배치 서비스명)
+ * <li> last_key : 이전에 읽은 마지막 key 값, 처음 조회하는 경우에는 전달되지 않는다.
+ * <li> fetch_size : 한 번에 조회할 건수
+ * </ul>
+ * last_key 는 문자열로 전달되므로 필요한 경우 key 컬럼의 타입으로 변환하여 비교한다.
+ * </p>
+ * <pre>
+ *    &lt;statement id="getOrders"&gt;
+ *        SELECT order_no, order_amt, cust_no
+ *          FROM tb_order
+ *         WHERE order_dt = #arg1#
+ *        &lt;isNotEmpty property="last_key"&gt;
+ *           AND order_no &gt; CAST(#last_key# AS BIGINT)
+ *        &lt;/isNotEmpty&gt;
+ *         ORDER BY order_no
+ *         LIMIT #fetch_size#
+ *    &lt;/statement&gt;
+ * </pre>
+ * @author kimhd
+ */
+public class QueryItemReader implements ItemReader<Map<String,Object>> {
+	
+	private SqlQueryDAO dao = null;
+	private String query = null;
+	private String keyColumn = null;
+	private int fetchSize = 1000;
+	
+	private ValueObject paramVO = null;
+	private ValueObject pageVO = null;
+	private int pageIndex = 0;
+	private boolean lastPage = false;
+	private String lastKey = null;
+	
+	public void setDao(SqlQueryDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * 조회할 query 의 statement ID 를 지정한다.
+	 * @param queryname
+	 */
+	public void setQuery(String queryname) {
+		query = queryname;
+	}
+	
+	/**
+	 * 조회 순서의 기준이 되는 key 컬럼명을 지정한다. key 값은 중복되지 않아야 한다.
+	 * @param keyColumn
+	 */
+	public void setKeyColumn(String keyColumn) {
+		this.keyColumn = keyColumn;
+	}
+	
+	/**
+	 * 한 번에 조회할 건수를 지정한다. (디폴트 1000)
+	 * @param fetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+	
+	public void open(String checkpoint, String[] args) throws Exception {
+		paramVO = new ValueObject();
+		if (args != null) {
+			for(int i=0;i<args.length;i++) {
+				paramVO.set("arg" + i, args[i]);
+			}
+		}
+		paramVO.set("fetch_size", fetchSize);
+		
+		lastKey = checkpoint;
+		pageVO = null;
+		pageIndex = 0;
+		lastPage = false;
+	}
+	
+	public Map<String,Object> read() throws Exception {
+		if (pageVO == null || pageIndex >= pageVO.size()) {
+			if (lastPage) {
+				return null;
+			}
+			
+			fetch();
+			if (pageVO.size() == 0) {
+				return null;
+			}
+		}
+		
+		Map<String,Object> row = pageVO.get(pageIndex++);
+		Object key = row.get(keyColumn);
+		lastKey = (key == null)?null:String.valueOf(key);
+		
+		return row;
+	}
+	
+	private void fetch() throws Exception {
+		if (lastKey == null) {
+			paramVO.get(0).remove("last_key");
+		}
+		else {
+			paramVO.set("last_key", lastKey);
+		}
+		
+		pageVO = dao.executeQuery(query, paramVO);
+		pageIndex = 0;
+		lastPage = (pageVO.size() < fetchSize);
+	}
+	
+	public String getCheckpoint() {
+		return lastKey;
+	}
+	
+	public void close() {
+		pageVO = null;
+		paramVO = null;
+	}
+}
@@ -0,0 +1,37 @@
+package s2.adapi.framework.batch;
+
+import java.util.List;
+import java.util.Map;
+
+import s2.adapi.framework.dao.SqlQueryDAO;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * 청크의 항목(Map)들을 하나의 query 로 batch 실행하여 기록하는 ItemWriter 이다.
+ * 항목의 값들이 query 의 파라메터로 사용된다.
+ * @author kimhd
+ */
+public class QueryItemWriter implements ItemWriter<Map<String,Object>> {
+	
+	private SqlQueryDAO dao = null;
+	private String query = null;
+	
+	public void setDao(SqlQueryDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * 실행할 query 의 statement ID 를 지정한다.
+	 * @param queryname
+	 */
+	public void setQuery(String queryname) {
+		query = queryname;
+	}
+	
+	public void write(List<? extends Map<String,Object>> items) throws Exception {
+		ValueObject paramVO = new ValueObject();
+		paramVO.addAll(items);
+		
+		dao.executeBatch(query, paramVO);
+	}
+}
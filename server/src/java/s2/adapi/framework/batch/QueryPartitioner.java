@@ -0,0 +1,65 @@
+package s2.adapi.framework.batch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import s2.adapi.framework.dao.SqlQueryDAO;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * 조회 query 의 결과로 파티션을 생성하는 BatchPartitioner 이다.
+ * 조회 결과의 row 하나가 파티션 하나가 되며, row 의 컬럼 값들이 파티션의 파라메터로 담긴다.
+ * 예를 들어 다음과 같이 key 범위를 조회하도록 query 를 작성한다.
+ * </p>
+ * <pre>
+ *    &lt;statement id="getOrderRanges"&gt;
+ *        SELECT MIN(order_no) AS from_key, MAX(order_no) AS to_key
+ *          FROM (SELECT order_no, NTILE(8) OVER (ORDER BY order_no) AS part
+ *                  FROM tb_order WHERE order_dt = #arg1#) t
+ *         GROUP BY part
+ *    &lt;/statement&gt;
+ * </pre>
+ * <p>
+ * query 파라메터로는 배치 실행 인자가 arg0, arg1, ... 으로 전달된다. (arg0 은 배치 서비스명)
+ * </p>
+ * @author kimhd
+ */
+public class QueryPartitioner implements BatchPartitioner {
+	
+	private SqlQueryDAO dao = null;
+	private String query = null;
+	
+	public void setDao(SqlQueryDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * 파티션을 조회할 query 의 statement ID 를 지정한다.
+	 * @param queryname
+	 */
+	public void setQuery(String queryname) {
+		query = queryname;
+	}
+	
+	public List<BatchPartition> partition(String[] args) throws Exception {
+		ValueObject paramVO = new ValueObject();
+		if (args != null) {
+			for(int i=0;i<args.length;i++) {
+				paramVO.set("arg" + i, args[i]);
+			}
+		}
+		
+		ValueObject rangeVO = dao.executeQuery(query, paramVO);
+		
+		List<BatchPartition> partitions = new ArrayList<BatchPartition>(rangeVO.size());
+		for(int i=0;i<rangeVO.size();i++) {
+			Map<String,Object> params = new HashMap<String,Object>(rangeVO.get(i));
+			partitions.add(new BatchPartition(query + "-" + i, i, params));
+		}
+		
+		return partitions;
+	}
+}
@@ -0,0 +1,19 @@
+package s2.adapi.framework.config;
+
+import java.util.Set;
+
+/**
+ * 설정이 다시 로딩되어 값이 바뀌었을 때 통보 받기 위한 인터페이스이다. 
+ * Configurator.addChangeListener() 로 등록한다.
+ * @author kimhd
+ */
+public interface ConfigChangeListener {
+	
+	/**
+	 * 설정이 교체된 후 호출된다. 바뀐 항목이 없으면 호출되지 않는다.
+	 * @param oldConfig 이전 설정
+	 * @param newConfig 새로운 설정
+	 * @param changedKeys 추가, 삭제 또는 값이 바뀐 항목의 key
+	 */
+	public void configChanged(ConfigSnapshot oldConfig, ConfigSnapshot newConfig, Set<String> changedKeys);
+}
@@ -0,0 +1,210 @@
+package s2.adapi.framework.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import s2.adapi.framework.util.PropertyHelper;
+import s2.adapi.framework.util.StringHelper;
+
+/**
+ * <p>
+ * 설정 파일과 시스템 프로퍼티의 값을 읽어들인 시점의 변경되지 않는 설정 정보이다.
+ * 생성될 때 모든 항목의 ${...} 참조 변수를 미리 치환하고 int, long, boolean 값도 미리 변환해 두므로
+ * 값을 조회할 때에는 HashMap 조회 한 번만 수행된다.
+ * </p>
+ * <p>
+ * 설정이 다시 로딩되면 새로운 ConfigSnapshot 이 생성되어 교체되므로 
+ * 하나의 ConfigSnapshot 에서 읽은 값들은 항상 같은 시점의 설정이다. (Configurator.getSnapshot() 참고)
+ * </p>
+ * @author kimhd
+ */
+public final class ConfigSnapshot {
+	
+	public static final ConfigSnapshot EMPTY = new ConfigSnapshot(new Properties());
+	
+	/**
+	 * 미리 변환해 둔 설정 값
+	 */
+	private static final class Entry {
+		final String value;
+		final Integer intValue;
+		final Long longValue;
+		final boolean booleanValue;
+		
+		Entry(String value) {
+			this.value = value;
+			this.intValue = parseInt(value);
+			this.longValue = parseLong(value);
+			this.booleanValue = Boolean.valueOf(value).booleanValue();
+		}
+		
+		boolean equals(Entry e) {
+			return (e != null && value.equals(e.value));
+		}
+	}
+	
+	/**
+	 * 치환된 값이 빈 문자열이 아닌 항목들
+	 */
+	private final Map<String,Entry> entries;
+	
+	/**
+	 * 빈 문자열을 포함한 전체 항목의 key
+	 */
+	private final Set<Object> keySet;
+	
+	/**
+	 * 주어진 Properties 의 모든 항목을 치환하여 생성한다.
+	 * @param props
+	 */
+	public ConfigSnapshot(Properties props) {
+		Set<String> names = props.stringPropertyNames();
+		
+		Map<String,Entry> map = new HashMap<String,Entry>(names.size() * 2);
+		for(String name:names) {
+			String value = PropertyHelper.getInterpretedString(name, props);
+			if (!StringHelper.isNull(value)) {
+				map.put(name, new Entry(value));
+			}
+		}
+		
+		entries = map;
+		keySet = Collections.unmodifiableSet(new HashSet<Object>(props.keySet()));
+	}
+	
+	public boolean contains(String key) {
+		return entries.containsKey(key);
+	}
+	
+	public String getString(String key) throws ConfiguratorException {
+		Entry e = entries.get(key);
+		if (e == null) {
+			throw new ConfiguratorException("Check the configuration file : [" + key + "] is not defined.");
+		}
+		
+		return e.value;
+	}
+	
+	public String getString(String key, String defaultValue) {
+		Entry e = entries.get(key);
+		
+		return (e == null)?defaultValue:e.value;
+	}
+	
+	public int getInt(String key) throws ConfiguratorException {
+		Entry e = entries.get(key);
+		if (e == null) {
+			throw new ConfiguratorException("Check the configuration file : [" + key + "] is not defined.");
+		}
+		if (e.intValue == null) {
+			// 변환 오류의 원인을 전달하기 위하여 다시 변환한다.
+			try {
+				return Integer.parseInt(e.value);
+			}
+			catch (NumberFormatException ex) {
+				throw new ConfiguratorException("Check the configuration file : Illegal Integer Value : " + e.value, ex);
+			}
+		}
+		
+		return e.intValue.intValue();
+	}
+	
+	public int getInt(String key, int defaultValue) {
+		Entry e = entries.get(key);
+		
+		return (e == null || e.intValue == null)?defaultValue:e.intValue.intValue();
+	}
+	
+	public long getLong(String key) throws ConfiguratorException {
+		Entry e = entries.get(key);
+		if (e == null) {
+			throw new ConfiguratorException("Check the configuration file : [" + key + "] is not defined.");
+		}
+		if (e.longValue == null) {
+			// 변환 오류의 원인을 전달하기 위하여 다시 변환한다.
+			try {
+				return Long.parseLong(e.value);
+			}
+			catch (NumberFormatException ex) {
+				throw new ConfiguratorException("Check the configuration file : Illegal Long Value : " + e.value, ex);
+			}
+		}
+		
+		return e.longValue.longValue();
+	}
+	
+	public long getLong(String key, long defaultValue) {
+		Entry e = entries.get(key);
+		
+		return (e == null || e.longValue == null)?defaultValue:e.longValue.longValue();
+	}
+	
+	public boolean getBoolean(String key) throws ConfiguratorException {
+		Entry e = entries.get(key);
+		if (e == null) {
+			throw new ConfiguratorException("Check the configuration file : Illegal Boolean Value : null");
+		}
+		
+		return e.booleanValue;
+	}
+	
+	public boolean getBoolean(String key, boolean defaultValue) {
+		Entry e = entries.get(key);
+		
+		return (e == null)?defaultValue:e.booleanValue;
+	}
+	
+	public Set<Object> getKeySet() {
+		return keySet;
+	}
+	
+	/**
+	 * 이 설정과 비교하여 추가, 삭제 또는 값이 바뀐 항목의 key 를 반환한다.
+	 * @param other 비교할 설정
+	 * @return
+	 */
+	public Set<String> getChangedKeys(ConfigSnapshot other) {
+		Set<String> changed = new HashSet<String>();
+		
+		for(Map.Entry<String,Entry> me:entries.entrySet()) {
+			if (!me.getValue().equals(other.entries.get(me.getKey()))) {
+				changed.add(me.getKey());
+			}
+		}
+		for(String key:other.entries.keySet()) {
+			if (!entries.containsKey(key)) {
+				changed.add(key);
+			}
+		}
+		
+		return changed;
+	}
+	
+	/**
+	 * 숫자가 아니면 null 을 반환한다. 오류 원인은 getInt(key) 가 호출될 때 다시 변환하여 전달한다.
+	 */
+	private static Integer parseInt(String value) {
+		try {
+			return Integer.valueOf(value);
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+	
+	/**
+	 * 숫자가 아니면 null 을 반환한다. 오류 원인은 getLong(key) 가 호출될 때 다시 변환하여 전달한다.
+	 */
+	private static Long parseLong(String value) {
+		try {
+			return Long.valueOf(value);
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+}
@@ -159,4 +159,25 @@ public interface Configurator {
      */
     public void clear();
     
+    /**
+     * <p>
+     * 현재 설정의 ConfigSnapshot 을 반환한다. 
+     * 여러 개의 값을 같은 시점의 설정으로 읽어야 하거나 자주 호출되는 곳에서 값을 읽을 때 사용한다.
+     * </p>
+     * @return 현재 설정
+     */
+    public ConfigSnapshot getSnapshot();
+    
+    /**
+     * 설정이 다시 로딩되어 값이 바뀌었을 때 호출될 listener 를 등록한다.
+     * @param listener
+     */
+    public void addChangeListener(ConfigChangeListener listener);
+    
+    /**
+     * 등록된 listener 를 제거한다.
+     * @param listener
+     */
+    public void removeChangeListener(ConfigChangeListener listener);
+	
 }
\ No newline at end of file
@@ -119,6 +119,41 @@ public class ConfiguratorFactory {
         return configuratorSingleton;
     }
 
+    /**
+     * <p>
+     * 구성 파일을 다시 읽어 현재 <strong>Configurator</strong>의 설정을 교체한다.
+     * 이미 얻어둔 Configurator 객체는 그대로 사용할 수 있으며, 값이 바뀐 항목이 있으면 
+     * 등록된 ConfigChangeListener 들에게 통보된다. 구성 파일을 읽지 못하면 기존 설정이 유지된다.
+     * </p>
+     *
+     * @throws ConfiguratorException 구성 파일을 읽을 수 없는 경우
+     */
+    public synchronized static void reloadConfigurator() throws ConfiguratorException {
+    	if (configuratorSingleton == null) {
+    		getConfigurator();
+    		return;
+    	}
+    	
+    	InputStream is = null;
+    	try {
+    		File configFile = SystemHelper.getResourceAsFile(configFileName);
+    		is = new FileInputStream(configFile);
+    		configuratorSingleton.doConfigure(is);
+    	}
+    	catch (IOException e) {
+    		throw new ConfiguratorException("Check the configuration file[" + configFileName + "] : reload", e);
+    	}
+    	finally {
+    		if ( is != null ) {
+    			try {
+    				is.close();
+    			}
+    			catch (IOException e) {
+    			}
+    		}
+    	}
+    }
+    
     /**
      * <p>
      * <strong>ConfiguratorFactory</strong> 단일(Single) 인스턴스 내부에서 <strong>Configurator</strong>의 단일(Single)
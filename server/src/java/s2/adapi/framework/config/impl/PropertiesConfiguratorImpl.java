@@ -3,14 +3,19 @@ package s2.adapi.framework.config.impl;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import s2.adapi.framework.Constants;
+import s2.adapi.framework.config.ConfigChangeListener;
+import s2.adapi.framework.config.ConfigSnapshot;
 import s2.adapi.framework.config.Configurator;
 import s2.adapi.framework.config.ConfiguratorException;
-import s2.adapi.framework.util.PropertyHelper;
-import s2.adapi.framework.util.StringHelper;
 
 
 /**
@@ -19,9 +24,16 @@ import s2.adapi.framework.util.StringHelper;
  * Property 형태로 구성 파일을 정의할 때 "${" 와 "}" 로 둘러싸인 형태의 참조변수 정의가 가능하다.
  * 참조 변수는 실제 값으로 치환되어 반환된다.
  * </p>
+ * <p>
+ * 참조 변수의 치환과 숫자 변환은 설정을 로딩할 때 한 번만 수행하여 ConfigSnapshot 으로 만들어 두고
+ * 값을 조회할 때에는 ConfigSnapshot 에서 읽는다. 설정을 다시 로딩하면 새로운 ConfigSnapshot 으로 교체되며
+ * 값이 바뀐 항목이 있으면 등록된 ConfigChangeListener 들에게 통보한다.
+ * </p>
  *
  */
 public class PropertiesConfiguratorImpl implements Configurator {
+    
+    private static final Logger log = LoggerFactory.getLogger(PropertiesConfiguratorImpl.class);
 
     /**
      * <p>
@@ -30,104 +42,113 @@ public class PropertiesConfiguratorImpl implements Configurator {
      */
     protected static Properties prop = new Properties();
 
+    /**
+     * <p>
+     * prop 의 값들을 미리 치환해 둔 설정 정보. 다시 로딩될 때 통째로 교체된다.
+     * </p>
+     */
+    private static volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    
+    private static final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<ConfigChangeListener>();
+    
+    private static final Object lock = new Object();
+    
     public void doConfigure(InputStream stream) throws ConfiguratorException {
+        Properties newProp = new Properties();
         try {
-            prop.clear();
-            
             // 프로퍼티 설정을 로딩한다.
             if ( stream != null ) {
-            	prop.load(stream);
+            	newProp.load(stream);
             }
         } 
         catch (IOException e) {
             throw new ConfiguratorException("Check the configuration file[" + Constants.CONFIG_FILE_PATH_KEY + "] : doConfigure", e);
         } 
-        finally {
-            // System Propertes를 추가한다.
-            prop.putAll(System.getProperties());
+            
+        // System Propertes를 추가한다.
+        newProp.putAll(System.getProperties());
+        
+        replace(newProp, new ConfigSnapshot(newProp));
+    }
+    
+    public void clear() {
+    	replace(new Properties(), ConfigSnapshot.EMPTY);
+    }
+    
+    /**
+     * 설정을 교체하고 값이 바뀐 항목이 있으면 listener 들에게 통보한다.
+     */
+    private void replace(Properties newProp, ConfigSnapshot newSnapshot) {
+    	ConfigSnapshot oldSnapshot = null;
+    	synchronized(lock) {
+    		oldSnapshot = snapshot;
+    		prop = newProp;
+    		snapshot = newSnapshot;
+    	}
+    	
+    	if (listeners.isEmpty()) {
+    		return;
+    	}
+    	
+    	Set<String> changedKeys = oldSnapshot.getChangedKeys(newSnapshot);
+    	if (changedKeys.isEmpty()) {
+    		return;
+    	}
+    	
+    	for(ConfigChangeListener listener:listeners) {
+    		try {
+    			listener.configChanged(oldSnapshot, newSnapshot, changedKeys);
+    		}
+    		catch (Throwable thr) {
+    			log.error("config change listener error : " + listener, thr);
+    		}
         }
     }
 
-    public void clear() {
-    	prop.clear();
+    public ConfigSnapshot getSnapshot() {
+    	return snapshot;
+    }
+    
+    public void addChangeListener(ConfigChangeListener listener) {
+    	if (listener != null) {
+    		listeners.add(listener);
+    	}
+    }
+    
+    public void removeChangeListener(ConfigChangeListener listener) {
+    	listeners.remove(listener);
     }
     
     public String getString(String key) throws ConfiguratorException {
-    	String tmp = PropertyHelper.getInterpretedString(key,prop);
-        if (StringHelper.isNull(tmp)) {
-            throw new ConfiguratorException("Check the configuration file : [" + key + "] is not defined.");
-        } else {
-            return tmp;
-        }
+    	return snapshot.getString(key);
     }
 
     public String getString(String key, String defaultValue) {
-    	String tmp = PropertyHelper.getInterpretedString(key,prop);
-        if (StringHelper.isNull(tmp)) {
-            return defaultValue;
-        } else {
-            return tmp;
-        }
+    	return snapshot.getString(key, defaultValue);
     }
 
     public int getInt(String key) throws ConfiguratorException {
-        String tmp = null;
-        try {
-            tmp = getString(key);
-            return Integer.parseInt(tmp);
-        } catch (NumberFormatException nmex) {
-            throw new ConfiguratorException("Check the configuration file : Illegal Integer Value : " + tmp, nmex);
-        }
+    	return snapshot.getInt(key);
     }
 
     public int getInt(String key, int defaultValue) {
-        String tmp = null;
-        try {
-            tmp = getString(key);
-            return Integer.parseInt(tmp);
-        } catch (Exception nmex) {
-            return defaultValue;
-        }
+    	return snapshot.getInt(key, defaultValue);
     }
 
     public boolean getBoolean(String key) throws ConfiguratorException {
-        String tmp = null;
-        try {
-            tmp = getString(key);
-            return Boolean.valueOf(tmp).booleanValue();
-        } catch (Exception e) {
-            throw new ConfiguratorException("Check the configuration file : Illegal Boolean Value : " + tmp, e);
-        }
+    	return snapshot.getBoolean(key);
     }
 
     public boolean getBoolean(String key, boolean defaultValue) {
-        String tmp = null;
-        try {
-            tmp = getString(key);
-            return Boolean.valueOf(tmp).booleanValue();
-        } catch (Exception e) {
-            return defaultValue;
-        }
+    	return snapshot.getBoolean(key, defaultValue);
     }
 
     public long getLong(String key) throws ConfiguratorException {
-        String tmp = null;
-        try {
-            tmp = getString(key);
-            return Long.valueOf(tmp).longValue();
-        } catch (Exception e) {
-            throw new ConfiguratorException("Check the configuration file : Illegal Long Value : " + tmp, e);
-        }
+    	return snapshot.getLong(key);
     }
 
     public long getLong(String key, long defaultValue) {
-        String tmp = null;
-        try {
-            tmp = getString(key);
-            return Long.valueOf(tmp).longValue();
-        } catch (Exception ex) {
-            return defaultValue;
-        }
+    	return snapshot.getLong(key, defaultValue);
     }
     
     public String getPath(String key, String defaultPath) {
@@ -157,6 +178,6 @@ public class PropertiesConfiguratorImpl implements Configurator {
     }
     
     public Set<Object> getKeySet() {
-    	return prop.keySet();
+    	return snapshot.getKeySet();
     }
 }
@@ -90,6 +90,11 @@ public class ContainerConfig {
 	 */
 	public static final String CONTAINER_RELOADINTERVAL_PROPERTY_KEY = ".reload.interval";
 	
+	/**
+	 * <code>Configurator</code> 로부터 ReloadableContainer의 reload 후 이전 컨테이너를 닫기까지 기다릴 시간을 얻기 위한 설정 값 접미사
+	 */
+	public static final String CONTAINER_RELOADDRAIN_PROPERTY_KEY = ".reload.drain";
+	
 	/**
 	 * <code>Configurator</code> 로부터 ReloadableContainer의 reload 시 사용할 Lock File 명을 얻기 위한 설정 값 접미사
 	 */
@@ -272,6 +277,18 @@ public class ContainerConfig {
 		return interval*1000L;
 	}
 	
+	/**
+	 * 설정 파일에서 reload 후 이전 서비스 컨테이너를 닫기 전에 진행 중인 요청이 끝나기를 기다릴 시간을 읽어 반환한다. (디폴트 30초)
+	 * 이 값은 Reloadable Container에서 사용된다.
+	 * @param cname
+	 * @return 기다릴 시간 (ms)
+	 */
+	public static long getReloadDrain(String cname) {
+		String value = getProperty(cname,CONTAINER_RELOADDRAIN_PROPERTY_KEY,"30");
+		Long drain = Long.parseLong(value);
+		return drain*1000L;
+	}
+	
 	/**
 	 * 설정 파일에서 클래스들의 reload 시 사용할 lock 파일명을 읽어서 반환한다.
 	 * 이 값은 Reloadable Container에서 사용된다.
@@ -6,6 +6,7 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -23,6 +24,7 @@ import s2.adapi.framework.container.ServiceContainerException;
 import s2.adapi.framework.container.ServiceInfo;
 import s2.adapi.framework.container.ServicePostProcessor;
 import s2.adapi.framework.container.support.ArgumentHolder;
+import s2.adapi.framework.container.support.ContainerMetrics;
 import s2.adapi.framework.container.support.PropertyHolder;
 import s2.adapi.framework.container.support.ServiceDefinition;
 import s2.adapi.framework.container.support.ServiceObject;
@@ -79,6 +81,19 @@ public class EnlistedServiceContainer implements ServiceContainer {
 	 * @param loader
 	 */
 	public EnlistedServiceContainer(ServiceRegistry svcRegistry, ClassLoader loader) {
+		this(svcRegistry, loader, null);
+	}
+	
+	/**
+	 * 이전 컨테이너에서 생성된 singleton 서비스 객체들을 그대로 이어받아 생성한다.
+	 * 재로딩시 변경되지 않은 서비스들을 다시 생성하지 않기 위하여 사용되며 
+	 * 이어받은 서비스들은 이 컨테이너에서 생성된 것과 동일하게 취급된다.
+	 * @param svcRegistry
+	 * @param loader
+	 * @param inheritedServices 이어받을 서비스 객체들 (null 가능)
+	 */
+	public EnlistedServiceContainer(ServiceRegistry svcRegistry, ClassLoader loader, 
+			Map<String,ServiceObject> inheritedServices) {
 		if (loader == null) {
 			classLoader = SystemHelper.getClassLoader();
 		} 
@@ -93,6 +108,10 @@ public class EnlistedServiceContainer implements ServiceContainer {
 			this.svcRegistry = svcRegistry;
 		}
 		
+		if (inheritedServices != null) {
+			singletonCache.putAll(inheritedServices);
+		}
+		
 		addAutoProxies();
 		
 		// 패턴 형태의 서비스 명칭은 따로 모아둔다.
@@ -258,7 +277,9 @@ public class EnlistedServiceContainer implements ServiceContainer {
 					svcObject = singletonCache.get(svcName);
 					if ( svcObject == null ) {
 						// singletonCache에 없으므로 새로 생성한다.
+						long cnanos = System.nanoTime();
 						svcObject = instantiateServiceObject(svcDef, runningCache, false);
+						ContainerMetrics.recordCreation(svcName, true, System.nanoTime() - cnanos);
 						// 생성된 서비스 객체를 singletonCache에 넣는다.
 						singletonCache.put(svcName, svcObject);
 					}
@@ -266,7 +287,9 @@ public class EnlistedServiceContainer implements ServiceContainer {
 			} 
 			else {
 				// runningCache에 없고 singleton이 아닌 경우, 바로 서비스 객체를 생성
+				long cnanos = System.nanoTime();
 				svcObject = instantiateServiceObject(svcDef, runningCache, false);
+				ContainerMetrics.recordCreation(svcName, false, System.nanoTime() - cnanos);
 			}
 		} 
 		else {
@@ -1018,6 +1041,15 @@ public class EnlistedServiceContainer implements ServiceContainer {
 	 * 서비스 정의 내용은 제거하지 않는다.
 	 */
 	private void destroyServices() 
+	{
+		destroyServices(null);
+	}
+	
+	/**
+	 * retained 에 포함되지 않은 서비스 객체들을 singletonCache에서 제거하고 소멸 메소드를 호출한다.
+	 * retained 에 포함된 서비스 객체는 다른 컨테이너로 이어졌으므로 소멸시키지 않는다.
+	 */
+	private void destroyServices(Set<String> retained) 
 	{
 		long stime = System.currentTimeMillis();
 		if ( log.isInfoEnabled() ) {
@@ -1028,6 +1060,10 @@ public class EnlistedServiceContainer implements ServiceContainer {
 		ServiceObject svcObject = null;
 		synchronized(singletonCache) {
 			for(int i=0;i<svcNames.length;i++) {
+				if (retained != null && retained.contains(svcNames[i])) {
+					singletonCache.remove(svcNames[i]);
+					continue;
+				}
 				svcObject = singletonCache.get(svcNames[i]);
 				if (svcObject != null) {
 					singletonCache.remove(svcNames[i]);
@@ -1146,6 +1182,71 @@ public class EnlistedServiceContainer implements ServiceContainer {
 		destroyServices();
 	}
 	
+	/**
+	 * retained 에 포함된 서비스를 제외한 서비스들을 소멸시킨다. 
+	 * 재로딩시 다음 컨테이너로 이어진 서비스들을 남기고 이전 컨테이너를 닫기 위하여 사용된다.
+	 * @param retained
+	 */
+	void close(Set<String> retained) {
+		destroyServices(retained);
+	}
+	
+	ServiceRegistry getServiceRegistry() {
+		return svcRegistry;
+	}
+	
+	/**
+	 * 주어진 서비스들 중 초기화가 완료된 singleton 서비스 객체들을 반환한다.
+	 * @param svcNames
+	 * @return
+	 */
+	Map<String,ServiceObject> getSingletonServices(Set<String> svcNames) {
+		Map<String,ServiceObject> svcMap = new HashMap<String,ServiceObject>();
+		
+		synchronized(singletonCache) {
+			for(String svcName:svcNames) {
+				ServiceObject svcObject = singletonCache.get(svcName);
+				if (svcObject != null && svcObject.isInitialized()) {
+					svcMap.put(svcName, svcObject);
+				}
+			}
+		}
+		
+		return svcMap;
+	}
+	
+	/**
+	 * 이 컨테이너를 참조하고 있어서 다른 컨테이너로 이어질 수 없는 서비스(TargetProxy)들의 명칭을 반환한다.
+	 * @return
+	 */
+	Set<String> getContainerBoundServices() {
+		Set<String> svcNames = new HashSet<String>();
+		
+		synchronized(singletonCache) {
+			for(Map.Entry<String,ServiceObject> entry:singletonCache.entrySet()) {
+				if (entry.getValue().getInnerObject() instanceof TargetProxy) {
+					svcNames.add(entry.getKey());
+				}
+			}
+		}
+		
+		return svcNames;
+	}
+	
+	/**
+	 * 주어진 서비스가 AutoProxy 서비스인지 확인한다. AutoProxy 는 다른 서비스들의 생성에 영향을 준다.
+	 * @param svcDef
+	 * @return
+	 */
+	boolean isAutoProxyService(ServiceDefinition svcDef) {
+		try {
+			return AutoProxy.class.isAssignableFrom(loadClass(svcDef.getServiceClass()));
+		}
+		catch (Throwable e) {
+			return false;
+		}
+	}
+	
 	/**
 	 * 서비스 객체를 생성하기 위하여 설정된 클래스로더를 사용하여 주어진 명칭의 클래스를 로딩한다. 
 	 * @param className
@@ -1,15 +1,32 @@
 package s2.adapi.framework.container.impl;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,9 +34,11 @@ import org.slf4j.LoggerFactory;
 import s2.adapi.framework.container.ContainerConfig;
 import s2.adapi.framework.container.ServiceContainer;
 import s2.adapi.framework.container.ServicePostProcessor;
+import s2.adapi.framework.container.support.ServiceDefinition;
+import s2.adapi.framework.container.support.ServiceObject;
 import s2.adapi.framework.container.support.ServiceRegistry;
+import s2.adapi.framework.util.FileChangeNotifier;
 import s2.adapi.framework.util.FileUtil;
-import s2.adapi.framework.util.FileWatchdog;
 import s2.adapi.framework.util.FileWatchdogListener;
 import s2.adapi.framework.util.JarUtil;
 import s2.adapi.framework.util.StringHelper;
@@ -29,7 +48,7 @@ import s2.adapi.framework.util.SystemHelper;
  * Hot deploy 가 가능한 ServiceContainer의 구현 클래스이다.
  * 내부적으로 별도의 URLClassLoader를 생성하여 이로부터 EnlistedServiceContainer 객체를 생성하여 사용한다.
  * reload() 메소드가 호출되면 새로운 URLClassLoader와 이를 사용한 EnlistedServiceContainer 객체를 다시 생성하는 방식으로
- * Hot deploy 기능을 구현한다.
+ * Hot deploy 기능을 구현한다. 서비스 설정 파일만 바뀐 경우에는 기존 URLClassLoader 를 사용하며 바뀐 서비스들만 다시 생성한다.
  * @author kimhd
  * @since 5.0
  */
@@ -38,7 +57,12 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 	
 	private static final Logger log = LoggerFactory.getLogger(ReloadableXmlServiceContainer.class);
 	
-	private ClassLoader classLoader = null;
+	/**
+	 * work 디렉토리에 풀어둔 Jar 의 항목별 digest 를 기록하는 파일 명
+	 */
+	private static final String DIGEST_FILE_NAME = ".s2adapi-module.digest";
+	
+	private static ScheduledExecutorService retireExecutor = null;
 	
 	private String svcDirectory = null;
 	private String[] svcFilePatterns = null;
@@ -52,7 +76,7 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 	
 	private boolean isPopulated = false;
 	
-	private FileWatchdog watchDog = null;
+	private FileChangeNotifier.Registration watchReg = null;
 	
 	/**
 	 * 설정 파일의 디폴트 설정값을 기준으로 컨테이너 객체를 생성하는 디폴트 생성자이다.
@@ -82,19 +106,22 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 		runReloader();
 	}
 	
+	/**
+	 * reload 간격이 설정되어 있으면 모듈 디렉토리를 FileChangeNotifier 에 등록하여 변경시 reload() 가 호출되도록 한다.
+	 * 파일 변경 이벤트를 사용할 수 있으면 변경 직후 reload 되며, 사용할 수 없으면 reload 간격마다 변경 여부를 확인한다.
+	 */
 	protected void runReloader() {
 		if (reloadInterval > 0L) {
 			File moduleDir = new File(ContainerConfig.getModuleDirectory(containerName));
 			
-			watchDog = new FileWatchdog(moduleDir);
-			watchDog.setListener(this);
-			watchDog.setDelay(reloadInterval);
+			File lock = null;
 			String lockFile = ContainerConfig.getReloadLockFile(containerName);
 			if (!StringHelper.isNull(lockFile)) {
-				watchDog.setLockFile(new File(lockFile));
+				lock = new File(lockFile);
+				lock.deleteOnExit();
 			}
 			
-			watchDog.start();
+			watchReg = FileChangeNotifier.instance().register(moduleDir, this, reloadInterval, lock);
 		}
 	}
 	
@@ -103,30 +130,115 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 		File moduleDir = new File(ContainerConfig.getModuleDirectory(containerName));
 		File classDir = new File(ContainerConfig.getClassDirectory(containerName));
 		
-		classLoader = reloadClassLoader(moduleDir,classDir);
+		updateWorkDirectory(getJarFiles(moduleDir),classDir);
+		ClassLoader loader = constructClassLoader(classDir.listFiles());
 
+		return new EnlistedServiceContainer(loadServiceRegistry(loader,svcDir,patterns,null),loader);
+	}
+	
+	/**
+	 * 주어진 클래스로더의 클래스패스에서 서비스 설정 파일들을 찾아서 서비스 레지스트리를 생성한다.
+	 * @param svcFileSet 로딩한 서비스 설정 파일들을 담아서 반환한다. (null 가능)
+	 */
+	private ServiceRegistry loadServiceRegistry(ClassLoader loader, String svcDir, String[] patterns, Set<File> svcFileSet) {
 		File[] svcFiles = null;
 		try {
-			File[] rootDirs = SystemHelper.getResourcesAsFile(classLoader,svcDir);
+			File[] rootDirs = SystemHelper.getResourcesAsFile(loader,svcDir);
 			log.info("container root dir = "+rootDirs.length);
 			for(int i=0;i<rootDirs.length;i++) {
 				log.info(rootDirs[i].getAbsolutePath());
 			}
-			List<File> svcFileSet = FileUtil.getFilesOfPatternAsPatternOrder(rootDirs, patterns, false);
-			svcFiles = svcFileSet.toArray(new File[svcFileSet.size()]);
+			List<File> svcFileList = FileUtil.getFilesOfPatternAsPatternOrder(rootDirs, patterns, false);
+			svcFiles = svcFileList.toArray(new File[svcFileList.size()]);
 		} catch (IOException e) {
 			 if (log.isErrorEnabled()) {
 	                log.error(svcDir+" for service configuration files is not accessible.", e);
 	         }
 		}
 		
-		ServiceRegistry svcRegistry = buildServiceRegistry(svcFiles);
-		return new EnlistedServiceContainer(svcRegistry,classLoader);
+		if (svcFileSet != null && svcFiles != null) {
+			for(int i=0;i<svcFiles.length;i++) {
+				svcFileSet.add(canonicalFile(svcFiles[i]));
+			}
+		}
+		
+		return buildServiceRegistry(svcFiles);
 	}
 	
-	public synchronized void reload() {
+	/**
+	 * 서비스 컨테이너를 다시 생성한다. reload(true) 와 같으므로 바뀐 모듈이 없어도 모든 서비스를 다시 생성한다.
+	 * 운영자가 서비스 설정 파일이나 설정을 바꾼 후 직접 reload 하는 경우에 사용된다.
+	 */
+	public void reload() {
+		reload(true);
+	}
+	
+	/**
+	 * <p>
+	 * 변경된 모듈을 반영하여 서비스 컨테이너를 다시 생성한다.
+	 * </p>
+	 * <ul>
+	 * <li> 내용이 바뀐 Jar 파일만 work 디렉토리에 다시 풀며, 바뀐 Jar 가 없으면 force 가 false 인 경우 아무것도 하지 않고
+	 * true 인 경우 새로운 클래스로더로 모든 서비스를 다시 생성한다. (서비스 설정 파일이 모듈 밖에 있는 경우 등)
+	 * <li> 클래스 파일이 바뀌었거나 Jar 가 추가/삭제된 경우에는 새로운 클래스로더로 모든 서비스를 다시 생성한다.
+	 * <li> 서비스 설정 파일만 바뀐 경우에는 기존 클래스로더를 그대로 사용하고 정의가 바뀐 서비스와 
+	 * 이를 참조하는 서비스들만 다시 생성하며 나머지 singleton 서비스는 새 컨테이너로 이어진다.
+	 * <li> 그 외의 리소스 파일이 바뀐 경우에는 기존 클래스로더로 모든 서비스를 다시 생성한다.
+	 * </ul>
+	 * <p>
+	 * 새 컨테이너로 교체된 후 이전 컨테이너는 진행 중인 요청이 끝날 수 있도록 
+	 * s2adapi.container.&lt;컨테이너명&gt;.reload.drain 초가 지난 후에 닫힌다.
+	 * </p>
+	 * @param force true 이면 바뀐 모듈이 없어도 모든 서비스를 다시 생성한다. 모듈 디렉토리의 변경 감지에 의한 호출은 false 이다.
+	 */
+	public synchronized void reload(boolean force) {
+		long stime = System.currentTimeMillis();
 
-		ServiceContainer newContainer = buildContainer(svcDirectory,svcFilePatterns);
+		File moduleDir = new File(ContainerConfig.getModuleDirectory(containerName));
+		File classDir = new File(ContainerConfig.getClassDirectory(containerName));
+		
+		ModuleChanges changes = updateWorkDirectory(getJarFiles(moduleDir),classDir);
+		if (!changes.isChanged() && !force) {
+			log.info("## modules are not changed. reload is skipped.");
+			return;
+		}
+		
+		ServiceContainer oldContainer = svcContainer;
+		ServiceContainer newContainer = null;
+		Set<String> retained = Collections.emptySet();
+		
+		if (changes.isChanged() && !changes.classesChanged && oldContainer instanceof EnlistedServiceContainer) {
+			EnlistedServiceContainer oldEnlisted = (EnlistedServiceContainer)oldContainer;
+			ClassLoader loader = oldContainer.getClassLoader();
+			
+			Set<File> svcFileSet = new HashSet<File>();
+			ServiceRegistry newRegistry = loadServiceRegistry(loader,svcDirectory,svcFilePatterns,svcFileSet);
+			
+			Set<String> affected = null;
+			if (svcFileSet.containsAll(changes.changedFiles)) {
+				affected = getAffectedServices(oldEnlisted, newRegistry);
+			}
+			
+			if (affected != null) {
+				Set<String> unaffected = newRegistry.getAllServiceNames();
+				unaffected.removeAll(affected);
+				Map<String,ServiceObject> inherited = oldEnlisted.getSingletonServices(unaffected);
+				retained = inherited.keySet();
+				
+				log.info("## reload services : " + affected.size() + " rebuilt, " + retained.size() + " kept. " + affected);
+				newContainer = new EnlistedServiceContainer(newRegistry,loader,inherited);
+			}
+			else {
+				log.info("## reload all services with the current class loader.");
+				newContainer = new EnlistedServiceContainer(newRegistry,loader);
+			}
+		}
+		else {
+			log.info("## reload all services with a new class loader.");
+			ClassLoader loader = constructClassLoader(classDir.listFiles());
+			newContainer = new EnlistedServiceContainer(
+					loadServiceRegistry(loader,svcDirectory,svcFilePatterns,null),loader);
+		}
 		
 		// PostProcessor를 재등록한다.
 		for(int i=0;i<postProcessors.size();i++) {
@@ -138,17 +250,122 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 			newContainer.populateServices();
 		}
 		
-		ServiceContainer oldContainer = svcContainer; // close() 호출을 위하여 담아둔다. (2016.02.24)
-		
 		svcContainer = newContainer;
 		
-		oldContainer.close(); // 이전 컨테이너 리소스 clear (2016.02.24)
+		retire(oldContainer, retained);
+		
+		log.info("## reload done... " + (System.currentTimeMillis() - stime) + " msec.");
+	}
+	
+	/**
+	 * 서비스 정의가 바뀐 서비스들과 이들을 직접 또는 간접적으로 참조하는 서비스들의 명칭을 구한다.
+	 * AutoProxy 서비스가 바뀐 경우에는 다른 모든 서비스의 생성에 영향을 주므로 null 을 반환한다.
+	 */
+	private Set<String> getAffectedServices(EnlistedServiceContainer oldContainer, ServiceRegistry newRegistry) {
+		ServiceRegistry oldRegistry = oldContainer.getServiceRegistry();
+		Set<String> newNames = newRegistry.getAllServiceNames();
+		
+		Set<String> changed = new HashSet<String>();
+		for(String svcName:newNames) {
+			if (!newRegistry.getServiceDefinition(svcName).isSameDefinition(oldRegistry.getServiceDefinition(svcName))) {
+				changed.add(svcName);
+			}
+		}
+		for(String svcName:oldRegistry.getAllServiceNames()) {
+			if (!newRegistry.containsServiceDefinition(svcName)) {
+				changed.add(svcName);
+			}
+		}
+		
+		for(String svcName:changed) {
+			ServiceDefinition svcDef = newRegistry.getServiceDefinition(svcName);
+			if (svcDef == null) {
+				svcDef = oldRegistry.getServiceDefinition(svcName);
+			}
+			if (oldContainer.isAutoProxyService(svcDef)) {
+				log.info("## auto-proxy service is changed. [" + svcName + "]");
+				return null;
+			}
+		}
+		
+		// 이전 컨테이너를 참조하는 서비스들은 이어받을 수 없다.
+		Set<String> affected = new HashSet<String>(changed);
+		affected.addAll(oldContainer.getContainerBoundServices());
+		
+		// 참조 관계를 역으로 따라가며 영향받는 서비스들을 추가한다.
+		Map<String,List<String>> dependents = new HashMap<String,List<String>>();
+		for(String svcName:newNames) {
+			for(String ref:newRegistry.getServiceDefinition(svcName).getReferences()) {
+				List<String> list = dependents.get(ref);
+				if (list == null) {
+					list = new ArrayList<String>();
+					dependents.put(ref, list);
+				}
+				list.add(svcName);
+			}
+		}
+		
+		LinkedList<String> queue = new LinkedList<String>(affected);
+		while(!queue.isEmpty()) {
+			List<String> list = dependents.get(queue.removeFirst());
+			if (list != null) {
+				for(String dependent:list) {
+					if (affected.add(dependent)) {
+						queue.add(dependent);
+					}
+				}
+			}
+		}
+		
+		return affected;
+	}
+	
+	/**
+	 * 교체된 이전 컨테이너를 drain 시간이 지난 후에 닫는다. 새 컨테이너로 이어진 서비스들은 소멸시키지 않는다.
+	 */
+	private void retire(final ServiceContainer oldContainer, final Set<String> retained) {
+		Runnable closer = new Runnable() {
+			public void run() {
+				try {
+					if (oldContainer instanceof EnlistedServiceContainer) {
+						((EnlistedServiceContainer)oldContainer).close(retained);
+					}
+					else {
+						oldContainer.close(); // 이전 컨테이너 리소스 clear (2016.02.24)
+					}
+				}
+				catch (Throwable thr) {
+					log.error("## failed to close the previous container.", thr);
+				}
+			}
+		};
+		
+		long drain = ContainerConfig.getReloadDrain(containerName);
+		if (drain > 0L) {
+			getRetireExecutor().schedule(closer, drain, TimeUnit.MILLISECONDS);
+		}
+		else {
+			closer.run();
+		}
+	}
+	
+	private static synchronized ScheduledExecutorService getRetireExecutor() {
+		if (retireExecutor == null) {
+			retireExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "S2API.ContainerRetire");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		
+		return retireExecutor;
 	}
 
 	public void close() {
-		if (watchDog != null) {
-			//System.out.println("WATCHDOG QUIT");
-			watchDog.quit();
+		if (watchReg != null) {
+			watchReg.cancel();
 		}
 		svcContainer.close();
 	}
@@ -165,13 +382,6 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 		isPopulated = true;
 	}
 	
-	private ClassLoader reloadClassLoader(File moduleDir, File classDir) {
-		List<File> jarFiles = getJarFiles(moduleDir);
-		updateWorkDirectory(jarFiles,classDir);
-		return constructClassLoader(classDir.listFiles());
-		
-	}
-	
 	/**
 	 * 주어진 classPath들을 사용하여 URLClassLoader 객체를 생성한다.
 	 * @param classPath
@@ -220,8 +430,12 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 	
 	/**
 	 * 갱신된 Jar 파일들이 있으면 이를 work 디렉토리에 반영한다.
+	 * Jar 파일의 수정 시간이 바뀌었더라도 각 항목의 CRC 와 크기가 이전에 풀어둔 내용과 같으면 다시 풀지 않는다.
+	 * @return 변경 내역
 	 */
-	private void updateWorkDirectory(List<File> jarFiles, File classDir) {
+	private ModuleChanges updateWorkDirectory(List<File> jarFiles, File classDir) {
+		ModuleChanges changes = new ModuleChanges();
+		
 		// 클래스 디렉토리 없으면 생성하기
 		try {
 			if (!classDir.exists()) {
@@ -235,7 +449,7 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 		File[] workDirFiles = classDir.listFiles();
 		if (workDirFiles == null) {
 			log.error("Invalid class directory ["+classDir.getAbsolutePath()+"].");
-			return;
+			return changes;
 		}
 		Map<String,File> workFileMap = new HashMap<String,File>();
 		for(int i=0;i<workDirFiles.length;i++) {
@@ -245,7 +459,6 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 		// JAR 파일들과 work Directory의 파일들의 맵을 비교한다.
 		File jarFile = null;
 		File workFile = null;
-		List<File> updatedJarFiles = new ArrayList<File>();
 		
 		for(int i=0;i<jarFiles.size();i++) {
 			jarFile = jarFiles.get(i);
@@ -253,17 +466,53 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 			if (workFile == null) {
 				log.info("New Module : " + jarFile.getName());
 				// jarFile is new One.
-				updatedJarFiles.add(jarFile);
-			} else {
-				// compare the modified date.
-				if (jarFile.lastModified() > workFile.lastModified()) {
+				unjar(jarFile, classDir, true, readEntryDigests(jarFile));
+				changes.classesChanged = true;
+			} 
+			else if (jarFile.lastModified() <= workFile.lastModified()) {
+				log.info("Not Modified : " + jarFile.getName());
+			}
+			else {
+				// compare the contents of the jar file.
+				Map<String,String> digests = readEntryDigests(jarFile);
+				Map<String,String> prevDigests = loadEntryDigests(workFile);
+				
+				if (digests != null && digests.equals(prevDigests)) {
+					log.info("Not Modified (same contents) : " + jarFile.getName());
+					workFile.setLastModified(System.currentTimeMillis());
+					continue;
+				}
+				
+				Set<String> changedEntries = diffEntries(prevDigests, digests);
+				boolean classChanged = (changedEntries == null);
+				if (!classChanged) {
+					for(String entry:changedEntries) {
+						if (entry.endsWith(".class")) {
+							classChanged = true;
+							break;
+						}
+					}
+				}
+				
+				if (classChanged) {
 					// jarFile is updated.
 					// delete workFile and its subDirectories.
 					log.info("Updated : "+jarFile.getName());
 					FileUtil.deleteDirectory(workFile, true);
-					updatedJarFiles.add(jarFile);
-				} else {
-					log.info("Not Modified : " + jarFile.getName());
+					unjar(jarFile, classDir, true, digests);
+					changes.classesChanged = true;
+				}
+				else {
+					// 클래스가 바뀌지 않았으므로 현재 클래스로더가 사용 중인 디렉토리를 지우지 않고 덮어쓴다.
+					log.info("Updated (resources only) : "+jarFile.getName()+" "+changedEntries);
+					for(String entry:changedEntries) {
+						File file = new File(workFile, entry);
+						if (!digests.containsKey(entry)) {
+							file.delete();
+						}
+						changes.changedFiles.add(canonicalFile(file));
+					}
+					unjar(jarFile, classDir, false, digests);
 				}
 			}
 		}
@@ -274,32 +523,187 @@ public class ReloadableXmlServiceContainer extends XmlConfiguredServiceContainer
 			workFile = itor.next();
 			log.info("Deleted : " + workFile.getName());
 			FileUtil.deleteDirectory(workFile, true);
+			changes.classesChanged = true;
 		}
 		
-		// unjar all updated jar files to work directory
-		for(int i=0;i<updatedJarFiles.size();i++) {
-			jarFile = updatedJarFiles.get(i);
+		return changes;
+	}
+	
+	/**
+	 * Jar 파일을 work 디렉토리에 풀고 항목별 digest 를 기록한다. 실패하면 1초 후 한번 더 시도한다.
+	 */
+	private void unjar(File jarFile, File classDir, boolean clean, Map<String,String> digests) {
+		File outDir = new File(classDir,jarFile.getName());
+		try {
+			log.info("Unjar : " + jarFile.getName());
+			JarUtil.unjar(jarFile, outDir, clean);
+		} catch (IOException ex) {
+			log.error("cannot extract jar files, so retry after 1 sec. ["+jarFile.getPath()+"]");
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException ignored) {}
 			try {
 				log.info("Unjar : " + jarFile.getName());
-				JarUtil.unjar(jarFile, new File(classDir,jarFile.getName()), true);
-			} catch (IOException ex) {
-				log.error("cannot extract jar files, so retry after 1 sec. ["+jarFile.getPath()+"]");
-				try {
-					Thread.sleep(1000);
-				} catch (InterruptedException ignored) {}
+				JarUtil.unjar(jarFile, outDir, clean);
+				log.info("Unjar successful.");
+			} catch (IOException ex2) {
+				log.error("cannot extract jar files again. ["+jarFile.getPath()+"]",ex2);
+				return;
+			}
+		}
+		
+		saveEntryDigests(outDir, digests);
+	}
+	
+	/**
+	 * Jar 파일의 각 항목에 대하여 CRC 와 크기로 이루어진 digest 를 구한다. (압축을 풀지 않고 central directory 만 읽는다.)
+	 * 읽을 수 없으면 null 을 반환한다.
+	 */
+	private Map<String,String> readEntryDigests(File jarFile) {
+		Map<String,String> digests = new HashMap<String,String>();
+		
+		JarFile jar = null;
+		try {
+			jar = new JarFile(jarFile);
+			Enumeration<JarEntry> entries = jar.entries();
+			while(entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+				// JarUtil.unjar() 는 manifest 를 풀지 않으므로 비교 대상에서도 제외한다.
+				if (!entry.isDirectory() && !JarFile.MANIFEST_NAME.equalsIgnoreCase(entry.getName())) {
+					digests.put(entry.getName(), Long.toHexString(entry.getCrc()) + ":" + entry.getSize());
+				}
+			}
+		} 
+		catch (IOException ex) {
+			log.error("cannot read jar file. ["+jarFile.getPath()+"]",ex);
+			return null;
+		}
+		finally {
+			if (jar != null) {
 				try {
-					log.info("Unjar : " + jarFile.getName());
-					JarUtil.unjar(jarFile, new File(classDir,jarFile.getName()), true);
-					log.info("Unjar successful.");
-				} catch (IOException ex2) {
-					log.error("cannot extract jar files again. ["+jarFile.getPath()+"]",ex2);
+					jar.close();
+				} catch (IOException ignored) {}
+			}
+		}
+		
+		return digests;
+	}
+	
+	/**
+	 * 두 digest 목록을 비교하여 추가, 삭제, 변경된 항목들을 반환한다. 비교할 수 없으면 null 을 반환한다.
+	 */
+	private Set<String> diffEntries(Map<String,String> prev, Map<String,String> current) {
+		if (prev == null || current == null) {
+			return null;
+		}
+		
+		Set<String> changed = new HashSet<String>();
+		for(Map.Entry<String,String> entry:current.entrySet()) {
+			if (!entry.getValue().equals(prev.get(entry.getKey()))) {
+				changed.add(entry.getKey());
+			}
+		}
+		for(String name:prev.keySet()) {
+			if (!current.containsKey(name)) {
+				changed.add(name);
+			}
+		}
+		
+		return changed;
+	}
+	
+	private Map<String,String> loadEntryDigests(File workDir) {
+		File digestFile = new File(workDir, DIGEST_FILE_NAME);
+		if (!digestFile.isFile()) {
+			return null;
+		}
+		
+		Map<String,String> digests = new HashMap<String,String>();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(digestFile), "UTF-8"));
+			String line = null;
+			while((line = reader.readLine()) != null) {
+				int idx = line.lastIndexOf('\t');
+				if (idx > 0) {
+					digests.put(line.substring(0, idx), line.substring(idx + 1));
 				}
 			}
 		}
+		catch (IOException ex) {
+			log.warn("cannot read the module digest file. ["+digestFile.getPath()+"]",ex);
+			return null;
+		}
+		finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException ignored) {}
+			}
+		}
+		
+		return digests;
+	}
+	
+	private void saveEntryDigests(File workDir, Map<String,String> digests) {
+		File digestFile = new File(workDir, DIGEST_FILE_NAME);
+		if (digests == null) {
+			digestFile.delete();
+			return;
+		}
+		
+		Writer writer = null;
+		try {
+			writer = new OutputStreamWriter(new FileOutputStream(digestFile), "UTF-8");
+			for(Map.Entry<String,String> entry:digests.entrySet()) {
+				writer.write(entry.getKey());
+				writer.write('\t');
+				writer.write(entry.getValue());
+				writer.write('\n');
+			}
+		}
+		catch (IOException ex) {
+			log.warn("cannot write the module digest file. ["+digestFile.getPath()+"]",ex);
+			digestFile.delete();
+		}
+		finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+	
+	private static File canonicalFile(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException ex) {
+			return file.getAbsoluteFile();
+		}
 	}
 
 	public void fileChanged() {
 		//System.out.println("Reload");
-		reload();
+		reload(false);
+	}
+	
+	/**
+	 * work 디렉토리에 반영된 모듈 변경 내역
+	 */
+	private static class ModuleChanges {
+		/**
+		 * 클래스 파일이 바뀌었거나 모듈이 추가/삭제되어 새로운 클래스로더가 필요한지 여부
+		 */
+		private boolean classesChanged = false;
+		
+		/**
+		 * 클래스 이외의 바뀐 파일들
+		 */
+		private Set<File> changedFiles = new HashSet<File>();
+		
+		boolean isChanged() {
+			return classesChanged || !changedFiles.isEmpty();
+		}
 	}
 }
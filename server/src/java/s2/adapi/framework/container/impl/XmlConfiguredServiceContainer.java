@@ -27,7 +27,7 @@ public class XmlConfiguredServiceContainer implements ServiceContainer {
 
 	private static final Logger log = LoggerFactory.getLogger(XmlConfiguredServiceContainer.class);
 	
-	protected ServiceContainer svcContainer = null;
+	protected volatile ServiceContainer svcContainer = null;
 
 	protected String containerName = null;
 	
@@ -0,0 +1,135 @@
+package s2.adapi.framework.container.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * ServiceContainer 가 생성한 서비스 객체의 생성 통계를 서비스 명 별로 모아 놓는 저장소이다.
+ * 서비스 객체를 생성할 때 자동으로 기록하며, 설정파일의 s2adapi.container.metrics.enabled 값을 false 로 지정하면 기록하지 않는다.
+ * </p>
+ * <p>
+ * singleton 서비스의 생성 시간은 최초 요청의 응답 시간에 그대로 더해지므로,
+ * 생성 시간이 긴 서비스는 pre-init 으로 지정하는 것을 검토할 수 있다.
+ * 기록된 통계는 snapshot() 으로 조회하거나 MetricsWebAction 을 통하여 조회할 수 있다.
+ * </p>
+ * @author 김형도
+ */
+public class ContainerMetrics {
+	
+	private static final String METRICS_ENABLED_KEY = "s2adapi.container.metrics.enabled";
+	
+	private static boolean enabled = true;
+	static {
+		try {
+			enabled = ConfiguratorFactory.getConfigurator().getBoolean(METRICS_ENABLED_KEY, true);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private static final ConcurrentMap<String, ServiceCreationMetrics> metricsMap =
+			new ConcurrentHashMap<String, ServiceCreationMetrics>();
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+	
+	/**
+	 * 서비스 객체 생성 1건을 기록한다.
+	 * @param svcName 서비스 명
+	 * @param singleton singleton 서비스 여부
+	 * @param nanos System.nanoTime() 으로 측정한 생성 시간
+	 */
+	public static void recordCreation(String svcName, boolean singleton, long nanos) {
+		if (!enabled || svcName == null) {
+			return;
+		}
+		
+		ServiceCreationMetrics metrics = metricsMap.get(svcName);
+		if (metrics == null) {
+			ServiceCreationMetrics created = new ServiceCreationMetrics(svcName);
+			metrics = metricsMap.putIfAbsent(svcName, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		
+		metrics.record(singleton, nanos);
+	}
+	
+	/**
+	 * 주어진 서비스 명의 생성 통계를 반환한다. 기록된 적이 없으면 null 을 반환한다.
+	 * @param svcName
+	 * @return
+	 */
+	public static ServiceCreationMetrics getServiceMetrics(String svcName) {
+		return metricsMap.get(svcName);
+	}
+	
+	/**
+	 * 기록된 모든 서비스 명을 정렬하여 반환한다.
+	 * @return
+	 */
+	public static List<String> getServiceNames() {
+		List<String> names = new ArrayList<String>(metricsMap.keySet());
+		Collections.sort(names);
+		
+		return names;
+	}
+	
+	/**
+	 * 기록된 모든 통계를 지운다.
+	 */
+	public static void reset() {
+		metricsMap.clear();
+	}
+	
+	/**
+	 * 기록된 통계를 서비스 별로 한 row 씩 ValueObject 에 담아 반환한다.
+	 * 생성 시간은 마이크로초(us) 단위이며 각 row 에 담기는 항목은 다음과 같다.
+	 * <ul>
+	 * <li> service, singleton, created
+	 * <li> total, mean, max, last
+	 * </ul>
+	 * @return
+	 */
+	public static ValueObject snapshot() {
+		ValueObject snapshotVO = new ValueObject();
+		
+		int row = 0;
+		for(String name:getServiceNames()) {
+			ServiceCreationMetrics metrics = metricsMap.get(name);
+			if (metrics == null) {
+				continue;
+			}
+			
+			long created = metrics.getCreated();
+			snapshotVO.set(row, "service", name);
+			snapshotVO.set(row, "singleton", metrics.isSingleton());
+			snapshotVO.set(row, "created", created);
+			snapshotVO.set(row, "total", toMicros(metrics.getTotalNanos()));
+			snapshotVO.set(row, "mean", toMicros((created == 0)?0:(metrics.getTotalNanos() / created)));
+			snapshotVO.set(row, "max", toMicros(metrics.getMaxNanos()));
+			snapshotVO.set(row, "last", toMicros(metrics.getLastNanos()));
+			row++;
+		}
+		
+		return snapshotVO;
+	}
+	
+	private static long toMicros(long nanos) {
+		return nanos / 1000L;
+	}
+}
@@ -0,0 +1,74 @@
+package s2.adapi.framework.container.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 서비스 하나의 객체 생성 통계를 기록한다.
+ * 생성 시간은 생성자 호출부터 setter injection, init-method 호출까지이며, 이 과정에서 함께 생성된 하위 서비스의 생성 시간도 포함된다.
+ * @author 김형도
+ */
+public class ServiceCreationMetrics {
+	
+	private final String serviceName;
+	private volatile boolean singleton = false;
+	
+	private final LongAdder created = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong(0);
+	private volatile long lastNanos = 0;
+	
+	ServiceCreationMetrics(String svcName) {
+		serviceName = svcName;
+	}
+	
+	/**
+	 * 서비스 객체 생성 1건을 기록한다.
+	 * @param isSingleton singleton 서비스 여부
+	 * @param nanos System.nanoTime() 으로 측정한 생성 시간
+	 */
+	public void record(boolean isSingleton, long nanos) {
+		singleton = isSingleton;
+		created.increment();
+		totalNanos.add(nanos);
+		lastNanos = nanos;
+		
+		long current = maxNanos.get();
+		while (nanos > current) {
+			if (maxNanos.compareAndSet(current, nanos)) {
+				break;
+			}
+			current = maxNanos.get();
+		}
+	}
+	
+	public String getServiceName() {
+		return serviceName;
+	}
+	
+	public boolean isSingleton() {
+		return singleton;
+	}
+	
+	/**
+	 * 생성된 객체 수, singleton 서비스는 container 가 reload 될 때마다 늘어난다.
+	 */
+	public long getCreated() {
+		return created.sum();
+	}
+	
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+	
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+	
+	/**
+	 * 마지막으로 생성할 때 걸린 시간
+	 */
+	public long getLastNanos() {
+		return lastNanos;
+	}
+}
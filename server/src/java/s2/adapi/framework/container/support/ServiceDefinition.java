@@ -1,7 +1,9 @@
 package s2.adapi.framework.container.support;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 서비스의 정의 내용을 가진다. 서비스 설정파일로부터 서비스 설정 내용을 가져와서
@@ -333,6 +335,80 @@ public class ServiceDefinition {
 		}
 	}
 	
+	/**
+	 * 이 서비스가 참조하는 서비스 명들을 반환한다. (property, 생성자 argument, factory, interceptor 참조)
+	 * @return
+	 */
+	public Set<String> getReferences() {
+		Set<String> refs = new HashSet<String>();
+		
+		for(PropertyHolder ph:properties) {
+			if (ph.hasReference()) {
+				refs.add(ph.getValue());
+			}
+		}
+		for(ArgumentHolder ah:arguments) {
+			if (ah.hasReference()) {
+				refs.add(ah.getValue());
+			}
+		}
+		if (factoryRef != null) {
+			refs.add(factoryRef);
+		}
+		if (interceptorRef != null) {
+			refs.add(interceptorRef);
+		}
+		
+		return refs;
+	}
+	
+	/**
+	 * 주어진 서비스 정의와 내용이 같은지 비교한다. 정의된 파일 정보(fromInfo)는 비교하지 않는다.
+	 * 컨테이너 재로딩시 변경된 서비스를 찾기 위하여 사용된다.
+	 * @param other
+	 * @return
+	 */
+	public boolean isSameDefinition(ServiceDefinition other) {
+		if (other == null) {
+			return false;
+		}
+		
+		if (singleton != other.singleton || preInit != other.preInit || activate != other.activate
+				|| loadPriority != other.loadPriority || constructorSet != other.constructorSet
+				|| !equals(name, other.name) || !equals(svcClass, other.svcClass) || !equals(svcInf, other.svcInf)
+				|| !equals(interceptorRef, other.interceptorRef) || !equals(initMethod, other.initMethod)
+				|| !equals(destroyMethod, other.destroyMethod) || !equals(factoryClass, other.factoryClass)
+				|| !equals(factoryRef, other.factoryRef) || !equals(factoryMethod, other.factoryMethod)) {
+			return false;
+		}
+		
+		if (properties.size() != other.properties.size() || arguments.size() != other.arguments.size()) {
+			return false;
+		}
+		for(int i=0;i<properties.size();i++) {
+			PropertyHolder ph = properties.get(i);
+			PropertyHolder oph = other.properties.get(i);
+			if (ph.hasReference() != oph.hasReference() || !equals(ph.getName(), oph.getName())
+					|| !equals(ph.getValue(), oph.getValue())) {
+				return false;
+			}
+		}
+		for(int i=0;i<arguments.size();i++) {
+			ArgumentHolder ah = arguments.get(i);
+			ArgumentHolder oah = other.arguments.get(i);
+			if (ah.hasReference() != oah.hasReference() || !equals(ah.getType(), oah.getType())
+					|| !equals(ah.getValue(), oah.getValue())) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static boolean equals(String a, String b) {
+		return (a == null) ? (b == null) : a.equals(b);
+	}
+	
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("[name=").append(name);
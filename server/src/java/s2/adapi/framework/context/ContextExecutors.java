@@ -0,0 +1,203 @@
+package s2.adapi.framework.context;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * 작업을 제출한 쓰레드의 컨텍스트(ServiceContext, Diagnostic Map, MDC)를
+ * 실행 쓰레드로 전달하는 ExecutorService 를 생성한다.
+ * 프레임워크 내부에서 별도 쓰레드로 작업을 실행하는 경우에는 이 클래스가 생성하는 ExecutorService 를 사용한다.
+ * Transaction 은 전달하지 않으므로 작업에서 DB 를 사용하려면 자신의 트랜젝션을 시작해야 한다.
+ * </p>
+ * <p>
+ * virtual thread 는 Java 21 이상에서 실행되는 경우에만 사용되며, 그 이하 버전에서는
+ * 지정된 크기의 일반 쓰레드 풀로 대체된다.
+ * </p>
+ * @author kimhd
+ */
+public class ContextExecutors {
+	
+	private static final Logger log = LoggerFactory.getLogger(ContextExecutors.class);
+	
+	/**
+	 * 주어진 ExecutorService 에 제출되는 작업들이 제출한 쓰레드의 컨텍스트를 가지고 실행되도록 감싼다.
+	 * @param executor
+	 * @return
+	 */
+	public static ExecutorService propagating(ExecutorService executor) {
+		if (executor instanceof ContextPropagatingExecutorService) {
+			return executor;
+		}
+		
+		return new ContextPropagatingExecutorService(executor);
+	}
+	
+	/**
+	 * 최대 threads 개의 daemon 쓰레드를 사용하는 컨텍스트 전달 쓰레드 풀을 생성한다.
+	 * 사용되지 않는 쓰레드는 60초 후에 종료된다.
+	 * @param name 쓰레드 명칭의 prefix
+	 * @param threads 최대 쓰레드 수
+	 * @return
+	 */
+	public static ExecutorService newFixedThreadPool(String name, int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+				60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), newThreadFactory(name));
+		executor.allowCoreThreadTimeOut(true);
+		
+		return propagating(executor);
+	}
+	
+	/**
+	 * virtual 이 true 이고 실행 환경이 virtual thread 를 지원하면 작업마다 virtual thread 를 생성하는
+	 * ExecutorService 를, 그렇지 않으면 newFixedThreadPool(name, threads) 를 반환한다.
+	 * virtual thread 를 사용하는 경우에도 동시에 실행되는 작업은 threads 개로 제한되며, 나머지 작업은 실행을 기다린다.
+	 * 반환되는 ExecutorService 는 모두 컨텍스트를 전달한다.
+	 * @param name 쓰레드 명칭의 prefix
+	 * @param threads 동시에 실행되는 최대 작업 수
+	 * @param virtual virtual thread 사용 여부
+	 * @return
+	 */
+	public static ExecutorService newExecutor(String name, int threads, boolean virtual) {
+		if (virtual) {
+			ExecutorService executor = newVirtualThreadPerTaskExecutor();
+			if (executor != null) {
+				return propagating(new BoundedExecutorService(executor, threads));
+			}
+			
+			log.info("virtual threads are not supported. fixed thread pool is used for " + name);
+		}
+		
+		return newFixedThreadPool(name, threads);
+	}
+	
+	/**
+	 * name-1, name-2 ... 형태의 명칭을 갖는 daemon 쓰레드를 생성하는 ThreadFactory 를 반환한다.
+	 * @param name
+	 * @return
+	 */
+	public static ThreadFactory newThreadFactory(final String name) {
+		return new ThreadFactory() {
+			private final AtomicInteger seq = new AtomicInteger(0);
+			
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name + "-" + seq.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+	
+	/**
+	 * Java 21 이상의 Executors.newVirtualThreadPerTaskExecutor() 를 호출한다. 지원하지 않으면 null 을 반환한다.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)method.invoke(null);
+		}
+		catch (Exception ex) {
+			return null;
+		}
+	}
+	
+	/**
+	 * 동시에 실행되는 작업 수를 제한한다. 
+	 * 작업은 바로 delegate 에 제출되지만 실행 쓰레드에서 permit 을 얻은 후에 실행되므로 
+	 * 작업마다 쓰레드를 생성하는 virtual thread executor 에 사용한다. 
+	 * 작업이 실행되지 않고 누락되는 일이 없도록 permit 을 기다리는 동안에는 interrupt 되지 않는다.
+	 */
+	private static class BoundedExecutorService extends AbstractExecutorService {
+		
+		private final ExecutorService delegate;
+		private final Semaphore permits;
+		
+		BoundedExecutorService(ExecutorService executor, int maxConcurrency) {
+			delegate = executor;
+			permits = new Semaphore(Math.max(maxConcurrency, 1));
+		}
+		
+		public void execute(final Runnable command) {
+			delegate.execute(new Runnable() {
+				public void run() {
+					permits.acquireUninterruptibly();
+					try {
+						command.run();
+					}
+					finally {
+						permits.release();
+					}
+				}
+			});
+		}
+		
+		public void shutdown() {
+			delegate.shutdown();
+		}
+		
+		public List<Runnable> shutdownNow() {
+			return delegate.shutdownNow();
+		}
+		
+		public boolean isShutdown() {
+			return delegate.isShutdown();
+		}
+		
+		public boolean isTerminated() {
+			return delegate.isTerminated();
+		}
+		
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return delegate.awaitTermination(timeout, unit);
+		}
+	}
+	
+	/**
+	 * execute() 가 호출되는 시점(작업을 제출하는 쓰레드)의 컨텍스트를 capture 하여 작업과 함께 전달한다.
+	 * submit(), invokeAll() 등은 모두 내부적으로 execute() 를 호출한다.
+	 */
+	private static class ContextPropagatingExecutorService extends AbstractExecutorService {
+		
+		private final ExecutorService delegate;
+		
+		ContextPropagatingExecutorService(ExecutorService executor) {
+			delegate = executor;
+		}
+		
+		public void execute(Runnable command) {
+			delegate.execute(ContextManager.wrap(command));
+		}
+		
+		public void shutdown() {
+			delegate.shutdown();
+		}
+		
+		public List<Runnable> shutdownNow() {
+			return delegate.shutdownNow();
+		}
+		
+		public boolean isShutdown() {
+			return delegate.isShutdown();
+		}
+		
+		public boolean isTerminated() {
+			return delegate.isTerminated();
+		}
+		
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return delegate.awaitTermination(timeout, unit);
+		}
+	}
+}
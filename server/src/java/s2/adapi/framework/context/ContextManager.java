@@ -2,6 +2,9 @@ package s2.adapi.framework.context;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.slf4j.MDC;
 
 import s2.adapi.framework.config.Configurator;
 import s2.adapi.framework.config.ConfiguratorException;
@@ -12,6 +15,10 @@ import s2.adapi.framework.dao.sql.Transaction;
  * 현재 쓰레드와 관련된 컨텍스트 정보를 ThreadLocal 변수에 관리저장 관리하는 기능을 제공한다. 
  * 관리되는 컨텍스트로는 EJBContext, UserTransaction, ServiceContext 그리고 성능 관련 데이터를
  * 관리하기 위한 Diagnostic Map 들이 있다.
+ * <p>
+ * 다른 쓰레드에서 실행되는 작업에 현재 쓰레드의 컨텍스트를 전달하려면 capture() 로 ContextSnapshot 을 생성하거나
+ * wrap() 으로 작업을 감싸서 실행한다. (ContextExecutors 참고)
+ * </p>
  * 
  * @author 김형도
  * @since 4.0
@@ -67,7 +74,12 @@ public class ContextManager {
 	 * @param ejbCtx
 	 */
 	public static void setServiceContext(ServiceContext svcCtx) {
-		svcContext.set(svcCtx);
+		if (svcCtx == null) {
+			svcContext.remove();
+		}
+		else {
+			svcContext.set(svcCtx);
+		}
 	}
 	
 	/**
@@ -89,7 +101,7 @@ public class ContextManager {
 	 *
 	 */
 	public static void clearServiceContext() {
-		svcContext.set(null);
+		svcContext.remove();
 	}
 	
 	/**
@@ -106,11 +118,24 @@ public class ContextManager {
 		return diagCtx;
 	}
 	
+	/**
+	 * 현재 쓰레드의 성능 관련 데이터를 관리하는 Map 객체를 지정한다. null 이면 삭제한다.
+	 * @param diagCtx
+	 */
+	public static void setDiagnosticContext(HashMap<String,Object> diagCtx) {
+		if (diagCtx == null) {
+			diagContext.remove();
+		}
+		else {
+			diagContext.set(diagCtx);
+		}
+	}
+	
 	/**
 	 * 현재 쓰레드의 성능 관련 데이터를 관리하는 Map 객체를 삭제한다.
 	 */
 	public static void clearDiagnosticContext() {
-		diagContext.set(null);
+		diagContext.remove();
 	}
 	
 	/**
@@ -144,4 +169,61 @@ public class ContextManager {
 		clearServiceContext();
 		clearDiagnosticContext();
 	}
+	
+	/**
+	 * 현재 쓰레드의 컨텍스트(ServiceContext, Diagnostic Map, MDC)를 담은 ContextSnapshot 을 생성한다.
+	 * 현재 쓰레드에 컨텍스트가 없으면 새로 생성하지 않는다.
+	 * Transaction 은 전달하지 않으므로 하위 작업에서 DB 를 사용하려면 자신의 트랜젝션을 시작해야 한다.
+	 * @return
+	 */
+	public static ContextSnapshot capture() {
+		return capture(false);
+	}
+	
+	/**
+	 * 현재 쓰레드의 컨텍스트를 담은 ContextSnapshot 을 생성한다.
+	 * includeTransaction 이 true 이면 현재 쓰레드의 Transaction 도 함께 전달하여 하위 작업이 같은 트랜젝션(같은 Connection)에 참여한다.
+	 * 이 경우 JDBC Connection 은 동시에 여러 쓰레드에서 사용할 수 없으므로 다음 규칙을 지켜야 한다.
+	 * <ul>
+	 * <li> 하위 작업들과 호출한 쓰레드가 동시에 SQL 을 실행하지 않도록 한다.
+	 * <li> 하위 작업이 모두 끝난 후에 commit/rollback 한다.
+	 * <li> 하위 작업에서 트랜젝션을 시작(begin)하거나 종료하지 않는다.
+	 * </ul>
+	 * @param includeTransaction Transaction 전달 여부
+	 * @return
+	 */
+	public static ContextSnapshot capture(boolean includeTransaction) {
+		HashMap<String,Object> diagCtx = diagContext.get();
+		
+		return new ContextSnapshot(svcContext.get(), 
+				diagCtx == null ? null : new HashMap<String,Object>(diagCtx), 
+				includeTransaction ? Transaction.peek() : null, MDC.getCopyOfContextMap(), true);
+	}
+	
+	/**
+	 * 현재 쓰레드의 컨텍스트를 복사하지 않고 그대로 담은 ContextSnapshot 을 생성한다. 
+	 * 컨텍스트를 복원하기 위한 용도로만 사용한다.
+	 * @return
+	 */
+	static ContextSnapshot peek() {
+		return new ContextSnapshot(svcContext.get(), diagContext.get(), Transaction.peek(), MDC.getCopyOfContextMap(), false);
+	}
+	
+	/**
+	 * 현재 쓰레드의 컨텍스트를 가지고 실행되도록 task 를 감싼다.
+	 * @param task
+	 * @return
+	 */
+	public static Runnable wrap(Runnable task) {
+		return capture().wrap(task);
+	}
+	
+	/**
+	 * 현재 쓰레드의 컨텍스트를 가지고 실행되도록 task 를 감싼다.
+	 * @param task
+	 * @return
+	 */
+	public static <V> Callable<V> wrap(Callable<V> task) {
+		return capture().wrap(task);
+	}
 }
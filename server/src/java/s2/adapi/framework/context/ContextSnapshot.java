@@ -0,0 +1,169 @@
+package s2.adapi.framework.context;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.slf4j.MDC;
+
+import s2.adapi.framework.dao.sql.Transaction;
+
+/**
+ * <p>
+ * 특정 시점에 쓰레드에 연결되어 있던 컨텍스트 정보(ServiceContext, Diagnostic Map, 로그 MDC)를 담는다.
+ * ContextManager.capture() 로 생성하며, 다른 쓰레드(Executor, CompletableFuture, virtual thread 등)에서
+ * 실행되는 작업에 동일한 컨텍스트를 적용하기 위하여 사용된다.
+ * </p>
+ * <p>
+ * 컨텍스트는 작업이 실행되는 동안에만 적용되며 작업이 끝나면 실행 쓰레드의 이전 컨텍스트로 복원된다.
+ * 따라서 쓰레드 풀의 쓰레드에 컨텍스트가 남지 않는다.
+ * <ul>
+ * <li> ServiceContext 는 같은 객체를 공유한다.
+ * <li> Diagnostic Map 과 MDC 는 capture 시점의 복사본이 적용되며, 하위 작업에서 변경한 내용은 전달되지 않는다.
+ * <li> Transaction 은 ContextManager.capture(true) 로 생성한 경우에만 같은 객체를 공유하며, 
+ *      그렇지 않으면 하위 작업에는 트랜젝션이 연결되지 않는다. (ContextManager.capture(boolean) 참고)
+ * </ul>
+ * </p>
+ * <pre>
+ *     ContextSnapshot snapshot = ContextManager.capture();
+ *     executor.execute(snapshot.wrap(task));
+ * </pre>
+ * @author kimhd
+ */
+public class ContextSnapshot {
+	
+	private final ServiceContext svcContext;
+	private final HashMap<String,Object> diagContext;
+	private final Transaction transaction;
+	private final Map<String,String> mdcContext;
+	
+	/**
+	 * true 이면 적용할 때 마다 Diagnostic Map 의 복사본을 만든다. (capture 된 경우)
+	 * false 이면 원래의 Map 객체를 그대로 적용한다. (이전 컨텍스트 복원용)
+	 */
+	private final boolean copyDiagContext;
+	
+	ContextSnapshot(ServiceContext svcCtx, HashMap<String,Object> diagCtx, Transaction tr, Map<String,String> mdc, boolean copyDiag) {
+		svcContext = svcCtx;
+		diagContext = diagCtx;
+		transaction = tr;
+		mdcContext = mdc;
+		copyDiagContext = copyDiag;
+	}
+	
+	public ServiceContext getServiceContext() {
+		return svcContext;
+	}
+	
+	/**
+	 * 하위 작업에 전달되는 Transaction 객체, 전달하지 않으면 null 이다.
+	 * @return
+	 */
+	public Transaction getTransaction() {
+		return transaction;
+	}
+	
+	/**
+	 * 이 컨텍스트를 현재 쓰레드에 적용하고, 적용하기 전의 컨텍스트를 반환한다.
+	 * 반환된 컨텍스트는 작업이 끝난 후 반드시 detach() 로 복원해야 한다.
+	 * @return 이전 컨텍스트
+	 */
+	public ContextSnapshot attach() {
+		ContextSnapshot previous = ContextManager.peek();
+		apply(this);
+		
+		return previous;
+	}
+	
+	/**
+	 * attach() 로 반환받은 이전 컨텍스트로 현재 쓰레드의 컨텍스트를 복원한다.
+	 * @param previous
+	 */
+	public static void detach(ContextSnapshot previous) {
+		apply(previous);
+	}
+	
+	/**
+	 * 이 컨텍스트를 적용하여 task 를 실행한다.
+	 * @param task
+	 */
+	public void run(Runnable task) {
+		ContextSnapshot previous = attach();
+		try {
+			task.run();
+		}
+		finally {
+			detach(previous);
+		}
+	}
+	
+	/**
+	 * 이 컨텍스트를 적용하여 task 를 실행하고 그 결과를 반환한다.
+	 * @param task
+	 * @return
+	 * @throws Exception
+	 */
+	public <V> V call(Callable<V> task) throws Exception {
+		ContextSnapshot previous = attach();
+		try {
+			return task.call();
+		}
+		finally {
+			detach(previous);
+		}
+	}
+	
+	/**
+	 * 실행시 이 컨텍스트가 적용되는 Runnable 객체를 반환한다.
+	 * @param task
+	 * @return
+	 */
+	public Runnable wrap(final Runnable task) {
+		return new Runnable() {
+			public void run() {
+				ContextSnapshot.this.run(task);
+			}
+		};
+	}
+	
+	/**
+	 * 실행시 이 컨텍스트가 적용되는 Callable 객체를 반환한다.
+	 * @param task
+	 * @return
+	 */
+	public <V> Callable<V> wrap(final Callable<V> task) {
+		return new Callable<V>() {
+			public V call() throws Exception {
+				return ContextSnapshot.this.call(task);
+			}
+		};
+	}
+	
+	private static void apply(ContextSnapshot snapshot) {
+		if (snapshot == null) {
+			ContextManager.clearAll();
+			Transaction.bind(null);
+			MDC.clear();
+			return;
+		}
+		
+		ContextManager.setServiceContext(snapshot.svcContext);
+		if (snapshot.diagContext == null) {
+			ContextManager.setDiagnosticContext(null);
+		}
+		else if (snapshot.copyDiagContext) {
+			ContextManager.setDiagnosticContext(new HashMap<String,Object>(snapshot.diagContext));
+		}
+		else {
+			ContextManager.setDiagnosticContext(snapshot.diagContext);
+		}
+		Transaction.bind(snapshot.transaction);
+		
+		if (snapshot.mdcContext == null) {
+			MDC.clear();
+		}
+		else {
+			MDC.setContextMap(snapshot.mdcContext);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package s2.adapi.framework.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+import s2.adapi.framework.dao.reader.ColumnReader;
+import s2.adapi.framework.query.element.ResultMap;
+
+/**
+ * <p>
+ * 조회 결과를 ValueObject 에 모두 담지 않고 한 row 씩 읽어오기 위한 커서이다.
+ * JdbcDAO.openCursor() 또는 SqlQueryDAO.openCursor() 로 생성하며, 사용 후에는 반드시 close() 를 호출하여야 한다.
+ * </p>
+ * <p>
+ * DB 에서는 fetchSize 건씩 나누어 가져오므로 대량의 데이터를 일정한 메모리로 조회할 수 있다. 
+ * 커서는 Transaction 의 Connection 을 사용하므로 커서를 사용하는 도중에 해당 Transaction 을 commit 하면 안된다.
+ * 최대 조회 건수(s2adapi.dao.fetch.limit)는 적용되지 않는다.
+ * </p>
+ * <pre>
+ *    JdbcCursor cursor = dao.openCursor("getOrders", paramVO, 1000);
+ *    try {
+ *        Map&lt;String,Object&gt; row = null;
+ *        while((row = cursor.next()) != null) {
+ *            ...
+ *        }
+ *    }
+ *    finally {
+ *        cursor.close();
+ *    }
+ * </pre>
+ * @author kimhd
+ */
+public class JdbcCursor implements AutoCloseable {
+	
+	private final JdbcDAO dao;
+	private final Connection con;
+	private final PreparedStatement ps;
+	private final ResultSet rs;
+	private final String sqlName;
+	private final boolean closeConnection;
+	
+	private String[] colNames = null;
+	private ColumnReader[] readers = null;
+	
+	private final long stime;
+	private final long ptime;
+	private final long xtime;
+	private long fetchNanos = 0;
+	private long rowCount = 0;
+	private boolean closed = false;
+	private boolean failed = false; // fetch 오류는 recordErrorMetrics 로 이미 기록됨
+	
+	JdbcCursor(JdbcDAO dao, Connection con, PreparedStatement ps, ResultSet rs, ResultMap rmap, String sqlName,
+			boolean closeConnection, long stime, long ptime) throws SQLException {
+		this.dao = dao;
+		this.con = con;
+		this.ps = ps;
+		this.rs = rs;
+		this.sqlName = sqlName;
+		this.closeConnection = closeConnection;
+		this.stime = stime;
+		this.ptime = ptime;
+		this.xtime = System.nanoTime();
+		
+		ResultSetMetaData rsmd = rs.getMetaData();
+		colNames = new String[rsmd.getColumnCount()];
+		readers = new ColumnReader[colNames.length];
+		for (int k = 0; k < colNames.length; k++) {
+			colNames[k] = rsmd.getColumnLabel(k+1).toLowerCase();
+			readers[k] = dao.getColumnReader(colNames[k],rsmd.getColumnType(k+1),rsmd.getColumnTypeName(k+1),rmap);
+		}
+	}
+	
+	/**
+	 * 다음 row 를 읽어온다.
+	 * @return 컬럼명(소문자)을 key 로 하는 row, 더 이상 읽을 row 가 없으면 null
+	 * @throws SqlQueryException
+	 */
+	public Map<String,Object> next() throws SqlQueryException {
+		if (closed) {
+			return null;
+		}
+		
+		long ftime = System.nanoTime();
+		try {
+			if (!rs.next()) {
+				return null;
+			}
+			
+			Map<String,Object> row = new HashMap<String,Object>();
+			for (int j = 0; j < colNames.length; j++) {
+				row.put(colNames[j], readers[j].read(j+1, rs));
+			}
+			rowCount++;
+			
+			return row;
+		}
+		catch (SQLException ex) {
+			if (!failed) {
+				failed = true;
+				dao.recordErrorMetrics(sqlName, stime);
+			}
+			dao.getLogger().error(sqlName + " fetch cursor |" + rowCount + " records|error=" + ex.getMessage());
+			throw dao.getSupporter().handleSqlException(ex);
+		}
+		finally {
+			fetchNanos += System.nanoTime() - ftime;
+		}
+	}
+	
+	/**
+	 * 지금까지 읽어온 row 수
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * 커서를 닫는다. 조회 통계는 이때 기록되며, fetch 중 오류가 발생한 경우에는 오류로 한 번만 기록된다.
+	 */
+	public void close() throws SqlQueryException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		
+		try {
+			dao.close(ps, rs);
+		}
+		finally {
+			if (closeConnection) {
+				dao.close(con);
+			}
+			
+			if (!failed) {
+				dao.recordMetrics(sqlName, ptime - stime, xtime - ptime, fetchNanos, rowCount);
+			}
+			
+			Logger log = dao.getLogger();
+			if (log.isInfoEnabled()) {
+				StringBuilder sb = new StringBuilder();
+				sb.append(sqlName).append(" cursor query |").append(Long.toString(JdbcDAO.toMillis(xtime - stime))).append("/");
+				sb.append(Long.toString(JdbcDAO.toMillis(System.nanoTime() - stime))).append(" msec|");
+				sb.append(rowCount).append(" records");
+				log.info(sb.toString());
+			}
+		}
+	}
+}
@@ -7,8 +7,13 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +22,10 @@ import s2.adapi.framework.Constants;
 import s2.adapi.framework.config.ConfiguratorException;
 import s2.adapi.framework.config.ConfiguratorFactory;
 import s2.adapi.framework.config.KeyConfig;
+import s2.adapi.framework.context.ContextExecutors;
 import s2.adapi.framework.context.ContextManager;
+import s2.adapi.framework.dao.metrics.SqlMetrics;
+import s2.adapi.framework.dao.metrics.SqlStatementMetrics;
 import s2.adapi.framework.dao.reader.ColumnReader;
 import s2.adapi.framework.dao.sql.DataSource;
 import s2.adapi.framework.dao.sql.Transaction;
@@ -82,6 +90,9 @@ public class JdbcDAO {
 	public static final int META_COLUMN = 3;
 	
 	private static final String MAX_FETCH_LIMIT_KEY = "s2adapi.dao.fetch.limit";
+	private static final String ASYNC_THREADS_KEY = "s2adapi.dao.async.threads";
+	private static final String ASYNC_VIRTUAL_KEY = "s2adapi.dao.async.virtual";
+	private static final String BULKLOAD_BATCH_KEY = "s2adapi.dao.bulkload.batch";
 	
 	// 디버그 상태에서 별도 SQL 로그 출력을 위한 Logger 객체
 	protected static final Logger debugLog = LoggerFactory.getLogger(Constants.DEBUG_LOGGER_NAME);
@@ -97,14 +108,39 @@ public class JdbcDAO {
     
     private DbmsSupporter supporter = null;
 	
+    /**
+     * 비동기 조회에 사용할 ExecutorService 이다. 지정하지 않으면 공용 ExecutorService 를 사용한다.
+     */
+    private ExecutorService asyncExecutor = null;
+    
     /**
      * 최대 조회 건수의 제한 값을 설정한다.
      */
     private static int maxFetchLimit = Integer.MAX_VALUE;
+    
+    /**
+     * 비동기 조회용 공용 ExecutorService 의 최대 쓰레드 수이다.
+     * 동시에 사용되는 Connection 수가 이 값으로 제한된다.
+     */
+    private static int asyncThreads = 8;
+    private static boolean asyncVirtual = false;
+    private static ExecutorService sharedAsyncExecutor = null;
+    
+    /**
+     * 대량 입력을 INSERT batch 로 처리하는 경우 한번에 실행할 건수이다.
+     */
+    private static int bulkLoadBatchSize = 1000;
+    
     static {
     	try {
     		maxFetchLimit = ConfiguratorFactory.getConfigurator()
             		.getInt(MAX_FETCH_LIMIT_KEY,Integer.MAX_VALUE);
+    		asyncThreads = ConfiguratorFactory.getConfigurator()
+    				.getInt(ASYNC_THREADS_KEY,8);
+    		asyncVirtual = ConfiguratorFactory.getConfigurator()
+    				.getBoolean(ASYNC_VIRTUAL_KEY,false);
+    		bulkLoadBatchSize = ConfiguratorFactory.getConfigurator()
+    				.getInt(BULKLOAD_BATCH_KEY,1000);
         }
     	catch (ConfiguratorException e) {
         }
@@ -193,6 +229,106 @@ public class JdbcDAO {
     	return supporter;
     }
     
+    /**
+     * 비동기 조회에 사용할 ExecutorService 를 지정한다.
+     * 지정된 ExecutorService 는 작업을 제출한 쓰레드의 컨텍스트를 전달하도록 감싸진다.
+     * @param executor
+     */
+    public void setAsyncExecutor(ExecutorService executor) {
+    	if (executor == null) {
+    		asyncExecutor = null;
+    	}
+    	else {
+    		asyncExecutor = ContextExecutors.propagating(executor);
+    	}
+    }
+    
+    /**
+     * 비동기 조회에 사용할 ExecutorService 를 반환한다.
+     * 별도로 지정되지 않았다면 s2adapi.dao.async.threads 크기의 공용 ExecutorService 를 반환한다.
+     * @return
+     */
+    protected ExecutorService getAsyncExecutor() {
+    	if (asyncExecutor != null) {
+    		return asyncExecutor;
+    	}
+    	
+    	synchronized(JdbcDAO.class) {
+    		if (sharedAsyncExecutor == null) {
+    			sharedAsyncExecutor = ContextExecutors.newExecutor("s2adapi-dao-async", asyncThreads, asyncVirtual);
+    		}
+    		return sharedAsyncExecutor;
+    	}
+    }
+    
+    /**
+     * <p>
+     * 주어진 조회 작업을 비동기로 실행하고 그 결과를 CompletableFuture 로 반환한다.
+     * </p>
+     * <p>
+     * 작업은 호출한 쓰레드의 ServiceContext 를 가지고 실행되지만 호출한 쓰레드의 트랜젝션에는 참여하지 않는다.
+     * 작업마다 별도의 조회 전용(read-only) 트랜젝션을 시작하여 DataSource 로부터 새로운 Connection 을 받아 사용하고,
+     * 작업이 끝나면 rollback() 하여 Connection 을 반환한다. 따라서 다음 규칙을 지켜야 한다.
+     * <ul>
+     * <li> 조회(select) 작업만 수행한다. 변경 작업은 반영되지 않는다.
+     * <li> 호출한 쓰레드의 트랜젝션에서 commit 되지 않은 변경 내용은 조회되지 않는다.
+     * <li> 작업 내부에서 호출한 쓰레드의 Connection 객체를 사용하지 않는다.
+     * </ul>
+     * </p>
+     * @param task 실행할 조회 작업
+     * @return 조회 결과를 받을 CompletableFuture 객체
+     */
+    protected <V> CompletableFuture<V> executeAsync(final Callable<V> task) {
+    	final CompletableFuture<V> future = new CompletableFuture<V>();
+    	
+    	try {
+    		getAsyncExecutor().execute(new Runnable() {
+    			public void run() {
+    				if (future.isDone()) {
+    					// 실행되기 전에 취소되었다.
+    					return;
+    				}
+    				
+    				try {
+    					future.complete(executeReadOnly(task));
+    				}
+    				catch (Throwable ex) {
+    					future.completeExceptionally(ex);
+    				}
+    			}
+    		});
+    	}
+    	catch (RejectedExecutionException ex) {
+    		future.completeExceptionally(ex);
+    	}
+    	
+    	return future;
+    }
+    
+    /**
+     * 별도의 조회 전용 트랜젝션 안에서 task 를 실행한다. 실행이 끝나면 원래의 트랜젝션으로 복원한다.
+     */
+    private <V> V executeReadOnly(Callable<V> task) throws Exception {
+    	Transaction previous = Transaction.peek();
+    	Transaction tr = new Transaction();
+    	tr.setReadOnly(true);
+    	tr.begin();
+    	Transaction.bind(tr);
+    	
+    	try {
+    		return task.call();
+    	}
+    	finally {
+    		try {
+    			tr.rollback();
+    		}
+    		catch (SQLException ex) {
+    			getLogger().warn("failed to release read-only connection.", ex);
+    		}
+    		Transaction.bind(previous);
+    	}
+    }
+    
     /**
      * <p>
      * <code>finally</code> 구문에서 <code>Connection</code> 객체의 연결을 끊어주기 위하여 호출한다.
@@ -330,9 +466,12 @@ public class JdbcDAO {
             throws SqlQueryException {
     	Logger log = getLogger();
     	
-    	long stime = System.currentTimeMillis();    // 수행 시간 계산용
+    	long stime = System.nanoTime();    // 수행 시간 계산용
         long etime = 0;
         
+        long ptime = 0;
+        long xtime = 0;
+        
         PreparedStatement ps = null;
         int[] rowCounts;
         int paramCount = (params == null?0:params.length);
@@ -348,24 +487,28 @@ public class JdbcDAO {
                 }
             }
             
+            ptime = System.nanoTime();
             rowCounts = ps.executeBatch();
+            xtime = System.nanoTime();
         }
         catch (SQLException ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute batch |").append(Long.toString(etime - stime)).append(" msec|error=").append(ex.getMessage());
+                sb.append(sqlName).append(" execute batch |").append(Long.toString(toMillis(etime - stime))).append(" msec|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
             throw supporter.handleSqlException(ex);
         }
         catch (Exception ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute batch |").append(Long.toString(etime - stime)).append(" msec|error=").append(ex.getMessage());
+                sb.append(sqlName).append(" execute batch |").append(Long.toString(toMillis(etime - stime))).append(" msec|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
             throw new SqlQueryException(SqlQueryException.UPDATE_QUERY_ERROR, ex);
@@ -374,19 +517,86 @@ public class JdbcDAO {
         	close(ps, null);
         }
 
-        etime = System.currentTimeMillis();
-        StringBuilder sb = new StringBuilder();
-        sb.append(sqlName).append(" execute batch |").append(Long.toString(etime - stime)).append(" msec|");
-        sb.append(rowCounts.length).append(" sqls");
-        String sqlResult = sb.toString();
+        long totalRows = 0;
+        for(int i=0;i<rowCounts.length;i++) {
+        	if (rowCounts[i] > 0) {
+        		totalRows += rowCounts[i];
+        	}
+        }
+        recordMetrics(sqlName, ptime - stime, xtime - ptime, 0, totalRows);
 
         if (log.isDebugEnabled()) {
         	log.debug(sql);
         }
-        log.info(sqlResult);
+        if (log.isInfoEnabled()) {
+        	etime = System.nanoTime();
+        	StringBuilder sb = new StringBuilder();
+        	sb.append(sqlName).append(" execute batch |").append(Long.toString(toMillis(etime - stime))).append(" msec|");
+        	sb.append(rowCounts.length).append(" sqls");
+        	log.info(sb.toString());
+        }
 
         return rowCounts;
     }
+    
+    /**
+     * <p>
+     * rows 의 데이터를 tableName 테이블에 대량으로 입력한다. 각 row 에서 columns 에 지정된 컬럼명을 key 로 값을 읽는다.
+     * 입력 방식은 DbmsSupporter 에 따라 결정된다. PostgreSQL 은 COPY 를 사용하며,
+     * 그 외의 DBMS 는 s2adapi.dao.bulkload.batch 건씩 INSERT 문을 batch 로 실행한다.
+     * </p>
+     * <p>
+     * tableName 과 columns 는 SQL 문장에 그대로 사용되므로 영문자, 숫자, '_' 로 구성된 명칭만 허용된다.
+     * </p>
+     * @param con DB에 연결되어 있는 Connection 객체
+     * @param tableName 입력할 테이블명
+     * @param columns 입력할 컬럼명
+     * @param rows 입력할 데이터
+     * @return 입력된 row 수
+     * @throws SqlQueryException
+     */
+    protected long executeBulkLoad(Connection con, String tableName, String[] columns, 
+    		Iterator<? extends Map<String,?>> rows) throws SqlQueryException {
+    	Logger log = getLogger();
+    	
+    	String sqlName = "bulkload." + tableName;
+    	long stime = System.nanoTime();    // 수행 시간 계산용
+    	long count = 0;
+    	
+    	try {
+    		count = supporter.bulkLoad(con, tableName, columns, rows, bulkLoadBatchSize);
+    	}
+        catch (SQLException ex) {
+            recordErrorMetrics(sqlName, stime);
+            if (log.isErrorEnabled()) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(sqlName).append(" execute bulk load |").append(Long.toString(toMillis(System.nanoTime() - stime))).append(" msec|error=").append(ex.getMessage());
+                log.error(sb.toString());
+            }
+            throw supporter.handleSqlException(ex);
+        }
+        catch (Exception ex) {
+            recordErrorMetrics(sqlName, stime);
+            if (log.isErrorEnabled()) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(sqlName).append(" execute bulk load |").append(Long.toString(toMillis(System.nanoTime() - stime))).append(" msec|error=").append(ex.getMessage());
+                log.error(sb.toString());
+            }
+            throw new SqlQueryException(SqlQueryException.UPDATE_QUERY_ERROR, ex);
+        }
+        
+        long etime = System.nanoTime();
+        recordMetrics(sqlName, 0, etime - stime, 0, count);
+        
+        if (log.isInfoEnabled()) {
+        	StringBuilder sb = new StringBuilder();
+        	sb.append(sqlName).append(" execute bulk load |").append(Long.toString(toMillis(etime - stime))).append(" msec|");
+        	sb.append(count).append(" records");
+        	log.info(sb.toString());
+        }
+        
+        return count;
+    }
 
     /**
      * <p>
@@ -425,32 +635,38 @@ public class JdbcDAO {
         PreparedStatement ps = null;
         int rowCount;
 
-        long stime = System.currentTimeMillis();    // 수행 시간 계산용
+        long stime = System.nanoTime();    // 수행 시간 계산용
+        long ptime = 0;
+        long xtime = 0;
         long etime = 0;
 
         try {
         	ps = supporter.prepareStatement(con,sql,param);
+        	ptime = System.nanoTime();
 
             rowCount = ps.executeUpdate();
+            xtime = System.nanoTime();
 
         }
         catch (SQLException ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute update |").append(Long.toString(etime - stime)).append(" msec|param=");
+                sb.append(sqlName).append(" execute update |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
                 appendForLog(sb,param).append("|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
             throw supporter.handleSqlException(ex);
         }
         catch (Exception ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute update |").append(Long.toString(etime - stime)).append(" msec|param=");
+                sb.append(sqlName).append(" execute update |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
                 appendForLog(sb,param).append("|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
@@ -460,16 +676,18 @@ public class JdbcDAO {
         	close(ps, null);
         }
 
-        etime = System.currentTimeMillis();
-        StringBuilder sb = new StringBuilder();
-        sb.append(sqlName).append(" execute update |").append(Long.toString(etime - stime)).append(" msec|param=");
-        appendForLog(sb,param).append("|").append(rowCount).append(" records");
-        String sqlResult = sb.toString();
+        recordMetrics(sqlName, ptime - stime, xtime - ptime, 0, rowCount);
 
         if (log.isDebugEnabled()) {
         	log.debug(sql);
         }
-        log.info(sqlResult);
+        if (log.isInfoEnabled()) {
+        	etime = System.nanoTime();
+        	StringBuilder sb = new StringBuilder();
+        	sb.append(sqlName).append(" execute update |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
+        	appendForLog(sb,param).append("|").append(rowCount).append(" records");
+        	log.info(sb.toString());
+        }
 
         return rowCount;
     }
@@ -707,39 +925,47 @@ public class JdbcDAO {
 
         ValueObject rsVO = null;
 
-        long stime = System.currentTimeMillis();    // 수행 시간 계산용
+        long stime = System.nanoTime();    // 수행 시간 계산용
+        long ptime = 0;
+        long xtime = 0;
+        long rtime = 0;
         long etime = 0;
 
         try {
             supporter.setPreparedStatementParam(ps, param);
+            ptime = System.nanoTime();
             
             // Insert SQL 실행
             rowCount = ps.executeUpdate();
+            xtime = System.nanoTime();
 
             // 입력된 컬럼 값을 가져온다.
             rs = ps.getGeneratedKeys();
 
             rsVO = new ValueObject();
             getCount = fetchResultSet(rs,rsVO,rmap);
+            rtime = System.nanoTime();
 
         }
         catch (SQLException ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute update and return keys |").append(Long.toString(etime - stime)).append(" msec|param=");
+                sb.append(sqlName).append(" execute update and return keys |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
                 appendForLog(sb,param).append("|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
             throw supporter.handleSqlException(ex);
         }
         catch (Exception ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute update and return keys |").append(Long.toString(etime - stime)).append(" msec|param=");
+                sb.append(sqlName).append(" execute update and return keys |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
                 appendForLog(sb,param).append("|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
@@ -749,17 +975,19 @@ public class JdbcDAO {
             close(ps, rs);
         }
 
-        etime = System.currentTimeMillis();
-        StringBuilder sb = new StringBuilder();
-        sb.append(sqlName).append(" execute update and return keys |").append(Long.toString(etime - stime)).append(" msec|param=");
-        appendForLog(sb,param).append("|").append(rowCount).append(" inserted, ").append(getCount).append(" returned");
-        String sqlResult = sb.toString();
+        recordMetrics(sqlName, ptime - stime, xtime - ptime, rtime - xtime, rowCount);
         
         if (log.isDebugEnabled()) {
         	log.debug(sql);
         }
 
-        log.info(sqlResult);
+        if (log.isInfoEnabled()) {
+        	etime = System.nanoTime();
+        	StringBuilder sb = new StringBuilder();
+        	sb.append(sqlName).append(" execute update and return keys |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
+        	appendForLog(sb,param).append("|").append(rowCount).append(" inserted, ").append(getCount).append(" returned");
+        	log.info(sb.toString());
+        }
         
         return rsVO;
     }
@@ -855,9 +1083,12 @@ public class JdbcDAO {
         ResultSet rs = null;
         ValueObject rsVO = null;
 
-        long stime = System.currentTimeMillis();    // 수행 시간 계산용
+        long stime = System.nanoTime();    // 수행 시간 계산용
+        long ptime = 0;
         long ftime = 0;
+        long rtime = 0;
         long etime = 0;
+        long countNanos = 0;	// count query 수행 시간
         //String sqlID = ""; // SQL 로그 출력용 ID
 
         // 페이지 조회용 파라메터 추가 및 로그 츨력용이다. 입력된 param의 내용 을 회손하지 않도록 복제본을 만들어 사용한다.
@@ -915,7 +1146,7 @@ public class JdbcDAO {
         	
             // 전체 조회 건수를 가져온다. 이를 위하여 Count용 query를 만들어 조회를 수행한다.
             if (countQuery) {
-                long sstime = System.currentTimeMillis();
+                long sstime = System.nanoTime();
                 String countSql = "select count(1) from ( " + sql + ") totalcount ";
                 
                 ps = supporter.prepareStatement(con,countSql,pageParam);
@@ -927,9 +1158,10 @@ public class JdbcDAO {
                 rs.next();
                 totCount = rs.getInt(1);
                 close(ps, rs);
+                long eetime = System.nanoTime();
+                countNanos = eetime - sstime;
                 if (log.isDebugEnabled()) {
-                    long eetime = System.currentTimeMillis();
-                    log.debug("execute count sql takes " + Long.toString(eetime - sstime) + " msec.");
+                    log.debug("execute count sql takes " + Long.toString(toMillis(eetime - sstime)) + " msec.");
                 }
             }
 
@@ -944,13 +1176,15 @@ public class JdbcDAO {
             	// original sql
             	ps = supporter.prepareStatement(con, sql, pageParam);
             }
+            ptime = System.nanoTime();
 
             rs = ps.executeQuery();
             
-            ftime = System.currentTimeMillis();
+            ftime = System.nanoTime();
             
             rsVO = new ValueObject();
             getCount = fetchResultSet(rs,rsVO,rmap);
+            rtime = System.nanoTime();
             
             // 남은 건수를 구한다.
             if (countQuery) {
@@ -965,33 +1199,36 @@ public class JdbcDAO {
 
         }
         catch (SQLException ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute query |").append(Long.toString(etime - stime)).append(" msec|param=");
+                sb.append(sqlName).append(" execute query |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
                 appendForLog(sb,pageParam).append("|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
             throw supporter.handleSqlException(ex);
         }
         catch (SqlQueryException ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute query |").append(Long.toString(etime - stime)).append(" msec|param=");
+                sb.append(sqlName).append(" execute query |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
                 appendForLog(sb,pageParam).append("|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
             throw ex;
         }
         catch (Exception ex) {
+            recordErrorMetrics(sqlName, stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
+                etime = System.nanoTime();
                 log.error(sql);
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlName).append(" execute query |").append(Long.toString(etime - stime)).append(" msec|param=");
+                sb.append(sqlName).append(" execute query |").append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
                 appendForLog(sb,pageParam).append("|error=").append(ex.getMessage());
                 log.error(sb.toString());
             }
@@ -1001,21 +1238,83 @@ public class JdbcDAO {
         	close(ps, rs);
         }
 
-        etime = System.currentTimeMillis();
-        StringBuilder sb = new StringBuilder();
-        sb.append(sqlName).append(" execute query |").append(Long.toString(ftime-stime)).append("/");
-        sb.append(Long.toString(etime - stime)).append(" msec|param=");
-        appendForLog(sb,pageParam).append("|").append(getCount).append( "records");
-        String sqlResult = sb.toString();
+        // count query 는 execute 단계에 포함하여 기록한다.
+        recordMetrics(sqlName, (ptime - stime) - countNanos, (ftime - ptime) + countNanos, rtime - ftime, getCount);
 
         if (log.isDebugEnabled()) {
         	log.debug(sql);
         }
-        log.info(sqlResult);
+        if (log.isInfoEnabled()) {
+        	etime = System.nanoTime();
+        	StringBuilder sb = new StringBuilder();
+        	sb.append(sqlName).append(" execute query |").append(Long.toString(toMillis(ftime - stime))).append("/");
+        	sb.append(Long.toString(toMillis(etime - stime))).append(" msec|param=");
+        	appendForLog(sb,pageParam).append("|").append(getCount).append( "records");
+        	log.info(sb.toString());
+        }
 
         return rsVO;
     }
 
+    /**
+     * <p>
+     * 조회 Query 를 수행하고 결과를 한 row 씩 읽어올 수 있는 JdbcCursor 를 반환한다.
+     * 조회 결과를 메모리에 모두 담지 않으므로 대량의 데이터를 순차적으로 처리할 때 사용한다.
+     * </p>
+     *
+     * @param con   DB에 연결되어 있는 Connection 객체
+     * @param sql   수행할 Query 문
+     * @param param Query 문에 순서대로 매핑될 파라메터
+     * @param fetchSize DB 에서 한 번에 가져올 row 수
+     * @param rmap ResultMap
+     * @param sqlName Sql 명칭
+     * @param closeConnection true 이면 커서를 닫을 때 con 도 close() 한다.
+     * @return 조회 결과를 읽어올 JdbcCursor
+     */
+    protected JdbcCursor openCursor(Connection con, String sql, List<Object> param, int fetchSize, 
+    		ResultMap rmap, String sqlName, boolean closeConnection) throws SqlQueryException {
+    	Logger log = getLogger();
+        
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        
+        long stime = System.nanoTime();
+        long ptime = 0;
+        
+        try {
+        	ps = supporter.prepareStatement(con, sql, param);
+        	ps.setFetchSize(fetchSize);
+        	ptime = System.nanoTime();
+        	
+        	rs = ps.executeQuery();
+        	
+        	if (log.isDebugEnabled()) {
+        		log.debug(sql);
+        	}
+        	
+        	return new JdbcCursor(this, con, ps, rs, rmap, sqlName, closeConnection, stime, ptime);
+        }
+        catch (SQLException ex) {
+            recordErrorMetrics(sqlName, stime);
+            if (log.isErrorEnabled()) {
+                log.error(sql);
+                StringBuilder sb = new StringBuilder();
+                sb.append(sqlName).append(" open cursor |").append(Long.toString(toMillis(System.nanoTime() - stime))).append(" msec|param=");
+                appendForLog(sb,(param == null)?new ArrayList<Object>():param).append("|error=").append(ex.getMessage());
+                log.error(sb.toString());
+            }
+            try {
+            	close(ps, rs);
+            }
+            finally {
+            	if (closeConnection) {
+            		close(con);
+            	}
+            }
+            throw supporter.handleSqlException(ex);
+        }
+    }
+    
     /**
      * ResultSet으로부터 조회된 결과를 ValueObject에 담아준다.
      * @param rs result set 객체
@@ -1127,6 +1426,40 @@ public class JdbcDAO {
     	return sb;
     }
    
+    /**
+     * SQL 실행 결과를 sqlName 별 실행 통계(SqlMetrics)에 기록한다. 수행시간은 나노초 단위이다.
+     * @param sqlName
+     * @param prepareNanos
+     * @param executeNanos
+     * @param fetchNanos
+     * @param rowCount
+     */
+    protected void recordMetrics(String sqlName, long prepareNanos, long executeNanos, long fetchNanos, long rowCount) {
+    	SqlStatementMetrics metrics = SqlMetrics.forName(sqlName);
+    	if (metrics != null) {
+    		metrics.record(prepareNanos, executeNanos, fetchNanos, rowCount);
+    	}
+    }
+    
+    /**
+     * SQL 실행 오류를 sqlName 별 실행 통계(SqlMetrics)에 기록한다.
+     * @param sqlName
+     * @param stime System.nanoTime() 으로 구한 SQL 실행 시작 시각
+     */
+    protected void recordErrorMetrics(String sqlName, long stime) {
+    	SqlStatementMetrics metrics = SqlMetrics.forName(sqlName);
+    	if (metrics != null) {
+    		metrics.recordError(System.nanoTime() - stime);
+    	}
+    }
+    
+    /**
+     * System.nanoTime() 으로 구한 시간을 로그 출력을 위하여 밀리초로 변환한다.
+     */
+    protected static long toMillis(long nanos) {
+    	return nanos / 1000000L;
+    }
+    
     /**
      * 디버깅 모드 인지 일반 모드인지 판단하여 해당되는 log 객체를 반환한다.
      * @return
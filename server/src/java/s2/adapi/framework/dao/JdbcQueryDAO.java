@@ -11,6 +11,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 
@@ -119,6 +121,59 @@ public class JdbcQueryDAO extends JdbcDAO {
 		return getVO;
 	}
 	
+	/**
+	 * 조회용 SQL 문을 수행하고 결과를 한 row 씩 읽어올 수 있는 JdbcCursor 를 반환한다.
+	 * 커서를 닫을 때 Connection 도 함께 반환된다.
+	 * @param query 수행할 SQL문을 담고 있는 SqlQuery 객체
+	 * @param paramVO 파라메터를 담고 있는 ValueObject
+	 * @param fetchSize DB 에서 한 번에 가져올 row 수
+	 * @return 조회 결과를 읽어올 JdbcCursor
+	 * @throws SqlQueryException
+	 */
+	protected JdbcCursor openCursor(SqlQuery query, ValueObject paramVO, int fetchSize)
+			throws SqlQueryException {
+		Connection con = getConnection();
+		try {
+			List<SqlParameter> sqlParams = new ArrayList<SqlParameter>();
+			String sql = makeSql(query, paramVO, sqlParams); 
+			
+			return openCursor(con, sql, getParameterValues(sqlParams,paramVO), fetchSize,
+					query.getResultMap(), query.getSqlName(), true);
+		}
+		catch (RuntimeException ex) {
+			close(con);
+			throw ex;
+		}
+	}
+	
+	/**
+	 * 조회용 SQL 문을 비동기로 수행한다. 별도의 Connection 을 사용하는 조회 전용 트랜젝션에서 실행되므로
+	 * 호출한 쓰레드의 트랜젝션에서 commit 되지 않은 내용은 조회되지 않는다. (JdbcDAO.executeAsync() 참고)
+	 * @param query 수행할 SQL문을 담고 있는 SqlQuery 객체
+	 * @param paramVO 파라메터를 담고 있는 ValueObject
+	 * @return 조회 결과를 담은 ValueObject 를 받을 CompletableFuture
+	 */
+	protected CompletableFuture<ValueObject> executeQueryAsync(SqlQuery query, ValueObject paramVO) {
+		return executeQueryAsync(query, paramVO, null);
+	}
+	
+	/**
+	 * 주어진 SQL에 대하여 페이지 단위 조회를 비동기로 수행한다.
+	 * pageVO 의 tot_cnt, rmn_cnt 값은 반환된 CompletableFuture 가 완료된 후에 참조하여야 한다.
+	 * @param query 수행할 SQL문을 담고 있는 SqlQuery 객체
+	 * @param paramVO 파라메터를 담고 있는 ValueObject
+	 * @param pageVO 페이지 단위 조회를 위한 추가 정보, null 이면 전체를 조회한다.
+	 * @return 조회 결과를 담은 ValueObject 를 받을 CompletableFuture
+	 */
+	protected CompletableFuture<ValueObject> executeQueryAsync(final SqlQuery query, final ValueObject paramVO, 
+			final ValueObject pageVO) {
+		return executeAsync(new Callable<ValueObject>() {
+			public ValueObject call() throws Exception {
+				return executeQuery(query, paramVO, pageVO);
+			}
+		});
+	}
+	
     /**
      * <p>
      * DB update, insert, delete Query를 수행한다.
@@ -355,7 +410,8 @@ public class JdbcQueryDAO extends JdbcDAO {
 		CallableStatement cstmt = null;
 		StringBuilder sb = new StringBuilder();
 		
-        long stime = System.currentTimeMillis(); // 수행 시간 계산용
+        long stime = System.nanoTime(); // 수행 시간 계산용
+        long ptime = 0;
         long etime = 0;
 		
 		try {
@@ -366,6 +422,7 @@ public class JdbcQueryDAO extends JdbcDAO {
 			callStatement = sb.toString().trim();
 			
 			cstmt = con.prepareCall(callStatement);
+			ptime = System.nanoTime();
 			
 			sb.setLength(0);
 			Map<String,Object> retMap = executeCallInternal(cstmt,sqlParams,paramVO,
@@ -381,11 +438,12 @@ public class JdbcQueryDAO extends JdbcDAO {
 			}
 		}
 		catch (SQLException ex) {
+			recordErrorMetrics(query.getSqlName(), stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
-                log.info(query.getSqlName() + " execute call failed. |" + Long.toString(etime - stime) + " msec|param=" 
+                etime = System.nanoTime();
+                log.info(query.getSqlName() + " execute call failed. |" + Long.toString(toMillis(etime - stime)) + " msec|param=" 
                 		+ sb.toString() + "|" + ex.getMessage() + "| " + callStatement + " |" 
-                		+ Long.toString(etime - stime) + " msec");
+                		+ Long.toString(toMillis(etime - stime)) + " msec");
             }
 			throw new SqlQueryException(ex);
 		}
@@ -393,11 +451,13 @@ public class JdbcQueryDAO extends JdbcDAO {
 			close(con,cstmt,null);
 		}
 		
+		recordMetrics(query.getSqlName(), ptime - stime, System.nanoTime() - ptime, 0, 0);
+        
         if (log.isInfoEnabled()) {
-            etime = System.currentTimeMillis();
-            log.info(query.getSqlName() + " execute call succeeded. |" + Long.toString(etime - stime) + " msec|param=" 
+            etime = System.nanoTime();
+            log.info(query.getSqlName() + " execute call succeeded. |" + Long.toString(toMillis(etime - stime)) + " msec|param=" 
             		+ sb.toString()	+ callStatement + " |" 
-            		+ Long.toString(etime - stime) + " msec");
+            		+ Long.toString(toMillis(etime - stime)) + " msec");
         }
 		return retVO;
 	}
@@ -435,7 +495,8 @@ public class JdbcQueryDAO extends JdbcDAO {
 		CallableStatement cstmt = null;
 		StringBuilder sb = new StringBuilder();
 		
-        long stime = System.currentTimeMillis();    // 수행 시간 계산용
+        long stime = System.nanoTime();    // 수행 시간 계산용
+        long ptime = 0;
         long etime = 0;
 		
 		try {
@@ -446,6 +507,7 @@ public class JdbcQueryDAO extends JdbcDAO {
 			callStatement = sb.toString().trim();
 			
 			cstmt = con.prepareCall(callStatement);
+			ptime = System.nanoTime();
 			
 			sb.setLength(0);
 			Map<String,Object> retMap = executeCallInternal(cstmt,sqlParams,paramVO,
@@ -480,11 +542,12 @@ public class JdbcQueryDAO extends JdbcDAO {
 			
 		}
 		catch (SQLException ex) {
+			recordErrorMetrics(query.getSqlName(), stime);
             if (log.isErrorEnabled()) {
-                etime = System.currentTimeMillis();
-                log.info(query.getSqlName() + " execute call failed. |" + Long.toString(etime - stime) + " msec|param=" 
+                etime = System.nanoTime();
+                log.info(query.getSqlName() + " execute call failed. |" + Long.toString(toMillis(etime - stime)) + " msec|param=" 
                 		+ sb.toString() + "|" + ex.getMessage() + "| " + callStatement + " |" 
-                		+ Long.toString(etime - stime) + " msec");
+                		+ Long.toString(toMillis(etime - stime)) + " msec");
             }
 			throw new SqlQueryException(ex);
 		}
@@ -492,11 +555,13 @@ public class JdbcQueryDAO extends JdbcDAO {
 			close(con,cstmt,null);
 		}
 		
+		recordMetrics(query.getSqlName(), ptime - stime, System.nanoTime() - ptime, 0, 0);
+        
         if (log.isInfoEnabled()) {
-            etime = System.currentTimeMillis();
-            log.info(query.getSqlName() + " execute call succeeded. |" + Long.toString(etime - stime) + " msec|param=" 
+            etime = System.nanoTime();
+            log.info(query.getSqlName() + " execute call succeeded. |" + Long.toString(toMillis(etime - stime)) + " msec|param=" 
             		+ sb.toString()	+ callStatement + " |" 
-            		+ Long.toString(etime - stime) + " msec");
+            		+ Long.toString(toMillis(etime - stime)) + " msec");
         }
 		return retVOs;
 		
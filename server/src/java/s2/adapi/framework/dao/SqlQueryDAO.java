@@ -1,5 +1,10 @@
 package s2.adapi.framework.dao;
 
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import org.slf4j.Logger;
 
 import s2.adapi.framework.container.ParentAwareService;
@@ -294,6 +299,102 @@ public class SqlQueryDAO extends JdbcQueryDAO implements ParentAwareService {
 		return executeQuery(sql,paramVO,pageVO);
 	}
 	
+    /**
+	 * rowsVO 의 데이터를 tableName 테이블에 대량으로 입력한다. 
+	 * PostgreSQL 은 COPY 를 사용하며 그 외의 DBMS 는 INSERT 문을 batch 로 실행한다.
+	 * @param tableName 입력할 테이블명
+	 * @param columns 입력할 컬럼명, rowsVO 에서 값을 읽어올 key 로도 사용된다.
+	 * @param rowsVO 입력할 데이터
+	 * @return 입력된 row 수
+	 * @throws SqlQueryException
+	 */
+	public long executeBulkLoad(String tableName, String[] columns, ValueObject rowsVO)
+			throws SqlQueryException {
+		return executeBulkLoad(tableName, columns, rowsVO.iterator());
+	}
+	
+	/**
+	 * rows 에서 읽은 데이터를 tableName 테이블에 대량으로 입력한다. 
+	 * 데이터를 모두 메모리에 올리지 않고 읽는 대로 전송하므로 파일 등으로부터 많은 데이터를 입력할 때 사용한다.
+	 * @param tableName 입력할 테이블명
+	 * @param columns 입력할 컬럼명, 각 row 에서 값을 읽어올 key 로도 사용된다.
+	 * @param rows 입력할 데이터
+	 * @return 입력된 row 수
+	 * @throws SqlQueryException
+	 */
+	public long executeBulkLoad(String tableName, String[] columns, Iterator<? extends Map<String,?>> rows)
+			throws SqlQueryException {
+		Connection con = null;
+		try {
+			con = getConnection();
+			
+			return executeBulkLoad(con, tableName, columns, rows);
+		}
+		finally {
+			close(con);
+		}
+	}
+    
+    /**
+	 * 조회용 SQL 을 수행하고 결과를 한 row 씩 읽어올 수 있는 JdbcCursor 를 반환한다.
+	 * 조회 결과를 ValueObject 에 모두 담지 않으므로 대량의 데이터를 순차적으로 처리할 때 사용하며
+	 * 사용 후에는 반드시 close() 하여야 한다.
+	 * @param queryname 실행할 SQL의 statement ID
+	 * @param paramVO 파라메터를 담고 있는 ValueObject
+	 * @param fetchSize DB 에서 한 번에 가져올 row 수
+	 * @return 조회 결과를 읽어올 JdbcCursor
+	 * @throws SqlQueryException
+	 */
+	public JdbcCursor openCursor(String queryname, ValueObject paramVO, int fetchSize)
+			throws SqlQueryException {
+		Logger log = getLogger();
+		
+		if (log.isDebugEnabled()) {
+			log.debug(parentObjectClassName + queryname);
+		}
+		
+		SqlQuery sql = getSqlQueryPage().getQuery(queryname);
+		
+		return openCursor(sql, paramVO, fetchSize);
+	}
+    
+    /**
+	 * 조회용 SQL 을 비동기로 수행하고 그 결과를 CompletableFuture 로 반환한다.
+	 * 여러 개의 서로 독립적인 조회를 동시에 수행할 때 사용한다.
+	 * 각 조회는 호출한 쓰레드의 트랜젝션과 별도의 Connection 에서 조회 전용으로 실행되므로 
+	 * 호출한 쓰레드에서 commit 되지 않은 변경 내용은 조회되지 않는다.
+	 * @param queryname 실행할 SQL의 statement ID
+	 * @param paramVO 파라메터를 담고 있는 ValueObject
+	 * @return 조회 결과를 담은 ValueObject 를 받을 CompletableFuture
+	 * @throws SqlQueryException statement ID 에 해당하는 SQL이 없는 경우
+	 */
+	public CompletableFuture<ValueObject> executeQueryAsync(String queryname, ValueObject paramVO)
+			throws SqlQueryException {
+		return executeQueryAsync(queryname, paramVO, null);
+	}
+	
+	/**
+	 * 주어진 SQL에 대하여 페이지 단위 조회를 비동기로 수행한다.
+	 * pageVO 의 tot_cnt, rmn_cnt 값은 반환된 CompletableFuture 가 완료된 후에 참조하여야 한다.
+	 * @param queryname 실행할 SQL의 statement ID
+	 * @param paramVO 파라메터를 담고 있는 ValueObject
+	 * @param pageVO 페이지 단위 조회를 위한 추가 정보, null 이면 전체를 조회한다.
+	 * @return 조회 결과를 담은 ValueObject 를 받을 CompletableFuture
+	 * @throws SqlQueryException statement ID 에 해당하는 SQL이 없는 경우
+	 */
+	public CompletableFuture<ValueObject> executeQueryAsync(String queryname, ValueObject paramVO, ValueObject pageVO)
+			throws SqlQueryException {
+		Logger log = getLogger();
+		
+		if (log.isDebugEnabled()) {
+			log.debug(parentObjectClassName + queryname + " (async)");
+		}
+		
+		SqlQuery sql = getSqlQueryPage().getQuery(queryname);
+		
+		return executeQueryAsync(sql,paramVO,pageVO);
+	}
+    
     /**
      * <p>
      * update, insert, delete Query를 수행한다.
@@ -0,0 +1,175 @@
+package s2.adapi.framework.dao.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * 나노초 단위의 수행시간 분포를 기록하는 lock-free 히스토그램이다.
+ * HDR Histogram 과 같이 2의 지수 구간마다 16개의 하위 구간을 두는 log-linear 버킷 구조를 사용하므로
+ * 상대 오차는 약 6% 이내이며, 버킷 위치 계산은 비트 연산 몇 번으로 끝난다.
+ * </p>
+ * <p>
+ * 기록 가능한 최대 값은 약 18분(2^40 ns)이며, 그 이상의 값은 마지막 버킷에 기록된다.
+ * 기록(record)은 여러 쓰레드에서 동시에 호출할 수 있으며, 조회 메소드들은 기록 중인 값을
+ * 근사적으로(weakly consistent) 반환한다.
+ * </p>
+ * @author kimhd
+ */
+public class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_VALUE_BITS = 40;
+	private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+	private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong(0);
+	
+	/**
+	 * 수행시간 하나를 기록한다.
+	 * @param nanos 나노초 단위의 수행시간
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		
+		buckets.incrementAndGet(indexOf(nanos));
+		count.increment();
+		total.add(nanos);
+		
+		long current = max.get();
+		while (nanos > current) {
+			if (max.compareAndSet(current, nanos)) {
+				break;
+			}
+			current = max.get();
+		}
+	}
+	
+	public long getCount() {
+		return count.sum();
+	}
+	
+	public long getTotal() {
+		return total.sum();
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+	
+	public long getMean() {
+		long n = count.sum();
+		
+		return (n == 0)?0:(total.sum() / n);
+	}
+	
+	/**
+	 * 주어진 백분위(0 ~ 100)에 해당되는 수행시간을 반환한다. 반환되는 값은 해당 버킷의 상한 값이다.
+	 * @param percentile 백분위
+	 * @return 나노초 단위의 수행시간, 기록된 값이 없으면 0
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[BUCKET_COUNT];
+		long n = 0;
+		for(int i=0;i<BUCKET_COUNT;i++) {
+			snapshot[i] = buckets.get(i);
+			n += snapshot[i];
+		}
+		
+		if (n == 0) {
+			return 0;
+		}
+		
+		long rank = (long)Math.ceil(n * Math.min(Math.max(percentile, 0.0d), 100.0d) / 100.0d);
+		if (rank < 1) {
+			rank = 1;
+		}
+		
+		long seen = 0;
+		for(int i=0;i<BUCKET_COUNT;i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), max.get());
+			}
+		}
+		
+		return max.get();
+	}
+	
+	/**
+	 * 주어진 상한 값들 각각에 대하여 그 이하로 기록된 건수(누적)를 구한다. Prometheus histogram 의 le 버킷 출력에 사용된다.
+	 * 상한 값에 걸쳐있는 버킷의 값들은 다음 상한 값에 포함되므로 상대 오차는 버킷 크기(약 6%) 이내이다.
+	 * @param bounds 오름차순으로 정렬된 나노초 단위의 상한 값들
+	 * @return 상한 값별 누적 건수, 마지막에 전체 건수(+Inf)가 추가되므로 길이는 bounds.length + 1 이다.
+	 */
+	public long[] getCumulativeCounts(long[] bounds) {
+		long[] counts = new long[bounds.length + 1];
+		long seen = 0;
+		int b = 0;
+		for(int i=0;i<BUCKET_COUNT;i++) {
+			long upper = upperBoundOf(i);
+			while (b < bounds.length && upper > bounds[b]) {
+				counts[b++] = seen;
+			}
+			seen += buckets.get(i);
+		}
+		while (b < bounds.length) {
+			counts[b++] = seen;
+		}
+		counts[bounds.length] = seen;
+		
+		return counts;
+	}
+	
+	/**
+	 * 기록된 값을 모두 지운다. 기록 중에 호출되면 일부 값은 남을 수 있다.
+	 */
+	public void reset() {
+		for(int i=0;i<BUCKET_COUNT;i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+	
+	/**
+	 * 값이 속할 버킷의 위치를 구한다.
+	 * 16 미만의 값은 그대로 위치가 되며, 그 이상은 최상위 비트 아래 4 비트로 하위 구간을 구한다.
+	 */
+	static int indexOf(long value) {
+		if (value > MAX_VALUE) {
+			value = MAX_VALUE;
+		}
+		
+		if (value < SUB_BUCKET_COUNT) {
+			return (int)value;
+		}
+		
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		int sub = (int)(value >>> shift) & (SUB_BUCKET_COUNT - 1);
+		
+		return ((shift + 1) << SUB_BUCKET_BITS) + sub;
+	}
+	
+	/**
+	 * 버킷에 속하는 값의 상한을 구한다.
+	 */
+	static long upperBoundOf(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long sub = (index & (SUB_BUCKET_COUNT - 1)) | SUB_BUCKET_COUNT;
+		
+		return ((sub + 1) << shift) - 1;
+	}
+}
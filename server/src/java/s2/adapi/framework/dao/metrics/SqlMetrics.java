@@ -0,0 +1,161 @@
+package s2.adapi.framework.dao.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * DAO 에서 실행되는 SQL 문의 실행 통계를 sqlName 별로 모아 놓는 저장소이다.
+ * JdbcDAO 의 execute~() 메소드들이 SQL 실행시 자동으로 기록하며,
+ * 설정파일의 s2adapi.dao.metrics.enabled 값을 false 로 지정하면 기록하지 않는다.
+ * </p>
+ * <p>
+ * 기록된 통계는 snapshot() 으로 조회하거나 SqlMetricsWebAction 을 통하여 조회할 수 있다.
+ * </p>
+ * @author kimhd
+ */
+public class SqlMetrics {
+	
+	private static final String METRICS_ENABLED_KEY = "s2adapi.dao.metrics.enabled";
+	
+	/**
+	 * sqlName 이 지정되지 않은 SQL 의 통계를 기록할 명칭이다.
+	 */
+	public static final String UNNAMED_SQL = "(unnamed)";
+	
+	private static boolean enabled = true;
+	static {
+		try {
+			enabled = ConfiguratorFactory.getConfigurator().getBoolean(METRICS_ENABLED_KEY, true);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private static final ConcurrentMap<String, SqlStatementMetrics> metricsMap =
+			new ConcurrentHashMap<String, SqlStatementMetrics>();
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+	
+	/**
+	 * 주어진 sqlName 의 통계 기록 객체를 반환한다. 없으면 새로 생성한다.
+	 * 통계 기록이 꺼져 있으면 null 을 반환한다.
+	 * @param sqlName
+	 * @return
+	 */
+	public static SqlStatementMetrics forName(String sqlName) {
+		if (!enabled) {
+			return null;
+		}
+		
+		String name = (sqlName == null)?UNNAMED_SQL:sqlName;
+		
+		SqlStatementMetrics metrics = metricsMap.get(name);
+		if (metrics == null) {
+			SqlStatementMetrics created = new SqlStatementMetrics(name);
+			metrics = metricsMap.putIfAbsent(name, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		
+		return metrics;
+	}
+	
+	/**
+	 * 주어진 sqlName 의 통계 기록 객체를 반환한다. 기록된 적이 없으면 null 을 반환한다.
+	 * @param sqlName
+	 * @return
+	 */
+	public static SqlStatementMetrics getStatementMetrics(String sqlName) {
+		return metricsMap.get((sqlName == null)?UNNAMED_SQL:sqlName);
+	}
+	
+	/**
+	 * 기록된 모든 SQL 명칭을 정렬하여 반환한다.
+	 * @return
+	 */
+	public static List<String> getSqlNames() {
+		List<String> names = new ArrayList<String>(metricsMap.keySet());
+		Collections.sort(names);
+		
+		return names;
+	}
+	
+	/**
+	 * 기록된 모든 통계를 지운다.
+	 */
+	public static void reset() {
+		metricsMap.clear();
+	}
+	
+	/**
+	 * 기록된 통계를 SQL 별로 한 row 씩 ValueObject 에 담아 반환한다.
+	 * 수행시간은 마이크로초(us) 단위이며 각 row 에 담기는 항목은 다음과 같다.
+	 * <ul>
+	 * <li> sql_name, calls, errors, rows
+	 * <li> total_mean, total_p50, total_p95, total_p99, total_max
+	 * <li> prepare_mean, prepare_p50, prepare_p95, prepare_p99, prepare_max
+	 * <li> execute_mean, execute_p50, execute_p95, execute_p99, execute_max
+	 * <li> fetch_mean, fetch_p50, fetch_p95, fetch_p99, fetch_max
+	 * </ul>
+	 * @param prefix 조회할 sqlName 의 prefix, null 이면 전체를 조회한다.
+	 * @return
+	 */
+	public static ValueObject snapshot(String prefix) {
+		ValueObject snapshotVO = new ValueObject();
+		
+		int row = 0;
+		for(String name:getSqlNames()) {
+			if (prefix != null && !name.startsWith(prefix)) {
+				continue;
+			}
+			
+			SqlStatementMetrics metrics = metricsMap.get(name);
+			if (metrics == null) {
+				continue;
+			}
+			
+			snapshotVO.set(row, "sql_name", name);
+			snapshotVO.set(row, "calls", metrics.getCalls());
+			snapshotVO.set(row, "errors", metrics.getErrors());
+			snapshotVO.set(row, "rows", metrics.getRows());
+			setHistogram(snapshotVO, row, "total", metrics.getTotalTime());
+			setHistogram(snapshotVO, row, "prepare", metrics.getPrepareTime());
+			setHistogram(snapshotVO, row, "execute", metrics.getExecuteTime());
+			setHistogram(snapshotVO, row, "fetch", metrics.getFetchTime());
+			row++;
+		}
+		
+		return snapshotVO;
+	}
+	
+	public static ValueObject snapshot() {
+		return snapshot(null);
+	}
+	
+	private static void setHistogram(ValueObject vo, int row, String phase, LatencyHistogram histogram) {
+		vo.set(row, phase + "_mean", toMicros(histogram.getMean()));
+		vo.set(row, phase + "_p50", toMicros(histogram.getValueAtPercentile(50.0d)));
+		vo.set(row, phase + "_p95", toMicros(histogram.getValueAtPercentile(95.0d)));
+		vo.set(row, phase + "_p99", toMicros(histogram.getValueAtPercentile(99.0d)));
+		vo.set(row, phase + "_max", toMicros(histogram.getMax()));
+	}
+	
+	private static long toMicros(long nanos) {
+		return nanos / 1000L;
+	}
+}
@@ -0,0 +1,107 @@
+package s2.adapi.framework.dao.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * SQL 문 하나(sqlName)의 실행 통계를 기록한다.
+ * 호출 건수, 오류 건수, 조회/변경된 row 수와 prepare, execute, fetch 단계별 수행시간 히스토그램을 가진다.
+ * </p>
+ * <ul>
+ * <li> prepare : PreparedStatement 생성 및 파라메터 설정 시간
+ * <li> execute : SQL 실행 시간 (페이지 조회의 count query 포함)
+ * <li> fetch : ResultSet 으로부터 결과를 읽어오는 시간
+ * </ul>
+ * 모든 기록 메소드는 lock 없이 여러 쓰레드에서 동시에 호출할 수 있다.
+ * @author kimhd
+ */
+public class SqlStatementMetrics {
+	
+	private final String sqlName;
+	
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	
+	private final LatencyHistogram prepareTime = new LatencyHistogram();
+	private final LatencyHistogram executeTime = new LatencyHistogram();
+	private final LatencyHistogram fetchTime = new LatencyHistogram();
+	private final LatencyHistogram totalTime = new LatencyHistogram();
+	
+	SqlStatementMetrics(String name) {
+		sqlName = name;
+	}
+	
+	public String getSqlName() {
+		return sqlName;
+	}
+	
+	/**
+	 * 정상 종료된 SQL 실행 1건을 기록한다. 시간은 모두 System.nanoTime() 으로 측정한 나노초 값이다.
+	 * @param prepareNanos prepare 단계 수행시간
+	 * @param executeNanos execute 단계 수행시간
+	 * @param fetchNanos fetch 단계 수행시간, fetch 단계가 없으면 0
+	 * @param rowCount 조회 또는 변경된 row 수
+	 */
+	public void record(long prepareNanos, long executeNanos, long fetchNanos, long rowCount) {
+		calls.increment();
+		if (rowCount > 0) {
+			rows.add(rowCount);
+		}
+		
+		prepareTime.record(prepareNanos);
+		executeTime.record(executeNanos);
+		if (fetchNanos > 0) {
+			fetchTime.record(fetchNanos);
+		}
+		totalTime.record(prepareNanos + executeNanos + fetchNanos);
+	}
+	
+	/**
+	 * 오류가 발생한 SQL 실행 1건을 기록한다.
+	 * @param elapsedNanos 시작부터 오류 발생까지의 수행시간
+	 */
+	public void recordError(long elapsedNanos) {
+		calls.increment();
+		errors.increment();
+		totalTime.record(elapsedNanos);
+	}
+	
+	public long getCalls() {
+		return calls.sum();
+	}
+	
+	public long getErrors() {
+		return errors.sum();
+	}
+	
+	public long getRows() {
+		return rows.sum();
+	}
+	
+	public LatencyHistogram getPrepareTime() {
+		return prepareTime;
+	}
+	
+	public LatencyHistogram getExecuteTime() {
+		return executeTime;
+	}
+	
+	public LatencyHistogram getFetchTime() {
+		return fetchTime;
+	}
+	
+	public LatencyHistogram getTotalTime() {
+		return totalTime;
+	}
+	
+	public void reset() {
+		calls.reset();
+		errors.reset();
+		rows.reset();
+		prepareTime.reset();
+		executeTime.reset();
+		fetchTime.reset();
+		totalTime.reset();
+	}
+}
@@ -73,4 +73,12 @@ public class SqlMessages {
      */             
     public static final String PAGING_QUERY_NOT_SUPPORTED_ERROR_MESSAGE = 
       "Paging query is not supported.";
+    
+    /**
+     * <p>
+     * 대량 입력시 테이블명이나 컬럼명이 올바른 형식이 아닌 경우
+     * </p>
+     */             
+    public static final String INVALID_IDENTIFIER_ERROR_MESSAGE = 
+      "Invalid table or column name : ";
 }
\ No newline at end of file
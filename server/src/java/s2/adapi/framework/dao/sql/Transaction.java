@@ -2,15 +2,40 @@ package s2.adapi.framework.dao.sql;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import s2.adapi.framework.config.Configurator;
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.dao.supporter.DbmsSupporter;
+
 /**
  * 여러개의 DB 연결을 처리하기 위한 기능을 제공 (기존의 LocalTransaction 을 대체한다.)
- * 분산트랜젝션을 지원하는 것은 아님
+ * <p>
+ * 기본적으로 DataSource 별로 순차적으로 commit() 하며 분산트랜젝션을 지원하는 것은 아니다.
+ * 설정에 따라 아래 두가지 방식을 추가로 사용할 수 있다.
+ * <ul>
+ * <li> s2adapi.transaction.commit.parallel=true : 2개 이상의 DataSource 를 동시에 commit/rollback 한다.
+ * <li> s2adapi.transaction.commit.twophase=true : PREPARE TRANSACTION 을 지원하는 DBMS(PostgreSQL)에 대하여
+ *      prepare 후 commit 하는 2 Phase commit 을 수행한다. 진행 상태는 recovery 로그에 기록된다.
+ * </ul>
+ * </p>
  * @author kimhd
  *
  */
@@ -18,29 +43,170 @@ public class Transaction {
 
 	private static final Logger log = LoggerFactory.getLogger(Transaction.class);
 	
+	/**
+	 * 2 Phase commit 의 진행 상태를 기록하는 Logger 명칭이다.
+	 * commit 도중 장애가 발생한 경우 이 로그를 참고하여 in-doubt 트랜젝션을 정리한다.
+	 */
+	public static final String RECOVERY_LOGGER_NAME = "s2adapi.transaction.recovery";
+	
+	private static final Logger recoveryLog = LoggerFactory.getLogger(RECOVERY_LOGGER_NAME);
+	
+	private static final String PARALLEL_COMMIT_KEY = "s2adapi.transaction.commit.parallel";
+	private static final String TWOPHASE_COMMIT_KEY = "s2adapi.transaction.commit.twophase";
+	private static final String COMMIT_THREADS_KEY = "s2adapi.transaction.commit.threads";
+	
+	/**
+	 * 2 Phase commit 시 사용하는 transaction id 의 prefix
+	 */
+	private static final String XID_PREFIX = "s2tx_";
+    
     final static int STATE_ACTIVE = 1;
     final static int STATE_INACTIVE = 0;
     
 	private static ThreadLocal<Transaction> currentTr = new ThreadLocal<Transaction>();
 	
+	private static boolean defaultParallelCommit = false;
+	private static boolean defaultTwoPhaseCommit = false;
+	private static int commitThreads = 8;
+	
+	static {
+		try {
+			Configurator config = ConfiguratorFactory.getConfigurator();
+			defaultParallelCommit = config.getBoolean(PARALLEL_COMMIT_KEY, false);
+			defaultTwoPhaseCommit = config.getBoolean(TWOPHASE_COMMIT_KEY, false);
+			commitThreads = config.getInt(COMMIT_THREADS_KEY, 8);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	/**
+	 * 병렬 commit 을 수행하는 쓰레드 풀, 처음 사용될 때 생성된다.
+	 */
+	private static ExecutorService commitExecutor = null;
+	
 	public static Transaction current() {
-    	if (currentTr.get() == null) {
-    		currentTr.set(new Transaction());
+    	Transaction tr = currentTr.get();
+    	if (tr == null) {
+    		tr = new Transaction();
+    		currentTr.set(tr);
     	}
     	
+    	return tr;
+    }
+	
+	/**
+	 * 현재 쓰레드에 연결된 Transaction 객체를 반환한다. 없으면 새로 생성하지 않고 null 을 반환한다.
+	 * @return
+	 */
+	public static Transaction peek() {
     	return currentTr.get();
+	}
+	
+	/**
+	 * 주어진 Transaction 객체를 현재 쓰레드에 연결한다. null 이면 연결을 해제한다.
+	 * 다른 쓰레드에서 같은 트랜젝션에 참여하기 위하여 사용된다. (ContextSnapshot 참고)
+	 * @param tr
+	 */
+	public static void bind(Transaction tr) {
+		if (tr == null) {
+			currentTr.remove();
+		}
+		else {
+			currentTr.set(tr);
+		}
     }
 	
-	private Map<String, Connection> connectionMap = new HashMap<String, Connection>();;
+	/**
+	 * 현재 쓰레드의 트랜젝션과 상관없이 새로운 트랜젝션에서 task 를 실행한다.
+	 * task 가 정상 종료되면 commit 하고 예외가 발생하면 rollback 한 후 그 예외를 그대로 던진다.
+	 * 실행이 끝나면 현재 쓰레드의 원래 트랜젝션으로 복원되며 원래 트랜젝션의 상태는 변경되지 않는다.
+	 * @param task
+	 * @return task 의 실행 결과
+	 * @throws Exception task 또는 commit 에서 발생한 예외
+	 */
+	public static <V> V executeInNewTransaction(Callable<V> task) throws Exception {
+		Transaction previous = currentTr.get();
+		Transaction tr = new Transaction();
+		tr.begin();
+		bind(tr);
+		
+		try {
+			V result = task.call();
+			tr.commit();
+			
+			return result;
+		}
+		finally {
+			if (tr.isActive()) {
+				try {
+					tr.rollback();
+				}
+				catch (SQLException ex) {
+					log.warn("## new transaction rollback failed.", ex);
+				}
+			}
+			bind(previous);
+		}
+	}
+	
+	/**
+	 * 트랜젝션에 참여한 Connection 들, 하위 작업 쓰레드들이 같은 트랜젝션을 공유할 수 있으므로
+	 * 이 Transaction 객체로 동기화하여 접근한다.
+	 */
+	private Map<String, Connection> connectionMap = new HashMap<String, Connection>();
 	
-	private int state = Transaction.STATE_INACTIVE;
+	private volatile int state = Transaction.STATE_INACTIVE;
 	private boolean markRollback = false;
 	
+	private boolean parallelCommit = defaultParallelCommit;
+	private boolean twoPhaseCommit = defaultTwoPhaseCommit;
+	private boolean readOnly = false;
+    
     public boolean isActive() {
     	return (state == Transaction.STATE_ACTIVE);
     }
     
-	public void begin() {
+    /**
+     * 2개 이상의 DataSource 를 사용하는 경우 commit()/rollback() 을 동시에 수행할지 여부를 지정한다.
+     * 디폴트 값은 설정파일의 s2adapi.transaction.commit.parallel 값이다.
+     * @param parallel
+     */
+    public void setParallelCommit(boolean parallel) {
+    	parallelCommit = parallel;
+    }
+    
+    public boolean isParallelCommit() {
+    	return parallelCommit;
+    }
+    
+    /**
+     * 2개 이상의 DataSource 를 사용하는 경우 2 Phase commit 을 수행할지 여부를 지정한다.
+     * 디폴트 값은 설정파일의 s2adapi.transaction.commit.twophase 값이다.
+     * @param twoPhase
+     */
+    public void setTwoPhaseCommit(boolean twoPhase) {
+    	twoPhaseCommit = twoPhase;
+    }
+    
+    public boolean isTwoPhaseCommit() {
+    	return twoPhaseCommit;
+    }
+    
+    /**
+     * 조회 전용 트랜젝션 여부를 지정한다. true 이면 트랜젝션에 참여하는 Connection 에 setReadOnly(true) 가 지정되고
+     * close() 전에 원래대로 복원된다. 트랜젝션이 시작되기 전에 지정해야 한다.
+     * @param readOnly
+     */
+    public void setReadOnly(boolean readOnly) {
+    	this.readOnly = readOnly;
+    }
+    
+    public boolean isReadOnly() {
+    	return readOnly;
+    }
+    
+	public synchronized void begin() {
 		log.info("## transaction begin()");
 
         int nextState = checkState(Transaction.STATE_ACTIVE);
@@ -66,44 +232,28 @@ public class Transaction {
 	
 	/**
 	 * 등록된 모든 LocalTransaction() 을 commit() 하고 비운다.
+	 * 2 Phase commit 이 지정된 경우에는 prepare 후 commit 한다.
 	 */
 	public void commit() throws SQLException {
 		StringBuilder sb = new StringBuilder();
 		
-		sb.append("## commit ").append(connectionMap.size()).append(" : ");
+		List<Participant> participants = detachParticipants();
         
-        int nextState = checkState(Transaction.STATE_INACTIVE);
+		sb.append("## commit ").append(participants.size()).append(" : ");
         
         try {
-        	if (connectionMap.size() > 0) {
+        	if (participants.size() > 0) {
         		
         		// 예외처리를 위한 부분
         		
         		Exception lastException = null;
         		
-	        	for(String dsn:connectionMap.keySet()) {
-	        		Connection con = connectionMap.get(dsn);
-	        		
-	        		try {	        			
-	        			con.commit();
-	        			
-	        			sb.append(dsn);
-	        		}
-	        		catch(Exception ex) {
-	        			sb.append(dsn).append(" error [").append(ex.getMessage()).append("] ");
-	        			
-	        			lastException = ex;
-	        		}
-	        		finally {
-	        			try {
-	        				con.close();
-	        				sb.append(" closed,");
-	        			}
-	        			catch(Exception ex) {
-	        				sb.append(" close failed [").append(ex.getMessage()).append("],");
-	        			}
-	        		}
-	        	}
+        		if (twoPhaseCommit && participants.size() > 1) {
+        			lastException = completeTwoPhase(participants, sb);
+        		}
+        		else {
+        			lastException = completeAll(participants, true, sb);
+        		}
 	        	
 	        	// 예외가 발생되었다면 이를 알리기 위하여 SQLException 을 생성하여 throw 한다.
 	        	// 여러개의 예외가 발생되었다면 마지막 에외를 caused exception 으로 설정한다.
@@ -116,10 +266,7 @@ public class Transaction {
         	}
         }
         finally {
-        	state = nextState;
-        	connectionMap.clear();
-        	
-        	currentTr.set(null);
+        	currentTr.remove();
         	
         	sb.append(" done.");
         	log.info(sb.toString());
@@ -129,41 +276,16 @@ public class Transaction {
 	public void rollback() throws SQLException {        
 		StringBuilder sb = new StringBuilder();
 		
-		sb.append("## rollback ").append(connectionMap.size()).append(" : ");
+		List<Participant> participants = detachParticipants();
 		
-        int nextState = checkState(Transaction.STATE_INACTIVE);
+		sb.append("## rollback ").append(participants.size()).append(" : ");
         
         try {
-        	if (connectionMap.size() > 0) {
+        	if (participants.size() > 0) {
         		
         		// 예외처리를 위한 부분
         		
-        		Exception lastException = null;
-        		
-	        	for(String dsn:connectionMap.keySet()) {
-	        		Connection con = connectionMap.get(dsn);
-	        		
-	        		try {
-	        			con.rollback();
-	        			
-	        			sb.append(dsn);
-	        		}
-	        		catch(Exception ex) {
-	        			sb.append(dsn).append(" error [").append(ex.getMessage()).append("] ");
-	        			
-	        			lastException = ex;	        			
-	        		}
-	        		finally {
-	        			try {
-	        				con.close();
-	        				sb.append(" closed");
-	        			}
-	        			catch(Exception ex) {
-	        				sb.append(" close failed [").append(ex.getMessage()).append("],");
-	        			}
-	        			
-	        		}
-	        	}
+        		Exception lastException = completeAll(participants, false, sb);
 	        	
 	        	// 예외가 발생되었다면 이를 알리기 위하여 SQLException 을 생성하여 throw 한다.
 	        	// 여러개의 예외가 발생되었다면 마지막 에외를 caused exception 으로 설정한다.
@@ -176,10 +298,7 @@ public class Transaction {
         	}
         }
         finally {
-        	state = nextState;
-        	connectionMap.clear();
-        	
-        	currentTr.set(null);
+        	currentTr.remove();
         	
         	sb.append(" done.");
         	log.info(sb.toString());
@@ -194,11 +313,12 @@ public class Transaction {
      * dsn 으로 연결된 Connection 객체를 찾는다.
      * 있으면 바로 그 connection 객체를 반환한다.
      * 없으면 새로운 connection 객체를 ds 에서 받아와서 이를 connectionMap 에 저장하고 반환한다.
+     * 하위 작업 쓰레드들이 같은 트랜젝션을 공유할 수 있으므로 동기화된다.
      * @param ds
      * @return
      * @throws SQLException 
      */
-    public Connection getConnection(DataSource ds) throws SQLException {
+    public synchronized Connection getConnection(DataSource ds) throws SQLException {
     	
     	String dsn = ds.getDsn();
     	
@@ -214,6 +334,9 @@ public class Transaction {
     		// 이전에 요청된 connection 이 없으므로 새로 connection 을 받아온다.
     		connection = ds.getConnection();
         	connection.setAutoCommit(false);
+        	if (readOnly) {
+        		connection.setReadOnly(true);
+        	}
         	
         	connectionMap.put(dsn, connection);
     	}
@@ -228,7 +351,7 @@ public class Transaction {
      * @param con
      * @throws SQLException
      */
-    public void closeConnection(Connection con) throws SQLException {
+    public synchronized void closeConnection(Connection con) throws SQLException {
     	if (!connectionMap.containsValue(con)) {
     		log.info("### cannot close connection not owned by a transaction.");
     		throw new SQLException("cannot close connection not owned by a transaction.");
@@ -236,6 +359,317 @@ public class Transaction {
     	}
     }
     
+    /**
+	 * 등록된 모든 Connection 을 commit() 또는 rollback() 하고 close() 한다.
+	 * 병렬 commit 이 지정된 경우에는 쓰레드 풀을 사용하여 동시에 처리한다.
+	 * @param participants 대상 Connection 들
+	 * @param commit true 이면 commit(), false 이면 rollback()
+	 * @param sb 처리 결과를 기록할 로그 버퍼
+	 * @return 마지막으로 발생한 예외, 예외가 없으면 null
+	 */
+	private Exception completeAll(List<Participant> participants, final boolean commit, StringBuilder sb) {
+		runAll(participants, new ParticipantTask() {
+			public void run(Participant p) {
+				try {
+					if (commit) {
+						p.con.commit();
+					}
+					else {
+						p.con.rollback();
+					}
+					
+					p.log.append(p.dsn);
+				}
+				catch(Exception ex) {
+					p.log.append(p.dsn).append(" error [").append(ex.getMessage()).append("] ");
+					
+					p.error = ex;
+				}
+				finally {
+					closeParticipant(p);
+				}
+			}
+		});
+		
+		return collect(participants, sb);
+	}
+	
+	/**
+	 * 2 Phase commit 을 수행한다.
+	 * <ol>
+	 * <li> PREPARE TRANSACTION 을 지원하는 Connection 들을 prepare 한다. 하나라도 실패하면 전체를 rollback 한다.
+	 * <li> prepare 를 지원하지 않는 Connection 들을 commit 한다. 첫번째 commit 이 실패하면 전체를 rollback 한다.
+	 * <li> 결정된 결과(COMMIT/ROLLBACK)를 recovery 로그에 기록한 후 prepare 된 Connection 들을 완료한다.
+	 *      이 단계에서 실패한 트랜젝션은 IN-DOUBT 로 recovery 로그에 기록되며 COMMIT PREPARED 등으로 직접 정리해야한다.
+	 * </ol>
+	 * @param participants 대상 Connection 들
+	 * @param sb 처리 결과를 기록할 로그 버퍼
+	 * @return 마지막으로 발생한 예외, 예외가 없으면 null
+	 */
+	private Exception completeTwoPhase(List<Participant> participants, StringBuilder sb) {
+		List<Participant> preparables = new ArrayList<Participant>();
+		List<Participant> others = new ArrayList<Participant>();
+		
+		String gtrid = XID_PREFIX + UUID.randomUUID().toString().replace("-", "");
+		
+		for(Participant p:participants) {
+			try {
+				p.supporter = DbmsSupporter.getInstance(p.con);
+			}
+			catch(SQLException ex) {
+				p.supporter = null;
+			}
+			
+			if (p.supporter != null && p.supporter.supportsTwoPhaseCommit()) {
+				p.xid = gtrid + "_" + p.dsn.replaceAll("[^A-Za-z0-9_]", "_");
+				preparables.add(p);
+			}
+			else {
+				others.add(p);
+			}
+		}
+		
+		if (preparables.size() == 0) {
+			// prepare 를 지원하는 DBMS 가 없으므로 일반 commit 으로 처리한다.
+			return completeAll(participants, true, sb);
+		}
+		
+		// phase 1 : prepare
+		runAll(preparables, new ParticipantTask() {
+			public void run(Participant p) {
+				try {
+					p.supporter.prepareTransaction(p.con, p.xid);
+					p.prepared = true;
+					recoveryLog.info("PREPARED " + p.xid + " (" + p.dsn + ")");
+				}
+				catch(Exception ex) {
+					p.error = ex;
+				}
+			}
+		});
+		
+		boolean commitDecided = true;
+		for(Participant p:preparables) {
+			if (p.error != null) {
+				commitDecided = false;
+			}
+		}
+		
+		// prepare 를 지원하지 않는 Connection 들은 일반 commit 한다. (last resource commit)
+		boolean committedOne = false;
+		for(Participant p:others) {
+			if (!commitDecided) {
+				break;
+			}
+			
+			try {
+				p.con.commit();
+				p.log.append(p.dsn);
+				committedOne = true;
+			}
+			catch(Exception ex) {
+				p.error = ex;
+				
+				if (!committedOne) {
+					// 아직 commit 된 것이 없으므로 전체 rollback 으로 결정한다.
+					commitDecided = false;
+				}
+				else {
+					p.log.append(p.dsn).append(" error [").append(ex.getMessage()).append("] ");
+					recoveryLog.error("HEURISTIC MIXED " + gtrid + " (" + p.dsn + ") : commit failed after other datasources committed.");
+				}
+			}
+		}
+		
+		recoveryLog.info((commitDecided?"COMMIT ":"ROLLBACK ") + gtrid);
+		
+		// phase 2 : prepare 된 트랜젝션을 완료하고, 완료되지 않은 나머지는 rollback 한다.
+		final boolean commit = commitDecided;
+		
+		runAll(participants, new ParticipantTask() {
+			public void run(Participant p) {
+				try {
+					if (p.prepared) {
+						if (commit) {
+							p.supporter.commitPrepared(p.con, p.xid);
+						}
+						else {
+							p.supporter.rollbackPrepared(p.con, p.xid);
+						}
+						
+						recoveryLog.info((commit?"COMMITTED ":"ROLLED BACK ") + p.xid + " (" + p.dsn + ")");
+						p.log.append(p.dsn).append(commit?" prepared":" rollback");
+					}
+					else if (p.log.length() == 0) {
+						// prepare 가 실패했거나 commit 이 수행되지 않은 Connection
+						p.con.rollback();
+						
+						p.log.append(p.dsn);
+						if (p.error != null) {
+							p.log.append(" error [").append(p.error.getMessage()).append("] ");
+						}
+						else {
+							p.log.append(" rollback");
+						}
+					}
+				}
+				catch(Exception ex) {
+					if (p.prepared) {
+						recoveryLog.error("IN-DOUBT " + p.xid + " (" + p.dsn + ") : "
+								+ (commit?"COMMIT":"ROLLBACK") + " PREPARED required. [" + ex.getMessage() + "]");
+					}
+					
+					p.log.append(p.dsn).append(" error [").append(ex.getMessage()).append("] ");
+					p.error = ex;
+				}
+				finally {
+					closeParticipant(p);
+				}
+			}
+		});
+		
+		Exception lastException = collect(participants, sb);
+		
+		if (!commitDecided && lastException == null) {
+			lastException = new SQLException("two-phase commit failed and rolled back. (" + gtrid + ")");
+		}
+		
+		return lastException;
+	}
+	
+	/**
+	 * 트랜젝션을 종료 상태로 변경하고 등록된 Connection 들을 connectionMap 에서 떼어내어 반환한다.
+	 * 이후에 다른 쓰레드에서 getConnection() 을 호출하면 트랜젝션이 종료되었으므로 SQLException 이 발생하며,
+	 * commit 도중에 새로운 Connection 이 등록되어 누락되는 일은 없다.
+	 * 트랜젝션이 시작되지 않은 상태라면 IllegalStateException 을 던진다.
+	 */
+	private synchronized List<Participant> detachParticipants() {
+		state = checkState(Transaction.STATE_INACTIVE);
+		
+		List<Participant> participants = new ArrayList<Participant>(connectionMap.size());
+		
+		for(Map.Entry<String, Connection> entry:connectionMap.entrySet()) {
+			participants.add(new Participant(entry.getKey(), entry.getValue()));
+		}
+		connectionMap.clear();
+		
+		return participants;
+	}
+	
+	private void closeParticipant(Participant p) {
+		if (readOnly) {
+			// 풀로 반환되는 Connection 에 read-only 설정이 남지 않도록 한다.
+			try {
+				p.con.setReadOnly(false);
+			}
+			catch(Exception ex) {
+				p.log.append(" reset read-only failed [").append(ex.getMessage()).append("],");
+			}
+		}
+		
+		try {
+			p.con.close();
+			p.log.append(" closed,");
+		}
+		catch(Exception ex) {
+			p.log.append(" close failed [").append(ex.getMessage()).append("],");
+		}
+	}
+	
+	/**
+	 * Connection 별 처리 결과를 로그 버퍼에 모으고, 마지막으로 발생한 예외를 반환한다.
+	 */
+	private Exception collect(List<Participant> participants, StringBuilder sb) {
+		Exception lastException = null;
+		
+		for(Participant p:participants) {
+			sb.append(p.log);
+			if (p.error != null) {
+				lastException = p.error;
+			}
+		}
+		
+		return lastException;
+	}
+	
+	/**
+	 * 주어진 Connection 들에 대하여 task 를 수행한다.
+	 * 병렬 commit 이 지정되어 있고 대상이 2개 이상인 경우에는 첫번째 대상은 현재 쓰레드에서,
+	 * 나머지는 쓰레드 풀에서 동시에 수행하며 모두 끝날 때 까지 기다린다.
+	 */
+	private void runAll(List<Participant> participants, final ParticipantTask task) {
+		if (!parallelCommit || participants.size() < 2) {
+			for(Participant p:participants) {
+				task.run(p);
+			}
+			return;
+		}
+		
+		ExecutorService executor = getCommitExecutor();
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(participants.size());
+		
+		for(int i=1;i<participants.size();i++) {
+			final Participant p = participants.get(i);
+			
+			futures.add(executor.submit(new Callable<Object>() {
+				public Object call() {
+					task.run(p);
+					return null;
+				}
+			}));
+		}
+		
+		task.run(participants.get(0));
+		
+		// commit 도중에는 interrupt 되더라도 중단하지 않고 모두 끝날 때 까지 기다린다.
+		boolean interrupted = false;
+		
+		for(int i=0;i<futures.size();i++) {
+			Participant p = participants.get(i+1);
+			
+			while (true) {
+				try {
+					futures.get(i).get();
+					break;
+				}
+				catch(InterruptedException ex) {
+					interrupted = true;
+				}
+				catch(ExecutionException ex) {
+					if (p.error == null && ex.getCause() instanceof Exception) {
+						p.error = (Exception)ex.getCause();
+					}
+					break;
+				}
+			}
+		}
+		
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private static synchronized ExecutorService getCommitExecutor() {
+		if (commitExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(commitThreads, commitThreads,
+					60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						private final AtomicInteger seq = new AtomicInteger(0);
+						
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "s2adapi-tx-commit-" + seq.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			
+			commitExecutor = executor;
+		}
+		
+		return commitExecutor;
+	}
+    
     /**
      * 현재 상태에서 target으로 변경할 수 있는 지 여부를 확인한다.
      * 변경할 수 없는 상태라면 IllegalStateException을 던진다.
@@ -262,4 +696,27 @@ public class Transaction {
         
         return target; 
     }  
+    
+    /**
+     * commit 대상 Connection 별 처리 상태를 담는다.
+     */
+    private static class Participant {
+    	final String dsn;
+    	final Connection con;
+    	final StringBuilder log = new StringBuilder();
+    	
+    	DbmsSupporter supporter = null;
+    	String xid = null;
+    	boolean prepared = false;
+    	Exception error = null;
+    	
+    	Participant(String dsn, Connection con) {
+    		this.dsn = dsn;
+    		this.con = con;
+    	}
+    }
+    
+    private static interface ParticipantTask {
+    	public void run(Participant p);
+    }
 }
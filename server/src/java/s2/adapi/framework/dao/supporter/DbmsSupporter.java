@@ -9,12 +9,16 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +46,7 @@ import s2.adapi.framework.dao.reader.SimpleIntegerColumnReader;
 import s2.adapi.framework.dao.reader.StringColumnReader;
 import s2.adapi.framework.dao.reader.TimeColumnReader;
 import s2.adapi.framework.dao.reader.TimeStampColumnReader;
+import s2.adapi.framework.dao.sql.SqlMessages;
 import s2.adapi.framework.dao.types.JdbcNull;
 import s2.adapi.framework.dao.types.JdbcXML;
 import s2.adapi.framework.query.element.ResultMap;
@@ -64,6 +69,11 @@ public abstract class DbmsSupporter {
 	
 	private static DbmsSupporter[] supporters = null;
 	
+	/**
+	 * 대량 입력시 SQL 문장에 그대로 사용되는 테이블명, 컬럼명의 형식 (schema.table 형식 허용)
+	 */
+	private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+	
 	/**
 	 * 실행 대상 DB 명칭
 	 */
@@ -377,6 +387,188 @@ public abstract class DbmsSupporter {
 		return null;
 	}
 	
+	/**
+	 * PREPARE TRANSACTION 과 같이 2 Phase commit 의 prepare 단계를 지원하는지 여부를 반환한다.
+	 * 지원하는 DBMS 의 supporter 는 이 메소드와 함께 prepareTransaction(), commitPrepared(), 
+	 * rollbackPrepared() 를 구현해야한다.
+	 * @return
+	 */
+	public boolean supportsTwoPhaseCommit() {
+		return false;
+	}
+	
+	/**
+	 * 현재 트랜젝션을 주어진 xid 로 prepare 한다. prepare 된 트랜젝션은 Connection 과 분리되어 DBMS 에 보관된다.
+	 * @param conn
+	 * @param xid 트랜젝션 식별자
+	 * @throws SQLException
+	 */
+	public void prepareTransaction(Connection conn, String xid) throws SQLException {
+		throw new SQLFeatureNotSupportedException(SqlMessages.XA_NOT_SUPPORT_ERROR_MESSAGE);
+	}
+	
+	/**
+	 * prepare 된 트랜젝션을 commit 한다.
+	 * @param conn
+	 * @param xid 트랜젝션 식별자
+	 * @throws SQLException
+	 */
+	public void commitPrepared(Connection conn, String xid) throws SQLException {
+		throw new SQLFeatureNotSupportedException(SqlMessages.XA_NOT_SUPPORT_ERROR_MESSAGE);
+	}
+	
+	/**
+	 * prepare 된 트랜젝션을 rollback 한다.
+	 * @param conn
+	 * @param xid 트랜젝션 식별자
+	 * @throws SQLException
+	 */
+	public void rollbackPrepared(Connection conn, String xid) throws SQLException {
+		throw new SQLFeatureNotSupportedException(SqlMessages.XA_NOT_SUPPORT_ERROR_MESSAGE);
+	}
+	
+	/**
+	 * <p>
+	 * rows 의 각 row(Map)에서 columns 에 해당되는 값을 읽어서 tableName 테이블에 대량으로 입력한다.
+	 * 값은 setPreparedStatementParam() 과 동일한 규칙으로 바인딩된다.
+	 * </p>
+	 * <p>
+	 * 디폴트 구현은 INSERT 문을 batchSize 건씩 묶어 executeBatch() 로 실행한다.
+	 * DBMS 전용의 대량 입력 방식(PostgreSQL 의 COPY 등)을 지원하는 supporter 는 이 메소드를 재정의한다.
+	 * </p>
+	 * @param conn
+	 * @param tableName 입력할 테이블명
+	 * @param columns 입력할 컬럼명, row 에서 값을 읽을 때 key 로도 사용된다.
+	 * @param rows 입력할 데이터
+	 * @param batchSize 한 번에 실행할 INSERT 건수
+	 * @return 입력된 row 수
+	 * @throws SQLException
+	 */
+	public long bulkLoad(Connection conn, String tableName, String[] columns, 
+			Iterator<? extends Map<String,?>> rows, int batchSize) throws SQLException {
+		
+		String sql = buildInsertSql(tableName, columns);
+		if (log.isDebugEnabled()) {
+			log.debug("bulk load : " + sql);
+		}
+		
+		if (batchSize <= 0) {
+			batchSize = 1000;
+		}
+		
+		long count = 0;
+		int pending = 0;
+		PreparedStatement pstmt = conn.prepareStatement(sql);
+		try {
+			while (rows.hasNext()) {
+				setPreparedStatementParam(pstmt, getRowValues(rows.next(), columns));
+				pstmt.addBatch();
+				pending++;
+				
+				if (pending >= batchSize) {
+					count += countRows(pstmt.executeBatch());
+					pending = 0;
+				}
+			}
+			
+			if (pending > 0) {
+				count += countRows(pstmt.executeBatch());
+			}
+		}
+		finally {
+			pstmt.close();
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * INSERT INTO tableName (col1,col2,...) VALUES (?,?,...) 문장을 생성한다.
+	 */
+	protected String buildInsertSql(String tableName, String[] columns) throws SQLException {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append("INSERT INTO ").append(checkIdentifier(tableName)).append(" (");
+		appendColumnList(sb, columns);
+		sb.append(") VALUES (");
+		for(int i=0;i<columns.length;i++) {
+			if (i > 0) {
+				sb.append(",");
+			}
+			sb.append("?");
+		}
+		sb.append(")");
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * col1,col2,... 형태의 컬럼 목록을 sb 에 추가한다.
+	 */
+	protected StringBuilder appendColumnList(StringBuilder sb, String[] columns) throws SQLException {
+		if (columns == null || columns.length == 0) {
+			throw new SQLException(SqlMessages.INVALID_IDENTIFIER_ERROR_MESSAGE + "no columns");
+		}
+		
+		for(int i=0;i<columns.length;i++) {
+			if (i > 0) {
+				sb.append(",");
+			}
+			sb.append(checkIdentifier(columns[i]));
+		}
+		
+		return sb;
+	}
+	
+	/**
+	 * SQL 문장에 그대로 사용되는 테이블명, 컬럼명이 올바른 형식인지 확인한다.
+	 * @param name
+	 * @return 주어진 name
+	 * @throws SQLException 올바른 형식이 아닌 경우
+	 */
+	protected String checkIdentifier(String name) throws SQLException {
+		if (name == null || !IDENTIFIER_PATTERN.matcher(name).matches()) {
+			throw new SQLException(SqlMessages.INVALID_IDENTIFIER_ERROR_MESSAGE + name);
+		}
+		
+		return name;
+	}
+	
+	/**
+	 * row 에서 columns 순서대로 값을 읽어온다. 컬럼명과 같은 key 가 없으면 소문자 key 로 다시 찾는다.
+	 */
+	protected List<Object> getRowValues(Map<String,?> row, String[] columns) {
+		List<Object> values = new ArrayList<Object>(columns.length);
+		
+		for(int i=0;i<columns.length;i++) {
+			Object value = row.get(columns[i]);
+			if (value == null) {
+				value = row.get(columns[i].toLowerCase());
+			}
+			values.add(value);
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * executeBatch() 결과로부터 처리된 row 수를 구한다. 건수를 알 수 없는 경우(SUCCESS_NO_INFO)는 1건으로 계산한다.
+	 */
+	protected long countRows(int[] rowCounts) {
+		long count = 0;
+		
+		for(int i=0;i<rowCounts.length;i++) {
+			if (rowCounts[i] > 0) {
+				count += rowCounts[i];
+			}
+			else if (rowCounts[i] == Statement.SUCCESS_NO_INFO) {
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
 	/**
 	 * DBMS 별로 차이 있는 SQLException을 처리하여 SqlQueryException으로 반환한다.
 	 * @param sqlex
@@ -1,21 +1,38 @@
 package s2.adapi.framework.dao.supporter;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import s2.adapi.framework.config.KeyConfig;
 import s2.adapi.framework.dao.sql.SqlMessages;
+import s2.adapi.framework.dao.types.JdbcNull;
+import s2.adapi.framework.dao.types.JdbcXML;
 
 public class PostgresSupporter extends DbmsSupporter {
 	
 	private static final Logger log = LoggerFactory.getLogger(PostgresSupporter.class);
 	
+	/**
+	 * COPY 데이터를 서버로 보내는 단위 (문자 수)
+	 */
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+	
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
 	public PostgresSupporter() {
 		super("postgres");
 	}
@@ -100,4 +117,226 @@ public class PostgresSupporter extends DbmsSupporter {
 		
 		return sb.toString();
 	}
+	
+	/**
+	 * PostgreSQL 은 PREPARE TRANSACTION 을 지원한다. 
+	 * 단, 서버의 max_prepared_transactions 설정이 0 이면 prepare 시 SQLException 이 발생한다.
+	 */
+	@Override
+	public boolean supportsTwoPhaseCommit() {
+		return true;
+	}
+	
+	@Override
+	public void prepareTransaction(Connection conn, String xid) throws SQLException {
+		execute(conn, "PREPARE TRANSACTION '" + xid + "'");
+	}
+	
+	/**
+	 * COMMIT PREPARED 는 트랜젝션 블록 내에서 실행할 수 없으므로 auto commit 으로 변경하여 실행한다.
+	 */
+	@Override
+	public void commitPrepared(Connection conn, String xid) throws SQLException {
+		executeAutoCommit(conn, "COMMIT PREPARED '" + xid + "'");
+	}
+	
+	@Override
+	public void rollbackPrepared(Connection conn, String xid) throws SQLException {
+		executeAutoCommit(conn, "ROLLBACK PREPARED '" + xid + "'");
+	}
+	
+	/**
+	 * auto commit 으로 변경하여 sql 을 실행한 후 원래의 auto commit 값으로 복원한다.
+	 * Connection 이 auto commit 상태로 풀에 반환되어 다음 사용자의 트랜젝션이 깨지지 않도록 하기 위함이다.
+	 */
+	private void executeAutoCommit(Connection conn, String sql) throws SQLException {
+		boolean autoCommit = conn.getAutoCommit();
+		
+		conn.setAutoCommit(true);
+		try {
+			execute(conn, sql);
+		}
+		finally {
+			conn.setAutoCommit(autoCommit);
+		}
+	}
+	
+	/**
+	 * <p>
+	 * COPY tableName (columns) FROM STDIN 을 사용하여 대량 입력한다. 
+	 * 데이터는 COPY text 형식으로 변환되어 COPY_BUFFER_SIZE 단위로 서버에 전송된다.
+	 * </p>
+	 * <p>
+	 * Connection 이 PostgreSQL JDBC Driver 의 PGConnection 으로 unwrap 되지 않는 경우에는 
+	 * 디폴트 구현(INSERT 문의 batch 실행)을 사용한다.
+	 * </p>
+	 */
+	@Override
+	public long bulkLoad(Connection conn, String tableName, String[] columns, 
+			Iterator<? extends Map<String,?>> rows, int batchSize) throws SQLException {
+		
+		if (!conn.isWrapperFor(PGConnection.class)) {
+			log.info("PGConnection is not available. bulk load uses batch insert.");
+			return super.bulkLoad(conn, tableName, columns, rows, batchSize);
+		}
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("COPY ").append(checkIdentifier(tableName)).append(" (");
+		appendColumnList(sb, columns);
+		sb.append(") FROM STDIN");
+		
+		String sql = sb.toString();
+		if (log.isDebugEnabled()) {
+			log.debug("bulk load : " + sql);
+		}
+		
+		CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+		try {
+			sb.setLength(0);
+			while (rows.hasNext()) {
+				appendCopyRow(sb, getRowValues(rows.next(), columns));
+				
+				if (sb.length() >= COPY_BUFFER_SIZE) {
+					writeToCopy(copyIn, sb);
+				}
+			}
+			
+			if (sb.length() > 0) {
+				writeToCopy(copyIn, sb);
+			}
+			
+			return copyIn.endCopy();
+		}
+		finally {
+			if (copyIn.isActive()) {
+				// 오류가 발생하여 종료되지 않은 경우
+				try {
+					copyIn.cancelCopy();
+				}
+				catch (SQLException ex) {
+					log.warn("cancel copy failed.", ex);
+				}
+			}
+		}
+	}
+	
+	private void writeToCopy(CopyIn copyIn, StringBuilder sb) throws SQLException {
+		byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+		copyIn.writeToCopy(data, 0, data.length);
+		sb.setLength(0);
+	}
+	
+	/**
+	 * 한 row 의 값들을 COPY text 형식(tab 구분, 줄바꿈 종료)으로 sb 에 추가한다.
+	 */
+	protected void appendCopyRow(StringBuilder sb, List<Object> values) {
+		for(int i=0;i<values.size();i++) {
+			if (i > 0) {
+				sb.append('\t');
+			}
+			appendCopyValue(sb, values.get(i));
+		}
+		sb.append('\n');
+	}
+	
+	/**
+	 * 값을 타입에 맞게 COPY text 형식으로 변환하여 sb 에 추가한다.
+	 * 타입별 처리 순서는 setPreparedStatementParam() 과 동일하다.
+	 * <ul>
+	 * <li> null, JdbcNull : \N
+	 * <li> Boolean : t 또는 f
+	 * <li> BigDecimal : toPlainString(), 그 외의 Number : toString()
+	 * <li> java.sql.Date, Time, Timestamp : toString(), 그 외의 java.util.Date 는 Timestamp 로 변환
+	 * <li> byte[] : bytea hex 형식 (\x...)
+	 * <li> 그 외 : 문자열로 변환하여 escape 처리
+	 * </ul>
+	 */
+	protected void appendCopyValue(StringBuilder sb, Object value) {
+		if (value == null || value instanceof JdbcNull) {
+			sb.append("\\N");
+		}
+		else if (value instanceof KeyConfig) {
+			appendCopyValue(sb, ((KeyConfig)value).keyValue());
+		}
+		else if (value instanceof String) {
+			appendEscaped(sb, (String)value);
+		}
+		else if (value instanceof char[]) {
+			appendEscaped(sb, String.valueOf((char[])value));
+		}
+		else if (value instanceof byte[]) {
+			// bytea hex 형식의 \x 는 COPY text 형식에서 \\x 로 escape 된다.
+			byte[] b = (byte[])value;
+			sb.append("\\\\x");
+			for(int i=0;i<b.length;i++) {
+				sb.append(HEX_DIGITS[(b[i] >> 4) & 0x0f]).append(HEX_DIGITS[b[i] & 0x0f]);
+			}
+		}
+		else if (value instanceof Boolean) {
+			sb.append(((Boolean)value).booleanValue()?'t':'f');
+		}
+		else if (value instanceof BigDecimal) {
+			sb.append(((BigDecimal)value).toPlainString());
+		}
+		else if (value instanceof Number) {
+			sb.append(value.toString());
+		}
+		else if (value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof Timestamp) {
+			sb.append(value.toString());
+		}
+		else if (value instanceof java.util.Date) {
+			sb.append(new Timestamp(((java.util.Date)value).getTime()).toString());
+		}
+		else if (value instanceof JdbcXML) {
+			String xml = value.toString();
+			if (xml == null) {
+				sb.append("\\N");
+			}
+			else {
+				appendEscaped(sb, xml);
+			}
+		}
+		else {
+			appendEscaped(sb, String.valueOf(value));
+		}
+	}
+	
+	/**
+	 * COPY text 형식에서 특별한 의미를 갖는 문자(\, tab, 줄바꿈)를 escape 하여 추가한다.
+	 */
+	private void appendEscaped(StringBuilder sb, String str) {
+		for(int i=0;i<str.length();i++) {
+			char c = str.charAt(i);
+			switch (c) {
+				case '\\' :
+					sb.append("\\\\");
+					break;
+				case '\t' :
+					sb.append("\\t");
+					break;
+				case '\n' :
+					sb.append("\\n");
+					break;
+				case '\r' :
+					sb.append("\\r");
+					break;
+				default :
+					sb.append(c);
+			}
+		}
+	}
+	
+	private void execute(Connection conn, String sql) throws SQLException {
+		if (log.isDebugEnabled()) {
+			log.debug(sql);
+		}
+		
+		Statement stmt = conn.createStatement();
+		try {
+			stmt.execute(sql);
+		}
+		finally {
+			stmt.close();
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,351 @@
+package s2.adapi.framework.id.impl;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import s2.adapi.framework.dao.JdbcDAO;
+import s2.adapi.framework.dao.SqlQueryException;
+import s2.adapi.framework.dao.sql.DataSource;
+import s2.adapi.framework.dao.sql.Transaction;
+import s2.adapi.framework.id.IdGenerator;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * DB 에서 ID 를 blockSize 개씩 한꺼번에 할당받아 메모리에서 하나씩 나누어 주는 ID 생성기이다.
+ * getNextId(key) 의 key 별로 따로 할당받으며 key 가 null 이면 defaultKey 를 사용한다.
+ * 반환되는 ID 는 Long 이다.
+ * </p>
+ * <p>
+ * 할당은 호출한 쓰레드의 트랜젝션과 별도의 짧은 트랜젝션에서 수행되고 바로 commit 되므로 
+ * 호출한 쓰레드의 트랜젝션이 rollback 되어도 할당받은 ID 는 다시 사용되지 않는다. (사용되지 않은 ID 는 버려진다.)
+ * 할당받은 범위 안에서는 AtomicLong 으로 lock 없이 나누어 주며, 
+ * 남은 ID 가 prefetchRatio 비율 아래로 줄어들면 다음 범위를 미리 비동기로 할당받는다.
+ * 범위를 모두 사용했을 때 미리 할당받는 작업이 아직 실행되지 않았다면(ExecutorService 가 바쁜 경우) 
+ * 그 작업을 기다리지 않고 호출한 쓰레드에서 직접 할당받는다.
+ * </p>
+ * <p>
+ * 할당 방식은 다음 두가지 중 하나를 사용한다.
+ * <ul>
+ * <li> 테이블 (디폴트) : key 별로 다음에 할당할 값을 저장한 테이블을 UPDATE 하여 할당받는다. 
+ *      key 가 없으면 initialValue 부터 시작한다.
+ * <li> 시퀀스 : sequenceSql 을 지정하면 이를 실행한 결과 값 v 로부터 [v, v + blockSize) 를 할당받는다. 
+ *      sequenceSql 의 {key} 는 key 값으로 대체되며, 시퀀스의 증가값은 blockSize 와 같아야 한다.
+ *      예) PostgreSQL : SELECT nextval('{key}'), Oracle : SELECT {key}.NEXTVAL FROM DUAL
+ * </ul>
+ * </p>
+ * 테이블 생성 예)
+ * <pre>
+ *    CREATE TABLE s2adapi_id_block (
+ *        key_name   VARCHAR(100) NOT NULL PRIMARY KEY,
+ *        next_val   BIGINT       NOT NULL
+ *    )
+ * </pre>
+ * @author 김형도
+ */
+public class DbSequenceIdGenerator extends JdbcDAO implements IdGenerator {
+	
+	public static final String DEFAULT_TABLE_NAME = "s2adapi_id_block";
+	
+	private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$.]*");
+	
+	private String tableName = DEFAULT_TABLE_NAME;
+	private String sequenceSql = null;
+	private String defaultKey = "default";
+	private int blockSize = 100;
+	private long initialValue = 1;
+	private double prefetchRatio = 0.3d;
+	
+	private final ConcurrentMap<String,KeyState> keyStates = new ConcurrentHashMap<String,KeyState>();
+	
+	public DbSequenceIdGenerator() {
+		super();
+	}
+	
+	public DbSequenceIdGenerator(DataSource ds) {
+		super(ds);
+	}
+	
+	/**
+	 * 할당 정보를 저장할 테이블명을 지정한다. (디폴트 s2adapi_id_block)
+	 * @param tableName
+	 */
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+	
+	/**
+	 * 시퀀스로 할당받을 때 실행할 SQL 을 지정한다. {key} 는 key 값으로 대체된다.
+	 * @param sequenceSql
+	 */
+	public void setSequenceSql(String sequenceSql) {
+		this.sequenceSql = sequenceSql;
+	}
+	
+	/**
+	 * key 가 null 일 때 사용할 key 를 지정한다. (디폴트 default)
+	 * @param defaultKey
+	 */
+	public void setDefaultKey(String defaultKey) {
+		this.defaultKey = defaultKey;
+	}
+	
+	/**
+	 * 한 번에 할당받을 ID 개수를 지정한다. (디폴트 100)
+	 * @param blockSize
+	 */
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+	
+	/**
+	 * 테이블 방식에서 key 가 처음 사용될 때 시작할 값을 지정한다. (디폴트 1)
+	 * @param initialValue
+	 */
+	public void setInitialValue(long initialValue) {
+		this.initialValue = initialValue;
+	}
+	
+	/**
+	 * 남은 ID 가 이 비율 아래로 줄어들면 다음 범위를 미리 할당받는다. 0 이면 미리 할당받지 않는다. (디폴트 0.3)
+	 * @param prefetchRatio
+	 */
+	public void setPrefetchRatio(double prefetchRatio) {
+		this.prefetchRatio = prefetchRatio;
+	}
+	
+	/**
+	 * key 에 대한 다음 ID 를 Long 으로 반환한다.
+	 */
+	public Object getNextId(Object key) {
+		return Long.valueOf(nextId((key == null)?defaultKey:String.valueOf(key)));
+	}
+	
+	/**
+	 * key 에 대한 다음 ID 를 반환한다.
+	 * @param key
+	 * @return
+	 * @throws SqlQueryException DB 에서 할당받지 못한 경우
+	 */
+	public long nextId(String key) {
+		KeyState ks = keyStates.get(key);
+		if (ks == null) {
+			if (!KEY_PATTERN.matcher(key).matches()) {
+				throw new IllegalArgumentException("invalid id key : " + key);
+			}
+			keyStates.putIfAbsent(key, new KeyState(key));
+			ks = keyStates.get(key);
+		}
+		
+		return ks.next();
+	}
+	
+	/**
+	 * 할당받은 ID 범위 [start, end)
+	 */
+	private static class Block {
+		final long end;
+		final long prefetchAt;
+		final AtomicLong next;
+		
+		Block(long start, long end, long prefetchAt) {
+			this.end = end;
+			this.prefetchAt = prefetchAt;
+			this.next = new AtomicLong(start);
+		}
+	}
+	
+	/**
+	 * 미리 할당받는 작업, started 를 먼저 true 로 변경한 쪽(실행 쓰레드 또는 범위를 교체하는 쓰레드)이 할당을 수행한다.
+	 */
+	private static class Prefetch {
+		final CompletableFuture<Block> future = new CompletableFuture<Block>();
+		final AtomicBoolean started = new AtomicBoolean(false);
+	}
+	
+	/**
+	 * key 별 할당 상태
+	 */
+	private class KeyState {
+		final String key;
+		final AtomicReference<Block> current = new AtomicReference<Block>(new Block(0, 0, -1));
+		final AtomicReference<Prefetch> prefetched = new AtomicReference<Prefetch>();
+		
+		KeyState(String key) {
+			this.key = key;
+		}
+		
+		long next() {
+			while (true) {
+				Block b = current.get();
+				long id = b.next.getAndIncrement();
+				
+				if (id < b.end) {
+					if (id == b.prefetchAt) {
+						prefetch();
+					}
+					return id;
+				}
+				
+				// 범위를 모두 사용한 경우에만 lock 을 사용하여 다음 범위로 교체한다.
+				synchronized(this) {
+					if (current.get() == b) {
+						current.set(nextBlock());
+					}
+				}
+			}
+		}
+		
+		private void prefetch() {
+			Prefetch p = new Prefetch();
+			if (prefetched.compareAndSet(null, p)) {
+				executeBlockAsync(key, p);
+			}
+		}
+		
+		/**
+		 * 미리 할당받는 작업이 실행 중이면 끝날 때 까지 기다리고, 아직 시작되지 않았으면 직접 할당받는다.
+		 * 이 메소드는 lock 을 가진 채로 호출되므로 실행되지 않은 작업을 기다리지 않아야 
+		 * ExecutorService 의 쓰레드가 모두 사용 중이거나 같은 ExecutorService 에서 호출된 경우에도 멈추지 않는다.
+		 */
+		private Block nextBlock() {
+			Prefetch p = prefetched.getAndSet(null);
+			if (p != null && !p.started.compareAndSet(false, true)) {
+				try {
+					return p.future.get();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				catch (ExecutionException ex) {
+					getLogger().warn("## id block prefetch failed : " + key, ex.getCause());
+				}
+			}
+			
+			return allocateBlock(key);
+		}
+	}
+	
+	/**
+	 * 공용 비동기 ExecutorService 에서 key 에 대한 다음 범위를 할당받아 future 에 전달한다.
+	 * 실행되기 전에 범위를 교체하는 쓰레드가 started 를 먼저 변경했다면 할당하지 않는다.
+	 */
+	private void executeBlockAsync(final String key, final Prefetch p) {
+		try {
+			getAsyncExecutor().execute(new Runnable() {
+				public void run() {
+					if (!p.started.compareAndSet(false, true)) {
+						return;
+					}
+					
+					try {
+						p.future.complete(allocateBlock(key));
+					}
+					catch (Throwable ex) {
+						p.future.completeExceptionally(ex);
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			// 실행되지 않았으므로 범위를 교체할 때 직접 할당받는다.
+			getLogger().debug("## id block prefetch rejected : " + key);
+		}
+	}
+	
+	/**
+	 * 별도의 트랜젝션에서 key 에 대한 범위를 할당받고 바로 commit 한다. 
+	 * 여러 서버에서 같은 key 를 동시에 처음 INSERT 하는 경우에 대비하여 실패하면 한 번 더 시도한다.
+	 */
+	private Block allocateBlock(final String key) {
+		Callable<Block> task = new Callable<Block>() {
+			public Block call() throws Exception {
+				long start = (sequenceSql == null)?allocateFromTable(key):allocateFromSequence(key);
+				long prefetchAt = (prefetchRatio > 0)?(start + (long)(blockSize * (1.0d - prefetchRatio))):-1;
+				
+				return new Block(start, start + blockSize, prefetchAt);
+			}
+		};
+		
+		try {
+			return executeInNewTransaction(task);
+		}
+		catch (SqlQueryException ex) {
+			getLogger().warn("## id block allocation failed. retry : " + key, ex);
+			return executeInNewTransaction(task);
+		}
+	}
+	
+	private long allocateFromSequence(String key) throws SqlQueryException {
+		Connection con = getConnection();
+		try {
+			String sql = sequenceSql.replace("{key}", key);
+			ValueObject rVO = executeQuery(con, sql, null, null, null, "id.sequence." + key);
+			if (rVO.size() == 0) {
+				throw new SqlQueryException(SqlQueryException.SELECT_QUERY_ERROR);
+			}
+			
+			Object value = rVO.get(0).values().iterator().next();
+			return ((Number)value).longValue();
+		}
+		finally {
+			close(con);
+		}
+	}
+	
+	private long allocateFromTable(String key) throws SqlQueryException {
+		Connection con = getConnection();
+		try {
+			List<Object> param = new ArrayList<Object>(2);
+			param.add(Long.valueOf(blockSize));
+			param.add(key);
+			
+			int count = executeUpdate(con, "UPDATE " + tableName + " SET next_val = next_val + ? WHERE key_name = ?", 
+					param, "id.block.update");
+			if (count > 0) {
+				List<Object> keyParam = new ArrayList<Object>(1);
+				keyParam.add(key);
+				
+				ValueObject rVO = executeQuery(con, "SELECT next_val FROM " + tableName + " WHERE key_name = ?", 
+						keyParam, null, null, "id.block.select");
+				
+				return rVO.getLong("next_val") - blockSize;
+			}
+			
+			List<Object> insParam = new ArrayList<Object>(2);
+			insParam.add(key);
+			insParam.add(Long.valueOf(initialValue + blockSize));
+			
+			executeUpdate(con, "INSERT INTO " + tableName + " (key_name, next_val) VALUES (?, ?)", 
+					insParam, "id.block.insert");
+			
+			return initialValue;
+		}
+		finally {
+			close(con);
+		}
+	}
+	
+	private <V> V executeInNewTransaction(Callable<V> task) {
+		try {
+			return Transaction.executeInNewTransaction(task);
+		}
+		catch (SqlQueryException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			throw new SqlQueryException(SqlQueryException.UPDATE_QUERY_ERROR, ex);
+		}
+	}
+}
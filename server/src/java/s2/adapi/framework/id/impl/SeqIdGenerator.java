@@ -1,17 +1,20 @@
 package s2.adapi.framework.id.impl;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import s2.adapi.framework.id.IdGenerator;
 
 /**
- * 연속 ID 생성기
+ * 연속 ID 생성기, 하나의 인스턴스 안에서만 중복되지 않는다. 
+ * 여러 서버에서 중복되지 않는 ID 가 필요한 경우에는 SnowflakeIdGenerator 를 사용한다.
  * @author 김형도
  * @since 4.0
  */
 public class SeqIdGenerator implements IdGenerator {
 	
-	private int seqNum = (this.hashCode()%1000)*1000000;
+	private final AtomicInteger seqNum = new AtomicInteger((this.hashCode()%1000)*1000000);
 	
 	public Object getNextId(Object key) {
-		return Integer.valueOf(seqNum++);
+		return Integer.valueOf(seqNum.getAndIncrement());
 	}
 }
@@ -0,0 +1,188 @@
+package s2.adapi.framework.id.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import s2.adapi.framework.config.Configurator;
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.id.IdGenerator;
+
+/**
+ * 시간 순서로 증가하는 64 bit 정수 ID 를 생성한다. (Snowflake 방식) ID 의 구조는 다음과 같다.
+ * <pre>
+ * | 0 | 기준시각(2020-01-01 UTC) 이후 경과 밀리초 (41 bit) | 노드 번호 (nodeBits) | 순번 (22 - nodeBits) |
+ * </pre>
+ * <p>
+ * 노드 번호가 서로 다른 서버들 사이에서는 ID 가 중복되지 않는다. 
+ * 노드 번호는 생성자로 지정하거나 s2adapi.id.node.id 로 설정하며, 설정하지 않으면 IP 주소의 하위 bit 를 사용한다.
+ * 노드 번호의 bit 수는 s2adapi.id.node.bits (디폴트 10) 로 설정하며 나머지 bit 가 밀리초 당 순번으로 사용된다.
+ * </p>
+ * <p>
+ * 마지막으로 생성한 ID 를 AtomicLong 에 담아 compare-and-set 으로 갱신하므로 lock 없이 여러 쓰레드에서 동시에 사용할 수 있다.
+ * 같은 밀리초에 순번을 모두 사용하면 시스템 시각이 다음 밀리초가 될 때 까지 기다린다. 
+ * 따라서 ID 에 담긴 시각은 실제 시스템 시각을 앞서지 않는다.
+ * 시스템 시각이 뒤로 조정된 경우 maxBackwardMillis(디폴트 5초) 이내이면 마지막 ID 에 이어서 생성하고, 
+ * 그보다 크면 ID 가 중복될 수 있으므로 IllegalStateException 을 던진다.
+ * 뒤로 조정된 동안 순번을 모두 사용하면 시스템 시각이 마지막 ID 의 시각을 지날 때 까지 기다린다.
+ * </p>
+ * @author 김형도
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+	
+	private static final Logger log = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+	
+	/**
+	 * 기준 시각, 2020-01-01T00:00:00Z
+	 */
+	public static final long EPOCH = 1577836800000L;
+	
+	private static final String NODE_ID_KEY = "s2adapi.id.node.id";
+	private static final String NODE_BITS_KEY = "s2adapi.id.node.bits";
+	
+	private static final int NODE_SEQ_BITS = 22;
+	
+	private static int defaultNodeId = -1;
+	private static int defaultNodeBits = 10;
+	static {
+		try {
+			Configurator config = ConfiguratorFactory.getConfigurator();
+			defaultNodeId = config.getInt(NODE_ID_KEY, -1);
+			defaultNodeBits = config.getInt(NODE_BITS_KEY, 10);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private final int nodeId;
+	private final int nodeBits;
+	private final int seqBits;
+	private final long nodePart;
+	private final long seqMask;
+	
+	private long maxBackwardMillis = 5000L;
+	
+	/**
+	 * 마지막으로 생성한 ID 에서 노드 번호를 제외한 값 (경과 밀리초 &lt;&lt; seqBits | 순번)
+	 */
+	private final AtomicLong last = new AtomicLong(0);
+	
+	public SnowflakeIdGenerator() {
+		this((defaultNodeId < 0)?getAddressNodeId(defaultNodeBits):defaultNodeId, defaultNodeBits);
+	}
+	
+	public SnowflakeIdGenerator(int nodeId) {
+		this(nodeId, defaultNodeBits);
+	}
+	
+	public SnowflakeIdGenerator(int nodeId, int nodeBits) {
+		if (nodeBits < 0 || nodeBits > NODE_SEQ_BITS - 1) {
+			throw new IllegalArgumentException("invalid node bits : " + nodeBits);
+		}
+		if (nodeId < 0 || nodeId >= (1 << nodeBits)) {
+			throw new IllegalArgumentException("invalid node id : " + nodeId + " (node bits " + nodeBits + ")");
+		}
+		
+		this.nodeId = nodeId;
+		this.nodeBits = nodeBits;
+		this.seqBits = NODE_SEQ_BITS - nodeBits;
+		this.nodePart = ((long)nodeId) << seqBits;
+		this.seqMask = (1L << seqBits) - 1;
+	}
+	
+	/**
+	 * 시스템 시각이 뒤로 조정되었을 때 허용할 최대 시간(밀리초)을 지정한다.
+	 * @param maxBackwardMillis
+	 */
+	public void setMaxBackwardMillis(long maxBackwardMillis) {
+		this.maxBackwardMillis = maxBackwardMillis;
+	}
+	
+	public int getNodeId() {
+		return nodeId;
+	}
+	
+	public int getNodeBits() {
+		return nodeBits;
+	}
+	
+	/**
+	 * 새로운 ID 를 Long 으로 반환한다. key 는 사용하지 않는다.
+	 */
+	public Object getNextId(Object key) {
+		return Long.valueOf(nextId());
+	}
+	
+	/**
+	 * 새로운 ID 를 생성한다.
+	 * @return
+	 */
+	public long nextId() {
+		while (true) {
+			long prev = last.get();
+			long now = System.currentTimeMillis() - EPOCH;
+			long prevTime = prev >>> seqBits;
+			
+			long next;
+			if (now > prevTime) {
+				next = now << seqBits;
+			}
+			else {
+				// 같은 밀리초이거나 시각이 뒤로 조정된 경우에는 마지막 값에 이어서 생성한다.
+				// prevTime 은 항상 실제로 읽은 시스템 시각이므로 now 가 더 작으면 시각이 뒤로 조정된 것이다.
+				if (prevTime - now > maxBackwardMillis) {
+					throw new IllegalStateException("clock moved backwards " + (prevTime - now) + " msec.");
+				}
+				
+				if ((prev & seqMask) == seqMask) {
+					// 순번을 모두 사용했으므로 다음 밀리초의 순번을 미리 사용하지 않고 시각이 지나갈 때 까지 기다린다.
+					if (now < prevTime) {
+						LockSupport.parkNanos(100000L);
+					}
+					else {
+						Thread.onSpinWait();
+					}
+					continue;
+				}
+				next = prev + 1;
+			}
+			
+			if (last.compareAndSet(prev, next)) {
+				return ((next >>> seqBits) << (seqBits + nodeBits)) | nodePart | (next & seqMask);
+			}
+		}
+	}
+	
+	/**
+	 * ID 가 생성된 시각(epoch 밀리초)을 반환한다.
+	 * @param id
+	 * @return
+	 */
+	public static long getTimeMillis(long id) {
+		return (id >>> NODE_SEQ_BITS) + EPOCH;
+	}
+	
+	/**
+	 * IP 주소의 하위 nodeBits 를 노드 번호로 사용한다.
+	 */
+	private static int getAddressNodeId(int nodeBits) {
+		int nodeId = 0;
+		try {
+			byte[] addr = InetAddress.getLocalHost().getAddress();
+			int ip = ((addr[addr.length-2] & 0xff) << 8) | (addr[addr.length-1] & 0xff);
+			nodeId = ip & ((1 << nodeBits) - 1);
+			
+			log.warn("## " + NODE_ID_KEY + " is not set. node id " + nodeId + " from the host address is used.");
+		}
+		catch (UnknownHostException e) {
+			log.error("## cannot get node id from the host address. node id 0 is used.", e);
+		}
+		
+		return nodeId;
+	}
+}
@@ -0,0 +1,143 @@
+package s2.adapi.framework.id.impl;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+import s2.adapi.framework.id.IdGenerator;
+
+/**
+ * 시간 순서로 정렬되는 UUID version 7 (RFC 9562) 을 생성한다. UUID 의 구조는 다음과 같다.
+ * <pre>
+ * | unix 밀리초 (48 bit) | ver=7 (4 bit) | 순번 (12 bit) | var=10 (2 bit) | 난수 (62 bit) |
+ * </pre>
+ * <p>
+ * 같은 쓰레드에서 같은 밀리초에 생성된 UUID 는 12 bit 순번으로 순서가 보장되며 
+ * 순번을 모두 사용하면 다음 밀리초의 값을 미리 사용한다. 쓰레드 사이의 중복은 62 bit 난수로 방지한다.
+ * </p>
+ * <p>
+ * 난수는 공용 SecureRandom 에서 쓰레드별 버퍼로 batchSize 개씩 한꺼번에 받아오므로 
+ * UUID 하나를 생성할 때마다 SecureRandom 을 동기화하여 호출하지 않는다. 
+ * getNextId() 는 하이픈을 포함한 36 자리 소문자 문자열을 반환한다.
+ * </p>
+ * @author 김형도
+ */
+public class UUIDv7Generator implements IdGenerator {
+	
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	
+	private final SecureRandom random = new SecureRandom();
+	private final int batchSize;
+	
+	private final ThreadLocal<State> state = new ThreadLocal<State>() {
+		protected State initialValue() {
+			return new State(batchSize);
+		}
+	};
+	
+	/**
+	 * 쓰레드별 생성 상태, 마지막 시각과 순번 및 미리 받아온 난수를 담는다.
+	 */
+	private static class State {
+		long lastMillis = 0;
+		int seq = 0;
+		final long[] randoms;
+		int index;
+		
+		State(int batchSize) {
+			randoms = new long[batchSize];
+			index = batchSize;
+		}
+	}
+	
+	public UUIDv7Generator() {
+		this(64);
+	}
+	
+	/**
+	 * @param batchSize 한 번에 받아올 난수 개수
+	 */
+	public UUIDv7Generator(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+	}
+	
+	/**
+	 * 새로운 UUID 를 36 자리 문자열로 반환한다. key 는 사용하지 않는다.
+	 */
+	public Object getNextId(Object key) {
+		return nextString();
+	}
+	
+	public UUID nextUUID() {
+		State st = state.get();
+		return new UUID(nextMsb(st), nextLsb(st));
+	}
+	
+	/**
+	 * 새로운 UUID 를 UUID 객체를 거치지 않고 바로 문자열로 만든다.
+	 * @return
+	 */
+	public String nextString() {
+		State st = state.get();
+		long msb = nextMsb(st);
+		long lsb = nextLsb(st);
+		
+		char[] buf = new char[36];
+		toHex(buf, 0, msb >>> 32, 8);
+		buf[8] = '-';
+		toHex(buf, 9, msb >>> 16, 4);
+		buf[13] = '-';
+		toHex(buf, 14, msb, 4);
+		buf[18] = '-';
+		toHex(buf, 19, lsb >>> 48, 4);
+		buf[23] = '-';
+		toHex(buf, 24, lsb, 12);
+		
+		return new String(buf);
+	}
+	
+	private long nextMsb(State st) {
+		long now = System.currentTimeMillis();
+		
+		if (now > st.lastMillis) {
+			st.lastMillis = now;
+			// 순번의 시작 값은 난수로 정하되 이어서 증가할 수 있도록 상위 bit 는 0 으로 둔다.
+			st.seq = (int)(nextRandom(st) & 0x7ff);
+		}
+		else if (++st.seq > 0xfff) {
+			// 순번을 모두 사용한 경우(또는 시각이 뒤로 조정된 경우) 마지막 시각에 이어서 생성한다.
+			st.lastMillis++;
+			st.seq = 0;
+		}
+		
+		return (st.lastMillis << 16) | 0x7000L | st.seq;
+	}
+	
+	private long nextLsb(State st) {
+		return (nextRandom(st) & 0x3fffffffffffffffL) | 0x8000000000000000L;
+	}
+	
+	private long nextRandom(State st) {
+		if (st.index >= st.randoms.length) {
+			byte[] bytes = new byte[st.randoms.length * 8];
+			random.nextBytes(bytes);
+			
+			for(int i=0;i<st.randoms.length;i++) {
+				long v = 0;
+				for(int j=0;j<8;j++) {
+					v = (v << 8) | (bytes[i*8+j] & 0xff);
+				}
+				st.randoms[i] = v;
+			}
+			st.index = 0;
+		}
+		
+		return st.randoms[st.index++];
+	}
+	
+	private static void toHex(char[] buf, int offset, long value, int digits) {
+		for(int i=offset+digits-1;i>=offset;i--) {
+			buf[i] = HEX[(int)(value & 0xf)];
+			value >>>= 4;
+		}
+	}
+}
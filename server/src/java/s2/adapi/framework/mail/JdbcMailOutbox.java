@@ -0,0 +1,175 @@
+package s2.adapi.framework.mail;
+
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import s2.adapi.framework.dao.JdbcDAO;
+import s2.adapi.framework.dao.SqlQueryException;
+import s2.adapi.framework.dao.sql.DataSource;
+import s2.adapi.framework.dao.sql.Transaction;
+import s2.adapi.framework.id.impl.UUIDv7Generator;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * 전송할 메일을 DB 테이블에 보관하는 MailOutbox 구현 클래스이다.
+ * 메일 ID 는 시간 순서로 정렬되는 UUID version 7 문자열이며 loadPending() 은 ID 순서로 반환한다.
+ * 각 작업은 호출한 쓰레드의 트랜젝션과 별도의 짧은 트랜젝션에서 수행되고 바로 commit 된다.
+ * </p>
+ * <p>
+ * 테이블은 서버별로 따로 사용한다. 여러 서버가 같은 테이블을 사용하면 기동 시에 다른 서버의 미전송 메일도 함께 전송된다.
+ * </p>
+ * 테이블 생성 예)
+ * <pre>
+ *    CREATE TABLE s2adapi_mail_outbox (
+ *        mail_id     VARCHAR(36)   NOT NULL PRIMARY KEY,
+ *        status      CHAR(1)       NOT NULL,
+ *        message     BLOB          NOT NULL,
+ *        created_at  TIMESTAMP     NOT NULL,
+ *        last_error  VARCHAR(1000)
+ *    )
+ * </pre>
+ * status 는 P (전송 대기), F (전송 실패) 이며 전송된 메일은 삭제된다. (PostgreSQL 에서는 message 를 BYTEA 로 생성한다.)
+ * @author kimhd
+ */
+public class JdbcMailOutbox extends JdbcDAO implements MailOutbox {
+	
+	public static final String DEFAULT_TABLE_NAME = "s2adapi_mail_outbox";
+	
+	private static final String STATUS_PENDING = "P";
+	private static final String STATUS_FAILED = "F";
+	private static final int MAX_ERROR_LENGTH = 1000;
+	
+	private final UUIDv7Generator idGenerator = new UUIDv7Generator();
+	
+	private String tableName = DEFAULT_TABLE_NAME;
+	
+	public JdbcMailOutbox() {
+		super();
+	}
+	
+	public JdbcMailOutbox(DataSource ds) {
+		super(ds);
+	}
+	
+	/**
+	 * 메일을 저장할 테이블명을 지정한다. (디폴트 s2adapi_mail_outbox)
+	 * @param tableName
+	 */
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+	
+	public Object store(final byte[] message) {
+		final String id = idGenerator.nextString();
+		
+		executeInNewTransaction(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				List<Object> param = new ArrayList<Object>(4);
+				param.add(id);
+				param.add(STATUS_PENDING);
+				param.add(message);
+				param.add(new Timestamp(System.currentTimeMillis()));
+				
+				return update("INSERT INTO " + tableName + " (mail_id, status, message, created_at) VALUES (?, ?, ?, ?)",
+						param, "mail.outbox.insert");
+			}
+		});
+		
+		return id;
+	}
+	
+	public void sent(final Object id) {
+		executeInNewTransaction(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				List<Object> param = new ArrayList<Object>(1);
+				param.add(id);
+				
+				return update("DELETE FROM " + tableName + " WHERE mail_id = ?", param, "mail.outbox.delete");
+			}
+		});
+	}
+	
+	public void failed(final Object id, Throwable cause) {
+		String error = String.valueOf(cause);
+		if (error.length() > MAX_ERROR_LENGTH) {
+			error = error.substring(0, MAX_ERROR_LENGTH);
+		}
+		final String lastError = error;
+		
+		executeInNewTransaction(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				List<Object> param = new ArrayList<Object>(3);
+				param.add(STATUS_FAILED);
+				param.add(lastError);
+				param.add(id);
+				
+				return update("UPDATE " + tableName + " SET status = ?, last_error = ? WHERE mail_id = ?",
+						param, "mail.outbox.failed");
+			}
+		});
+	}
+	
+	public Map<Object,byte[]> loadPending() {
+		return executeInNewTransaction(new Callable<Map<Object,byte[]>>() {
+			public Map<Object,byte[]> call() throws Exception {
+				List<Object> param = new ArrayList<Object>(1);
+				param.add(STATUS_PENDING);
+				
+				Connection con = getConnection();
+				try {
+					ValueObject rVO = executeQuery(con, "SELECT mail_id, message FROM " + tableName
+							+ " WHERE status = ? ORDER BY mail_id", param, null, null, "mail.outbox.select");
+					
+					Map<Object,byte[]> pending = new LinkedHashMap<Object,byte[]>();
+					for(int i=0;i<rVO.size();i++) {
+						pending.put(rVO.getString(i, "mail_id"), toBytes(rVO.get(i, "message")));
+					}
+					
+					return pending;
+				}
+				finally {
+					close(con);
+				}
+			}
+		});
+	}
+	
+	private int update(String sql, List<Object> param, String sqlName) throws SqlQueryException {
+		Connection con = getConnection();
+		try {
+			return executeUpdate(con, sql, param, sqlName);
+		}
+		finally {
+			close(con);
+		}
+	}
+	
+	private byte[] toBytes(Object value) throws SQLException {
+		if (value instanceof Blob) {
+			Blob blob = (Blob)value;
+			return blob.getBytes(1, (int)blob.length());
+		}
+		
+		return (byte[])value;
+	}
+	
+	private <V> V executeInNewTransaction(Callable<V> task) {
+		try {
+			return Transaction.executeInNewTransaction(task);
+		}
+		catch (SqlQueryException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			throw new SqlQueryException(SqlQueryException.UPDATE_QUERY_ERROR, ex);
+		}
+	}
+}
@@ -6,8 +6,11 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
 import jakarta.mail.internet.AddressException;
 import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.util.ByteArrayDataSource;
 
 import org.apache.commons.mail2.core.EmailException;
@@ -666,6 +669,8 @@ public class Mail {
     /**
      * <p/>
      * 작성된 메일을 전송한다.<br>
+     * 호출한 쓰레드에서 SMTP 서버에 새로 연결하여 전송하므로 
+     * 여러 건을 보내거나 요청 처리 중에 보내는 경우에는 {@link s2.adapi.framework.mail.MailDispatcher } 를 사용한다.
      * </p>
      *
      * @throws ApplicationException 메일 전송중에 오류발생 시
@@ -684,6 +689,38 @@ public class Mail {
             log.info("Mail sent... at < " + date.toString() + " >");
         }
     }
+    
+    /**
+     * <p/>
+     * 작성된 메일을 주어진 메일 세션으로 전송 가능한 MimeMessage 로 변환한다.<br>
+     * {@link s2.adapi.framework.mail.MailDispatcher } 에서 SMTP 연결을 재사용하여 전송할 때 사용되며 한번만 변환된다.
+     * </p>
+     *
+     * @param session 메일 세션
+     * @return 변환된 MimeMessage
+     * @throws ApplicationException 메일 본문형식이 옳지 않을 경우 발생
+     */
+    MimeMessage buildMimeMessage(Session session) throws ApplicationException {
+        if (htmlEmail.getMimeMessage() != null) {
+            return htmlEmail.getMimeMessage();
+        }
+        
+        try {
+            htmlEmail.setMailSession(session);
+            htmlEmail.buildMimeMessage();
+            
+            MimeMessage message = htmlEmail.getMimeMessage();
+            message.saveChanges();
+            
+            return message;
+        } 
+        catch (EmailException ee) {
+            throw new ApplicationException("service.error.10002", ee);
+        }
+        catch (MessagingException me) {
+            throw new ApplicationException("service.error.10002", me);
+        }
+    }
 
     /**
      * <p/>
@@ -0,0 +1,643 @@
+package s2.adapi.framework.mail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.exception.ApplicationException;
+
+/**
+ * <p>
+ * 메일을 큐에 넣고 별도의 전송 쓰레드에서 보내는 메일 전송 서비스이다.
+ * send() 는 메일을 큐에 넣은 후 바로 반환되므로 요청 처리 쓰레드나 배치 쓰레드가 SMTP 전송을 기다리지 않는다.
+ * </p>
+ * <ul>
+ * <li> 큐의 크기는 queueSize 로 제한되며 큐가 가득 차면 send() 는 ApplicationException 을 발생시킨다.
+ * <li> 전송 쓰레드마다 SMTP 연결을 하나씩 유지하며 여러 메일을 연속하여 보낸다.
+ *      한 연결로 batchSize 건을 보냈거나 idleTimeout 동안 보낼 메일이 없으면 연결을 닫는다.
+ * <li> 전송에 실패하면 retryBackoff 부터 두배씩 늘어나는 간격으로 maxRetries 번까지 다시 시도한다.
+ *      수신 주소가 거부된 경우(SendFailedException)에는 다시 시도하지 않으며, 
+ *      단 SMTP 응답 코드가 4xx 인 일시적인 거부(451, 452 등)는 다시 시도한다.
+ * <li> outbox 를 지정하면 큐에 넣기 전에 메일을 저장하고 전송 후 삭제하며,
+ *      start() 시에 이전에 전송하지 못한 메일들을 다시 큐에 넣는다.
+ * </ul>
+ * 설정 예)
+ * <pre>
+ *     &lt;service name="system.MailDispatcher"
+ *             class="s2.adapi.framework.mail.MailDispatcher"
+ *             init-method="start" destroy-method="close"&gt;
+ *         &lt;property name="hostName" value="smtp.s2adapi.com"/&gt;
+ *         &lt;property name="port" value="587"/&gt;
+ *         &lt;property name="userName" value="noreply"/&gt;
+ *         &lt;property name="password" value="..."/&gt;
+ *         &lt;property name="startTLS" value="true"/&gt;
+ *         &lt;property name="outbox" ref="system.MailOutbox"/&gt;
+ *     &lt;/service&gt;
+ * </pre>
+ * @author kimhd
+ */
+public class MailDispatcher {
+	
+	private static final Logger log = LoggerFactory.getLogger(MailDispatcher.class);
+	
+	private static final String QUEUE_SIZE_KEY = "s2adapi.mail.queue.size";
+	private static final String THREADS_KEY = "s2adapi.mail.threads";
+	private static final String BATCH_SIZE_KEY = "s2adapi.mail.batch.size";
+	private static final String IDLE_TIMEOUT_KEY = "s2adapi.mail.idle.timeout";
+	private static final String MAX_RETRIES_KEY = "s2adapi.mail.retry.max";
+	private static final String RETRY_BACKOFF_KEY = "s2adapi.mail.retry.backoff";
+	
+	private static final long MAX_BACKOFF = 10L * 60L * 1000L;
+	
+	private static int defaultQueueSize = 1000;
+	private static int defaultThreads = 2;
+	private static int defaultBatchSize = 100;
+	private static long defaultIdleTimeout = 5000L;
+	private static int defaultMaxRetries = 3;
+	private static long defaultRetryBackoff = 1000L;
+	static {
+		try {
+			defaultQueueSize = ConfiguratorFactory.getConfigurator().getInt(QUEUE_SIZE_KEY, defaultQueueSize);
+			defaultThreads = ConfiguratorFactory.getConfigurator().getInt(THREADS_KEY, defaultThreads);
+			defaultBatchSize = ConfiguratorFactory.getConfigurator().getInt(BATCH_SIZE_KEY, defaultBatchSize);
+			defaultIdleTimeout = ConfiguratorFactory.getConfigurator().getLong(IDLE_TIMEOUT_KEY, defaultIdleTimeout);
+			defaultMaxRetries = ConfiguratorFactory.getConfigurator().getInt(MAX_RETRIES_KEY, defaultMaxRetries);
+			defaultRetryBackoff = ConfiguratorFactory.getConfigurator().getLong(RETRY_BACKOFF_KEY, defaultRetryBackoff);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private String hostName = null;
+	private int port = 25;
+	private String userName = null;
+	private String password = null;
+	private boolean startTLS = false;
+	private boolean sslOnConnect = false;
+	
+	private int queueSize = defaultQueueSize;
+	private int threads = defaultThreads;
+	private int batchSize = defaultBatchSize;
+	private long idleTimeout = defaultIdleTimeout;
+	private int maxRetries = defaultMaxRetries;
+	private long retryBackoff = defaultRetryBackoff;
+	
+	private MailOutbox outbox = null;
+	
+	private Session session = null;
+	private BlockingQueue<MailTask> queue = null;
+	private ScheduledExecutorService retryScheduler = null;
+	private final List<Thread> senders = new ArrayList<Thread>();
+	private volatile boolean running = false;
+	
+	private final LongAdder enqueued = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder retried = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder connections = new LongAdder();
+	
+	/**
+	 * SMTP 서버 주소를 지정한다.
+	 * @param hostName
+	 */
+	public void setHostName(String hostName) {
+		this.hostName = hostName;
+	}
+	
+	/**
+	 * SMTP 서버 포트를 지정한다. (디폴트 25)
+	 * @param port
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+	
+	public void setUserName(String userName) {
+		this.userName = userName;
+	}
+	
+	public void setPassword(String password) {
+		this.password = password;
+	}
+	
+	/**
+	 * STARTTLS 사용 여부를 지정한다. (디폴트 false)
+	 * @param startTLS
+	 */
+	public void setStartTLS(boolean startTLS) {
+		this.startTLS = startTLS;
+	}
+	
+	/**
+	 * 연결 시 바로 SSL 을 사용할지 여부를 지정한다. (디폴트 false)
+	 * @param sslOnConnect
+	 */
+	public void setSslOnConnect(boolean sslOnConnect) {
+		this.sslOnConnect = sslOnConnect;
+	}
+	
+	/**
+	 * 전송 대기 큐의 크기를 지정한다. 디폴트는 s2adapi.mail.queue.size 값이다.
+	 * @param queueSize
+	 */
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+	
+	/**
+	 * 전송 쓰레드 수를 지정한다. 쓰레드마다 SMTP 연결을 하나씩 사용한다. 디폴트는 s2adapi.mail.threads 값이다.
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+	
+	/**
+	 * SMTP 연결 하나로 보낼 최대 메일 수를 지정한다. 디폴트는 s2adapi.mail.batch.size 값이다.
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * 보낼 메일이 없을 때 SMTP 연결을 유지할 시간(ms)을 지정한다. 디폴트는 s2adapi.mail.idle.timeout 값이다.
+	 * @param idleTimeout
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+	
+	/**
+	 * 전송 실패 시 다시 시도할 최대 횟수를 지정한다. 디폴트는 s2adapi.mail.retry.max 값이다.
+	 * @param maxRetries
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+	
+	/**
+	 * 첫번째 재시도까지 기다릴 시간(ms)을 지정한다. 이후에는 두배씩 늘어난다. 디폴트는 s2adapi.mail.retry.backoff 값이다.
+	 * @param retryBackoff
+	 */
+	public void setRetryBackoff(long retryBackoff) {
+		this.retryBackoff = retryBackoff;
+	}
+	
+	/**
+	 * 전송할 메일을 보관할 영속 저장소를 지정한다. 지정하지 않으면 메모리 큐만 사용한다.
+	 * @param outbox
+	 */
+	public void setOutbox(MailOutbox outbox) {
+		this.outbox = outbox;
+	}
+	
+	/**
+	 * 전송 쓰레드들을 시작하고 outbox 에 남아 있는 메일들을 큐에 넣는다.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		
+		session = createSession();
+		queue = new ArrayBlockingQueue<MailTask>(Math.max(1, queueSize));
+		retryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "S2API.MailDispatcher-retry");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		running = true;
+		
+		for(int i=0;i<Math.max(1, threads);i++) {
+			Thread sender = new Thread(new Runnable() {
+				public void run() {
+					runSender();
+				}
+			}, "S2API.MailDispatcher-" + i);
+			sender.setDaemon(true);
+			sender.start();
+			senders.add(sender);
+		}
+		
+		if (outbox != null) {
+			recoverOutbox();
+		}
+		
+		log.info("## mail dispatcher started. [" + hostName + ":" + port + "] threads : " + senders.size());
+	}
+	
+	/**
+	 * 큐에 남은 메일을 최대 idleTimeout 동안 전송한 후 전송 쓰레드들을 종료한다.
+	 * 전송하지 못한 메일은 outbox 에 남아 다음 start() 시에 전송된다.
+	 */
+	public void close() {
+		List<Thread> stopping = null;
+		synchronized(this) {
+			if (!running) {
+				return;
+			}
+			running = false;
+			retryScheduler.shutdownNow();
+			stopping = new ArrayList<Thread>(senders);
+			senders.clear();
+		}
+		
+		long deadline = System.currentTimeMillis() + idleTimeout;
+		for(Thread sender:stopping) {
+			try {
+				sender.join(Math.max(1L, deadline - System.currentTimeMillis()));
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		for(Thread sender:stopping) {
+			sender.interrupt();
+		}
+		
+		if (!queue.isEmpty()) {
+			log.warn("## mail dispatcher closed with " + queue.size() + " unsent mails."
+					+ ((outbox == null)?" they are dropped.":" they remain in the outbox."));
+		}
+		
+		log.info("## mail dispatcher closed. " + this);
+	}
+	
+	/**
+	 * 메일을 전송 대기 큐에 넣는다. 전송은 전송 쓰레드에서 이루어지며 전송 결과는 로그로 남는다.
+	 * @param mail 보낼 메일
+	 * @throws ApplicationException 메일을 변환할 수 없거나 큐가 가득 찬 경우
+	 */
+	public void send(Mail mail) throws ApplicationException {
+		if (!running) {
+			throw new IllegalStateException("mail dispatcher is not started.");
+		}
+		
+		MimeMessage message = mail.buildMimeMessage(session);
+		
+		Object outboxId = null;
+		if (outbox != null) {
+			outboxId = outbox.store(toBytes(message));
+		}
+		
+		if (!queue.offer(new MailTask(message, outboxId))) {
+			rejected.increment();
+			if (outboxId != null) {
+				outbox.failed(outboxId, new IllegalStateException("mail queue is full."));
+			}
+			throw new ApplicationException("service.error.10003",
+					new IllegalStateException("mail queue is full. [" + queue.size() + "]"));
+		}
+		
+		enqueued.increment();
+	}
+	
+	/**
+	 * 큐에 넣은 메일 수
+	 */
+	public long getEnqueuedCount() {
+		return enqueued.sum();
+	}
+	
+	/**
+	 * 큐가 가득 차서 거부된 메일 수
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+	
+	/**
+	 * 전송된 메일 수
+	 */
+	public long getSentCount() {
+		return sent.sum();
+	}
+	
+	/**
+	 * 다시 시도한 횟수
+	 */
+	public long getRetriedCount() {
+		return retried.sum();
+	}
+	
+	/**
+	 * 재시도 후에도 전송하지 못한 메일 수
+	 */
+	public long getFailedCount() {
+		return failed.sum();
+	}
+	
+	/**
+	 * SMTP 서버에 연결한 횟수
+	 */
+	public long getConnectionCount() {
+		return connections.sum();
+	}
+	
+	/**
+	 * 전송 대기중인 메일 수 (재시도를 기다리는 메일은 제외)
+	 */
+	public int getQueueDepth() {
+		return (queue == null)?0:queue.size();
+	}
+	
+	public String toString() {
+		return "queued=" + getQueueDepth() + ", enqueued=" + getEnqueuedCount() + ", sent=" + getSentCount()
+				+ ", retried=" + getRetriedCount() + ", failed=" + getFailedCount()
+				+ ", rejected=" + getRejectedCount() + ", connections=" + getConnectionCount();
+	}
+	
+	private Session createSession() {
+		Properties props = new Properties();
+		props.setProperty("mail.transport.protocol", "smtp");
+		props.setProperty("mail.smtp.host", hostName);
+		props.setProperty("mail.smtp.port", String.valueOf(port));
+		if (userName != null) {
+			props.setProperty("mail.smtp.auth", "true");
+		}
+		if (startTLS) {
+			props.setProperty("mail.smtp.starttls.enable", "true");
+		}
+		if (sslOnConnect) {
+			props.setProperty("mail.smtp.ssl.enable", "true");
+		}
+		
+		return Session.getInstance(props);
+	}
+	
+	/**
+	 * 전송 쓰레드의 처리 루프, SMTP 연결을 유지하면서 큐의 메일들을 전송한다.
+	 */
+	private void runSender() {
+		Transport transport = null;
+		int sentOnConnection = 0;
+		
+		try {
+			while (running || !queue.isEmpty()) {
+				MailTask task = queue.poll(idleTimeout, TimeUnit.MILLISECONDS);
+				if (task == null) {
+					transport = closeTransport(transport);
+					continue;
+				}
+				
+				try {
+					if (transport == null || sentOnConnection >= batchSize || !transport.isConnected()) {
+						closeTransport(transport);
+						transport = null;
+						transport = session.getTransport();
+						transport.connect(hostName, port, userName, password);
+						connections.increment();
+						sentOnConnection = 0;
+					}
+					
+					Address[] recipients = task.message.getAllRecipients();
+					transport.sendMessage(task.message, recipients);
+					sentOnConnection++;
+					
+					completed(task);
+				}
+				catch (SendFailedException ex) {
+					// 4xx 응답(451, 452 등)은 일시적인 오류이므로 다시 시도하고 그 외에는 다시 시도하지 않는다.
+					if (isTransient(ex)) {
+						retryOrFail(task, ex);
+					}
+					else {
+						fail(task, ex);
+					}
+				}
+				catch (MessagingException ex) {
+					transport = closeTransport(transport);
+					retryOrFail(task, ex);
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			closeTransport(transport);
+		}
+	}
+	
+	private Transport closeTransport(Transport transport) {
+		if (transport != null) {
+			try {
+				transport.close();
+			}
+			catch (MessagingException ignored) {
+			}
+		}
+		
+		return null;
+	}
+	
+	private void completed(MailTask task) {
+		sent.increment();
+		if (log.isDebugEnabled()) {
+			log.debug("## mail sent. [" + task.getSubject() + "]");
+		}
+		
+		if (task.outboxId != null) {
+			try {
+				outbox.sent(task.outboxId);
+			}
+			catch (Exception ex) {
+				log.error("## cannot remove the sent mail from the outbox. [" + task.outboxId + "]", ex);
+			}
+		}
+	}
+	
+	private void fail(MailTask task, Exception cause) {
+		failed.increment();
+		log.error("## mail send failed. [" + task.getSubject() + "] attempts : " + (task.attempts + 1), cause);
+		
+		if (task.outboxId != null) {
+			try {
+				outbox.failed(task.outboxId, cause);
+			}
+			catch (Exception ex) {
+				log.error("## cannot mark the failed mail in the outbox. [" + task.outboxId + "]", ex);
+			}
+		}
+	}
+	
+	/**
+	 * SMTP 응답 코드가 4xx 인 일시적인 전송 실패인지 확인한다. 
+	 * 연결된 예외(getNextException)들 중 하나라도 5xx 응답이 있으면 다시 보내도 실패하므로 false 를 반환한다.
+	 * @param ex
+	 * @return 4xx 응답만 있으면 true
+	 */
+	private static boolean isTransient(MessagingException ex) {
+		boolean transientCode = false;
+		
+		for (Exception e = ex; e != null; ) {
+			int code = getReturnCode(e);
+			if (code >= 500) {
+				return false;
+			}
+			if (code >= 400) {
+				transientCode = true;
+			}
+			
+			e = (e instanceof MessagingException)?((MessagingException)e).getNextException():null;
+		}
+		
+		return transientCode;
+	}
+	
+	/**
+	 * SMTPSendFailedException, SMTPAddressFailedException 등의 SMTP 응답 코드를 구한다.
+	 * 이 클래스들은 jakarta.mail API 가 아닌 구현 라이브러리(com.sun.mail, org.eclipse.angus)에 있으므로
+	 * getReturnCode() 메소드를 reflection 으로 호출한다.
+	 * @param ex
+	 * @return SMTP 응답 코드, 없으면 -1
+	 */
+	private static int getReturnCode(Exception ex) {
+		try {
+			Object code = ex.getClass().getMethod("getReturnCode").invoke(ex);
+			if (code instanceof Integer) {
+				return ((Integer)code).intValue();
+			}
+		}
+		catch (Exception ignored) {
+		}
+		
+		return -1;
+	}
+	
+	private void retryOrFail(final MailTask task, Exception cause) {
+		if (task.attempts >= maxRetries || !running) {
+			if (running) {
+				fail(task, cause);
+			}
+			else {
+				log.warn("## mail send failed while closing. [" + task.getSubject() + "]", cause);
+			}
+			return;
+		}
+		
+		long delay = Math.min(MAX_BACKOFF, retryBackoff << Math.min(task.attempts, 20));
+		task.attempts++;
+		retried.increment();
+		log.warn("## mail send failed. retry after " + delay + " ms. [" + task.getSubject() + "] " + cause);
+		
+		scheduleRetry(task, delay);
+	}
+	
+	private void scheduleRetry(final MailTask task, final long delay) {
+		try {
+			retryScheduler.schedule(new Runnable() {
+				public void run() {
+					// 큐가 가득 찬 경우에는 재시도 횟수를 늘리지 않고 다시 기다린다.
+					if (!queue.offer(task)) {
+						scheduleRetry(task, delay);
+					}
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+		catch (Exception ex) {
+			log.warn("## mail retry is not scheduled. [" + task.getSubject() + "]", ex);
+		}
+	}
+	
+	/**
+	 * outbox 에 남아 있는 메일들을 다시 큐에 넣는다. 큐가 가득 차면 나머지는 다음 start() 시에 전송된다.
+	 */
+	private void recoverOutbox() {
+		Map<Object,byte[]> pending = null;
+		try {
+			pending = outbox.loadPending();
+		}
+		catch (Exception ex) {
+			log.error("## cannot load pending mails from the outbox.", ex);
+			return;
+		}
+		
+		int count = 0;
+		Iterator<Map.Entry<Object,byte[]>> itor = pending.entrySet().iterator();
+		while(itor.hasNext()) {
+			Map.Entry<Object,byte[]> entry = itor.next();
+			try {
+				MimeMessage message = new MimeMessage(session, new ByteArrayInputStream(entry.getValue()));
+				if (!queue.offer(new MailTask(message, entry.getKey()))) {
+					break;
+				}
+				enqueued.increment();
+				count++;
+			}
+			catch (MessagingException ex) {
+				fail(new MailTask(null, entry.getKey()), ex);
+			}
+		}
+		
+		if (pending.size() > 0) {
+			log.info("## pending mails in the outbox : " + pending.size() + ", enqueued : " + count);
+		}
+	}
+	
+	private byte[] toBytes(MimeMessage message) throws ApplicationException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			message.writeTo(out);
+			return out.toByteArray();
+		}
+		catch (IOException ex) {
+			throw new ApplicationException("service.error.10002", ex);
+		}
+		catch (MessagingException ex) {
+			throw new ApplicationException("service.error.10002", ex);
+		}
+	}
+	
+	/**
+	 * 큐에 담기는 전송 단위
+	 */
+	private static class MailTask {
+		private final MimeMessage message;
+		private final Object outboxId;
+		private int attempts = 0;
+		
+		MailTask(MimeMessage message, Object outboxId) {
+			this.message = message;
+			this.outboxId = outboxId;
+		}
+		
+		String getSubject() {
+			try {
+				return (message == null)?String.valueOf(outboxId):message.getSubject();
+			}
+			catch (MessagingException ex) {
+				return String.valueOf(outboxId);
+			}
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package s2.adapi.framework.mail;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * MailDispatcher 가 전송할 메일을 보관하는 영속 저장소이다.
+ * 메일은 큐에 넣기 전에 MIME 형식의 byte 배열로 저장되며 전송이 끝나면 삭제된다.
+ * 서버가 비정상 종료되어 메모리 큐의 메일이 유실되더라도 다음 기동 시에 loadPending() 으로 읽어서 다시 전송한다.
+ * </p>
+ * @author kimhd
+ * @see JdbcMailOutbox
+ */
+public interface MailOutbox {
+	
+	/**
+	 * 전송할 메일을 저장하고 저장된 메일의 ID 를 반환한다.
+	 * @param message MIME 형식의 메일
+	 * @return 메일 ID
+	 */
+	public Object store(byte[] message);
+	
+	/**
+	 * 전송이 완료된 메일을 삭제한다.
+	 * @param id 메일 ID
+	 */
+	public void sent(Object id);
+	
+	/**
+	 * 재시도 후에도 전송하지 못한 메일을 실패로 표시한다. 실패한 메일은 loadPending() 에서 제외된다.
+	 * @param id 메일 ID
+	 * @param cause 실패 원인
+	 */
+	public void failed(Object id, Throwable cause);
+	
+	/**
+	 * 아직 전송되지 않은 메일들을 저장된 순서대로 반환한다.
+	 * @return 메일 ID 와 MIME 형식 메일의 맵
+	 */
+	public Map<Object,byte[]> loadPending();
+}
@@ -1,14 +1,23 @@
 package s2.adapi.framework.query;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
 import s2.adapi.framework.dao.SqlQueryException;
 import s2.adapi.framework.exception.ApplicationException;
 import s2.adapi.framework.query.element.ResultMap;
 import s2.adapi.framework.query.element.SqlStatement;
 import s2.adapi.framework.query.element.Sqls;
+import s2.adapi.framework.util.FileChangeNotifier;
+import s2.adapi.framework.util.FileWatchdogListener;
 import s2.adapi.framework.util.SystemHelper;
 
 /**
@@ -17,6 +26,22 @@ import s2.adapi.framework.util.SystemHelper;
  * @since 4.0
  */
 public class SqlQueryPage {
+	
+	private static final Logger log = LoggerFactory.getLogger(SqlQueryPage.class);
+	
+	/**
+	 * true 이면 SQL 파일이 로컬 파일인 경우 파일 변경시 다시 파싱한다. (개발 환경용)
+	 */
+	private static final String SQL_RELOAD_KEY = "s2adapi.dao.sql.reload";
+	
+	private static boolean reloadEnabled = false;
+	static {
+		try {
+			reloadEnabled = ConfiguratorFactory.getConfigurator().getBoolean(SQL_RELOAD_KEY, reloadEnabled);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
 
 	/**
 	 * SQL 문장을 정의한 XML 파일의 클래스 패스 경로
@@ -28,7 +53,12 @@ public class SqlQueryPage {
 	/**
 	 * SQL 문장을 파싱한 Sqls 객체
 	 */
-	private Sqls sqls =  null;
+	private volatile Sqls sqls =  null;
+	
+	/**
+	 * SQL 파일의 변경 감시 등록 여부
+	 */
+	private boolean watched = false;
 	
 	/**
 	 * 생성자이다. 
@@ -64,7 +94,7 @@ public class SqlQueryPage {
 	 * @throws ApplicationException 해당 파일을 
 	 */
 	public SqlQuery getQuery(String id) throws SqlQueryException  {
-		checkSqls();
+		Sqls sqls = checkSqls();
 		
 		SqlStatement stmt = sqls.getStatement(id);
 		if ( stmt == null ) {
@@ -90,16 +120,16 @@ public class SqlQueryPage {
 	 * @throws SqlQueryException
 	 */
 	public ResultMap getResultMap(String id) throws SqlQueryException {
-		checkSqls();
-		
-		return sqls.getResultMap(id);
+		return checkSqls().getResultMap(id);
 	}
 	
 	/**
 	 * Sqls 객체가 만들어져 있는지 확인하고 없으면 Sqls 객체를 생성한다.
+	 * @return Sqls 객체
 	 * @throws SqlQueryException
 	 */
-	private void checkSqls() throws SqlQueryException {
+	private Sqls checkSqls() throws SqlQueryException {
+		Sqls sqls = this.sqls;
 		if (sqls == null) {
 			// SQL 파일 파싱
 			try {
@@ -111,6 +141,55 @@ public class SqlQueryPage {
 				// 파싱중 오류가 발생한 경우
 				throw  new SqlQueryException(SqlQueryException.QUERY_PARSING_ERROR,path,ex);
 			}
+			
+			this.sqls = sqls;
+			
+			if (reloadEnabled && !watched) {
+				watched = true;
+				watchFile();
+			}
+		}
+		
+		return sqls;
+	}
+	
+	/**
+	 * SQL 파일이 로컬 파일이면 FileChangeNotifier 에 등록하여 변경시 다시 파싱되도록 한다.
+	 */
+	private void watchFile() {
+		try {
+			URL url = classLoader.getResource(path);
+			if (url != null && "file".equals(url.getProtocol())) {
+				SqlFileListener listener = new SqlFileListener(this);
+				listener.watchReg = FileChangeNotifier.instance().register(new File(url.toURI()), listener);
+			}
+		}
+		catch (Exception ex) {
+			log.debug("cannot watch the sql file [" + path + "]", ex);
+		}
+	}
+	
+	/**
+	 * SQL 파일이 변경되면 파싱 결과를 버려서 다음 조회시 다시 파싱되도록 한다.
+	 * SqlQueryPage 가 더이상 사용되지 않으면(컨테이너 재로딩 등) 감시를 중지한다.
+	 */
+	private static class SqlFileListener implements FileWatchdogListener {
+		private final WeakReference<SqlQueryPage> pageRef;
+		private FileChangeNotifier.Registration watchReg = null;
+		
+		SqlFileListener(SqlQueryPage page) {
+			pageRef = new WeakReference<SqlQueryPage>(page);
+		}
+		
+		public void fileChanged() {
+			SqlQueryPage page = pageRef.get();
+			if (page == null) {
+				watchReg.cancel();
+				return;
+			}
+			
+			page.sqls = null;
+			log.info("sql file is changed. [" + page.path + "]");
 		}
 	}
 }
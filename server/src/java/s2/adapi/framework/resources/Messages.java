@@ -2,9 +2,11 @@ package s2.adapi.framework.resources;
 
 import java.io.Serializable;
 import java.text.MessageFormat;
-import java.util.HashMap;
+import java.text.Format;
+import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +50,15 @@ public class Messages implements Serializable {
      * <code>getMessages()</code> 메소드에서 사용할 {@link s2.adapi.framework.resources.ResourcesFactory}
      * </p>
      */
-    protected static Map<String,ResourcesFactory> factoryMap = new HashMap<String,ResourcesFactory>();
+    protected static Map<String,ResourcesFactory> factoryMap = new ConcurrentHashMap<String,ResourcesFactory>();
+    
+    /**
+     * <p>
+     * 파싱된 MessageFormat 캐시. (Resources, Locale, key) 별로 메시지 패턴과 파싱 결과를 보관한다.
+     * Resources 가 재로딩되면 ResourcesReloader 에 의하여 해당 리소스명의 항목들이 삭제된다.
+     * </p>
+     */
+    private static final Map<FormatKey,CachedFormat> formatCache = new ConcurrentHashMap<FormatKey,CachedFormat>();
 
     /**
      * 메시지를 생성하기 위한 리소스 명을 지정하지 않았을 경우 디폴트 리소스명을 가져오기 위한 Key
@@ -275,8 +285,102 @@ public class Messages implements Serializable {
                                     String key,
                                     Object[] args) {
         String message = getMessage(resources, locale, key);
-        MessageFormat format = new MessageFormat(message);
-        return (format.format(args));
+        return (getFormat(resources, locale, key, message).format(args));
+    }
+    
+    /**
+     * <p>
+     * 메시지 패턴을 파싱한 MessageFormat 을 캐시에서 찾아 반환한다. 캐시된 패턴과 메시지가 다르면 다시 파싱한다.
+     * MessageFormat 은 thread-safe 하지 않으므로 숫자나 날짜 형식({0,number} 등)이 포함된 경우에는 복제하여 반환한다.
+     * </p>
+     */
+    private static MessageFormat getFormat(Resources resources, Locale locale, String key, String message) {
+        FormatKey fkey = new FormatKey(resources, locale, key);
+        CachedFormat cached = formatCache.get(fkey);
+        if (cached == null || !cached.pattern.equals(message)) {
+            cached = new CachedFormat(message);
+            formatCache.put(fkey, cached);
+        }
+        
+        if (cached.shared) {
+            return cached.format;
+        }
+        else {
+            return (MessageFormat) cached.format.clone();
+        }
+    }
+    
+    /**
+     * <p>
+     * 주어진 리소스명의 Resources 로 생성된 MessageFormat 캐시를 삭제한다.
+     * </p>
+     *
+     * @param name 리소스명
+     */
+    static void clearFormatCache(String name) {
+        Iterator<FormatKey> itor = formatCache.keySet().iterator();
+        while (itor.hasNext()) {
+            FormatKey fkey = itor.next();
+            if (name == null || name.equals(fkey.resources.getName())) {
+                itor.remove();
+            }
+        }
+    }
+    
+    /**
+     * MessageFormat 캐시의 key. Resources 는 객체 자체로 비교한다.
+     */
+    private static final class FormatKey {
+        private final Resources resources;
+        private final Locale locale;
+        private final String key;
+        private final int hash;
+        
+        FormatKey(Resources resources, Locale locale, String key) {
+            this.resources = resources;
+            this.locale = locale;
+            this.key = key;
+            this.hash = (System.identityHashCode(resources) * 31 + (locale == null ? 0 : locale.hashCode())) * 31
+                    + (key == null ? 0 : key.hashCode());
+        }
+        
+        public int hashCode() {
+            return hash;
+        }
+        
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FormatKey)) {
+                return false;
+            }
+            FormatKey other = (FormatKey) obj;
+            return resources == other.resources
+                    && (locale == null ? other.locale == null : locale.equals(other.locale))
+                    && (key == null ? other.key == null : key.equals(other.key));
+        }
+    }
+    
+    /**
+     * 메시지 패턴과 파싱된 MessageFormat
+     */
+    private static final class CachedFormat {
+        private final String pattern;
+        private final MessageFormat format;
+        private final boolean shared;
+        
+        CachedFormat(String pattern) {
+            this.pattern = pattern;
+            this.format = new MessageFormat(pattern);
+            
+            // 하위 Format 이 없으면 format() 호출 시 변경되는 상태가 없으므로 공유하여 사용한다.
+            boolean noSubformat = true;
+            for (Format f : format.getFormats()) {
+                if (f != null) {
+                    noSubformat = false;
+                    break;
+                }
+            }
+            this.shared = noSubformat;
+        }
     }
 
 
@@ -338,14 +442,16 @@ public class Messages implements Serializable {
             
             factory = factoryMap.get(className);
             if (factory == null) {
-            	factory = (ResourcesFactoryBase) ObjectHelper.instantiate(className);
-            	synchronized(factoryMap) {
-            		factoryMap.put(className, factory);
-            	}
-            	// 재로딩 등록
-            	int reload = config.getInt(MESSAGE_RELOAD_PREFIX + name,0);
-            	if (reload > 0) {
-            		ResourcesReloader.instance().addResource(name, factory, reload);
+            	ResourcesFactory newFactory = (ResourcesFactoryBase) ObjectHelper.instantiate(className);
+            	factory = factoryMap.putIfAbsent(className, newFactory);
+            	if (factory == null) {
+            		factory = newFactory;
+            		
+            		// 재로딩 등록
+            		int reload = config.getInt(MESSAGE_RELOAD_PREFIX + name,0);
+            		if (reload > 0) {
+            			ResourcesReloader.instance().addResource(name, factory, reload);
+            		}
             	}
             }
         } 
@@ -1,5 +1,9 @@
 package s2.adapi.framework.resources;
 
+import java.io.File;
+import java.io.FilenameFilter;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -7,8 +11,16 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import s2.adapi.framework.resources.impl.ResourcesBase;
+import s2.adapi.framework.resources.impl.XMLResources;
+import s2.adapi.framework.util.FileChangeNotifier;
+import s2.adapi.framework.util.FileWatchdogListener;
+import s2.adapi.framework.util.SystemHelper;
+
 /**
  * Resources 들을 주기적으로 갱신하는 기능을 제공한다.
+ * 리소스 파일이 로컬 디렉토리에 있으면 FileChangeNotifier 에 등록하여 파일이 변경되는 즉시 갱신하고,
+ * 그렇지 않은 경우(JAR 내부 등)에만 지정된 주기로 갱신한다.
  * @author 김형도
  * @since 1.0
  */
@@ -50,12 +62,88 @@ public class ResourcesReloader extends Thread {
 	 * @param factory
 	 * @param reload
 	 */
-	public void addResource(String name, ResourcesFactory factory, int min) {
+	public void addResource(final String name, final ResourcesFactory factory, int min) {
 		if (log.isInfoEnabled()) {
 			log.info("Add "+name+" into resource reloading list with interval of "+min+" minutes.");
 		}
+		
+		ReloadInfo reloadInfo = new ReloadInfo(factory, min);
+		
+		File dir = getResourcesDirectory(name, factory);
+		if (dir != null) {
+			reloadInfo.watchReg = FileChangeNotifier.instance().register(dir, new FileWatchdogListener() {
+				public void fileChanged() {
+					release(name, factory);
+				}
+			}, min * delay, null, getResourcesFilter(name, factory));
+		}
+		
 		synchronized(reloadInfos) {
-			reloadInfos.put(name, new ReloadInfo(factory, min));
+			ReloadInfo prevInfo = reloadInfos.put(name, reloadInfo);
+			if (prevInfo != null && prevInfo.watchReg != null) {
+				prevInfo.watchReg.cancel();
+			}
+		}
+	}
+	
+	/**
+	 * 리소스 파일들이 위치한 로컬 디렉토리를 구한다. 로컬 파일이 아니면 null 을 반환한다.
+	 */
+	private File getResourcesDirectory(String name, ResourcesFactory factory) {
+		try {
+			Resources res = factory.getResources(name);
+			if (!(res instanceof ResourcesBase)) {
+				return null;
+			}
+			
+			String base = ((ResourcesBase) res).getBase();
+			URL url = null;
+			try {
+				// base 가 URL 형식이면 base 파일의 디렉토리
+				url = new URL(base);
+				if ("file".equals(url.getProtocol())) {
+					return new File(url.toURI()).getParentFile();
+				}
+			} 
+			catch (MalformedURLException ex) {
+				// base 가 클래스패스 경로이면 해당 클래스패스 디렉토리
+				int idx = base.lastIndexOf('/');
+				url = SystemHelper.getResourceURL(idx > 0 ? base.substring(0, idx) : "");
+				if ("file".equals(url.getProtocol())) {
+					return new File(url.toURI());
+				}
+			}
+		}
+		catch (Exception ex) {
+			log.debug("cannot resolve the directory of resources '" + name + "'.", ex);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * 리소스 디렉토리에서 해당 리소스의 파일들(base.properties, base_ko_KR.properties 등)만 선택하는 filter 를 생성한다.
+	 * 클래스패스 root 와 같이 다른 파일들이 함께 있는 디렉토리에서 관계없는 파일의 변경으로 리소스가 갱신되지 않도록 한다.
+	 */
+	private FilenameFilter getResourcesFilter(String name, ResourcesFactory factory) {
+		Resources res = factory.getResources(name);
+		String base = ((ResourcesBase) res).getBase();
+		final String baseName = base.substring(base.lastIndexOf('/') + 1);
+		final String ext = (res instanceof XMLResources) ? ".xml" : ".properties";
+		
+		return new FilenameFilter() {
+			public boolean accept(File dir, String fileName) {
+				return fileName.endsWith(ext)
+						&& (fileName.equals(baseName + ext) || fileName.startsWith(baseName + "_"));
+			}
+		};
+	}
+	
+	private void release(String name, ResourcesFactory factory) {
+		factory.release(name);
+		Messages.clearFormatCache(name);
+		if (log.isInfoEnabled()) {
+			log.info("Resources '"+name+"' is released.");
 		}
 	}
 	
@@ -78,6 +166,11 @@ public class ResourcesReloader extends Thread {
     	}
     	
     	synchronized(reloadInfos) {
+    		for(ReloadInfo reloadInfo:reloadInfos.values()) {
+    			if (reloadInfo.watchReg != null) {
+    				reloadInfo.watchReg.cancel();
+    			}
+    		}
     		reloadInfos.clear();
     	}
     }
@@ -133,12 +226,11 @@ public class ResourcesReloader extends Thread {
     			String name = itor.next();
     			ReloadInfo reloadInfo = reloadInfos.get(name);
     			
-    			if (minutesElapsed%reloadInfo.getReloadInterval() == 0) {
+    			// 파일 변경 통보를 받는 리소스는 제외한다.
+    			if (reloadInfo.watchReg == null 
+    					&& minutesElapsed%reloadInfo.getReloadInterval() == 0) {
     				// release() the resourceFactoyr
-    				reloadInfo.getResourcesFactory().release(name);
-    				if (log.isInfoEnabled()) {
-    					log.info("Resources '"+name+"' is released.");
-    				}
+    				release(name, reloadInfo.getResourcesFactory());
     			}
     		}
     	}
@@ -147,6 +239,7 @@ public class ResourcesReloader extends Thread {
     private static class ReloadInfo {
     	private ResourcesFactory factory = null;
     	private int interval = 0;
+    	private FileChangeNotifier.Registration watchReg = null;
     	
     	public ReloadInfo(ResourcesFactory factory, int interval) {
     		this.factory = factory;
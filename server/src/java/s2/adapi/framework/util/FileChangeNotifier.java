@@ -0,0 +1,512 @@
+package s2.adapi.framework.util;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+
+/**
+ * <p>
+ * 파일 또는 디렉토리의 변경을 감시하여 등록된 FileWatchdogListener 에게 알려주는 공용 서비스이다.
+ * FileWatchdog 과 달리 감시 대상마다 쓰레드를 만들지 않고 하나의 쓰레드에서 java.nio.file.WatchService 를 사용하여
+ * 운영체제의 파일 변경 이벤트를 받아 처리하므로 변경 후 바로 통보되며 변경이 없을 때에는 CPU 를 사용하지 않는다.
+ * </p>
+ * <p>
+ * 파일을 저장할 때 여러 개의 이벤트가 연달아 발생하므로 마지막 이벤트 후 s2adapi.file.watch.debounce (디폴트 200 ms) 동안
+ * 추가 이벤트가 없을 때 한 번만 통보한다. WatchService 를 사용할 수 없거나 감시 대상 디렉토리가 없는 경우,
+ * 또는 s2adapi.file.watch.polling 이 true 인 경우에는 FileWatchdog 과 같이 최종 수정시간을 주기적으로 비교하는 방식으로 동작한다.
+ * </p>
+ * <p>
+ * 통보는 감시 쓰레드에서 순차적으로 호출되므로 listener 에서 오래 걸리는 작업을 하면 다른 대상의 통보가 그만큼 늦어진다.
+ * </p>
+ * <pre>
+ *     FileChangeNotifier.Registration reg = FileChangeNotifier.instance().register(dir, listener);
+ *     ...
+ *     reg.cancel();
+ * </pre>
+ * @author 김형도
+ */
+public class FileChangeNotifier {
+	
+	private static final Logger log = LoggerFactory.getLogger(FileChangeNotifier.class);
+	
+	/**
+	 * 감시 쓰레드 명
+	 */
+	public static final String NOTIFIER_THREAD_NAME = "S2API.FileChangeNotifier";
+	
+	private static final String WATCH_POLLING_KEY = "s2adapi.file.watch.polling";
+	private static final String WATCH_DEBOUNCE_KEY = "s2adapi.file.watch.debounce";
+	
+	/**
+	 * 이벤트가 계속 발생하더라도 첫 이벤트 후 debounce 의 이 배수 시간이 지나면 통보한다.
+	 */
+	private static final int MAX_DEBOUNCE_FACTOR = 10;
+	
+	/**
+	 * 대기 중인 통보나 polling 대상이 없을 때의 최대 대기 시간
+	 */
+	private static final long IDLE_WAIT = 60 * 1000L;
+	
+	private static boolean forcePolling = false;
+	private static long debounce = 200L;
+	static {
+		try {
+			forcePolling = ConfiguratorFactory.getConfigurator().getBoolean(WATCH_POLLING_KEY, forcePolling);
+			debounce = ConfiguratorFactory.getConfigurator().getLong(WATCH_DEBOUNCE_KEY, debounce);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private static final FileChangeNotifier singleton = new FileChangeNotifier();
+	
+	public static FileChangeNotifier instance() {
+		return singleton;
+	}
+	
+	/**
+	 * 운영체제의 파일 변경 이벤트를 받기 위한 WatchService, 사용할 수 없으면 null 이다.
+	 */
+	private WatchService watchService = null;
+	
+	/**
+	 * 등록된 모든 감시 대상
+	 */
+	private final List<Registration> registrations = new CopyOnWriteArrayList<Registration>();
+	
+	/**
+	 * WatchService 에 등록된 디렉토리별 WatchKey 와 감시 대상들 (registrations 로 동기화)
+	 */
+	private final Map<Path,WatchKey> watchKeys = new HashMap<Path,WatchKey>();
+	private final Map<Path,List<Registration>> dirRegistrations = new HashMap<Path,List<Registration>>();
+	
+	private Thread thread = null;
+	
+	private FileChangeNotifier() {
+		if (!forcePolling) {
+			try {
+				watchService = FileSystems.getDefault().newWatchService();
+			}
+			catch (Exception ex) {
+				log.warn("WatchService is not available, file changes are checked by polling.", ex);
+			}
+		}
+	}
+	
+	/**
+	 * 감시 대상을 등록한다. WatchService 를 사용할 수 없을 때에는 FileWatchdog.DEFAULT_DELAY 주기로 변경을 확인한다.
+	 * @param target 감시할 파일 또는 디렉토리 (디렉토리인 경우 바로 아래의 파일들을 감시한다.)
+	 * @param listener 변경시 호출될 listener
+	 * @return 등록 정보, cancel() 을 호출하여 감시를 중지한다.
+	 */
+	public Registration register(File target, FileWatchdogListener listener) {
+		return register(target, listener, FileWatchdog.DEFAULT_DELAY, null);
+	}
+	
+	/**
+	 * 감시 대상을 등록한다.
+	 * @param target 감시할 파일 또는 디렉토리 (디렉토리인 경우 바로 아래의 파일들을 감시한다.)
+	 * @param listener 변경시 호출될 listener
+	 * @param pollInterval WatchService 를 사용할 수 없을 때 변경을 확인할 주기 (ms)
+	 * @param lockFile 이 파일이 존재하는 동안에는 통보하지 않고 기다린다. 통보하는 동안에는 이 파일을 생성해 둔다. (null 가능)
+	 * @return 등록 정보, cancel() 을 호출하여 감시를 중지한다.
+	 */
+	public Registration register(File target, FileWatchdogListener listener, long pollInterval, File lockFile) {
+		return register(target, listener, pollInterval, lockFile, null);
+	}
+	
+	/**
+	 * 감시 대상을 등록한다.
+	 * @param target 감시할 파일 또는 디렉토리 (디렉토리인 경우 바로 아래의 파일들을 감시한다.)
+	 * @param listener 변경시 호출될 listener
+	 * @param pollInterval WatchService 를 사용할 수 없을 때 변경을 확인할 주기 (ms)
+	 * @param lockFile 이 파일이 존재하는 동안에는 통보하지 않고 기다린다. 통보하는 동안에는 이 파일을 생성해 둔다. (null 가능)
+	 * @param filter 디렉토리를 감시하는 경우 이 filter 에 해당되는 파일의 변경만 통보한다. (null 이면 모든 파일)
+	 * @return 등록 정보, cancel() 을 호출하여 감시를 중지한다.
+	 */
+	public Registration register(File target, FileWatchdogListener listener, long pollInterval, File lockFile,
+			FilenameFilter filter) {
+		Registration reg = new Registration(target.getAbsoluteFile(), listener, pollInterval, lockFile, filter);
+		
+		synchronized(registrations) {
+			if (watchService != null && !watchDirectory(reg)) {
+				log.info("cannot watch [" + target.getPath() + "], file changes are checked by polling.");
+			}
+			registrations.add(reg);
+			
+			startThread();
+			// polling 방식일 때 대기 중인 감시 쓰레드가 새로운 대상의 주기를 반영하도록 깨운다.
+			registrations.notifyAll();
+		}
+		
+		if (log.isInfoEnabled()) {
+			log.info("file change notification registered. [" + target.getPath() + "]"
+					+ (reg.polling ? " (polling every " + pollInterval + " ms)" : ""));
+		}
+		
+		return reg;
+	}
+	
+	/**
+	 * 감시 대상 디렉토리를 WatchService 에 등록한다. (registrations 동기화 상태에서 호출)
+	 * @return 등록되었으면 true, 아니면 false (polling 방식으로 감시)
+	 */
+	private boolean watchDirectory(Registration reg) {
+		Path dir = reg.dir.toPath();
+		
+		WatchKey key = watchKeys.get(dir);
+		if (key == null) {
+			if (!reg.dir.isDirectory()) {
+				return false;
+			}
+			try {
+				key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+			}
+			catch (IOException ex) {
+				log.warn("cannot register [" + dir + "] to WatchService.", ex);
+				return false;
+			}
+			watchKeys.put(dir, key);
+			dirRegistrations.put(dir, new ArrayList<Registration>());
+		}
+		
+		dirRegistrations.get(dir).add(reg);
+		reg.polling = false;
+		
+		return true;
+	}
+	
+	/**
+	 * 감시 대상을 제거한다. 디렉토리에 더이상 감시 대상이 없으면 WatchKey 를 취소한다.
+	 */
+	private void unregister(Registration reg) {
+		synchronized(registrations) {
+			registrations.remove(reg);
+			
+			Path dir = reg.dir.toPath();
+			List<Registration> regs = dirRegistrations.get(dir);
+			if (regs != null && regs.remove(reg) && regs.isEmpty()) {
+				dirRegistrations.remove(dir);
+				WatchKey key = watchKeys.remove(dir);
+				if (key != null) {
+					key.cancel();
+				}
+			}
+		}
+	}
+	
+	private void startThread() {
+		if (thread != null) {
+			return;
+		}
+		
+		thread = new Thread(new Runnable() {
+			public void run() {
+				runLoop();
+			}
+		}, NOTIFIER_THREAD_NAME);
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * 이벤트를 받아 통보 시점을 정하고, polling 대상을 확인하고, 통보 시점이 된 대상에게 통보하는 작업을 반복한다.
+	 */
+	private void runLoop() {
+		if (log.isInfoEnabled()) {
+			log.info(NOTIFIER_THREAD_NAME + " started." + (watchService == null ? " (polling)" : ""));
+		}
+		
+		try {
+			while (true) {
+				long wait = nextWakeup(System.currentTimeMillis());
+				
+				if (watchService != null) {
+					WatchKey key = watchService.poll(wait, TimeUnit.MILLISECONDS);
+					while (key != null) {
+						processEvents(key);
+						key = watchService.poll();
+					}
+				}
+				else {
+					synchronized(registrations) {
+						registrations.wait(wait);
+					}
+				}
+				
+				long now = System.currentTimeMillis();
+				checkPolling(now);
+				fireDue(now);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ClosedWatchServiceException ex) {
+		}
+		finally {
+			if (log.isInfoEnabled()) {
+				log.info(NOTIFIER_THREAD_NAME + " stopped.");
+			}
+		}
+	}
+	
+	/**
+	 * 다음 통보 시점 또는 polling 시점까지의 대기 시간을 구한다.
+	 */
+	private long nextWakeup(long now) {
+		long next = now + IDLE_WAIT;
+		
+		for(Registration reg:registrations) {
+			if (reg.dueTime > 0 && reg.dueTime < next) {
+				next = reg.dueTime;
+			}
+			if (reg.polling && reg.nextPollTime < next) {
+				next = reg.nextPollTime;
+			}
+		}
+		
+		return Math.max(1L, next - now);
+	}
+	
+	private void processEvents(WatchKey key) {
+		Path dir = (Path) key.watchable();
+		long now = System.currentTimeMillis();
+		
+		List<Registration> regs = null;
+		synchronized(registrations) {
+			List<Registration> list = dirRegistrations.get(dir);
+			regs = (list == null) ? new ArrayList<Registration>() : new ArrayList<Registration>(list);
+		}
+		
+		for(WatchEvent<?> event:key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				// 이벤트가 유실되었으므로 해당 디렉토리의 모든 대상이 변경된 것으로 본다.
+				for(Registration reg:regs) {
+					reg.touch(now);
+				}
+				continue;
+			}
+			
+			String name = ((Path) event.context()).toString();
+			for(Registration reg:regs) {
+				if (reg.matches(name)) {
+					reg.touch(now);
+				}
+			}
+		}
+		
+		if (!key.reset()) {
+			// 감시하던 디렉토리가 삭제되었으므로 polling 방식으로 전환한다.
+			log.info("watched directory is no longer accessible, switch to polling. [" + dir + "]");
+			synchronized(registrations) {
+				watchKeys.remove(dir);
+				dirRegistrations.remove(dir);
+				for(Registration reg:regs) {
+					reg.startPolling(now);
+					reg.touch(now);
+				}
+			}
+		}
+	}
+	
+	private void checkPolling(long now) {
+		for(Registration reg:registrations) {
+			if (reg.polling && now >= reg.nextPollTime) {
+				reg.nextPollTime = now + reg.pollInterval;
+				if (reg.scanChanged()) {
+					reg.touch(now);
+				}
+			}
+		}
+	}
+	
+	private void fireDue(long now) {
+		for(Registration reg:registrations) {
+			if (reg.dueTime > 0 && now >= reg.dueTime && !reg.cancelled) {
+				reg.fire(now);
+			}
+		}
+	}
+	
+	/**
+	 * 대상 파일 또는 디렉토리 하위 파일들의 최종 수정 시간 목록을 생성한다. (FileWatchdog 과 동일)
+	 */
+	private static Map<String,Long> buildFileList(File target) {
+		Map<String,Long> fMap = new HashMap<String,Long>();
+		
+		if (target.isFile()) {
+			fMap.put(target.getName(), target.lastModified());
+		}
+		else if (target.isDirectory()) {
+			File[] files = target.listFiles();
+			if (files != null) {
+				for(int i=0;i<files.length;i++) {
+					fMap.put(files[i].getName(), files[i].lastModified());
+				}
+			}
+		}
+		
+		return fMap;
+	}
+	
+	/**
+	 * 감시 대상 등록 정보이다. cancel() 을 호출하여 감시를 중지한다.
+	 */
+	public final class Registration {
+		
+		private final File target;
+		private final File dir;
+		private final String fileName;
+		private final FileWatchdogListener listener;
+		private final long pollInterval;
+		private final File lockFile;
+		private final FilenameFilter filter;
+		
+		private volatile boolean cancelled = false;
+		private volatile boolean polling = true;
+		
+		/* 아래 값들은 감시 쓰레드에서만 변경된다. */
+		private volatile long dueTime = 0L;
+		private long firstEventTime = 0L;
+		private long nextPollTime = 0L;
+		private Map<String,Long> snapshot = null;
+		
+		private Registration(File target, FileWatchdogListener listener, long pollInterval, File lockFile,
+				FilenameFilter filter) {
+			this.target = target;
+			this.listener = listener;
+			this.pollInterval = (pollInterval > 0) ? pollInterval : FileWatchdog.DEFAULT_DELAY;
+			this.lockFile = lockFile;
+			this.filter = filter;
+			
+			if (target.isFile()) {
+				this.dir = target.getParentFile();
+				this.fileName = target.getName();
+			}
+			else {
+				this.dir = target;
+				this.fileName = null;
+			}
+			
+			startPolling(System.currentTimeMillis());
+		}
+		
+		public File getTarget() {
+			return target;
+		}
+		
+		public boolean isPolling() {
+			return polling;
+		}
+		
+		/**
+		 * 감시를 중지한다.
+		 */
+		public void cancel() {
+			cancelled = true;
+			unregister(this);
+		}
+		
+		private void startPolling(long now) {
+			snapshot = scan();
+			nextPollTime = now + pollInterval;
+			polling = true;
+		}
+		
+		/**
+		 * 디렉토리의 이벤트가 이 대상에 해당하는지 확인한다. lock 파일과 filter 에 해당되지 않는 파일에 대한 이벤트는 무시한다.
+		 */
+		private boolean matches(String name) {
+			if (lockFile != null && lockFile.getName().equals(name) && dir.equals(lockFile.getAbsoluteFile().getParentFile())) {
+				return false;
+			}
+			if (fileName == null) {
+				return (filter == null || filter.accept(dir, name));
+			}
+			
+			return fileName.equals(name);
+		}
+		
+		private Map<String,Long> scan() {
+			Map<String,Long> current = buildFileList(target);
+			if (lockFile != null) {
+				current.remove(lockFile.getName());
+			}
+			if (fileName == null && filter != null) {
+				Iterator<String> it = current.keySet().iterator();
+				while (it.hasNext()) {
+					if (!filter.accept(dir, it.next())) {
+						it.remove();
+					}
+				}
+			}
+			
+			return current;
+		}
+		
+		private boolean scanChanged() {
+			Map<String,Long> current = scan();
+			boolean changed = !current.equals(snapshot);
+			snapshot = current;
+			
+			return changed;
+		}
+		
+		/**
+		 * 변경 이벤트가 발생하였으므로 통보 시점을 debounce 만큼 뒤로 미룬다.
+		 */
+		private void touch(long now) {
+			if (dueTime == 0L) {
+				firstEventTime = now;
+			}
+			dueTime = Math.min(now + debounce, firstEventTime + debounce * MAX_DEBOUNCE_FACTOR);
+		}
+		
+		private void fire(long now) {
+			if (lockFile != null && lockFile.exists()) {
+				log.trace("lock file exists. " + lockFile.getName());
+				dueTime = now + debounce;
+				return;
+			}
+			
+			dueTime = 0L;
+			try {
+				if (lockFile != null) {
+					lockFile.createNewFile();
+				}
+				
+				listener.fileChanged();
+			}
+			catch (Throwable thr) {
+				log.error("file change listener error. [" + target.getPath() + "]", thr);
+			}
+			finally {
+				if (lockFile != null) {
+					lockFile.delete();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,519 @@
+package s2.adapi.framework.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import s2.adapi.framework.exception.ApplicationException;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * 구분자 또는 고정길이 형식의 파일을 한 row 씩 읽어오는 reader 이다.
+ * ValueObjectUtil.build() 와 달리 파일 전체를 ValueObject 에 담지 않으므로 대용량 파일도 일정한 메모리로 처리할 수 있다.
+ * </p>
+ * <ul>
+ * <li> 파일을 byte 단위로 읽어서 구분자와 줄바꿈을 byte 로 찾으며 (정규식을 사용하지 않는다)
+ *      필드 값만 문자열로 변환한다. 따라서 문자셋은 ASCII 호환 문자셋(UTF-8, MS949, EUC-KR 등)이어야 한다.
+ * <li> 고정길이 형식의 필드 길이는 byte 수이며 지정한 문자셋으로 필드를 잘라서 변환한다.
+ * <li> CSV 형식은 큰따옴표로 묶인 필드 안의 구분자, 줄바꿈, 두개 연속된 큰따옴표("")를 처리한다.
+ * <li> 줄 끝의 \r 은 제거되며 빈 줄은 건너뛴다. 필드 값의 앞뒤 공백은 디폴트로 제거되며, 큰따옴표로 묶인 필드의 공백은 값으로 유지된다.
+ * <li> 필드 수가 fieldKeys 보다 많으면 남는 필드는 무시되고 모자라면 공백 문자열로 채운다.
+ * </ul>
+ * <pre>
+ *    FlatFileReader reader = FlatFileReader.openCsv(file, new String[] {"cust_no","cust_nm","amt"}, "UTF-8");
+ *    try {
+ *        reader.setSkipLines(1); // 헤더
+ *        Map&lt;String,Object&gt; row = null;
+ *        while((row = reader.next()) != null) {
+ *            ...
+ *        }
+ *    }
+ *    finally {
+ *        reader.close();
+ *    }
+ * </pre>
+ * @author kimhd
+ */
+public class FlatFileReader implements AutoCloseable {
+	
+	private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	private static final byte QUOTE = '"';
+	
+	private final ReadableByteChannel channel;
+	private final Charset charset;
+	private final String[] fieldKeys;
+	
+	/**
+	 * 구분자 형식의 구분자 (고정길이 형식이면 null)
+	 */
+	private final byte[] delimiter;
+	
+	/**
+	 * 고정길이 형식의 필드별 byte 수 (구분자 형식이면 null)
+	 */
+	private final int[] fieldLengths;
+	
+	/**
+	 * 큰따옴표로 묶인 필드를 처리할지 여부 (CSV)
+	 */
+	private final boolean quoted;
+	
+	private boolean trim = true;
+	private int skipLines = 0;
+	
+	private byte[] buf;
+	private int pos = 0;
+	private int limit = 0;
+	private boolean eof = false;
+	
+	// 현재 row 의 필드 위치
+	private int fieldCount = 0;
+	private int[] fieldStarts = new int[16];
+	private int[] fieldEnds = new int[16];
+	private boolean[] fieldEscaped = new boolean[16];
+	private boolean[] fieldQuoted = new boolean[16];
+	
+	private long rowCount = 0;
+	private boolean closed = false;
+	
+	private FlatFileReader(ReadableByteChannel channel, String[] fieldKeys, String charsetName,
+			String delimiter, int[] fieldLengths, boolean quoted) {
+		this.channel = channel;
+		this.fieldKeys = fieldKeys;
+		this.charset = toCharset(charsetName);
+		this.delimiter = (delimiter == null)?null:delimiter.getBytes(charset);
+		this.fieldLengths = fieldLengths;
+		this.quoted = quoted;
+		this.buf = new byte[DEFAULT_BUFFER_SIZE];
+		
+		if (this.delimiter != null && this.delimiter.length == 0) {
+			throw new IllegalArgumentException("delimiter is empty.");
+		}
+	}
+	
+	/**
+	 * 구분자 형식의 파일을 연다. 구분자는 정규식이 아닌 문자열 그대로 비교한다.
+	 * @param file 읽을 파일
+	 * @param fieldKeys 필드명 리스트
+	 * @param delimiter 필드 구분자
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 파일이 없을 경우("service.error.07002")
+	 */
+	public static FlatFileReader openDelimited(File file, String[] fieldKeys, String delimiter, String charset) {
+		return new FlatFileReader(openChannel(file), fieldKeys, charset, delimiter, null, false);
+	}
+	
+	/**
+	 * CSV 형식(큰따옴표로 묶인 필드 처리)의 파일을 연다.
+	 * @param file 읽을 파일
+	 * @param fieldKeys 필드명 리스트
+	 * @param delimiter 필드 구분자 (보통 ",")
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 파일이 없을 경우("service.error.07002")
+	 */
+	public static FlatFileReader openCsv(File file, String[] fieldKeys, String delimiter, String charset) {
+		return new FlatFileReader(openChannel(file), fieldKeys, charset, delimiter, null, true);
+	}
+	
+	/**
+	 * 콤마(,)로 구분된 CSV 형식의 파일을 연다.
+	 * @param file 읽을 파일
+	 * @param fieldKeys 필드명 리스트
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 파일이 없을 경우("service.error.07002")
+	 */
+	public static FlatFileReader openCsv(File file, String[] fieldKeys, String charset) {
+		return openCsv(file, fieldKeys, ",", charset);
+	}
+	
+	/**
+	 * 고정길이 형식의 파일을 연다.
+	 * @param file 읽을 파일
+	 * @param fieldKeys 필드명 리스트
+	 * @param flength 필드별 길이 (byte 수)
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 파일이 없을 경우("service.error.07002")
+	 */
+	public static FlatFileReader openFixedWidth(File file, String[] fieldKeys, int[] flength, String charset) {
+		return new FlatFileReader(openChannel(file), fieldKeys, charset, null, flength, false);
+	}
+	
+	/**
+	 * InputStream 으로부터 구분자 형식의 데이터를 읽는다. close() 시에 InputStream 도 닫힌다.
+	 * @param quoted true 이면 CSV 형식으로 큰따옴표로 묶인 필드를 처리한다.
+	 */
+	public static FlatFileReader openDelimited(InputStream is, String[] fieldKeys, String delimiter, String charset, boolean quoted) {
+		return new FlatFileReader(Channels.newChannel(is), fieldKeys, charset, delimiter, null, quoted);
+	}
+	
+	/**
+	 * InputStream 으로부터 고정길이 형식의 데이터를 읽는다. close() 시에 InputStream 도 닫힌다.
+	 */
+	public static FlatFileReader openFixedWidth(InputStream is, String[] fieldKeys, int[] flength, String charset) {
+		return new FlatFileReader(Channels.newChannel(is), fieldKeys, charset, null, flength, false);
+	}
+	
+	/**
+	 * 필드 값의 앞뒤 공백(space, tab)을 제거할지 여부를 지정한다. (디폴트 true)
+	 * 큰따옴표로 묶인 CSV 필드는 RFC-4180 과 같이 따옴표 안의 공백을 값으로 보므로 제거하지 않는다.
+	 * @param trim
+	 */
+	public void setTrim(boolean trim) {
+		this.trim = trim;
+	}
+	
+	/**
+	 * 처음에 건너뛸 row 수(헤더 등)를 지정한다. 첫번째 row 를 읽기 전에 지정하여야 한다.
+	 * @param skipLines
+	 */
+	public void setSkipLines(int skipLines) {
+		this.skipLines = skipLines;
+	}
+	
+	/**
+	 * 다음 row 를 fieldKeys 를 key 로 하는 Map 으로 반환한다. 더 이상 row 가 없으면 null 을 반환한다.
+	 * @return
+	 * @throws ApplicationException 파일을 읽을때 에러가 발생한 경우("service.error.07001")
+	 */
+	public Map<String,Object> next() {
+		if (!advance()) {
+			return null;
+		}
+		
+		Map<String,Object> row = new HashMap<String,Object>((int)(fieldKeys.length / 0.75f) + 1);
+		for(int i=0;i<fieldKeys.length;i++) {
+			row.put(fieldKeys[i], field(i));
+		}
+		
+		return row;
+	}
+	
+	/**
+	 * 다음 row 의 필드 값들을 배열로 반환한다. 더 이상 row 가 없으면 null 을 반환한다.
+	 * 배열의 크기는 fieldKeys 의 크기와 같다.
+	 * @return
+	 * @throws ApplicationException 파일을 읽을때 에러가 발생한 경우("service.error.07001")
+	 */
+	public String[] nextFields() {
+		if (!advance()) {
+			return null;
+		}
+		
+		String[] values = new String[fieldKeys.length];
+		for(int i=0;i<values.length;i++) {
+			values[i] = field(i);
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * 남은 row 들을 최대 max 건까지 읽어서 ValueObject 로 반환한다.
+	 * @param max 최대 row 수, 0 이면 끝까지 읽는다.
+	 * @return
+	 */
+	public ValueObject readAll(int max) {
+		ValueObject retVO = new ValueObject();
+		Map<String,Object> row = null;
+		while((max <= 0 || retVO.size() < max) && (row = next()) != null) {
+			retVO.add(row);
+		}
+		
+		return retVO;
+	}
+	
+	/**
+	 * 지금까지 읽은 row 수 (건너뛴 row 는 제외)
+	 * @return
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+	
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		
+		try {
+			channel.close();
+		}
+		catch (IOException ignored) {
+		}
+	}
+	
+	/**
+	 * 다음 row 의 필드 위치를 구한다.
+	 */
+	private boolean advance() {
+		if (closed) {
+			return false;
+		}
+		
+		try {
+			while (true) {
+				if (!scanRecord()) {
+					return false;
+				}
+				if (skipLines > 0) {
+					skipLines--;
+					continue;
+				}
+				
+				rowCount++;
+				return true;
+			}
+		}
+		catch (IOException ex) {
+			throw new ApplicationException("service.error.07001", ex); // 파일 처리 중 오류가 발생하였습니다.
+		}
+	}
+	
+	/**
+	 * 버퍼에서 다음 record 를 찾는다. record 가 버퍼 끝에 걸쳐 있으면 버퍼를 채운 후 다시 찾는다.
+	 */
+	private boolean scanRecord() throws IOException {
+		while (true) {
+			// 빈 줄을 건너뛴다.
+			while (pos < limit && (buf[pos] == LF || buf[pos] == CR)) {
+				pos++;
+			}
+			
+			if (pos < limit) {
+				int end = (delimiter == null)?scanFixed(pos):scanDelimited(pos);
+				if (end >= 0) {
+					pos = end;
+					return true;
+				}
+			}
+			else if (eof) {
+				return false;
+			}
+			
+			if (eof) {
+				// 마지막 record 가 불완전한 경우 (닫히지 않은 따옴표)
+				throw new IOException("unexpected end of file in a quoted field.");
+			}
+			fill();
+		}
+	}
+	
+	/**
+	 * 처리한 데이터를 버리고 버퍼를 채운다. record 하나가 버퍼보다 크면 버퍼를 늘린다.
+	 */
+	private void fill() throws IOException {
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+		else if (limit == buf.length) {
+			buf = Arrays.copyOf(buf, buf.length << 1);
+		}
+		
+		ByteBuffer bb = ByteBuffer.wrap(buf, limit, buf.length - limit);
+		int n = channel.read(bb);
+		while (n == 0) {
+			n = channel.read(bb);
+		}
+		if (n < 0) {
+			eof = true;
+		}
+		else {
+			limit += n;
+		}
+	}
+	
+	/**
+	 * start 에서 시작하는 한 줄을 고정길이로 나눈다.
+	 * @return 다음 record 의 시작 위치, 줄이 버퍼 안에서 끝나지 않으면 -1
+	 */
+	private int scanFixed(int start) {
+		int lineEnd = start;
+		while (lineEnd < limit && buf[lineEnd] != LF) {
+			lineEnd++;
+		}
+		if (lineEnd == limit && !eof) {
+			return -1;
+		}
+		
+		int next = (lineEnd < limit)?lineEnd + 1:lineEnd;
+		if (lineEnd > start && buf[lineEnd - 1] == CR) {
+			lineEnd--;
+		}
+		
+		fieldCount = 0;
+		int begin = start;
+		for(int i=0;i<fieldLengths.length;i++) {
+			int end = Math.min(begin + fieldLengths[i], lineEnd);
+			addField(begin, end, false, false);
+			begin = end;
+		}
+		
+		return next;
+	}
+	
+	/**
+	 * start 에서 시작하는 record 를 구분자로 나눈다.
+	 * @return 다음 record 의 시작 위치, record 가 버퍼 안에서 끝나지 않으면 -1
+	 */
+	private int scanDelimited(int start) {
+		fieldCount = 0;
+		int i = start;
+		
+		while (true) {
+			if (quoted && i < limit && buf[i] == QUOTE) {
+				// 큰따옴표로 묶인 필드
+				int begin = i + 1;
+				int j = begin;
+				boolean escaped = false;
+				while (true) {
+					if (j >= limit) {
+						return -1;
+					}
+					if (buf[j] == QUOTE) {
+						if (j + 1 >= limit && !eof) {
+							return -1;
+						}
+						if (j + 1 < limit && buf[j + 1] == QUOTE) {
+							escaped = true;
+							j += 2;
+							continue;
+						}
+						break;
+					}
+					j++;
+				}
+				addField(begin, j, escaped, true);
+				
+				// 닫는 따옴표 뒤의 구분자 전까지의 문자는 무시한다.
+				i = j + 1;
+				while (i < limit && buf[i] != LF && !isDelimiter(i)) {
+					i++;
+				}
+			}
+			else {
+				int j = i;
+				while (j < limit && buf[j] != LF && !isDelimiter(j)) {
+					j++;
+				}
+				int end = j;
+				if ((j < limit || eof) && (j == limit || buf[j] == LF) && end > i && buf[end - 1] == CR) {
+					end--;
+				}
+				addField(i, end, false, false);
+				i = j;
+			}
+			
+			if (i >= limit) {
+				return eof?limit:-1;
+			}
+			if (buf[i] == LF) {
+				return i + 1;
+			}
+			
+			// 구분자
+			i += delimiter.length;
+		}
+	}
+	
+	private boolean isDelimiter(int i) {
+		if (buf[i] != delimiter[0]) {
+			return false;
+		}
+		if (i + delimiter.length > limit) {
+			return false;
+		}
+		for(int k=1;k<delimiter.length;k++) {
+			if (buf[i + k] != delimiter[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void addField(int start, int end, boolean escaped, boolean quotedField) {
+		if (fieldCount == fieldStarts.length) {
+			int size = fieldCount << 1;
+			fieldStarts = Arrays.copyOf(fieldStarts, size);
+			fieldEnds = Arrays.copyOf(fieldEnds, size);
+			fieldEscaped = Arrays.copyOf(fieldEscaped, size);
+			fieldQuoted = Arrays.copyOf(fieldQuoted, size);
+		}
+		fieldStarts[fieldCount] = start;
+		fieldEnds[fieldCount] = end;
+		fieldEscaped[fieldCount] = escaped;
+		fieldQuoted[fieldCount] = quotedField;
+		fieldCount++;
+	}
+	
+	/**
+	 * 현재 row 의 i 번째 필드 값을 문자열로 변환한다.
+	 */
+	private String field(int i) {
+		if (i >= fieldCount) {
+			return "";
+		}
+		
+		int start = fieldStarts[i];
+		int end = fieldEnds[i];
+		if (trim && !fieldQuoted[i]) {
+			while (start < end && (buf[start] == ' ' || buf[start] == '\t')) {
+				start++;
+			}
+			while (end > start && (buf[end - 1] == ' ' || buf[end - 1] == '\t')) {
+				end--;
+			}
+		}
+		if (start == end) {
+			return "";
+		}
+		
+		String value = new String(buf, start, end - start, charset);
+		if (fieldEscaped[i]) {
+			value = value.replace("\"\"", "\"");
+		}
+		
+		return value;
+	}
+	
+	private static ReadableByteChannel openChannel(File file) {
+		try {
+			return new FileInputStream(file).getChannel();
+		}
+		catch (FileNotFoundException ex) {
+			throw new ApplicationException("service.error.07002", file.getAbsolutePath(), ex); // 존재하지 않는 파일입니다. ({0})
+		}
+	}
+	
+	private static Charset toCharset(String charsetName) {
+		if (charsetName == null) {
+			return Charset.defaultCharset();
+		}
+		
+		try {
+			return Charset.forName(charsetName);
+		}
+		catch (UnsupportedCharsetException ex) {
+			throw new ApplicationException("service.error.07003", charsetName, ex); // {0}은 시스템이 지원하지 않는 인코딩 방식 입니다.
+		}
+	}
+}
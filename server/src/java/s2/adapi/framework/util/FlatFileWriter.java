@@ -0,0 +1,544 @@
+package s2.adapi.framework.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.UnsupportedCharsetException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import s2.adapi.framework.dao.JdbcCursor;
+import s2.adapi.framework.exception.ApplicationException;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * row 들을 구분자(CSV) 또는 고정길이 형식으로 OutputStream 에 기록하는 writer 이다.
+ * 파일 전체를 문자열로 만들지 않고 일정한 크기의 byte 버퍼에 인코딩하여 버퍼가 차면 바로 기록하므로
+ * 대량의 조회 결과도 일정한 메모리로 내려받을 수 있다. FlatFileReader 로 다시 읽을 수 있는 형식으로 기록한다.
+ * </p>
+ * <ul>
+ * <li> CSV 형식은 RFC-4180 을 따른다. 구분자, 큰따옴표, 줄바꿈이 포함되거나 앞뒤에 공백이 있는 필드는 큰따옴표로 묶고 
+ *      필드 안의 큰따옴표는 두번 쓴다. (FlatFileReader 는 묶이지 않은 필드의 앞뒤 공백을 제거한다.)
+ *      줄바꿈은 디폴트로 \r\n 이다.
+ * <li> 고정길이 형식의 필드 길이는 byte 수이다. 긴 값은 문자가 깨지지 않도록 문자 단위로 자르고 짧은 값은 뒤에 공백을 채운다.
+ * <li> 문자셋으로 표현할 수 없는 문자는 문자셋의 대체 문자(보통 ?)로 기록된다.
+ * <li> null 은 빈 값, BigDecimal 과 실수는 지수 표기 없이, Date 는 setDateFormat() 으로 지정한 형식으로 기록한다.
+ * <li> setGzip(true) 로 지정하면 gzip 으로 압축하여 기록한다.
+ * </ul>
+ * <pre>
+ *    JdbcCursor cursor = dao.openCursor("getOrders", paramVO, 1000);
+ *    FlatFileWriter writer = FlatFileWriter.openCsv(response.getOutputStream(), new String[] {"order_no","cust_nm","amt"}, "EUC-KR");
+ *    try {
+ *        writer.writeHeader(new String[] {"주문번호","고객명","금액"});
+ *        writer.writeAll(cursor);
+ *    }
+ *    finally {
+ *        writer.close();
+ *        cursor.close();
+ *    }
+ * </pre>
+ * @author kimhd
+ * @see FlatFileReader
+ */
+public class FlatFileWriter implements AutoCloseable {
+	
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	private static final int MIN_ENCODE_SPACE = 16;
+	private static final byte QUOTE = '"';
+	private static final byte SPACE = ' ';
+	
+	private OutputStream os;
+	private final Charset charset;
+	private final CharsetEncoder encoder;
+	private final String[] fieldKeys;
+	
+	/**
+	 * 구분자 형식의 구분자 (고정길이 형식이면 null)
+	 */
+	private final String delimiter;
+	private final byte[] delimiterBytes;
+	
+	/**
+	 * 고정길이 형식의 필드별 byte 수 (구분자 형식이면 null)
+	 */
+	private final int[] fieldLengths;
+	
+	/**
+	 * 필요 시 큰따옴표로 묶을지 여부 (CSV)
+	 */
+	private final boolean quoted;
+	
+	/**
+	 * ASCII 문자를 인코딩하지 않고 그대로 기록해도 되는 문자셋인지 여부
+	 */
+	private final boolean asciiCompatible;
+	
+	private byte[] lineSeparator;
+	private SimpleDateFormat dateFormat = null;
+	private boolean gzip = false;
+	
+	private final byte[] buf;
+	private final ByteBuffer byteBuffer;
+	private int pos = 0;
+	private boolean started = false;
+	
+	private long rowCount = 0;
+	private boolean closed = false;
+	
+	private FlatFileWriter(OutputStream os, String[] fieldKeys, String charsetName,
+			String delimiter, int[] fieldLengths, boolean quoted) {
+		if (fieldKeys == null || fieldKeys.length == 0) {
+			throw new IllegalArgumentException("field keys are not specified.");
+		}
+		if (delimiter != null && delimiter.length() == 0) {
+			throw new IllegalArgumentException("delimiter is empty.");
+		}
+		if (fieldLengths != null && fieldLengths.length != fieldKeys.length) {
+			throw new IllegalArgumentException("the number of field lengths must be " + fieldKeys.length + ".");
+		}
+		
+		this.os = os;
+		this.fieldKeys = fieldKeys;
+		this.charset = toCharset(charsetName);
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.delimiter = delimiter;
+		this.delimiterBytes = (delimiter == null)?null:delimiter.getBytes(charset);
+		this.fieldLengths = fieldLengths;
+		this.quoted = quoted;
+		this.asciiCompatible = isAsciiCompatible(charset);
+		this.lineSeparator = "\r\n".getBytes(charset);
+		this.buf = new byte[DEFAULT_BUFFER_SIZE];
+		this.byteBuffer = ByteBuffer.wrap(buf);
+	}
+	
+	/**
+	 * 구분자 형식으로 기록하는 writer 를 생성한다. 필드 값은 큰따옴표로 묶지 않고 그대로 기록한다.
+	 * @param os 기록할 스트림
+	 * @param fieldKeys 기록할 필드명 리스트 (기록 순서)
+	 * @param delimiter 필드 구분자
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 지원하지 않는 문자셋인 경우("service.error.07003")
+	 */
+	public static FlatFileWriter openDelimited(OutputStream os, String[] fieldKeys, String delimiter, String charset) {
+		return new FlatFileWriter(os, fieldKeys, charset, delimiter, null, false);
+	}
+	
+	/**
+	 * CSV 형식(RFC-4180)으로 기록하는 writer 를 생성한다.
+	 * @param os 기록할 스트림
+	 * @param fieldKeys 기록할 필드명 리스트 (기록 순서)
+	 * @param delimiter 필드 구분자 (보통 ",")
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 지원하지 않는 문자셋인 경우("service.error.07003")
+	 */
+	public static FlatFileWriter openCsv(OutputStream os, String[] fieldKeys, String delimiter, String charset) {
+		return new FlatFileWriter(os, fieldKeys, charset, delimiter, null, true);
+	}
+	
+	/**
+	 * 콤마(,)로 구분하는 CSV 형식으로 기록하는 writer 를 생성한다.
+	 * @param os 기록할 스트림
+	 * @param fieldKeys 기록할 필드명 리스트 (기록 순서)
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 지원하지 않는 문자셋인 경우("service.error.07003")
+	 */
+	public static FlatFileWriter openCsv(OutputStream os, String[] fieldKeys, String charset) {
+		return new FlatFileWriter(os, fieldKeys, charset, ",", null, true);
+	}
+	
+	/**
+	 * 고정길이 형식으로 기록하는 writer 를 생성한다.
+	 * @param os 기록할 스트림
+	 * @param fieldKeys 기록할 필드명 리스트 (기록 순서)
+	 * @param flength 필드별 byte 수
+	 * @param charset 문자셋
+	 * @return
+	 * @throws ApplicationException 지원하지 않는 문자셋인 경우("service.error.07003")
+	 */
+	public static FlatFileWriter openFixedWidth(OutputStream os, String[] fieldKeys, int[] flength, String charset) {
+		return new FlatFileWriter(os, fieldKeys, charset, null, flength, false);
+	}
+	
+	/**
+	 * gzip 으로 압축하여 기록할지 여부를 지정한다. 처음 기록하기 전에 지정하여야 한다.
+	 * @param gzip
+	 */
+	public void setGzip(boolean gzip) {
+		if (started) {
+			throw new IllegalStateException("gzip must be set before writing.");
+		}
+		this.gzip = gzip;
+	}
+	
+	/**
+	 * 줄바꿈 문자열을 지정한다. (디폴트 \r\n)
+	 * @param lineSeparator
+	 */
+	public void setLineSeparator(String lineSeparator) {
+		this.lineSeparator = lineSeparator.getBytes(charset);
+	}
+	
+	/**
+	 * Date 타입 값을 기록할 형식을 지정한다. 지정하지 않으면 String.valueOf() 로 기록한다.
+	 * @param pattern SimpleDateFormat 형식 (예: yyyy-MM-dd HH:mm:ss)
+	 */
+	public void setDateFormat(String pattern) {
+		this.dateFormat = (pattern == null)?null:new SimpleDateFormat(pattern);
+	}
+	
+	/**
+	 * 필드명 리스트를 헤더로 기록한다.
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public void writeHeader() {
+		writeHeader(fieldKeys);
+	}
+	
+	/**
+	 * 주어진 제목들을 헤더로 기록한다. 헤더는 row 수에 포함되지 않는다.
+	 * @param titles 필드 순서대로의 제목
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public void writeHeader(String[] titles) {
+		writeLine(titles);
+	}
+	
+	/**
+	 * row 하나를 기록한다.
+	 * @param row 필드명을 key 로 하는 row
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public void write(Map<String,Object> row) {
+		ensureOpen();
+		for(int i=0;i<fieldKeys.length;i++) {
+			writeField(i, row.get(fieldKeys[i]));
+		}
+		writeBytes(lineSeparator);
+		rowCount++;
+	}
+	
+	/**
+	 * 필드 값들을 순서대로 한 row 로 기록한다.
+	 * @param values 필드 순서대로의 값
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public void writeFields(Object... values) {
+		writeLine(values);
+		rowCount++;
+	}
+	
+	/**
+	 * ValueObject 의 모든 row 를 기록한다.
+	 * @param pVO
+	 * @return 기록한 row 수
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public int writeAll(ValueObject pVO) {
+		if (pVO == null) {
+			return 0;
+		}
+		
+		for(int i=0;i<pVO.size();i++) {
+			write(pVO.get(i));
+		}
+		
+		return pVO.size();
+	}
+	
+	/**
+	 * 커서의 남은 row 들을 모두 읽어서 기록한다. 커서는 닫지 않는다.
+	 * @param cursor
+	 * @return 기록한 row 수
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public long writeAll(JdbcCursor cursor) {
+		long count = 0;
+		Map<String,Object> row = null;
+		while((row = cursor.next()) != null) {
+			write(row);
+			count++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * 지금까지 기록한 row 수 (헤더 제외)
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * 버퍼에 남은 내용을 스트림에 기록한다.
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public void flush() {
+		ensureOpen();
+		try {
+			drain();
+			os.flush();
+		}
+		catch (IOException ex) {
+			throw new ApplicationException("service.error.07001", ex); // 파일 처리 중 오류가 발생하였습니다.
+		}
+	}
+	
+	/**
+	 * 버퍼에 남은 내용을 기록하고 스트림을 닫는다.
+	 * @throws ApplicationException 기록할때 에러가 발생한 경우("service.error.07001")
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		ensureOpen(); // 기록한 row 가 없어도 gzip 헤더는 기록한다.
+		
+		try {
+			drain();
+			os.close();
+		}
+		catch (IOException ex) {
+			throw new ApplicationException("service.error.07001", ex); // 파일 처리 중 오류가 발생하였습니다.
+		}
+		finally {
+			closed = true;
+		}
+	}
+	
+	private void writeLine(Object[] values) {
+		ensureOpen();
+		for(int i=0;i<fieldKeys.length;i++) {
+			writeField(i, (values != null && i < values.length)?values[i]:null);
+		}
+		writeBytes(lineSeparator);
+	}
+	
+	private void writeField(int idx, Object value) {
+		String str = toString(value);
+		
+		if (fieldLengths != null) {
+			int written = encode(str, fieldLengths[idx]);
+			for(int i=written;i<fieldLengths[idx];i++) {
+				putByte(SPACE);
+			}
+			return;
+		}
+		
+		if (idx > 0) {
+			writeBytes(delimiterBytes);
+		}
+		
+		if (quoted && needsQuote(str)) {
+			putByte(QUOTE);
+			int start = 0;
+			int qidx = 0;
+			while((qidx = str.indexOf('"', start)) >= 0) {
+				encode(str.substring(start, qidx + 1), -1);
+				putByte(QUOTE);
+				start = qidx + 1;
+			}
+			encode((start == 0)?str:str.substring(start), -1);
+			putByte(QUOTE);
+		}
+		else {
+			encode(str, -1);
+		}
+	}
+	
+	private boolean needsQuote(String str) {
+		if (delimiter.length() > 1 && str.indexOf(delimiter) >= 0) {
+			return true;
+		}
+		// 읽을 때 제거되지 않도록 앞뒤의 공백을 보존한다.
+		if (str.length() > 0 && (isBlank(str.charAt(0)) || isBlank(str.charAt(str.length() - 1)))) {
+			return true;
+		}
+		
+		char delim = delimiter.charAt(0);
+		for(int i=0;i<str.length();i++) {
+			char c = str.charAt(i);
+			if (c == delim || c == '"' || c == '\r' || c == '\n') {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private static boolean isBlank(char c) {
+		return (c == ' ' || c == '\t');
+	}
+	
+	private String toString(Object value) {
+		if (value == null) {
+			return "";
+		}
+		else if (value instanceof String) {
+			return (String)value;
+		}
+		else if (value instanceof BigDecimal) {
+			return ((BigDecimal)value).toPlainString();
+		}
+		else if (value instanceof Double || value instanceof Float) {
+			double d = ((Number)value).doubleValue();
+			if (Double.isNaN(d) || Double.isInfinite(d)) {
+				return String.valueOf(d);
+			}
+			return BigDecimal.valueOf(d).toPlainString();
+		}
+		else if (value instanceof Date && dateFormat != null) {
+			return dateFormat.format((Date)value);
+		}
+		else {
+			return String.valueOf(value);
+		}
+	}
+	
+	/**
+	 * 문자열을 인코딩하여 버퍼에 넣는다. ASCII 문자는 인코딩하지 않고 그대로 넣는다.
+	 * @param str 문자열
+	 * @param max 최대 byte 수 (-1 이면 제한 없음), 초과하는 문자는 버린다.
+	 * @return 버퍼에 넣은 byte 수
+	 */
+	private int encode(String str, int max) {
+		int len = str.length();
+		int written = 0;
+		int i = 0;
+		
+		if (asciiCompatible) {
+			for(;i<len;i++) {
+				char c = str.charAt(i);
+				if (c >= 0x80) {
+					break;
+				}
+				if (max >= 0 && written >= max) {
+					return written;
+				}
+				if (pos == buf.length) {
+					drain();
+				}
+				buf[pos++] = (byte)c;
+				written++;
+			}
+		}
+		
+		if (i == len) {
+			return written;
+		}
+		
+		CharBuffer in = CharBuffer.wrap(str, i, len);
+		encoder.reset();
+		boolean flushing = false;
+		while(true) {
+			if (buf.length - pos < MIN_ENCODE_SPACE) {
+				drain();
+			}
+			
+			int room = buf.length - pos;
+			if (max >= 0) {
+				room = Math.min(room, max - written);
+			}
+			byteBuffer.limit(pos + room);
+			byteBuffer.position(pos);
+			
+			CoderResult result = flushing?encoder.flush(byteBuffer):encoder.encode(in, byteBuffer, true);
+			written += byteBuffer.position() - pos;
+			pos = byteBuffer.position();
+			
+			if (result.isOverflow()) {
+				if (max >= 0 && (written >= max || buf.length - pos >= MIN_ENCODE_SPACE)) {
+					break; // 최대 길이에 도달함, 남은 문자는 버린다.
+				}
+				continue;
+			}
+			if (flushing) {
+				break;
+			}
+			flushing = true;
+		}
+		
+		return written;
+	}
+	
+	private void putByte(byte b) {
+		if (pos == buf.length) {
+			drain();
+		}
+		buf[pos++] = b;
+	}
+	
+	private void writeBytes(byte[] bytes) {
+		if (buf.length - pos < bytes.length) {
+			drain();
+		}
+		System.arraycopy(bytes, 0, buf, pos, bytes.length);
+		pos += bytes.length;
+	}
+	
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("writer is already closed.");
+		}
+		if (!started) {
+			started = true;
+			if (gzip) {
+				try {
+					os = new GZIPOutputStream(os, DEFAULT_BUFFER_SIZE);
+				}
+				catch (IOException ex) {
+					throw new ApplicationException("service.error.07001", ex); // 파일 처리 중 오류가 발생하였습니다.
+				}
+			}
+		}
+	}
+	
+	// 버퍼의 내용을 스트림에 기록한다.
+	private void drain() {
+		if (pos == 0) {
+			return;
+		}
+		
+		try {
+			os.write(buf, 0, pos);
+			pos = 0;
+		}
+		catch (IOException ex) {
+			throw new ApplicationException("service.error.07001", ex); // 파일 처리 중 오류가 발생하였습니다.
+		}
+	}
+	
+	// ASCII 문자들이 1 byte 로 그대로 인코딩되는 문자셋인지 확인한다.
+	private static boolean isAsciiCompatible(Charset charset) {
+		String ascii = "\t\r\n \"',;|09AZaz~";
+		return Arrays.equals(ascii.getBytes(charset), ascii.getBytes(Charset.forName("US-ASCII")));
+	}
+	
+	private static Charset toCharset(String charsetName) {
+		if (charsetName == null) {
+			return Charset.defaultCharset();
+		}
+		
+		try {
+			return Charset.forName(charsetName);
+		}
+		catch (UnsupportedCharsetException ex) {
+			throw new ApplicationException("service.error.07003", charsetName, ex); // {0}은 시스템이 지원하지 않는 인코딩 방식 입니다.
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package s2.adapi.framework.util;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * ValueObject 의 row 들을 하나 이상의 컬럼 값으로 찾기 위한 hash 인덱스이다. ValueObjectUtil.index() 로 생성한다.
+ * 인덱스를 한번 생성하면 select() 나 search() 처럼 모든 row 를 비교하지 않고 O(1) 로 찾을 수 있다.
+ * </p>
+ * <p>
+ * 컬럼 값은 ValueObject.getString() 과 같은 규칙으로 문자열로 변환하여 비교하므로
+ * Integer 1, Long 1, 문자열 "1" 은 같은 값으로 찾아진다. 인덱스 생성 후에 ValueObject 를 변경하면 인덱스에 반영되지 않는다.
+ * </p>
+ * <pre>
+ *    ValueObjectIndex deptIndex = ValueObjectUtil.index(deptVO, "dept_cd");
+ *    for(int i=0;i&lt;empVO.size();i++) {
+ *        Map&lt;String,Object&gt; dept = deptIndex.getFirst(empVO.get(i, "dept_cd"));
+ *        ...
+ *    }
+ * </pre>
+ * @author kimhd
+ */
+public class ValueObjectIndex {
+	
+	private final String[] columns;
+	private final Map<Object,List<Map<String,Object>>> rowMap;
+	
+	ValueObjectIndex(ValueObject vo, String[] columns) {
+		if (columns == null || columns.length == 0) {
+			throw new IllegalArgumentException("index columns are not specified.");
+		}
+		
+		this.columns = columns;
+		this.rowMap = new HashMap<Object,List<Map<String,Object>>>((int)(vo.size() / 0.75f) + 1);
+		
+		for(int i=0;i<vo.size();i++) {
+			Map<String,Object> row = vo.get(i);
+			Object key = keyOf(row, columns);
+			
+			List<Map<String,Object>> rows = rowMap.get(key);
+			if (rows == null) {
+				rows = new ArrayList<Map<String,Object>>(1);
+				rowMap.put(key, rows);
+			}
+			rows.add(row);
+		}
+	}
+	
+	/**
+	 * 인덱스 컬럼명들
+	 */
+	public String[] getColumns() {
+		return columns.clone();
+	}
+	
+	/**
+	 * 서로 다른 key 값의 수
+	 */
+	public int size() {
+		return rowMap.size();
+	}
+	
+	/**
+	 * 인덱스 컬럼 값들이 주어진 값과 같은 row 들을 원래 순서대로 반환한다. 없으면 빈 List 를 반환한다.
+	 * @param values 인덱스 컬럼 순서대로의 값
+	 * @return
+	 */
+	public List<Map<String,Object>> get(Object... values) {
+		List<Map<String,Object>> rows = rowMap.get(keyOf(values));
+		if (rows == null) {
+			return Collections.emptyList();
+		}
+		
+		return Collections.unmodifiableList(rows);
+	}
+	
+	/**
+	 * 인덱스 컬럼 값들이 주어진 값과 같은 첫번째 row 를 반환한다. 없으면 null 을 반환한다.
+	 * @param values 인덱스 컬럼 순서대로의 값
+	 * @return
+	 */
+	public Map<String,Object> getFirst(Object... values) {
+		List<Map<String,Object>> rows = rowMap.get(keyOf(values));
+		
+		return (rows == null)?null:rows.get(0);
+	}
+	
+	/**
+	 * 인덱스 컬럼 값들이 주어진 값과 같은 row 가 있는지 여부
+	 * @param values 인덱스 컬럼 순서대로의 값
+	 * @return
+	 */
+	public boolean contains(Object... values) {
+		return rowMap.containsKey(keyOf(values));
+	}
+	
+	/**
+	 * 다른 row 의 같은 컬럼 값으로 row 들을 찾는다.
+	 * @param row 찾을 값들을 담은 row
+	 * @param keyColumns row 에서 값을 가져올 컬럼명들 (인덱스 컬럼 순서)
+	 * @return
+	 */
+	List<Map<String,Object>> getByRow(Map<String,Object> row, String[] keyColumns) {
+		return rowMap.get(keyOf(row, keyColumns));
+	}
+	
+	private Object keyOf(Object[] values) {
+		if (values == null || values.length != columns.length) {
+			throw new IllegalArgumentException("the number of values must be " + columns.length + ".");
+		}
+		
+		if (values.length == 1) {
+			return normalize(values[0]);
+		}
+		
+		Object[] key = new Object[values.length];
+		for(int i=0;i<values.length;i++) {
+			key[i] = normalize(values[i]);
+		}
+		
+		return Arrays.asList(key);
+	}
+	
+	/**
+	 * row 의 컬럼 값들로 hash key 를 생성한다. 컬럼이 하나이면 컬럼 값, 여러개이면 List 를 사용한다.
+	 */
+	static Object keyOf(Map<String,Object> row, String[] columns) {
+		if (columns.length == 1) {
+			return normalize(row.get(columns[0]));
+		}
+		
+		Object[] key = new Object[columns.length];
+		for(int i=0;i<columns.length;i++) {
+			key[i] = normalize(row.get(columns[i]));
+		}
+		
+		return Arrays.asList(key);
+	}
+	
+	/**
+	 * key 에 null 값이 포함되어 있는지 여부
+	 */
+	static boolean hasNull(Object key) {
+		if (key == null) {
+			return true;
+		}
+		if (key instanceof List) {
+			return ((List<?>)key).contains(null);
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * ValueObject.getString() 과 같은 규칙으로 값을 문자열로 변환한다.
+	 */
+	static String normalize(Object obj) {
+		if (obj == null) {
+			return null;
+		}
+		else if (obj instanceof String) {
+			return (String)obj;
+		}
+		else if (obj instanceof Double || obj instanceof Float) {
+			return BigDecimal.valueOf(((Number)obj).doubleValue()).toString();
+		}
+		else if (obj instanceof Long || obj instanceof Integer) {
+			return Long.toString(((Number)obj).longValue());
+		}
+		else {
+			return String.valueOf(obj);
+		}
+	}
+}
@@ -0,0 +1,372 @@
+package s2.adapi.framework.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * ValueObjectUtil.sort() 와 ValueObjectUtil.orderBy() 에서 사용하는 정렬 구현이다.
+ * 정렬 전에 각 정렬 컬럼의 값들을 컬럼 타입에 맞는 배열(long, double, BigDecimal, 문자열 등)로 한번만 추출해 놓고
+ * row 의 인덱스를 정렬하므로 비교할 때마다 값을 변환하거나 객체를 생성하지 않는다.
+ * </p>
+ * <p>
+ * 컬럼 타입은 컬럼의 null 이 아닌 값들로 결정한다.
+ * 모든 값이 정수형이면 long, 실수형이 섞여 있으면 double, BigDecimal 이 섞여 있으면 BigDecimal 로 비교하며
+ * java.util.Date 는 시각(ms)으로 비교한다. 모든 값이 같은 Comparable 클래스이면 compareTo() 로 비교하고
+ * 그 외에는 String.valueOf() 의 문자열로 비교한다.
+ * </p>
+ * <p>
+ * 정렬은 안정(stable) 정렬이며 row 수가 s2adapi.vo.sort.parallel.threshold 이상이면 Arrays.parallelSort() 를 사용한다.
+ * </p>
+ * @author 김형도
+ */
+final class ValueObjectSorter {
+	
+	/**
+	 * 병렬 정렬을 사용할 최소 row 수 설정 키
+	 */
+	static final String PARALLEL_THRESHOLD_KEY = "s2adapi.vo.sort.parallel.threshold";
+	
+	private static int parallelThreshold = 10000;
+	static {
+		try {
+			parallelThreshold = ConfiguratorFactory.getConfigurator().getInt(PARALLEL_THRESHOLD_KEY, 10000);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private static final int TYPE_LONG = 1;
+	private static final int TYPE_DOUBLE = 2;
+	private static final int TYPE_DECIMAL = 3;
+	private static final int TYPE_OBJECT = 4;
+	private static final int TYPE_STRING = 5;
+	
+	private ValueObjectSorter() {
+	}
+	
+	/**
+	 * 정렬 지정 문자열들로 ValueObject 를 정렬한다.
+	 * @param pVO 정렬할 VO 객체
+	 * @param orderBy "컬럼명 [asc|desc] [nulls first|nulls last]" 형태의 정렬 지정 문자열들
+	 */
+	static void sort(ValueObject pVO, String[] orderBy) {
+		if (orderBy == null || orderBy.length == 0) {
+			throw new IllegalArgumentException("sort columns are not specified.");
+		}
+		
+		String[] cols = new String[orderBy.length];
+		boolean[] asc = new boolean[orderBy.length];
+		boolean[] nullsFirst = new boolean[orderBy.length];
+		for(int i=0;i<orderBy.length;i++) {
+			parseOrderBy(orderBy[i], i, cols, asc, nullsFirst);
+		}
+		
+		sort(pVO, cols, asc, nullsFirst);
+	}
+	
+	/**
+	 * ValueObject 를 정렬한다. null 값의 위치는 nullsFirst 로 지정한다.
+	 * @param pVO 정렬할 VO 객체
+	 * @param cols 정렬 컬럼명들
+	 * @param asc 컬럼별 오름차순 여부
+	 * @param nullsFirst 컬럼별 null 값을 앞에 둘지 여부
+	 */
+	static void sort(ValueObject pVO, String[] cols, boolean[] asc, boolean[] nullsFirst) {
+		if (pVO == null || pVO.size() < 2) {
+			return;
+		}
+		
+		int size = pVO.size();
+		@SuppressWarnings("unchecked")
+		Map<String,Object>[] rows = (Map<String,Object>[])pVO.toArray(new Map<?,?>[size]);
+		
+		final SortKey[] keys = new SortKey[cols.length];
+		for(int i=0;i<cols.length;i++) {
+			keys[i] = new SortKey(rows, cols[i], asc[i], nullsFirst[i]);
+		}
+		
+		Integer[] index = new Integer[size];
+		for(int i=0;i<size;i++) {
+			index[i] = Integer.valueOf(i);
+		}
+		
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				int i1 = o1.intValue();
+				int i2 = o2.intValue();
+				for(int k=0;k<keys.length;k++) {
+					int comp = keys[k].compare(i1, i2);
+					if (comp != 0) {
+						return comp;
+					}
+				}
+				return 0;
+			}
+		};
+		
+		if (size >= parallelThreshold) {
+			Arrays.parallelSort(index, comparator);
+		}
+		else {
+			Arrays.sort(index, comparator);
+		}
+		
+		for(int i=0;i<size;i++) {
+			pVO.set(i, rows[index[i].intValue()]);
+		}
+	}
+	
+	// "컬럼명 [asc|desc] [nulls first|nulls last]" 형태의 문자열을 분리한다.
+	private static void parseOrderBy(String spec, int idx, String[] cols, boolean[] asc, boolean[] nullsFirst) {
+		if (StringHelper.isNull(spec)) {
+			throw new IllegalArgumentException("sort column is not specified.");
+		}
+		
+		String[] tokens = spec.trim().split("\\s+");
+		int pos = 0;
+		cols[idx] = tokens[pos++];
+		asc[idx] = true;
+		
+		if (pos < tokens.length && ("asc".equalsIgnoreCase(tokens[pos]) || "desc".equalsIgnoreCase(tokens[pos]))) {
+			asc[idx] = "asc".equalsIgnoreCase(tokens[pos++]);
+		}
+		
+		// 디폴트는 null 을 가장 작은 값으로 취급한다.
+		nullsFirst[idx] = asc[idx];
+		if (pos + 1 < tokens.length && "nulls".equalsIgnoreCase(tokens[pos])) {
+			if ("first".equalsIgnoreCase(tokens[pos + 1])) {
+				nullsFirst[idx] = true;
+			}
+			else if ("last".equalsIgnoreCase(tokens[pos + 1])) {
+				nullsFirst[idx] = false;
+			}
+			else {
+				throw new IllegalArgumentException("invalid sort specification [" + spec + "]");
+			}
+			pos += 2;
+		}
+		
+		if (pos != tokens.length) {
+			throw new IllegalArgumentException("invalid sort specification [" + spec + "]");
+		}
+	}
+	
+	/**
+	 * 정렬 컬럼 하나의 값들을 타입별 배열로 추출해 놓은 것
+	 */
+	private static class SortKey {
+		private final int type;
+		private final boolean[] nulls;
+		private final int direction;
+		private final int nullOrder;
+		private long[] longs = null;
+		private double[] doubles = null;
+		private Object[] objects = null;
+		
+		SortKey(Map<String,Object>[] rows, String col, boolean asc, boolean nullsFirst) {
+			direction = asc?1:-1;
+			nullOrder = nullsFirst?-1:1;
+			nulls = new boolean[rows.length];
+			
+			Object[] values = new Object[rows.length];
+			for(int i=0;i<rows.length;i++) {
+				values[i] = rows[i].get(col);
+				nulls[i] = (values[i] == null);
+			}
+			
+			int valueType = typeOf(values);
+			if (valueType == TYPE_DECIMAL) {
+				longs = toScaledLongs(values);
+				if (longs != null) {
+					valueType = TYPE_LONG;
+				}
+			}
+			
+			type = valueType;
+			switch(type) {
+			case TYPE_LONG:
+				if (longs != null) {
+					break; // 이미 변환됨
+				}
+				longs = new long[values.length];
+				for(int i=0;i<values.length;i++) {
+					if (values[i] instanceof Date) {
+						longs[i] = ((Date)values[i]).getTime();
+					}
+					else if (values[i] != null) {
+						longs[i] = ((Number)values[i]).longValue();
+					}
+				}
+				break;
+			case TYPE_DOUBLE:
+				doubles = new double[values.length];
+				for(int i=0;i<values.length;i++) {
+					if (values[i] != null) {
+						doubles[i] = ((Number)values[i]).doubleValue();
+					}
+				}
+				break;
+			case TYPE_DECIMAL:
+				objects = values;
+				for(int i=0;i<values.length;i++) {
+					if (values[i] != null) {
+						objects[i] = toBigDecimal((Number)values[i]);
+					}
+				}
+				break;
+			case TYPE_STRING:
+				objects = values;
+				for(int i=0;i<values.length;i++) {
+					if (values[i] != null) {
+						objects[i] = String.valueOf(values[i]);
+					}
+				}
+				break;
+			default:
+				objects = values;
+			}
+		}
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		int compare(int i1, int i2) {
+			if (nulls[i1] || nulls[i2]) {
+				if (nulls[i1] && nulls[i2]) {
+					return 0;
+				}
+				return nulls[i1]?nullOrder:-nullOrder;
+			}
+			
+			int comp;
+			switch(type) {
+			case TYPE_LONG:
+				comp = Long.compare(longs[i1], longs[i2]);
+				break;
+			case TYPE_DOUBLE:
+				comp = Double.compare(doubles[i1], doubles[i2]);
+				break;
+			default:
+				comp = ((Comparable)objects[i1]).compareTo(objects[i2]);
+			}
+			
+			return comp * direction;
+		}
+		
+		// 컬럼의 null 이 아닌 값들로 비교할 타입을 결정한다.
+		private static int typeOf(Object[] values) {
+			boolean integral = true;
+			boolean number = true;
+			boolean decimal = false;
+			boolean date = true;
+			Class<?> clazz = null;
+			boolean sameClass = true;
+			
+			for(int i=0;i<values.length;i++) {
+				Object value = values[i];
+				if (value == null) {
+					continue;
+				}
+				
+				if (clazz == null) {
+					clazz = value.getClass();
+				}
+				else if (clazz != value.getClass()) {
+					sameClass = false;
+				}
+				
+				if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+					date = false;
+				}
+				else if (value instanceof Double || value instanceof Float) {
+					integral = false;
+					date = false;
+				}
+				else if (value instanceof BigDecimal || value instanceof BigInteger) {
+					integral = false;
+					decimal = true;
+					date = false;
+				}
+				else if (value instanceof Date) {
+					integral = false;
+					number = false;
+				}
+				else {
+					integral = false;
+					number = false;
+					date = false;
+				}
+			}
+			
+			if (clazz == null) {
+				return TYPE_STRING; // 모두 null
+			}
+			if (number) {
+				return integral?TYPE_LONG:(decimal?TYPE_DECIMAL:TYPE_DOUBLE);
+			}
+			if (date) {
+				return TYPE_LONG;
+			}
+			if (sameClass && Comparable.class.isAssignableFrom(clazz)) {
+				return TYPE_OBJECT;
+			}
+			
+			return TYPE_STRING;
+		}
+		
+		/**
+		 * DB 의 NUMBER 컬럼처럼 소수점 자리수가 정해진 숫자들은 같은 자리수로 맞춘 정수(long)로 변환하여 비교한다.
+		 * long 범위를 벗어나는 값이 있으면 null 을 반환한다.
+		 */
+		private static long[] toScaledLongs(Object[] values) {
+			int scale = 0;
+			for(int i=0;i<values.length;i++) {
+				if (values[i] instanceof BigDecimal) {
+					scale = Math.max(scale, ((BigDecimal)values[i]).scale());
+				}
+				else if (values[i] instanceof Double || values[i] instanceof Float) {
+					return null;
+				}
+			}
+			if (scale > 18) {
+				return null;
+			}
+			
+			long[] scaled = new long[values.length];
+			try {
+				for(int i=0;i<values.length;i++) {
+					if (values[i] != null) {
+						scaled[i] = toBigDecimal((Number)values[i]).setScale(scale).longValueExact();
+					}
+				}
+			}
+			catch (ArithmeticException e) {
+				return null;
+			}
+			
+			return scaled;
+		}
+		
+		private static BigDecimal toBigDecimal(Number value) {
+			if (value instanceof BigDecimal) {
+				return (BigDecimal)value;
+			}
+			else if (value instanceof BigInteger) {
+				return new BigDecimal((BigInteger)value);
+			}
+			else if (value instanceof Double || value instanceof Float) {
+				return BigDecimal.valueOf(value.doubleValue());
+			}
+			else {
+				return BigDecimal.valueOf(value.longValue());
+			}
+		}
+	}
+}
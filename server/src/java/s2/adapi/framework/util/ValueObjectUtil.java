@@ -10,13 +10,15 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import s2.adapi.framework.exception.ApplicationException;
 import s2.adapi.framework.vo.ValueObject;
@@ -267,6 +269,7 @@ public class ValueObjectUtil {
 	 * 주어진 Reader에서 문자열을 읽어 들여 필드 구분자로 잘라내어 ValueObject 객체를 생성한다. 필드 구분자와
 	 * ValueObject을 작성할 때 사용하는 Key는 파라메터로 입력된다. 하나의 문자열 라인의 필드 수가 파라메터로 전달된 필드명
 	 * 수보다 많을 경우 남는 필드 데이터는 무시된다. 반대로 필드명의 수가 많을 경우 모자라는 필드 값들은 공백 문자열로 처리된다.
+	 * 필드 구분자는 정규식으로 처리된다. 대용량 파일은 한 row 씩 읽어서 처리하는 {@link FlatFileReader} 를 사용한다.
 	 * </p>
 	 * 
 	 * @param input 문자열을 읽어들일 Reader
@@ -287,6 +290,9 @@ public class ValueObjectUtil {
 			br = new BufferedReader(input);
 		}
 		
+		// 구분자 정규식은 한번만 컴파일한다.
+		Pattern tokenPattern = Pattern.compile(token);
+		
 		boolean loop = true;
 		int lineCount = 0;
 		try {
@@ -294,7 +300,7 @@ public class ValueObjectUtil {
 				oneLine = br.readLine();
 
 				if (oneLine != null) {
-					String[] strs = oneLine.split(token);
+					String[] strs = tokenPattern.split(oneLine);
 					retVO.add(parseStringArrayToValueRow(strs, fieldKeys));
 					lineCount++;
 				} else {
@@ -794,12 +800,12 @@ public class ValueObjectUtil {
 	/**
 	 * 주어진 ValueObject를 오름차순으로 정렬한다. 
 	 * 정렬할 때 기준으로 사용할 컬럼명을 두번째 파라메터로 전달한다.
+	 * 컬럼 값들이 모두 숫자 또는 날짜이면 값의 크기로 비교하고 그 외에는 문자열로 비교하며, null 값은 가장 작은 값으로 취급한다.
 	 * @param pVO
 	 * @param sortField 정렬 기준 컬럼 명
 	 */
 	public static void sort(ValueObject pVO, String sortField) {
-		MapComparator comparator = new MapComparator(sortField);
-		Collections.sort(pVO, comparator);
+		ValueObjectSorter.sort(pVO, new String[] {sortField}, new boolean[] {true}, new boolean[] {true});
 	}
 	
 	/**
@@ -810,8 +816,7 @@ public class ValueObjectUtil {
 	 * @param asc true면 오름차순, false면 내림차순으로 정렬
 	 */
 	public static void sort(ValueObject pVO, String sortField, boolean asc) {
-		MapComparator comparator = new MapComparator(sortField,asc);
-		Collections.sort(pVO, comparator);
+		ValueObjectSorter.sort(pVO, new String[] {sortField}, new boolean[] {asc}, new boolean[] {asc});
 	}
 	
 	/**
@@ -823,8 +828,7 @@ public class ValueObjectUtil {
 	 * @throws java.lang.ClassCastException 비교 대상이 되는 값들의 클래스가 서로 변환이 불가능한경우
 	 */
 	public static void sort(ValueObject pVO, String sortField1, String sortField2) {
-		MapComparator comparator = new MapComparator(sortField1,sortField2);
-		Collections.sort(pVO, comparator);
+		ValueObjectSorter.sort(pVO, new String[] {sortField1, sortField2}, new boolean[] {true, true}, new boolean[] {true, true});
 	}
 	
 	/**
@@ -837,8 +841,27 @@ public class ValueObjectUtil {
 	 * @throws java.lang.ClassCastException 비교 대상이 되는 값들의 클래스가 서로 변환이 불가능한경우
 	 */
 	public static void sort(ValueObject pVO, String sortField1, String sortField2, boolean asc) {
-		MapComparator comparator = new MapComparator(sortField1,sortField2, asc);
-		Collections.sort(pVO, comparator);
+		ValueObjectSorter.sort(pVO, new String[] {sortField1, sortField2}, new boolean[] {asc, asc}, new boolean[] {asc, asc});
+	}
+	
+	/**
+	 * <p>
+	 * 주어진 ValueObject를 SQL 의 ORDER BY 와 같이 여러 컬럼으로 정렬한다.
+	 * 정렬 컬럼은 "컬럼명 [asc|desc] [nulls first|nulls last]" 형태로 지정하며
+	 * null 값의 위치를 지정하지 않으면 null 값은 가장 작은 값으로 취급한다.
+	 * </p>
+	 * <p>
+	 * 정렬 전에 컬럼 값들을 타입별로 한번만 추출해 놓고 비교하므로 비교할 때 값을 변환하지 않으며,
+	 * row 수가 많으면 병렬로 정렬한다. 정렬은 안정(stable) 정렬이다.
+	 * </p>
+	 * <pre>
+	 *    ValueObjectUtil.orderBy(empVO, "dept_cd", "sal desc nulls last", "emp_nm");
+	 * </pre>
+	 * @param pVO 정렬할 VO 객체
+	 * @param orderBy 정렬 컬럼 지정 문자열들
+	 */
+	public static void orderBy(ValueObject pVO, String... orderBy) {
+		ValueObjectSorter.sort(pVO, orderBy);
 	}
 	
 	/**
@@ -887,6 +910,239 @@ public class ValueObjectUtil {
 		return -1;
 	}
 	
+	/**
+	 * <p>
+	 * 주어진 컬럼들의 값으로 ValueObject 의 row 를 찾기 위한 hash 인덱스를 생성한다.
+	 * 같은 ValueObject 에서 select() 나 search() 를 반복 호출하는 경우 인덱스를 한번 생성한 후 사용하면
+	 * 매번 전체 row 를 비교하지 않아도 된다.
+	 * </p>
+	 * @param pVO 인덱스를 생성할 VO 객체
+	 * @param cols 인덱스 컬럼명들
+	 * @return
+	 * @see ValueObjectIndex
+	 */
+	public static ValueObjectIndex index(ValueObject pVO, String... cols) {
+		return new ValueObjectIndex((pVO == null)?new ValueObject():pVO, cols);
+	}
+	
+	/**
+	 * <p>
+	 * 두 ValueObject 를 주어진 컬럼들의 값이 같은 row 끼리 결합(inner join)한다.
+	 * right 로 hash 인덱스를 생성한 후 left 의 row 들을 한번씩만 읽어서 결합하므로 두 VO 의 크기에 비례하는 시간이 걸린다.
+	 * </p>
+	 * <p>
+	 * 결합된 row 는 left row 를 복사한 후 right row 의 컬럼 중 left 에 없는 컬럼을 추가하여 생성하며 결과는 left 의 순서를 따른다.
+	 * 컬럼 값은 ValueObject.getString() 의 값으로 비교하며, 컬럼 값이 null 인 row 는 결합되지 않는다.
+	 * </p>
+	 * @param left 기준이 되는 VO 객체
+	 * @param right 결합할 VO 객체
+	 * @param cols 결합 기준 컬럼명들
+	 * @return 결합된 row 들을 담은 ValueObject
+	 */
+	public static ValueObject join(ValueObject left, ValueObject right, String... cols) {
+		return join(left, right, cols, false);
+	}
+	
+	/**
+	 * <p>
+	 * 두 ValueObject 를 주어진 컬럼들의 값이 같은 row 끼리 결합(left outer join)한다.
+	 * join() 과 같으나 right 에 결합할 row 가 없는 left row 도 결과에 그대로 포함된다.
+	 * </p>
+	 * @param left 기준이 되는 VO 객체
+	 * @param right 결합할 VO 객체
+	 * @param cols 결합 기준 컬럼명들
+	 * @return 결합된 row 들을 담은 ValueObject
+	 */
+	public static ValueObject leftJoin(ValueObject left, ValueObject right, String... cols) {
+		return join(left, right, cols, true);
+	}
+	
+	private static ValueObject join(ValueObject left, ValueObject right, String[] cols, boolean outer) {
+		ValueObject retVO = new ValueObject();
+		if (left == null || left.size() == 0) {
+			return retVO;
+		}
+		
+		ValueObjectIndex rightIndex = index(right, cols);
+		for(int i=0;i<left.size();i++) {
+			Map<String,Object> leftRow = left.get(i);
+			List<Map<String,Object>> rightRows = null;
+			if (!ValueObjectIndex.hasNull(ValueObjectIndex.keyOf(leftRow, cols))) {
+				rightRows = rightIndex.getByRow(leftRow, cols);
+			}
+			
+			if (rightRows == null) {
+				if (outer) {
+					retVO.add(new HashMap<String,Object>(leftRow));
+				}
+				continue;
+			}
+			
+			for(Map<String,Object> rightRow : rightRows) {
+				Map<String,Object> row = new HashMap<String,Object>(leftRow);
+				for(Map.Entry<String,Object> entry : rightRow.entrySet()) {
+					if (!row.containsKey(entry.getKey())) {
+						row.put(entry.getKey(), entry.getValue());
+					}
+				}
+				retVO.add(row);
+			}
+		}
+		
+		return retVO;
+	}
+	
+	/**
+	 * <p>
+	 * ValueObject 의 row 들을 주어진 컬럼들의 값으로 그룹핑하고 그룹별 집계 값을 계산한다.
+	 * 결과 row 에는 그룹 컬럼들과 집계 컬럼들이 담기며 그룹이 처음 나타난 순서대로 담긴다.
+	 * 그룹 컬럼 값은 ValueObject.getString() 의 값으로 비교하며 null 값도 하나의 그룹이 된다.
+	 * </p>
+	 * <p>
+	 * 집계는 "함수:컬럼:결과컬럼명" 형태로 지정하며 결과컬럼명을 생략하면 "함수_컬럼" 이 된다. (count 는 "count")
+	 * </p>
+	 * <ul>
+	 * <li>count - 그룹의 row 수, 컬럼을 지정하면 컬럼 값이 null 이 아닌 row 수</li>
+	 * <li>sum - 컬럼 값의 합계 (BigDecimal), null 값과 빈 문자열은 제외</li>
+	 * <li>min, max - 컬럼의 최소, 최대 값, 숫자는 숫자로 그 외는 문자열로 비교</li>
+	 * </ul>
+	 * <pre>
+	 *    ValueObject sumVO = ValueObjectUtil.groupBy(empVO, new String[]{"dept_cd"}, "count", "sum:sal", "max:sal:max_sal");
+	 * </pre>
+	 * @param pVO 그룹핑할 VO 객체
+	 * @param groupCols 그룹 컬럼명들
+	 * @param aggregates 집계 지정 문자열들
+	 * @return 그룹별 집계 결과를 담은 ValueObject
+	 */
+	public static ValueObject groupBy(ValueObject pVO, String[] groupCols, String... aggregates) {
+		if (groupCols == null || groupCols.length == 0) {
+			throw new IllegalArgumentException("group columns are not specified.");
+		}
+		
+		String[][] aggs = new String[(aggregates == null)?0:aggregates.length][];
+		for(int i=0;i<aggs.length;i++) {
+			aggs[i] = parseAggregate(aggregates[i]);
+		}
+		
+		ValueObject retVO = new ValueObject();
+		if (pVO == null || pVO.size() == 0) {
+			return retVO;
+		}
+		
+		Map<Object,Object[]> groups = new LinkedHashMap<Object,Object[]>();
+		for(int i=0;i<pVO.size();i++) {
+			Map<String,Object> row = pVO.get(i);
+			Object key = ValueObjectIndex.keyOf(row, groupCols);
+			
+			Object[] values = groups.get(key);
+			if (values == null) {
+				values = new Object[aggs.length + 1];
+				Map<String,Object> groupRow = new HashMap<String,Object>();
+				for(int j=0;j<groupCols.length;j++) {
+					groupRow.put(groupCols[j], row.get(groupCols[j]));
+				}
+				values[aggs.length] = groupRow;
+				groups.put(key, values);
+			}
+			
+			for(int j=0;j<aggs.length;j++) {
+				values[j] = aggregate(aggs[j][0], values[j], (aggs[j][1] == null)?null:row.get(aggs[j][1]), aggs[j][1] == null);
+			}
+		}
+		
+		for(Object[] values : groups.values()) {
+			@SuppressWarnings("unchecked")
+			Map<String,Object> groupRow = (Map<String,Object>)values[aggs.length];
+			for(int j=0;j<aggs.length;j++) {
+				Object value = values[j];
+				if (value == null && "count".equals(aggs[j][0])) {
+					value = Long.valueOf(0L);
+				}
+				groupRow.put(aggs[j][2], value);
+			}
+			retVO.add(groupRow);
+		}
+		
+		return retVO;
+	}
+	
+	// "함수:컬럼:결과컬럼명" 형태의 집계 지정 문자열을 {함수, 컬럼, 결과컬럼명} 으로 분리한다.
+	private static String[] parseAggregate(String spec) {
+		if (StringHelper.isNull(spec)) {
+			throw new IllegalArgumentException("aggregate is not specified.");
+		}
+		
+		String[] parts = spec.split(":");
+		String func = parts[0].trim().toLowerCase();
+		String col = (parts.length > 1 && parts[1].trim().length() > 0)?parts[1].trim():null;
+		String alias = (parts.length > 2)?parts[2].trim():null;
+		
+		if (!"count".equals(func) && !"sum".equals(func) && !"min".equals(func) && !"max".equals(func)) {
+			throw new IllegalArgumentException("unknown aggregate function [" + spec + "]");
+		}
+		if (col == null && !"count".equals(func)) {
+			throw new IllegalArgumentException("aggregate column is not specified [" + spec + "]");
+		}
+		if (StringHelper.isNull(alias)) {
+			alias = (col == null)?func:func + "_" + col;
+		}
+		
+		return new String[] {func, col, alias};
+	}
+	
+	// 현재까지의 집계 값 acc 에 value 를 반영한 집계 값을 반환한다.
+	private static Object aggregate(String func, Object acc, Object value, boolean countAll) {
+		if ("count".equals(func)) {
+			long count = (acc == null)?0L:((Long)acc).longValue();
+			return Long.valueOf((countAll || value != null)?count + 1:count);
+		}
+		
+		if (value == null) {
+			return acc;
+		}
+		
+		if ("sum".equals(func)) {
+			BigDecimal dec = toBigDecimal(value);
+			if (dec == null) {
+				return acc;
+			}
+			return (acc == null)?dec:((BigDecimal)acc).add(dec);
+		}
+		
+		if (acc == null) {
+			return value;
+		}
+		
+		int comp = compareValue(value, acc);
+		if ("min".equals(func)) {
+			return (comp < 0)?value:acc;
+		} else {
+			return (comp > 0)?value:acc;
+		}
+	}
+	
+	// 빈 문자열이나 공백 문자열은 null 로 취급한다.
+	private static BigDecimal toBigDecimal(Object value) {
+		if (value instanceof BigDecimal) {
+			return (BigDecimal)value;
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return BigDecimal.valueOf(((Number)value).longValue());
+		} else if (value instanceof Number) {
+			return BigDecimal.valueOf(((Number)value).doubleValue());
+		} else {
+			String str = String.valueOf(value).trim();
+			return (str.length() == 0)?null:new BigDecimal(str);
+		}
+	}
+	
+	private static int compareValue(Object src, Object dest) {
+		if (src instanceof Number && dest instanceof Number) {
+			return toBigDecimal(src).compareTo(toBigDecimal(dest));
+		} else {
+			return ValueObjectIndex.normalize(src).compareTo(ValueObjectIndex.normalize(dest));
+		}
+	}
+	
 	private static class MapComparator implements Comparator<Map<String,Object>> {
 		private String sortKey1 = null;
 		private String sortKey2 = null;
@@ -375,16 +375,34 @@ public class ValueObject implements List<Map<String,Object>>, Externalizable {
 	}
 
 
+	/**
+	 * ValueObjectCodec 의 바이너리 형식으로 기록한다. 
+	 * s2adapi.vo.serial.legacy=true 이면 이전 형식(row Map 배열의 Java 직렬화)으로 기록한다.
+	 */
 	public void writeExternal(ObjectOutput out) throws IOException {
+		if (!ValueObjectCodec.isLegacy()) {
+			out.writeUTF(ValueObjectCodec.FORMAT_MARKER);
+			ValueObjectCodec.write(this, out);
+			return;
+		}
+		
 		out.writeUTF(voName);
 		Object[] arr = tbl.toArray(new Object[tbl.size()]);
 		out.writeObject(arr);
 	}
 
+	/**
+	 * ValueObjectCodec 의 바이너리 형식과 이전 형식을 모두 읽는다.
+	 */
 	@SuppressWarnings("unchecked")
 	public void readExternal(ObjectInput in) throws IOException,
 		ClassNotFoundException {
 		voName = in.readUTF();
+		if (ValueObjectCodec.FORMAT_MARKER.equals(voName)) {
+			ValueObjectCodec.readInto(this, in);
+			return;
+		}
+		
 		Object[] arr = (Object[])in.readObject();
 		tbl.clear();
 		for(int i=0; i<arr.length; i++) {
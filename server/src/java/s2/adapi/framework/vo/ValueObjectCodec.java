@@ -0,0 +1,682 @@
+package s2.adapi.framework.vo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+
+/**
+ * <p>
+ * ValueObject 를 작은 크기의 바이너리 형식으로 변환한다. ValueObject 의 writeExternal() 에서 사용되며
+ * 세션 복제나 캐시에 ValueObject 를 저장할 때 직접 사용할 수도 있다.
+ * </p>
+ * <ul>
+ * <li> 컬럼명은 ValueObject 당 한번만 기록하고 각 row 에서는 컬럼 번호로 참조한다.
+ * <li> 값은 1 byte 타입 태그와 함께 기록하며 정수 값과 길이는 zig-zag varint 로 기록한다.
+ * <li> compact 모드에서는 row 마다 컬럼 존재 bitmap 과 null bitmap 을 기록하고 null 이 아닌 값만 기록한다.
+ *      null 이 많은 조회 결과나 컬럼 수가 많은 경우에 작아진다.
+ * <li> 지원하지 않는 타입의 값은 Java 직렬화로 기록한다.
+ * </ul>
+ * <p>
+ * 이전 버전(Java 직렬화 형식)으로 기록된 ValueObject 도 그대로 읽을 수 있다.
+ * 이전 버전의 서버와 세션을 복제하는 동안에는 s2adapi.vo.serial.legacy=true 로 설정하여 이전 형식으로 기록한다.
+ * </p>
+ * @author kimhd
+ */
+public final class ValueObjectCodec {
+	
+	private static final String LEGACY_KEY = "s2adapi.vo.serial.legacy";
+	private static final String COMPACT_KEY = "s2adapi.vo.serial.compact";
+	
+	/**
+	 * writeExternal() 에서 voName 자리에 기록하여 바이너리 형식임을 나타내는 표식
+	 */
+	static final String FORMAT_MARKER = "\u0000S2VO";
+	
+	private static final int VERSION = 1;
+	private static final int FLAG_COMPACT = 0x01;
+	
+	private static final int T_NULL = 0;
+	private static final int T_STRING = 1;
+	private static final int T_INT = 2;
+	private static final int T_LONG = 3;
+	private static final int T_DOUBLE = 4;
+	private static final int T_FLOAT = 5;
+	private static final int T_TRUE = 6;
+	private static final int T_FALSE = 7;
+	private static final int T_BIGDECIMAL = 8;
+	private static final int T_BIGINTEGER = 9;
+	private static final int T_DATE = 10;
+	private static final int T_SQLDATE = 11;
+	private static final int T_TIME = 12;
+	private static final int T_TIMESTAMP = 13;
+	private static final int T_BYTES = 14;
+	private static final int T_SHORT = 15;
+	private static final int T_BYTE = 16;
+	private static final int T_CHAR = 17;
+	private static final int T_VALUEOBJECT = 18;
+	private static final int T_EMPTY_STRING = 19;
+	private static final int T_SERIALIZED = 31;
+	
+	private static boolean legacy = false;
+	private static boolean defaultCompact = false;
+	static {
+		try {
+			legacy = ConfiguratorFactory.getConfigurator().getBoolean(LEGACY_KEY, false);
+			defaultCompact = ConfiguratorFactory.getConfigurator().getBoolean(COMPACT_KEY, false);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private ValueObjectCodec() {
+	}
+	
+	/**
+	 * writeExternal() 에서 이전 형식(Java 직렬화)을 사용할지 여부
+	 */
+	static boolean isLegacy() {
+		return legacy;
+	}
+	
+	/**
+	 * 설정된 디폴트 모드(s2adapi.vo.serial.compact)로 ValueObject 를 바이너리로 변환한다.
+	 * @param vo
+	 * @return
+	 * @throws IOException 값을 직렬화할 수 없는 경우
+	 */
+	public static byte[] toBytes(ValueObject vo) throws IOException {
+		return toBytes(vo, defaultCompact);
+	}
+	
+	/**
+	 * ValueObject 를 바이너리로 변환한다.
+	 * @param vo
+	 * @param compact true 이면 row 별 bitmap 을 사용하여 null 값을 기록하지 않는다.
+	 * @return
+	 * @throws IOException 값을 직렬화할 수 없는 경우
+	 */
+	public static byte[] toBytes(ValueObject vo, boolean compact) throws IOException {
+		Encoder enc = new Encoder(256 + vo.size() * 32);
+		enc.writeValueObject(vo, compact);
+		
+		return enc.toByteArray();
+	}
+	
+	/**
+	 * toBytes() 로 변환한 바이너리로부터 ValueObject 를 생성한다.
+	 * @param data
+	 * @return
+	 * @throws IOException 형식이 올바르지 않은 경우
+	 */
+	public static ValueObject fromBytes(byte[] data) throws IOException {
+		ValueObject vo = new ValueObject();
+		readInto(vo, data);
+		
+		return vo;
+	}
+	
+	/**
+	 * 길이와 함께 바이너리를 기록한다.
+	 * @param vo
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void write(ValueObject vo, DataOutput out) throws IOException {
+		byte[] data = toBytes(vo);
+		out.writeInt(data.length);
+		out.write(data);
+	}
+	
+	/**
+	 * write() 로 기록한 바이너리를 읽어서 ValueObject 를 생성한다.
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static ValueObject read(DataInput in) throws IOException {
+		ValueObject vo = new ValueObject();
+		readInto(vo, in);
+		
+		return vo;
+	}
+	
+	static void readInto(ValueObject vo, DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new StreamCorruptedException("invalid ValueObject length : " + length);
+		}
+		byte[] data = new byte[length];
+		in.readFully(data);
+		
+		readInto(vo, data);
+	}
+	
+	private static void readInto(ValueObject vo, byte[] data) throws IOException {
+		Decoder dec = new Decoder(data);
+		dec.readValueObject(vo);
+		if (dec.pos != data.length) {
+			throw new StreamCorruptedException("unexpected trailing bytes : " + (data.length - dec.pos));
+		}
+	}
+	
+	/**
+	 * 확장되는 byte 배열에 기록한다.
+	 */
+	private static final class Encoder {
+		private byte[] buf;
+		private int pos = 0;
+		
+		Encoder(int capacity) {
+			buf = new byte[capacity];
+		}
+		
+		byte[] toByteArray() {
+			return Arrays.copyOf(buf, pos);
+		}
+		
+		private void ensure(int n) {
+			if (pos + n > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + n));
+			}
+		}
+		
+		void writeByte(int b) {
+			ensure(1);
+			buf[pos++] = (byte)b;
+		}
+		
+		void writeBytes(byte[] b, int off, int len) {
+			ensure(len);
+			System.arraycopy(b, off, buf, pos, len);
+			pos += len;
+		}
+		
+		void writeVarint(long v) {
+			ensure(10);
+			while ((v & ~0x7FL) != 0) {
+				buf[pos++] = (byte)((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buf[pos++] = (byte)v;
+		}
+		
+		void writeZigZag(long v) {
+			writeVarint((v << 1) ^ (v >> 63));
+		}
+		
+		void writeFixed64(long v) {
+			ensure(8);
+			for(int i=0;i<8;i++) {
+				buf[pos++] = (byte)(v >>> (i << 3));
+			}
+		}
+		
+		void writeString(String s) {
+			int len = s.length();
+			ensure(len + 5);
+			
+			// ASCII 문자열은 byte 로 바로 기록한다.
+			int start = pos;
+			pos += varintSize(len);
+			int i = 0;
+			for(;i<len;i++) {
+				char c = s.charAt(i);
+				if (c >= 0x80) {
+					break;
+				}
+				buf[pos++] = (byte)c;
+			}
+			
+			if (i == len) {
+				int end = pos;
+				pos = start;
+				writeVarint(len);
+				pos = end;
+				return;
+			}
+			
+			pos = start;
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			writeVarint(b.length);
+			writeBytes(b, 0, b.length);
+		}
+		
+		private static int varintSize(int v) {
+			int n = 1;
+			while ((v & ~0x7F) != 0) {
+				v >>>= 7;
+				n++;
+			}
+			return n;
+		}
+		
+		void writeBitmap(boolean[] bits, int n) {
+			int nbytes = (n + 7) >>> 3;
+			ensure(nbytes);
+			for(int i=0;i<nbytes;i++) {
+				int b = 0;
+				for(int j=0;j<8;j++) {
+					int idx = (i << 3) + j;
+					if (idx < n && bits[idx]) {
+						b |= (1 << j);
+					}
+				}
+				buf[pos++] = (byte)b;
+			}
+		}
+		
+		void writeValueObject(ValueObject vo, boolean compact) throws IOException {
+			writeByte(VERSION);
+			writeByte(compact ? FLAG_COMPACT : 0);
+			writeString(vo.getName() == null ? "" : vo.getName());
+			
+			// 컬럼명 사전, row 들에 나타난 순서대로 번호를 부여한다.
+			Map<String,Integer> columnIndex = new HashMap<String,Integer>();
+			List<String> columns = new ArrayList<String>();
+			int rows = vo.size();
+			for(int r=0;r<rows;r++) {
+				for(String key:vo.get(r).keySet()) {
+					if (!columnIndex.containsKey(key)) {
+						columnIndex.put(key, columns.size());
+						columns.add(key);
+					}
+				}
+			}
+			
+			int ncols = columns.size();
+			writeVarint(ncols);
+			for(int c=0;c<ncols;c++) {
+				String column = columns.get(c);
+				if (column == null) {
+					writeByte(0);
+				}
+				else {
+					writeByte(1);
+					writeString(column);
+				}
+			}
+			
+			writeVarint(rows);
+			if (compact) {
+				boolean[] present = new boolean[ncols];
+				boolean[] nulls = new boolean[ncols];
+				Object[] values = new Object[ncols];
+				for(int r=0;r<rows;r++) {
+					Arrays.fill(present, false);
+					Arrays.fill(nulls, false);
+					Arrays.fill(values, null);
+					for(Map.Entry<String,Object> entry:vo.get(r).entrySet()) {
+						int c = columnIndex.get(entry.getKey());
+						present[c] = true;
+						values[c] = entry.getValue();
+						nulls[c] = (values[c] == null);
+					}
+					writeBitmap(present, ncols);
+					writeBitmap(nulls, ncols);
+					for(int c=0;c<ncols;c++) {
+						if (values[c] != null) {
+							writeValue(values[c]);
+						}
+					}
+				}
+			}
+			else {
+				for(int r=0;r<rows;r++) {
+					Map<String,Object> row = vo.get(r);
+					writeVarint(row.size());
+					for(Map.Entry<String,Object> entry:row.entrySet()) {
+						writeVarint(columnIndex.get(entry.getKey()));
+						writeValue(entry.getValue());
+					}
+				}
+			}
+		}
+		
+		void writeValue(Object value) throws IOException {
+			if (value == null) {
+				writeByte(T_NULL);
+			}
+			else if (value instanceof String) {
+				String s = (String)value;
+				if (s.length() == 0) {
+					writeByte(T_EMPTY_STRING);
+				}
+				else {
+					writeByte(T_STRING);
+					writeString(s);
+				}
+			}
+			else if (value instanceof Integer) {
+				writeByte(T_INT);
+				writeZigZag(((Integer)value).intValue());
+			}
+			else if (value instanceof Long) {
+				writeByte(T_LONG);
+				writeZigZag(((Long)value).longValue());
+			}
+			else if (value instanceof BigDecimal) {
+				BigDecimal bd = (BigDecimal)value;
+				writeByte(T_BIGDECIMAL);
+				writeZigZag(bd.scale());
+				BigInteger unscaled = bd.unscaledValue();
+				if (unscaled.bitLength() < 64) {
+					writeByte(0);
+					writeZigZag(unscaled.longValue());
+				}
+				else {
+					writeByte(1);
+					byte[] b = unscaled.toByteArray();
+					writeVarint(b.length);
+					writeBytes(b, 0, b.length);
+				}
+			}
+			else if (value instanceof Double) {
+				writeByte(T_DOUBLE);
+				writeFixed64(Double.doubleToRawLongBits(((Double)value).doubleValue()));
+			}
+			else if (value instanceof Boolean) {
+				writeByte(((Boolean)value).booleanValue() ? T_TRUE : T_FALSE);
+			}
+			else if (value instanceof java.sql.Timestamp) {
+				java.sql.Timestamp ts = (java.sql.Timestamp)value;
+				writeByte(T_TIMESTAMP);
+				writeZigZag(ts.getTime());
+				writeVarint(ts.getNanos() % 1000000);
+			}
+			else if (value instanceof java.sql.Date) {
+				writeByte(T_SQLDATE);
+				writeZigZag(((java.sql.Date)value).getTime());
+			}
+			else if (value instanceof java.sql.Time) {
+				writeByte(T_TIME);
+				writeZigZag(((java.sql.Time)value).getTime());
+			}
+			else if (value.getClass() == java.util.Date.class) {
+				writeByte(T_DATE);
+				writeZigZag(((java.util.Date)value).getTime());
+			}
+			else if (value instanceof byte[]) {
+				byte[] b = (byte[])value;
+				writeByte(T_BYTES);
+				writeVarint(b.length);
+				writeBytes(b, 0, b.length);
+			}
+			else if (value instanceof Float) {
+				writeByte(T_FLOAT);
+				ensure(4);
+				int bits = Float.floatToRawIntBits(((Float)value).floatValue());
+				for(int i=0;i<4;i++) {
+					buf[pos++] = (byte)(bits >>> (i << 3));
+				}
+			}
+			else if (value instanceof BigInteger) {
+				byte[] b = ((BigInteger)value).toByteArray();
+				writeByte(T_BIGINTEGER);
+				writeVarint(b.length);
+				writeBytes(b, 0, b.length);
+			}
+			else if (value instanceof Short) {
+				writeByte(T_SHORT);
+				writeZigZag(((Short)value).shortValue());
+			}
+			else if (value instanceof Byte) {
+				writeByte(T_BYTE);
+				writeByte(((Byte)value).byteValue());
+			}
+			else if (value instanceof Character) {
+				writeByte(T_CHAR);
+				writeVarint(((Character)value).charValue());
+			}
+			else if (value.getClass() == ValueObject.class) {
+				writeByte(T_VALUEOBJECT);
+				writeValueObject((ValueObject)value, defaultCompact);
+			}
+			else {
+				// 그 외의 타입은 Java 직렬화로 기록한다.
+				ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				ObjectOutputStream oos = new ObjectOutputStream(bos);
+				oos.writeObject(value);
+				oos.close();
+				
+				byte[] b = bos.toByteArray();
+				writeByte(T_SERIALIZED);
+				writeVarint(b.length);
+				writeBytes(b, 0, b.length);
+			}
+		}
+	}
+	
+	/**
+	 * byte 배열로부터 읽는다.
+	 */
+	private static final class Decoder {
+		private final byte[] buf;
+		private int pos = 0;
+		
+		Decoder(byte[] buf) {
+			this.buf = buf;
+		}
+		
+		private void require(int n) throws IOException {
+			if (n < 0 || pos + n > buf.length) {
+				throw new StreamCorruptedException("unexpected end of ValueObject data.");
+			}
+		}
+		
+		int readByte() throws IOException {
+			require(1);
+			return buf[pos++];
+		}
+		
+		long readVarint() throws IOException {
+			long v = 0;
+			for(int shift=0;shift<64;shift+=7) {
+				int b = readByte();
+				v |= (long)(b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return v;
+				}
+			}
+			throw new StreamCorruptedException("malformed varint.");
+		}
+		
+		int readLength() throws IOException {
+			long v = readVarint();
+			if (v < 0 || v > Integer.MAX_VALUE) {
+				throw new StreamCorruptedException("invalid length : " + v);
+			}
+			return (int)v;
+		}
+		
+		long readZigZag() throws IOException {
+			long v = readVarint();
+			return (v >>> 1) ^ -(v & 1);
+		}
+		
+		long readFixed64() throws IOException {
+			require(8);
+			long v = 0;
+			for(int i=0;i<8;i++) {
+				v |= (long)(buf[pos++] & 0xFF) << (i << 3);
+			}
+			return v;
+		}
+		
+		byte[] readBytes() throws IOException {
+			int len = readLength();
+			require(len);
+			byte[] b = Arrays.copyOfRange(buf, pos, pos + len);
+			pos += len;
+			return b;
+		}
+		
+		String readString() throws IOException {
+			int len = readLength();
+			require(len);
+			
+			// ASCII 문자열은 byte 에서 바로 생성한다.
+			boolean ascii = true;
+			for(int i=0;i<len;i++) {
+				if (buf[pos + i] < 0) {
+					ascii = false;
+					break;
+				}
+			}
+			String s = new String(buf, pos, len, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+			pos += len;
+			return s;
+		}
+		
+		boolean[] readBitmap(boolean[] bits, int n) throws IOException {
+			int nbytes = (n + 7) >>> 3;
+			require(nbytes);
+			for(int i=0;i<n;i++) {
+				bits[i] = ((buf[pos + (i >>> 3)] >>> (i & 7)) & 1) != 0;
+			}
+			pos += nbytes;
+			return bits;
+		}
+		
+		void readValueObject(ValueObject vo) throws IOException {
+			int version = readByte();
+			if (version != VERSION) {
+				throw new StreamCorruptedException("unsupported ValueObject format version : " + version);
+			}
+			boolean compact = (readByte() & FLAG_COMPACT) != 0;
+			vo.setName(readString());
+			
+			int ncols = readLength();
+			String[] columns = new String[ncols];
+			for(int c=0;c<ncols;c++) {
+				columns[c] = (readByte() == 0) ? null : readString();
+			}
+			
+			int rows = readLength();
+			vo.clear();
+			if (compact) {
+				boolean[] present = new boolean[ncols];
+				boolean[] nulls = new boolean[ncols];
+				for(int r=0;r<rows;r++) {
+					readBitmap(present, ncols);
+					readBitmap(nulls, ncols);
+					Map<String,Object> row = new HashMap<String,Object>(capacity(ncols));
+					for(int c=0;c<ncols;c++) {
+						if (present[c]) {
+							row.put(columns[c], nulls[c] ? null : readValue());
+						}
+					}
+					vo.add(row);
+				}
+			}
+			else {
+				for(int r=0;r<rows;r++) {
+					int nfields = readLength();
+					Map<String,Object> row = new HashMap<String,Object>(capacity(nfields));
+					for(int f=0;f<nfields;f++) {
+						int c = readLength();
+						if (c >= ncols) {
+							throw new StreamCorruptedException("invalid column index : " + c);
+						}
+						row.put(columns[c], readValue());
+					}
+					vo.add(row);
+				}
+			}
+		}
+		
+		Object readValue() throws IOException {
+			int tag = readByte();
+			switch (tag) {
+			case T_NULL:
+				return null;
+			case T_STRING:
+				return readString();
+			case T_EMPTY_STRING:
+				return "";
+			case T_INT:
+				return Integer.valueOf((int)readZigZag());
+			case T_LONG:
+				return Long.valueOf(readZigZag());
+			case T_BIGDECIMAL: {
+				int scale = (int)readZigZag();
+				BigInteger unscaled = (readByte() == 0) ? BigInteger.valueOf(readZigZag()) : new BigInteger(readBytes());
+				return new BigDecimal(unscaled, scale);
+			}
+			case T_DOUBLE:
+				return Double.valueOf(Double.longBitsToDouble(readFixed64()));
+			case T_TRUE:
+				return Boolean.TRUE;
+			case T_FALSE:
+				return Boolean.FALSE;
+			case T_TIMESTAMP: {
+				java.sql.Timestamp ts = new java.sql.Timestamp(readZigZag());
+				ts.setNanos(ts.getNanos() + (int)readVarint());
+				return ts;
+			}
+			case T_SQLDATE:
+				return new java.sql.Date(readZigZag());
+			case T_TIME:
+				return new java.sql.Time(readZigZag());
+			case T_DATE:
+				return new java.util.Date(readZigZag());
+			case T_BYTES:
+				return readBytes();
+			case T_FLOAT: {
+				require(4);
+				int bits = 0;
+				for(int i=0;i<4;i++) {
+					bits |= (buf[pos++] & 0xFF) << (i << 3);
+				}
+				return Float.valueOf(Float.intBitsToFloat(bits));
+			}
+			case T_BIGINTEGER:
+				return new BigInteger(readBytes());
+			case T_SHORT:
+				return Short.valueOf((short)readZigZag());
+			case T_BYTE:
+				return Byte.valueOf((byte)readByte());
+			case T_CHAR:
+				return Character.valueOf((char)readVarint());
+			case T_VALUEOBJECT: {
+				ValueObject vo = new ValueObject();
+				readValueObject(vo);
+				return vo;
+			}
+			case T_SERIALIZED: {
+				ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes()));
+				try {
+					return ois.readObject();
+				}
+				catch (ClassNotFoundException ex) {
+					throw new IOException("cannot deserialize a value of ValueObject.", ex);
+				}
+				finally {
+					ois.close();
+				}
+			}
+			default:
+				throw new StreamCorruptedException("unknown value type : " + tag);
+			}
+		}
+		
+		private static int capacity(int n) {
+			return (n < 3) ? 4 : (int)(n / 0.75f) + 1;
+		}
+	}
+}
@@ -103,6 +103,20 @@ public abstract class AbstractWebAction implements WebAction {
 	}
 	
 	protected ValueObject getAttachFileAsVO(HttpServletRequest request, String name) {
+		return getAttachFileAsVO(request, name, true);
+	}
+	
+	/**
+	 * 첨부파일 정보를 ValueObject 에 담아서 반환한다. 
+	 * withData 가 false 이면 파일 내용(data) 대신 file 컬럼에 FormFile 을 담으므로 FormFile 로 파일 내용을 읽어야 한다.
+	 * FormFile 은 Serializable 이 아니므로 이 경우의 ValueObject 는 세션에 담거나 직렬화할 수 없다.
+	 * 임시 파일로 저장된 큰 첨부파일을 메모리에 읽지 않고 처리할 때 사용한다.
+	 * @param request
+	 * @param name 첨부파일 파라메터 명
+	 * @param withData true 이면 파일 내용(byte[])을 data 컬럼에, false 이면 FormFile 을 file 컬럼에 담는다.
+	 * @return
+	 */
+	protected ValueObject getAttachFileAsVO(HttpServletRequest request, String name, boolean withData) {
 		ValueObject fileVO = new ValueObject();
 		Map<String,FormFile[]> fileMap = MultipartRequestWrapper.getFileMap(request);
 		if (fileMap != null) {
@@ -112,7 +126,12 @@ public abstract class AbstractWebAction implements WebAction {
 					fileVO.set(i, "type", files[i].getContentType());
 					fileVO.set(i, "name", files[i].getFileName());
 					fileVO.set(i, "size", files[i].getFileSize());
-					fileVO.set(i, "data", files[i].getFileData());
+					if (withData) {
+						fileVO.set(i, "data", files[i].getFileData());
+					}
+					else {
+						fileVO.set(i, "file", files[i]);
+					}
 				}
 			}
 		}
@@ -0,0 +1,372 @@
+package s2.adapi.framework.web.action;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Part;
+
+/**
+ * <p>
+ * WebActionDispatcher 가 비동기로 실행하는 WebAction 에 넘겨주는 HttpServletRequest 이다.
+ * </p>
+ * 시간 초과 등으로 Servlet 컨테이너 쪽에서 응답을 먼저 완료하면 요청 객체는 컨테이너로 반환되어 다른 요청에 재사용될 수 있다.
+ * 이후에 실행 쓰레드가 다른 요청의 값을 읽지 않도록 close() 이후의 호출은 IllegalStateException 을 발생시킨다.
+ * 호출은 이 객체로 동기화되므로 close() 가 반환된 후에는 실행 쓰레드가 원래의 요청을 사용하지 않는다.
+ * 단, close() 전에 얻은 InputStream, Reader, Enumeration, HttpSession 등을 통한 접근은 막지 못하므로
+ * 시간 초과 후의 요청 접근은 정의되지 않은 동작이다.
+ * @author 김형도
+ * @see WebActionDispatcher
+ * @see AsyncResponseWrapper
+ */
+class AsyncRequestWrapper extends HttpServletRequestWrapper {
+	
+	private volatile boolean closed = false;
+	
+	AsyncRequestWrapper(HttpServletRequest request) {
+		super(request);
+	}
+	
+	/**
+	 * 이후의 요청 접근을 막는다. 실행 쓰레드가 요청을 읽는 중이면 그 호출이 끝날 때까지 기다린다.
+	 */
+	synchronized void close() {
+		closed = true;
+	}
+	
+	private void check() {
+		if (closed) {
+			throw new IllegalStateException("async request is already completed.");
+		}
+	}
+	
+	@Override
+	public synchronized Object getAttribute(String name) {
+		check();
+		return super.getAttribute(name);
+	}
+	
+	@Override
+	public synchronized Enumeration<String> getAttributeNames() {
+		check();
+		return super.getAttributeNames();
+	}
+	
+	@Override
+	public synchronized void setAttribute(String name, Object o) {
+		check();
+		super.setAttribute(name, o);
+	}
+	
+	@Override
+	public synchronized void removeAttribute(String name) {
+		check();
+		super.removeAttribute(name);
+	}
+	
+	@Override
+	public synchronized String getCharacterEncoding() {
+		check();
+		return super.getCharacterEncoding();
+	}
+	
+	@Override
+	public synchronized void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+		check();
+		super.setCharacterEncoding(env);
+	}
+	
+	@Override
+	public synchronized int getContentLength() {
+		check();
+		return super.getContentLength();
+	}
+	
+	@Override
+	public synchronized long getContentLengthLong() {
+		check();
+		return super.getContentLengthLong();
+	}
+	
+	@Override
+	public synchronized String getContentType() {
+		check();
+		return super.getContentType();
+	}
+	
+	@Override
+	public synchronized ServletInputStream getInputStream() throws IOException {
+		check();
+		return super.getInputStream();
+	}
+	
+	@Override
+	public synchronized BufferedReader getReader() throws IOException {
+		check();
+		return super.getReader();
+	}
+	
+	@Override
+	public synchronized String getParameter(String name) {
+		check();
+		return super.getParameter(name);
+	}
+	
+	@Override
+	public synchronized Enumeration<String> getParameterNames() {
+		check();
+		return super.getParameterNames();
+	}
+	
+	@Override
+	public synchronized String[] getParameterValues(String name) {
+		check();
+		return super.getParameterValues(name);
+	}
+	
+	@Override
+	public synchronized Map<String,String[]> getParameterMap() {
+		check();
+		return super.getParameterMap();
+	}
+	
+	@Override
+	public synchronized String getProtocol() {
+		check();
+		return super.getProtocol();
+	}
+	
+	@Override
+	public synchronized String getScheme() {
+		check();
+		return super.getScheme();
+	}
+	
+	@Override
+	public synchronized String getServerName() {
+		check();
+		return super.getServerName();
+	}
+	
+	@Override
+	public synchronized int getServerPort() {
+		check();
+		return super.getServerPort();
+	}
+	
+	@Override
+	public synchronized String getRemoteAddr() {
+		check();
+		return super.getRemoteAddr();
+	}
+	
+	@Override
+	public synchronized String getRemoteHost() {
+		check();
+		return super.getRemoteHost();
+	}
+	
+	@Override
+	public synchronized int getRemotePort() {
+		check();
+		return super.getRemotePort();
+	}
+	
+	@Override
+	public synchronized String getLocalName() {
+		check();
+		return super.getLocalName();
+	}
+	
+	@Override
+	public synchronized String getLocalAddr() {
+		check();
+		return super.getLocalAddr();
+	}
+	
+	@Override
+	public synchronized int getLocalPort() {
+		check();
+		return super.getLocalPort();
+	}
+	
+	@Override
+	public synchronized Locale getLocale() {
+		check();
+		return super.getLocale();
+	}
+	
+	@Override
+	public synchronized Enumeration<Locale> getLocales() {
+		check();
+		return super.getLocales();
+	}
+	
+	@Override
+	public synchronized boolean isSecure() {
+		check();
+		return super.isSecure();
+	}
+	
+	@Override
+	public synchronized RequestDispatcher getRequestDispatcher(String path) {
+		check();
+		return super.getRequestDispatcher(path);
+	}
+	
+	@Override
+	public synchronized String getAuthType() {
+		check();
+		return super.getAuthType();
+	}
+	
+	@Override
+	public synchronized Cookie[] getCookies() {
+		check();
+		return super.getCookies();
+	}
+	
+	@Override
+	public synchronized long getDateHeader(String name) {
+		check();
+		return super.getDateHeader(name);
+	}
+	
+	@Override
+	public synchronized String getHeader(String name) {
+		check();
+		return super.getHeader(name);
+	}
+	
+	@Override
+	public synchronized Enumeration<String> getHeaders(String name) {
+		check();
+		return super.getHeaders(name);
+	}
+	
+	@Override
+	public synchronized Enumeration<String> getHeaderNames() {
+		check();
+		return super.getHeaderNames();
+	}
+	
+	@Override
+	public synchronized int getIntHeader(String name) {
+		check();
+		return super.getIntHeader(name);
+	}
+	
+	@Override
+	public synchronized String getMethod() {
+		check();
+		return super.getMethod();
+	}
+	
+	@Override
+	public synchronized String getPathInfo() {
+		check();
+		return super.getPathInfo();
+	}
+	
+	@Override
+	public synchronized String getPathTranslated() {
+		check();
+		return super.getPathTranslated();
+	}
+	
+	@Override
+	public synchronized String getContextPath() {
+		check();
+		return super.getContextPath();
+	}
+	
+	@Override
+	public synchronized String getQueryString() {
+		check();
+		return super.getQueryString();
+	}
+	
+	@Override
+	public synchronized String getRemoteUser() {
+		check();
+		return super.getRemoteUser();
+	}
+	
+	@Override
+	public synchronized boolean isUserInRole(String role) {
+		check();
+		return super.isUserInRole(role);
+	}
+	
+	@Override
+	public synchronized Principal getUserPrincipal() {
+		check();
+		return super.getUserPrincipal();
+	}
+	
+	@Override
+	public synchronized String getRequestedSessionId() {
+		check();
+		return super.getRequestedSessionId();
+	}
+	
+	@Override
+	public synchronized String getRequestURI() {
+		check();
+		return super.getRequestURI();
+	}
+	
+	@Override
+	public synchronized StringBuffer getRequestURL() {
+		check();
+		return super.getRequestURL();
+	}
+	
+	@Override
+	public synchronized String getServletPath() {
+		check();
+		return super.getServletPath();
+	}
+	
+	@Override
+	public synchronized HttpSession getSession(boolean create) {
+		check();
+		return super.getSession(create);
+	}
+	
+	@Override
+	public synchronized HttpSession getSession() {
+		check();
+		return super.getSession();
+	}
+	
+	@Override
+	public synchronized String changeSessionId() {
+		check();
+		return super.changeSessionId();
+	}
+	
+	@Override
+	public synchronized Collection<Part> getParts() throws IOException, ServletException {
+		check();
+		return super.getParts();
+	}
+	
+	@Override
+	public synchronized Part getPart(String name) throws IOException, ServletException {
+		check();
+		return super.getPart(name);
+	}
+}
@@ -0,0 +1,297 @@
+package s2.adapi.framework.web.action;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * <p>
+ * WebActionDispatcher 가 비동기로 실행하는 WebAction 에 넘겨주는 HttpServletResponse 이다.
+ * </p>
+ * 시간 초과 등으로 Servlet 컨테이너 쪽에서 응답을 먼저 완료한 후에도 실행 쓰레드는 계속 응답을 쓸 수 있으며,
+ * 이때 완료된(재사용될 수 있는) 응답 객체에 쓰지 않도록 close() 이후의 출력과 헤더 변경은 모두 버린다.
+ * 응답에 대한 호출은 이 객체로 동기화되므로 close() 가 반환된 후에는 실행 쓰레드가 원래의 응답을 사용하지 않는다.
+ * @author 김형도
+ * @see WebActionDispatcher
+ */
+class AsyncResponseWrapper extends HttpServletResponseWrapper {
+	
+	private volatile boolean closed = false;
+	private ServletOutputStream stream = null;
+	private PrintWriter writer = null;
+	
+	AsyncResponseWrapper(HttpServletResponse response) {
+		super(response);
+	}
+	
+	/**
+	 * 이후의 응답 출력과 헤더 변경을 버린다. 실행 쓰레드가 응답을 쓰는 중이면 그 호출이 끝날 때까지 기다린다.
+	 */
+	synchronized void close() {
+		closed = true;
+	}
+	
+	@Override
+	public synchronized ServletOutputStream getOutputStream() throws IOException {
+		if (stream == null) {
+			stream = new FencedOutputStream(closed?null:super.getOutputStream());
+		}
+		return stream;
+	}
+	
+	@Override
+	public synchronized PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new PrintWriter(new FencedWriter(closed?null:super.getWriter()));
+		}
+		return writer;
+	}
+	
+	@Override
+	public void flushBuffer() throws IOException {
+		// PrintWriter 는 FencedWriter 로 동기화하므로 이 객체의 lock 을 잡기 전에 flush 한다.
+		PrintWriter w = null;
+		synchronized (this) {
+			w = writer;
+		}
+		if (w != null) {
+			w.flush();
+		}
+		synchronized (this) {
+			if (!closed) {
+				super.flushBuffer();
+			}
+		}
+	}
+	
+	@Override
+	public synchronized void reset() {
+		if (!closed) {
+			super.reset();
+		}
+	}
+	
+	@Override
+	public synchronized void resetBuffer() {
+		if (!closed) {
+			super.resetBuffer();
+		}
+	}
+	
+	@Override
+	public synchronized void setBufferSize(int size) {
+		if (!closed) {
+			super.setBufferSize(size);
+		}
+	}
+	
+	@Override
+	public synchronized void sendError(int sc, String msg) throws IOException {
+		if (!closed) {
+			super.sendError(sc, msg);
+		}
+	}
+	
+	@Override
+	public synchronized void sendError(int sc) throws IOException {
+		if (!closed) {
+			super.sendError(sc);
+		}
+	}
+	
+	@Override
+	public synchronized void sendRedirect(String location) throws IOException {
+		if (!closed) {
+			super.sendRedirect(location);
+		}
+	}
+	
+	@Override
+	public synchronized void setStatus(int sc) {
+		if (!closed) {
+			super.setStatus(sc);
+		}
+	}
+	
+	@Override
+	public synchronized void setContentType(String type) {
+		if (!closed) {
+			super.setContentType(type);
+		}
+	}
+	
+	@Override
+	public synchronized void setCharacterEncoding(String charset) {
+		if (!closed) {
+			super.setCharacterEncoding(charset);
+		}
+	}
+	
+	@Override
+	public synchronized void setContentLength(int len) {
+		if (!closed) {
+			super.setContentLength(len);
+		}
+	}
+	
+	@Override
+	public synchronized void setContentLengthLong(long len) {
+		if (!closed) {
+			super.setContentLengthLong(len);
+		}
+	}
+	
+	@Override
+	public synchronized void setLocale(Locale loc) {
+		if (!closed) {
+			super.setLocale(loc);
+		}
+	}
+	
+	@Override
+	public synchronized void addCookie(Cookie cookie) {
+		if (!closed) {
+			super.addCookie(cookie);
+		}
+	}
+	
+	@Override
+	public synchronized void setHeader(String name, String value) {
+		if (!closed) {
+			super.setHeader(name, value);
+		}
+	}
+	
+	@Override
+	public synchronized void addHeader(String name, String value) {
+		if (!closed) {
+			super.addHeader(name, value);
+		}
+	}
+	
+	@Override
+	public synchronized void setIntHeader(String name, int value) {
+		if (!closed) {
+			super.setIntHeader(name, value);
+		}
+	}
+	
+	@Override
+	public synchronized void addIntHeader(String name, int value) {
+		if (!closed) {
+			super.addIntHeader(name, value);
+		}
+	}
+	
+	@Override
+	public synchronized void setDateHeader(String name, long date) {
+		if (!closed) {
+			super.setDateHeader(name, date);
+		}
+	}
+	
+	@Override
+	public synchronized void addDateHeader(String name, long date) {
+		if (!closed) {
+			super.addDateHeader(name, date);
+		}
+	}
+	
+	// close() 이후에는 출력을 버린다.
+	private class FencedOutputStream extends ServletOutputStream {
+		private final ServletOutputStream out;
+		
+		FencedOutputStream(ServletOutputStream out) {
+			this.out = out;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			synchronized (AsyncResponseWrapper.this) {
+				if (!closed && out != null) {
+					out.write(b);
+				}
+			}
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			synchronized (AsyncResponseWrapper.this) {
+				if (!closed && out != null) {
+					out.write(b, off, len);
+				}
+			}
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			synchronized (AsyncResponseWrapper.this) {
+				if (!closed && out != null) {
+					out.flush();
+				}
+			}
+		}
+		
+		@Override
+		public void close() throws IOException {
+			synchronized (AsyncResponseWrapper.this) {
+				if (!closed && out != null) {
+					out.close();
+				}
+			}
+		}
+		
+		@Override
+		public boolean isReady() {
+			return closed || out == null || out.isReady();
+		}
+		
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			throw new UnsupportedOperationException("non-blocking write is not supported.");
+		}
+	}
+	
+	// close() 이후에는 출력을 버린다.
+	private class FencedWriter extends Writer {
+		private final Writer out;
+		
+		FencedWriter(Writer out) {
+			this.out = out;
+		}
+		
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			synchronized (AsyncResponseWrapper.this) {
+				if (!closed && out != null) {
+					out.write(cbuf, off, len);
+				}
+			}
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			synchronized (AsyncResponseWrapper.this) {
+				if (!closed && out != null) {
+					out.flush();
+				}
+			}
+		}
+		
+		@Override
+		public void close() throws IOException {
+			synchronized (AsyncResponseWrapper.this) {
+				if (!closed && out != null) {
+					out.close();
+				}
+			}
+		}
+	}
+}
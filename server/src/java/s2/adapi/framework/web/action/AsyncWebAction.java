@@ -0,0 +1,24 @@
+package s2.adapi.framework.web.action;
+
+/**
+ * <p>
+ * 실행 시간이 긴 WebAction(대용량 조회, 리포트 생성 등)을 표시하는 marker 인터페이스이다.
+ * s2adapi.web.async.enabled 가 true 이면 WebActionDispatcher 는 이 인터페이스를 구현한 WebAction 을
+ * Servlet 비동기 모드(startAsync)로 전환한 후 별도의 쓰레드 풀에서 실행하므로 Servlet 컨테이너의 요청 처리 쓰레드는 바로 반환된다.
+ * </p>
+ * <p>
+ * 소스를 변경할 수 없는 WebAction 은 s2adapi.web.async.services 에 서비스 명을 지정하여 비동기로 실행할 수 있다.
+ * </p>
+ * <ul>
+ * <li> ServiceContext, Diagnostic Map, MDC 등의 쓰레드 컨텍스트는 실행 쓰레드로 전달되며,
+ *      preProcess() 와 postProcess() 도 실행 쓰레드에서 호출된다. Transaction 은 실행 쓰레드에서 시작하고 종료해야 한다.
+ * <li> s2adapi.web.async.timeout 시간 내에 처리가 끝나지 않으면 실행 쓰레드를 interrupt 하고 503 으로 응답한다.
+ *      이후 실행 쓰레드가 응답에 쓰는 내용은 버려지고 요청에 접근하면 IllegalStateException 이 발생하며,
+ *      첨부파일은 실행 쓰레드가 끝난 후에 삭제된다. 시간 초과 후의 요청 접근은 정의되지 않은 동작으로 보아야 한다.
+ * <li> View 로 forward 하는 경우에는 AsyncContext.dispatch() 를 사용하며 이때 View 의 출력은 압축되지 않는다.
+ * </ul>
+ * @author 김형도
+ * @see WebActionDispatcher
+ */
+public interface AsyncWebAction {
+}
@@ -0,0 +1,498 @@
+package s2.adapi.framework.web.action;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * <p>
+ * WebActionDispatcher 가 WebAction 의 응답을 압축(gzip, deflate)하고 ETag 를 생성하기 위하여 사용하는 HttpServletResponse 이다.
+ * </p>
+ * <ul>
+ * <li> 응답 내용은 threshold 크기까지 버퍼에 담아두며, 버퍼를 넘으면 압축 여부를 결정한 후 압축하면서 바로 전송한다.
+ *      응답 크기가 threshold 보다 작거나, Content-Type 이 압축 대상이 아니거나, 이미 Content-Encoding 이 지정된 경우에는 압축하지 않는다.
+ * <li> ETag 를 생성하는 경우에는 응답 내용을 etagMaxSize 크기까지 버퍼에 담아두었다가 내용의 해시로 weak ETag 를 생성한다.
+ *      요청의 If-None-Match 와 일치하면 내용을 보내지 않고 304 (Not Modified) 로 응답한다.
+ *      WebAction 이 직접 ETag 헤더를 지정한 경우에는 그 값을 사용하며, 응답이 etagMaxSize 보다 크면 ETag 를 생성하지 않는다.
+ * <li> sendError(), sendRedirect() 를 호출한 경우와 200 이외의 상태 코드는 압축하거나 ETag 를 생성하지 않는다.
+ * </ul>
+ * <p>
+ * 응답 처리가 끝나면 반드시 finish() 를 호출하여야 버퍼에 남은 내용이 전송된다.
+ * </p>
+ * @author 김형도
+ * @see WebActionDispatcher
+ */
+public class CompressionResponseWrapper extends HttpServletResponseWrapper {
+	
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+	
+	private static final int STATE_BUFFERING = 0;
+	private static final int STATE_STREAMING = 1;
+	private static final int STATE_BYPASS = 2;
+	private static final int STATE_FINISHED = 3;
+	
+	private final HttpServletRequest request;
+	private final String encoding;
+	private final int threshold;
+	private final Set<String> compressTypes;
+	private final int etagMaxSize;
+	
+	private int state = STATE_BUFFERING;
+	private byte[] buf;
+	private int count = 0;
+	private long contentLength = -1;
+	
+	private OutputStream out = null;
+	private BufferingOutputStream stream = null;
+	private PrintWriter writer = null;
+	private boolean finishing = false;
+	
+	/**
+	 * @param request 요청 (If-None-Match 헤더 확인용)
+	 * @param response 원래의 응답
+	 * @param encoding 압축 방식 (gzip, deflate), null 이면 압축하지 않는다.
+	 * @param threshold 압축할 최소 응답 크기(bytes)
+	 * @param compressTypes 압축할 Content-Type 들 (charset 등 파라메터 제외)
+	 * @param etagMaxSize ETag 를 생성할 최대 응답 크기(bytes), 0 이하이면 ETag 를 생성하지 않는다.
+	 */
+	public CompressionResponseWrapper(HttpServletRequest request, HttpServletResponse response,
+			String encoding, int threshold, Set<String> compressTypes, int etagMaxSize) {
+		super(response);
+		this.request = request;
+		this.encoding = encoding;
+		this.threshold = Math.max(threshold, 0);
+		this.compressTypes = compressTypes;
+		this.etagMaxSize = etagMaxSize;
+		this.buf = new byte[Math.min(Math.max(this.threshold, etagMaxSize), 8192)];
+	}
+	
+	/**
+	 * Accept-Encoding 헤더 값으로 사용할 압축 방식을 선택한다. gzip 을 우선하며 q=0 으로 지정된 방식은 제외한다.
+	 * @param acceptEncoding Accept-Encoding 헤더 값
+	 * @return gzip, deflate 또는 null (압축 불가)
+	 */
+	public static String selectEncoding(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		
+		boolean gzip = false;
+		boolean deflate = false;
+		String[] codings = acceptEncoding.split(",");
+		for(int i=0;i<codings.length;i++) {
+			String[] params = codings[i].split(";");
+			String coding = params[0].trim().toLowerCase();
+			boolean accepted = true;
+			for(int j=1;j<params.length;j++) {
+				String param = params[j].trim();
+				if (param.startsWith("q=")) {
+					try {
+						accepted = Double.parseDouble(param.substring(2).trim()) > 0;
+					}
+					catch (NumberFormatException ex) {
+						accepted = false;
+					}
+				}
+			}
+			
+			if (GZIP.equals(coding) || "x-gzip".equals(coding) || "*".equals(coding)) {
+				gzip = gzip || accepted;
+			}
+			else if (DEFLATE.equals(coding)) {
+				deflate = accepted;
+			}
+		}
+		
+		return gzip?GZIP:(deflate?DEFLATE:null);
+	}
+	
+	/**
+	 * 버퍼에 남은 응답 내용을 전송하고 압축 스트림을 종료한다.
+	 * 버퍼에 담긴 상태이면 이때 ETag 생성, 304 응답, 압축 여부를 결정한다.
+	 */
+	public void finish() throws IOException {
+		if (writer != null) {
+			// writer 에 남은 문자들을 버퍼로 옮긴다. 이때는 전송을 시작하지 않는다.
+			finishing = true;
+			writer.flush();
+		}
+		
+		if (state == STATE_BUFFERING) {
+			state = STATE_FINISHED;
+			if (count == 0) {
+				if (contentLength >= 0) {
+					super.setContentLengthLong(contentLength);
+				}
+				return;
+			}
+			
+			if (etagMaxSize > 0 && getStatus() == HttpServletResponse.SC_OK) {
+				String etag = super.getHeader("ETag");
+				if (etag == null) {
+					etag = generateETag(buf, count);
+					super.setHeader("ETag", etag);
+				}
+				if (matchesIfNoneMatch(request.getHeader("If-None-Match"), etag)) {
+					super.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
+			}
+			
+			if (count >= threshold && isCompressible()) {
+				startCompression();
+				out.write(buf, 0, count);
+				out.close();
+			}
+			else {
+				super.setContentLength(count);
+				if (count > 0) {
+					super.getOutputStream().write(buf, 0, count);
+				}
+			}
+		}
+		else if (state == STATE_STREAMING) {
+			state = STATE_FINISHED;
+			out.close();
+		}
+	}
+	
+	/**
+	 * 처리 중 오류가 발생한 경우에 호출한다. 버퍼에 담긴 내용은 버리며, 이미 압축하여 전송 중이면 압축 스트림만 종료한다.
+	 */
+	public void discard() throws IOException {
+		if (state == STATE_STREAMING) {
+			out.close();
+		}
+		state = STATE_FINISHED;
+		count = 0;
+	}
+	
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (state == STATE_BYPASS) {
+			return super.getOutputStream();
+		}
+		if (writer != null) {
+			throw new IllegalStateException("getWriter() has already been called.");
+		}
+		if (stream == null) {
+			stream = new BufferingOutputStream();
+		}
+		return stream;
+	}
+	
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (state == STATE_BYPASS) {
+			return super.getWriter();
+		}
+		if (writer == null) {
+			if (stream != null) {
+				throw new IllegalStateException("getOutputStream() has already been called.");
+			}
+			stream = new BufferingOutputStream();
+			writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+		}
+		return writer;
+	}
+	
+	@Override
+	public void flushBuffer() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (stream != null) {
+			stream.flush();
+		}
+		else {
+			super.flushBuffer();
+		}
+	}
+	
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		if (state == STATE_BUFFERING) {
+			count = 0;
+		}
+	}
+	
+	@Override
+	public void reset() {
+		super.reset();
+		if (state == STATE_BUFFERING) {
+			count = 0;
+			contentLength = -1;
+		}
+	}
+	
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		bypass();
+		super.sendError(sc, msg);
+	}
+	
+	@Override
+	public void sendError(int sc) throws IOException {
+		bypass();
+		super.sendError(sc);
+	}
+	
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		bypass();
+		super.sendRedirect(location);
+	}
+	
+	@Override
+	public void setContentLength(int len) {
+		setContentLengthLong(len);
+	}
+	
+	@Override
+	public void setContentLengthLong(long len) {
+		if (state == STATE_BYPASS) {
+			super.setContentLengthLong(len);
+		}
+		else {
+			// 압축하면 길이가 달라지므로 전송할 때 지정한다.
+			contentLength = len;
+		}
+	}
+	
+	@Override
+	public void setHeader(String name, String value) {
+		if ("Content-Length".equalsIgnoreCase(name) && state != STATE_BYPASS) {
+			contentLength = (value == null)?-1:Long.parseLong(value.trim());
+			return;
+		}
+		super.setHeader(name, value);
+	}
+	
+	@Override
+	public void addHeader(String name, String value) {
+		if ("Content-Length".equalsIgnoreCase(name) && state != STATE_BYPASS) {
+			contentLength = (value == null)?-1:Long.parseLong(value.trim());
+			return;
+		}
+		super.addHeader(name, value);
+	}
+	
+	@Override
+	public void setIntHeader(String name, int value) {
+		if ("Content-Length".equalsIgnoreCase(name) && state != STATE_BYPASS) {
+			contentLength = value;
+			return;
+		}
+		super.setIntHeader(name, value);
+	}
+	
+	// 버퍼링 없이 원래의 응답을 사용하도록 한다.
+	private void bypass() throws IOException {
+		if (state == STATE_STREAMING) {
+			out.flush();
+		}
+		state = STATE_BYPASS;
+		count = 0;
+	}
+	
+	// 버퍼가 넘치거나 flush 되면 압축 여부를 결정하고 버퍼의 내용을 전송한다. ETag 는 생성하지 않는다.
+	private void startStreaming(boolean compress) throws IOException {
+		if (compress && isCompressible()) {
+			startCompression();
+		}
+		else {
+			if (contentLength >= 0) {
+				super.setContentLengthLong(contentLength);
+			}
+			out = super.getOutputStream();
+		}
+		state = STATE_STREAMING;
+		
+		if (count > 0) {
+			out.write(buf, 0, count);
+			count = 0;
+		}
+	}
+	
+	private void startCompression() throws IOException {
+		super.setHeader("Content-Encoding", encoding);
+		super.addHeader("Vary", "Accept-Encoding");
+		String etag = super.getHeader("ETag");
+		if (etag != null && !etag.startsWith("W/")) {
+			// 압축하면 내용이 달라지므로 strong ETag 는 weak ETag 로 바꾼다.
+			super.setHeader("ETag", "W/" + etag);
+		}
+		
+		if (GZIP.equals(encoding)) {
+			out = new GZIPOutputStream(super.getOutputStream(), 8192, true);
+		}
+		else {
+			out = new DeflaterOutputStream(super.getOutputStream(), new Deflater(), 8192, true);
+		}
+	}
+	
+	private boolean isCompressible() {
+		if (encoding == null || getStatus() != HttpServletResponse.SC_OK || super.containsHeader("Content-Encoding")) {
+			return false;
+		}
+		if (contentLength >= 0 && contentLength < threshold) {
+			return false;
+		}
+		
+		String contentType = getContentType();
+		if (contentType == null) {
+			return false;
+		}
+		int idx = contentType.indexOf(';');
+		if (idx >= 0) {
+			contentType = contentType.substring(0, idx);
+		}
+		
+		return compressTypes.contains(contentType.trim().toLowerCase());
+	}
+	
+	// ETag 를 생성할 경우에는 etagMaxSize 까지, 아니면 threshold 까지 버퍼에 담는다.
+	private int bufferLimit() {
+		return (etagMaxSize > 0 && getStatus() == HttpServletResponse.SC_OK)?Math.max(etagMaxSize, threshold):threshold;
+	}
+	
+	private void write(byte[] b, int off, int len) throws IOException {
+		if (state == STATE_BUFFERING) {
+			if (count + len <= bufferLimit()) {
+				if (count + len > buf.length) {
+					buf = Arrays.copyOf(buf, Math.min(Math.max(buf.length * 2, count + len), bufferLimit()));
+				}
+				System.arraycopy(b, off, buf, count, len);
+				count += len;
+				return;
+			}
+			startStreaming(true);
+		}
+		
+		if (state == STATE_STREAMING) {
+			out.write(b, off, len);
+		}
+		else if (state == STATE_BYPASS) {
+			super.getOutputStream().write(b, off, len);
+		}
+		else {
+			throw new IOException("response is already finished.");
+		}
+	}
+	
+	private void flush() throws IOException {
+		if (state == STATE_BUFFERING) {
+			if (etagMaxSize > 0 || finishing) {
+				return; // ETag 를 생성하기 위해 finish() 까지 버퍼에 담아둔다.
+			}
+			// 명시적으로 flush 하면 바로 전송하며, 이때까지의 크기가 threshold 보다 작으면 압축하지 않는다.
+			startStreaming(count >= threshold);
+		}
+		
+		if (state == STATE_STREAMING) {
+			out.flush();
+		}
+		else if (state == STATE_BYPASS) {
+			super.getOutputStream().flush();
+		}
+	}
+	
+	/**
+	 * 응답 내용의 해시(MD5)로 weak ETag 를 생성한다.
+	 */
+	static String generateETag(byte[] data, int len) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			md.update(data, 0, len);
+			byte[] digest = md.digest();
+			
+			StringBuilder sb = new StringBuilder(digest.length * 2 + 4);
+			sb.append("W/\"");
+			for(int i=0;i<digest.length;i++) {
+				sb.append(Character.forDigit((digest[i] >> 4) & 0x0f, 16));
+				sb.append(Character.forDigit(digest[i] & 0x0f, 16));
+			}
+			sb.append('"');
+			
+			return sb.toString();
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+	
+	/**
+	 * If-None-Match 헤더 값에 ETag 가 포함되어 있는지 weak 비교로 확인한다.
+	 */
+	static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null || etag == null) {
+			return false;
+		}
+		
+		String opaque = stripWeak(etag);
+		String[] tags = ifNoneMatch.split(",");
+		for(int i=0;i<tags.length;i++) {
+			String tag = tags[i].trim();
+			if ("*".equals(tag) || opaque.equals(stripWeak(tag))) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private static String stripWeak(String etag) {
+		return etag.startsWith("W/")?etag.substring(2):etag;
+	}
+	
+	private class BufferingOutputStream extends ServletOutputStream {
+		private final byte[] one = new byte[1];
+		
+		@Override
+		public void write(int b) throws IOException {
+			one[0] = (byte)b;
+			CompressionResponseWrapper.this.write(one, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			CompressionResponseWrapper.this.write(b, off, len);
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			CompressionResponseWrapper.this.flush();
+		}
+		
+		@Override
+		public void close() throws IOException {
+			// 응답은 finish() 에서 종료한다.
+		}
+		
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+		
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			throw new UnsupportedOperationException("non-blocking write is not supported.");
+		}
+	}
+}
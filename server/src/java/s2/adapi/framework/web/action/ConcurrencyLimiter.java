@@ -0,0 +1,213 @@
+package s2.adapi.framework.web.action;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 동시에 실행되는 요청 수를 제한하는 limiter 이다. 제한 값은 다음의 알고리즘 중 하나로 결정한다.
+ * </p>
+ * <ul>
+ * <li> fixed : 최대 값(maxLimit)으로 고정한다.
+ * <li> aimd : 처리 시간이 latency 보다 길거나 시간 초과(drop)가 발생하면 제한 값을 10% 줄이고,
+ *      그렇지 않으면 1 씩 늘린다. (Additive Increase Multiplicative Decrease)
+ * <li> gradient : 최소 처리 시간과 최근 처리 시간의 비율(gradient)로 제한 값을 조정한다.
+ *      처리 시간이 늘어나면(대기가 발생하면) 제한 값을 줄이고, 처리 시간이 최소 처리 시간에 가까우면 sqrt(limit) 만큼 여유를 두고 늘린다.
+ *      최소 처리 시간은 500 개 sample 마다 다시 측정하므로 서비스 자체가 느려진 경우에도 따라간다.
+ * </ul>
+ * <p>
+ * 제한 값은 실행 중인 요청 수가 제한 값의 절반 이상일 때만 늘린다. 즉 부하가 적을 때 제한 값이 한없이 커지지 않는다.
+ * </p>
+ * @author 김형도
+ * @see WebActionLimits
+ */
+public class ConcurrencyLimiter {
+	
+	public static final String FIXED = "fixed";
+	public static final String AIMD = "aimd";
+	public static final String GRADIENT = "gradient";
+	
+	private static final double AIMD_BACKOFF = 0.9;
+	private static final double GRADIENT_TOLERANCE = 1.5;
+	private static final double GRADIENT_SMOOTHING = 0.2;
+	private static final double SHORT_RTT_FACTOR = 0.2; // 최근 처리 시간 (약 10개 sample)
+	private static final int MIN_RTT_WINDOW = 500; // 최소 처리 시간을 다시 측정하는 sample 수
+	
+	private final String name;
+	private final String algorithm;
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyNanos;
+	
+	private volatile int limit;
+	private double estimatedLimit;
+	private double shortRtt = 0;
+	private long minRtt = 0;
+	private long windowMinRtt = Long.MAX_VALUE;
+	private int windowSamples = 0;
+	
+	private final AtomicInteger inFlight = new AtomicInteger(0);
+	private final AtomicLong accepted = new AtomicLong(0);
+	private final AtomicLong rejected = new AtomicLong(0);
+	private final AtomicLong dropped = new AtomicLong(0);
+	
+	/**
+	 * @param name 명칭 (서비스 명)
+	 * @param algorithm fixed, aimd, gradient
+	 * @param initialLimit 최초 제한 값
+	 * @param minLimit 최소 제한 값
+	 * @param maxLimit 최대 제한 값
+	 * @param latencyMillis aimd 에서 제한 값을 줄이는 처리 시간(ms)
+	 */
+	public ConcurrencyLimiter(String name, String algorithm, int initialLimit, int minLimit, int maxLimit,
+			long latencyMillis) {
+		if (!FIXED.equals(algorithm) && !AIMD.equals(algorithm) && !GRADIENT.equals(algorithm)) {
+			throw new IllegalArgumentException("unknown limit algorithm [" + algorithm + "]");
+		}
+		
+		this.name = name;
+		this.algorithm = algorithm;
+		this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+		this.maxLimit = Math.max(1, maxLimit);
+		this.latencyNanos = latencyMillis * 1000000L;
+		
+		int initial = FIXED.equals(algorithm)?this.maxLimit:Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+		this.limit = initial;
+		this.estimatedLimit = initial;
+	}
+	
+	/**
+	 * 실행 중인 요청 수가 제한 값보다 작으면 실행 중인 요청 수를 늘리고 true 를 반환한다.
+	 * 제한 값에 도달하였으면 거절 횟수를 늘리고 false 를 반환한다.
+	 */
+	public boolean tryAcquire() {
+		while(true) {
+			int current = inFlight.get();
+			if (current >= limit) {
+				rejected.incrementAndGet();
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				accepted.incrementAndGet();
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * tryAcquire() 로 시작한 요청의 처리가 끝나면 호출하여 처리 시간을 반영한다.
+	 * @param rttNanos 처리 시간(ns)
+	 * @param drop 시간 초과 등으로 정상 처리되지 못하였으면 true
+	 */
+	public void release(long rttNanos, boolean drop) {
+		int current = inFlight.getAndDecrement();
+		if (drop) {
+			dropped.incrementAndGet();
+		}
+		
+		if (!FIXED.equals(algorithm)) {
+			update(rttNanos, current, drop);
+		}
+	}
+	
+	/**
+	 * tryAcquire() 로 시작한 요청을 처리 시간 반영없이 종료한다.
+	 */
+	public void cancel() {
+		inFlight.decrementAndGet();
+	}
+	
+	private synchronized void update(long rtt, int current, boolean drop) {
+		if (AIMD.equals(algorithm)) {
+			if (drop || rtt > latencyNanos) {
+				estimatedLimit = estimatedLimit * AIMD_BACKOFF;
+			}
+			else if (current * 2 >= estimatedLimit) {
+				estimatedLimit = estimatedLimit + 1;
+			}
+		}
+		else {
+			rtt = Math.max(1, rtt);
+			if (minRtt == 0) {
+				shortRtt = rtt;
+			}
+			shortRtt = shortRtt + (rtt - shortRtt) * SHORT_RTT_FACTOR;
+			
+			if (minRtt == 0 || rtt < minRtt) {
+				minRtt = rtt;
+			}
+			windowMinRtt = Math.min(windowMinRtt, rtt);
+			if (++windowSamples >= MIN_RTT_WINDOW) {
+				minRtt = windowMinRtt;
+				windowMinRtt = Long.MAX_VALUE;
+				windowSamples = 0;
+			}
+			
+			if (drop) {
+				estimatedLimit = estimatedLimit * AIMD_BACKOFF;
+			}
+			else if (current * 2 >= estimatedLimit) {
+				double gradient = Math.max(0.5, Math.min(1.0, GRADIENT_TOLERANCE * minRtt / shortRtt));
+				double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+				estimatedLimit = estimatedLimit * (1 - GRADIENT_SMOOTHING) + newLimit * GRADIENT_SMOOTHING;
+			}
+		}
+		
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+		limit = (int)estimatedLimit;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public String getAlgorithm() {
+		return algorithm;
+	}
+	
+	/**
+	 * 현재의 제한 값
+	 */
+	public int getLimit() {
+		return limit;
+	}
+	
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+	
+	/**
+	 * 실행 중인 요청 수
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+	
+	/**
+	 * 허용된 요청 수
+	 */
+	public long getAccepted() {
+		return accepted.get();
+	}
+	
+	/**
+	 * 제한 값을 넘어 거절된 요청 수
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+	
+	/**
+	 * 시간 초과 등으로 정상 처리되지 못한 요청 수
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+	
+	/**
+	 * gradient 에서 사용하는 최근 처리 시간(ms), 다른 알고리즘은 0 이다.
+	 */
+	public synchronized double getRecentLatency() {
+		return shortRtt / 1000000.0;
+	}
+}
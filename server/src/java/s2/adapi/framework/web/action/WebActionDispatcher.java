@@ -4,12 +4,22 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,11 +32,14 @@ import s2.adapi.framework.config.Configurator;
 import s2.adapi.framework.config.ConfiguratorException;
 import s2.adapi.framework.config.ConfiguratorFactory;
 import s2.adapi.framework.container.ServiceContainer;
+import s2.adapi.framework.context.ContextExecutors;
 import s2.adapi.framework.context.ContextManager;
 import s2.adapi.framework.resources.Messages;
 import s2.adapi.framework.util.ObjectHelper;
 import s2.adapi.framework.util.StringHelper;
 import s2.adapi.framework.util.UrlPatternMatcher;
+import s2.adapi.framework.web.metrics.ActionMetrics;
+import s2.adapi.framework.web.metrics.WebActionMetrics;
 import s2.adapi.framework.web.upload.MultipartRequestWrapper;
 
 
@@ -80,6 +93,32 @@ import s2.adapi.framework.web.upload.MultipartRequestWrapper;
  * <li>s2adapi.web.upload.encoding : Multipart request의 경우 적용할 encoding 값을 설정한다. 설정하지않으면
  *  s2adapi-config.properties 파일에 s2adapi.web.upload.encoding 으로 지정된 값을 사용한다.
  * </ul>
+ * 첨부파일의 임시 파일 저장은 s2adapi-config.properties 파일의 다음 값으로 설정한다.
+ * <ul>
+ * <li>s2adapi.web.upload.threshold : 첨부파일을 메모리에 보관할 최대 크기(bytes)를 지정한다. 이보다 큰 첨부파일은 임시 파일로 저장되며
+ *  요청 처리가 끝나면 삭제된다. (디폴트 값: 262144)
+ * </ul>
+ * 응답 압축과 ETag 생성은 s2adapi-config.properties 파일의 다음 값으로 설정한다. ({@link CompressionResponseWrapper} 참고)
+ * <ul>
+ * <li>s2adapi.web.compress.enabled : 클라이언트가 지원하면(Accept-Encoding) 응답을 gzip 또는 deflate 로 압축한다. (디폴트 값: false)
+ * <li>s2adapi.web.compress.threshold : 압축할 최소 응답 크기(bytes) (디폴트 값: 1024)
+ * <li>s2adapi.web.compress.types : 압축할 Content-Type 목록 (콤마로 구분)
+ * <li>s2adapi.web.etag.enabled : GET 요청의 응답에 weak ETag 를 생성하고 If-None-Match 가 일치하면 304 로 응답한다. (디폴트 값: false)
+ * <li>s2adapi.web.etag.maxsize : ETag 를 생성할 최대 응답 크기(bytes), 이 크기까지 응답을 버퍼에 담는다. (디폴트 값: 1048576)
+ * </ul>
+ * 실행 시간이 긴 WebAction 의 비동기 처리는 s2adapi-config.properties 파일의 다음 값으로 설정한다. ({@link AsyncWebAction} 참고)
+ * <ul>
+ * <li>s2adapi.web.async.enabled : AsyncWebAction 을 구현하였거나 s2adapi.web.async.services 에 지정된 WebAction 을
+ *  Servlet 비동기 모드로 별도 쓰레드 풀에서 실행한다. (디폴트 값: false)
+ * <li>s2adapi.web.async.services : 비동기로 실행할 WebAction 서비스 명 목록 (콤마로 구분)
+ * <li>s2adapi.web.async.threads : 비동기 실행 쓰레드 수 (디폴트 값: 20)
+ * <li>s2adapi.web.async.queue : 실행 쓰레드가 모두 사용 중일 때 대기할 수 있는 요청 수, 이를 넘으면 503 으로 응답한다. (디폴트 값: 100)
+ * <li>s2adapi.web.async.virtual : true 이면 Java 21 이상에서 virtual thread 를 사용한다.
+ *  이때도 동시에 실행되는 요청 수는 threads + queue 로 제한된다. (디폴트 값: false)
+ * <li>s2adapi.web.async.timeout : 비동기 처리 제한 시간(ms), 넘으면 실행 쓰레드를 interrupt 하고 503 으로 응답한다. (디폴트 값: 60000)
+ * </ul>
+ * s2adapi.web.limit.enabled 가 true 이면 WebAction 서비스별 동시 실행 요청 수를 제한하며,
+ * 제한 값을 넘는 요청은 첨부파일 처리나 preProcess() 전에 바로 거절한다. ({@link WebActionLimits} 참고)
  * 또한, &lt;servlet-mapping&gt;으로 처리할 URI 패턴을 지정하여 특정 URI 패턴에 대하여 처리하도록 설정한다.
  * <pre>작성예)
  *  &lt;servlet&gt;
@@ -128,6 +167,10 @@ import s2.adapi.framework.web.upload.MultipartRequestWrapper;
  * <li>diag.web.action.rtime : WebActionDisaptcher의 service() 실행 시간
  * </ul>
  * </p>
+ * <p>
+ * 또한 WebAction 서비스별 요청 건수, 오류 건수, 실행 중인 요청 수, 처리 시간 분포를 {@link WebActionMetrics} 에 기록한다.
+ * diag.web.action.rtime 은 여기에 기록되는 처리 시간과 같은 값이며, s2adapi.web.metrics.enabled 를 false 로 지정하면 기록하지 않는다.
+ * </p>
  * @author 김형도
  * @since 4.0
  * @see WebApplicationContextLoader
@@ -172,8 +215,52 @@ public class WebActionDispatcher extends HttpServlet {
 
     private static final int DEFAULT_ATTACH_FILE_MAXSIZE = 10000000;
 
-    private int attachFileSizeLimit = DEFAULT_ATTACH_FILE_MAXSIZE;
+    private long attachFileSizeLimit = DEFAULT_ATTACH_FILE_MAXSIZE;
+    
+    /**
+     * 첨부파일을 메모리에 보관할 최대 크기를 설정하기 위한 키값
+     */
+    private static final String WEB_UPLOAD_THRESHOLD_KEY = "s2adapi.web.upload.threshold";
+    
+    private static final int DEFAULT_ATTACH_MEMORY_THRESHOLD = 256 * 1024;
+    
+    private int attachMemoryThreshold = DEFAULT_ATTACH_MEMORY_THRESHOLD;
 
+    private static final String WEB_COMPRESS_ENABLED_KEY = "s2adapi.web.compress.enabled";
+    private static final String WEB_COMPRESS_THRESHOLD_KEY = "s2adapi.web.compress.threshold";
+    private static final String WEB_COMPRESS_TYPES_KEY = "s2adapi.web.compress.types";
+    private static final String WEB_ETAG_ENABLED_KEY = "s2adapi.web.etag.enabled";
+    private static final String WEB_ETAG_MAXSIZE_KEY = "s2adapi.web.etag.maxsize";
+    
+    private static final String DEFAULT_COMPRESS_TYPES = "text/html,text/plain,text/xml,text/css,text/javascript,"
+            + "application/json,application/javascript,application/xml";
+    
+    private boolean compressEnabled = false;
+    private int compressThreshold = 1024;
+    private Set<String> compressTypes = new HashSet<String>();
+    private boolean etagEnabled = false;
+    private int etagMaxSize = 1024 * 1024;
+    
+    private static final String WEB_ASYNC_ENABLED_KEY = "s2adapi.web.async.enabled";
+    private static final String WEB_ASYNC_SERVICES_KEY = "s2adapi.web.async.services";
+    private static final String WEB_ASYNC_THREADS_KEY = "s2adapi.web.async.threads";
+    private static final String WEB_ASYNC_QUEUE_KEY = "s2adapi.web.async.queue";
+    private static final String WEB_ASYNC_VIRTUAL_KEY = "s2adapi.web.async.virtual";
+    private static final String WEB_ASYNC_TIMEOUT_KEY = "s2adapi.web.async.timeout";
+    
+    private boolean asyncEnabled = false;
+    private Set<String> asyncServices = new HashSet<String>();
+    private int asyncThreads = 20;
+    private int asyncQueue = 100;
+    private boolean asyncVirtual = false;
+    private long asyncTimeout = 60000L;
+    
+    /**
+     * 비동기 WebAction 을 실행할 ExecutorService 와 동시 실행(대기 포함) 요청 수를 제한하기 위한 Semaphore 이다.
+     */
+    private ExecutorService asyncExecutor = null;
+    private Semaphore asyncPermits = null;
+    
     /**
      * WebActionDispatcher 명령들 중 현재 설정 상태를 출력하는 명령이다.
      */
@@ -213,7 +300,7 @@ public class WebActionDispatcher extends HttpServlet {
         String attachFileMaxSize = getInitParameter(ATTACH_FILE_MAXSIZE_KEY);
         if (!StringHelper.isNull(attachFileMaxSize)) {
             try {
-                attachFileSizeLimit = Integer.parseInt(attachFileMaxSize);
+                attachFileSizeLimit = Long.parseLong(attachFileMaxSize);
             } 
             catch (Exception ex) {
                 log.error("failed to set attach file size, use default value.",ex);
@@ -221,7 +308,7 @@ public class WebActionDispatcher extends HttpServlet {
             }
         }
         log.info("attach file max size : "+attachFileSizeLimit);
-
+        
         // Exception 처리 클래스 등록
         String exceptionHandlerClass = getInitParameter(EXCEPTION_HANDLER_KEY);
         if (!StringHelper.isNull(exceptionHandlerClass)) {
@@ -237,9 +324,47 @@ public class WebActionDispatcher extends HttpServlet {
             // 2024.10.15 euc-kr -> utf-8 로 변경
             defaultCharacterEncoding = configurator.getString(WEB_DEFAULT_ENCODING_KEY,"utf-8");
             defaultUploadEncoding = configurator.getString(WEB_UPLOAD_ENCODING_KEY,"utf-8");
+            
+            // 첨부파일을 메모리에 보관할 최대 크기 설정
+            attachMemoryThreshold = configurator.getInt(WEB_UPLOAD_THRESHOLD_KEY, DEFAULT_ATTACH_MEMORY_THRESHOLD);
+            log.info("attach file memory threshold : "+attachMemoryThreshold);
+            
+            // 응답 압축 및 ETag 설정
+            compressEnabled = configurator.getBoolean(WEB_COMPRESS_ENABLED_KEY, false);
+            compressThreshold = configurator.getInt(WEB_COMPRESS_THRESHOLD_KEY, 1024);
+            String types = configurator.getString(WEB_COMPRESS_TYPES_KEY, DEFAULT_COMPRESS_TYPES);
+            for(String type : types.split(",")) {
+                if (type.trim().length() > 0) {
+                    compressTypes.add(type.trim().toLowerCase());
+                }
+            }
+            etagEnabled = configurator.getBoolean(WEB_ETAG_ENABLED_KEY, false);
+            etagMaxSize = configurator.getInt(WEB_ETAG_MAXSIZE_KEY, 1024 * 1024);
+            
+            // 비동기 처리 설정
+            asyncEnabled = configurator.getBoolean(WEB_ASYNC_ENABLED_KEY, false);
+            String services = configurator.getString(WEB_ASYNC_SERVICES_KEY, "");
+            for(String service : services.split(",")) {
+                if (service.trim().length() > 0) {
+                    asyncServices.add(service.trim());
+                }
+            }
+            asyncThreads = configurator.getInt(WEB_ASYNC_THREADS_KEY, 20);
+            asyncQueue = configurator.getInt(WEB_ASYNC_QUEUE_KEY, 100);
+            asyncVirtual = configurator.getBoolean(WEB_ASYNC_VIRTUAL_KEY, false);
+            asyncTimeout = configurator.getLong(WEB_ASYNC_TIMEOUT_KEY, 60000L);
         } 
         catch (ConfiguratorException e) {
         }
+        log.info("response compression : "+compressEnabled+", etag : "+etagEnabled);
+        log.info("web action concurrency limit : "+WebActionLimits.isEnabled());
+        
+        if (asyncEnabled) {
+            asyncExecutor = ContextExecutors.newExecutor("s2adapi-web-async", asyncThreads, asyncVirtual);
+            asyncPermits = new Semaphore(asyncThreads + asyncQueue);
+            log.info("async web action : threads "+asyncThreads+", queue "+asyncQueue+", virtual "+asyncVirtual
+                    +", timeout "+asyncTimeout+"ms");
+        }
 
         // default character encoding 값 및 default upload encoding 설정
         String encoding = null;
@@ -276,6 +401,13 @@ public class WebActionDispatcher extends HttpServlet {
 //            }
 //        }
     }
+    
+    public void destroy() {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+        }
+        super.destroy();
+    }
 
     protected void doGet(HttpServletRequest request,
             HttpServletResponse response) throws ServletException, IOException {
@@ -354,18 +486,48 @@ public class WebActionDispatcher extends HttpServlet {
     protected void process(HttpServletRequest request,
             HttpServletResponse response) throws ServletException, IOException {
         long stime = System.currentTimeMillis();
-        Object svcObject = null;
+        long snanos = System.nanoTime();
         String svcName = null;
-        WebActionForward forward = null;
-
-        Map<String,Object> diagMap = ContextManager.getDiagnosticContext(); // Diagnostic Context
+        if (WebActionLimits.isEnabled() || asyncExecutor != null) {
+            svcName = resolveServiceName(request);
+        }
+        
+        // 동시 실행 요청 수 제한을 넘으면 WebAction 을 실행하지 않고 바로 거절한다.
+        WebActionLimits.Permit permit = null;
+        if (WebActionLimits.isEnabled()) {
+            permit = WebActionLimits.acquire(svcName);
+            if (permit == null) {
+                rejectRequest(request, response, svcName);
+                return;
+            }
+        }
+        
+        boolean handedOff = false;
+        try {
+            handedOff = processRequest(request, response, svcName, permit, stime, snanos);
+        }
+        finally {
+            if (permit != null && !handedOff) {
+                permit.release(false);
+            }
+        }
+    }
+    
+    /**
+     * 첨부파일 및 응답 압축을 처리한 후 WebAction 을 실행한다.
+     * @return 비동기 처리로 넘겨서 permit 을 비동기 처리 쪽에서 반환하는 경우 true
+     */
+    private boolean processRequest(HttpServletRequest request, HttpServletResponse response,
+            String svcName, WebActionLimits.Permit permit, long stime, long snanos) throws ServletException, IOException {
+        MultipartRequestWrapper multipartRequest = null;
 
         // multipart request 인 경우에 업로드된 파일을 FormFile 객체로 처리하여 request내에 저장한다.
         // 2010.10.20 노준훈 수정 : multipart request max fileupload size limit가 0 이하인 경우 MultipartRequestWrapper을 사용하지 않음.
         if (MultipartRequestWrapper.isMultipart(request)&& 0 < attachFileSizeLimit) {
-            request = new MultipartRequestWrapper(request,defaultUploadEncoding)
+            multipartRequest = new MultipartRequestWrapper(request,defaultUploadEncoding)
                     .parseMultipart(getServletConfig().getServletContext(),
-                            attachFileSizeLimit);
+                            attachFileSizeLimit, attachMemoryThreshold);
+            request = multipartRequest;
         } else {
             // default character set 인코딩을 설정한다.
             if (request.getCharacterEncoding() == null) {
@@ -381,6 +543,218 @@ public class WebActionDispatcher extends HttpServlet {
                 }
             }
         }
+        
+        // 응답 압축 또는 ETag 생성이 필요하면 응답을 버퍼링하는 wrapper 를 사용한다.
+        HttpServletResponse originalResponse = response;
+        CompressionResponseWrapper compressionResponse = createCompressionResponse(request, response);
+        if (compressionResponse != null) {
+            response = compressionResponse;
+        }
+        
+        // 비동기 처리 대상이면 별도 쓰레드에서 실행하고 요청 처리 쓰레드는 바로 반환한다.
+        if (isAsyncAction(request, svcName)) {
+            return startAsync(request, response, originalResponse, compressionResponse, multipartRequest, permit,
+                    stime, snanos);
+        }
+        
+        boolean completed = false;
+        try {
+            dispatch(request, response, stime, snanos, false);
+            completed = true;
+        }
+        finally {
+            try {
+                if (compressionResponse != null) {
+                    if (completed) {
+                        compressionResponse.finish();
+                    }
+                    else {
+                        compressionResponse.discard();
+                    }
+                }
+            }
+            finally {
+                // 임시 파일로 저장된 첨부파일을 삭제한다.
+                if (multipartRequest != null) {
+                    multipartRequest.cleanup();
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * 응답 압축이나 ETag 생성이 필요한 요청이면 CompressionResponseWrapper 를 생성한다.
+     * 압축은 Accept-Encoding 으로 gzip 또는 deflate 를 지원하는 경우, ETag 는 GET 요청인 경우에 적용한다.
+     * @return 필요하지 않으면 null
+     */
+    protected CompressionResponseWrapper createCompressionResponse(HttpServletRequest request,
+            HttpServletResponse response) {
+        String encoding = compressEnabled?CompressionResponseWrapper.selectEncoding(request.getHeader("Accept-Encoding")):null;
+        boolean etag = etagEnabled && ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()));
+        if (encoding == null && !etag) {
+            return null;
+        }
+        
+        return new CompressionResponseWrapper(request, response, encoding, compressThreshold, compressTypes,
+                etag?etagMaxSize:0);
+    }
+    
+    /**
+     * 요청 URI 에 해당하는 WebAction 서비스 명을 찾는다. dispatch() 와 같이 정확한 서비스 명이 없으면 패턴으로 찾는다.
+     * @return 찾지 못하면 null
+     */
+    private String resolveServiceName(HttpServletRequest request) {
+        if (webappContext == null) {
+            return null;
+        }
+        
+        try {
+            ServiceContainer serviceContainer = webappContext.getServiceContainer();
+            String uriValue = request.getRequestURI();
+            String svcName = getServiceName(uriValue);
+            if (!serviceContainer.containsService(svcName)) {
+                svcName = UrlPatternMatcher.getBestMatched(uriValue.substring(contextPath.length()),
+                        serviceContainer.getPatternServiceNames());
+            }
+            
+            return svcName;
+        }
+        catch (Exception ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * 동시 실행 요청 수 제한을 넘은 요청을 s2adapi.web.limit.status 로 응답한다.
+     */
+    private void rejectRequest(HttpServletRequest request, HttpServletResponse response, String svcName)
+            throws IOException {
+        if (log.isDebugEnabled()) {
+            log.debug("too many concurrent requests, rejected. ["+svcName+"] "+request.getRequestURI());
+        }
+        
+        int status = WebActionLimits.getRejectStatus();
+        if (status == HttpServletResponse.SC_SERVICE_UNAVAILABLE || status == 429) {
+            response.setHeader("Retry-After", "1");
+        }
+        response.sendError(status);
+    }
+    
+    /**
+     * 비동기로 실행할 WebAction 에 대한 요청인지 확인한다.
+     * WebAction 을 찾지 못하는 경우에는 동기 방식으로 처리하여 오류를 처리하도록 false 를 반환한다.
+     */
+    private boolean isAsyncAction(HttpServletRequest request, String svcName) {
+        if (asyncExecutor == null || svcName == null || !request.isAsyncSupported()) {
+            return false;
+        }
+        
+        try {
+            return asyncServices.contains(svcName)
+                    || (webappContext.getServiceContainer().getService(svcName) instanceof AsyncWebAction);
+        }
+        catch (Exception ex) {
+            return false;
+        }
+    }
+    
+    /**
+     * 요청을 Servlet 비동기 모드로 전환하고 WebAction 의 실행을 비동기 실행 쓰레드 풀에 넘긴다.
+     * 대기 중인 요청 수가 제한을 넘거나 실행 쓰레드 풀에 넘길 수 없으면 503 으로 응답한다.
+     * @return permit 을 비동기 처리 쪽에서 반환하는 경우 true
+     */
+    private boolean startAsync(HttpServletRequest request, HttpServletResponse response,
+            HttpServletResponse originalResponse, CompressionResponseWrapper compressionResponse,
+            MultipartRequestWrapper multipartRequest, WebActionLimits.Permit permit, long stime, long snanos)
+            throws IOException {
+        if (!asyncPermits.tryAcquire()) {
+            log.warn("too many async requests, rejected. ["+request.getRequestURI()+"]");
+            if (permit != null) {
+                permit.cancel();
+            }
+            try {
+                originalResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+            finally {
+                if (multipartRequest != null) {
+                    multipartRequest.cleanup();
+                }
+            }
+            return false;
+        }
+        
+        // View 로 dispatch 하는 경우에는 원래의 response 를 사용한다.
+        AsyncContext asyncContext = null;
+        try {
+            asyncContext = request.startAsync(request, originalResponse);
+        }
+        catch (RuntimeException ex) {
+            asyncPermits.release();
+            throw ex;
+        }
+        asyncContext.setTimeout(asyncTimeout);
+        
+        // 시간 초과 후에도 실행 쓰레드가 계속 실행될 수 있으므로 close() 후에는 컨테이너로 반환된 
+        // 요청과 응답을 사용하지 않도록 하는 wrapper 를 사용한다.
+        AsyncDispatchTask task = new AsyncDispatchTask(asyncContext, new AsyncRequestWrapper(request),
+                new AsyncResponseWrapper(response), originalResponse, compressionResponse, multipartRequest,
+                permit, stime, snanos);
+        asyncContext.addListener(task);
+        try {
+            task.future = asyncExecutor.submit(task);
+        }
+        catch (RejectedExecutionException ex) {
+            log.warn("async executor rejected the request. ["+request.getRequestURI()+"]");
+            task.reject();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * 비동기 실행 중 발생한 exception 을 처리한다. 
+     * doGet(), doPost() 와 같이 ExceptionHandler 로 처리하며, 처리되지 않은 exception 은 500 으로 응답한다.
+     */
+    private void handleAsyncException(Throwable thr, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            if (exceptionHandler != null) {
+                exceptionHandler.handle(thr,request,response);
+            } 
+            else {
+                handleException(thr,request,response);
+            }
+        }
+        catch (Throwable ex) {
+            try {
+                if (!response.isCommitted()) {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            }
+            catch (IOException ignored) {
+            }
+        }
+        log.error("",thr);
+    }
+    
+    /**
+     * 호출된 URI 에 해당하는 WebAction 을 찾아서 실행하고 결과 View 로 이동한다.
+     * 비동기 처리 중(async 가 true)이면 forward 는 하지 않고 WebActionForward 를 반환하며,
+     * 호출한 쪽에서 AsyncContext.dispatch() 로 처리한다.
+     * WebAction 의 처리 시간은 WebActionMetrics 에 기록하며 Diagnostic Context 에도 같은 값을 설정한다.
+     * @param stime 요청을 받은 시각(ms)
+     * @param snanos 요청을 받은 시점의 System.nanoTime() 값
+     */
+    private WebActionForward dispatch(HttpServletRequest request,
+            HttpServletResponse response, long stime, long snanos, boolean async) throws ServletException, IOException {
+        Object svcObject = null;
+        String svcName = null;
+        WebActionForward forward = null;
+        ActionMetrics actionMetrics = null;
+        boolean failed = true;
+        
+        Map<String,Object> diagMap = ContextManager.getDiagnosticContext(); // Diagnostic Context
 
         // request URI로부터 호출할 WebAction 객체의 서비스 명을 찾은 후 해당 서비스 객체를 가져온다.
         String uriValue = request.getRequestURI();
@@ -423,6 +797,11 @@ public class WebActionDispatcher extends HttpServlet {
 
                 diagMap.put("diag.web.action.target",svcName); // 2025.04.23 (restfull api 는 메소드명이 서비스명으로 들어가기때문에 여기로 위치 이동)
 
+                actionMetrics = WebActionMetrics.forName(svcName);
+                if (actionMetrics != null) {
+                    actionMetrics.begin();
+                }
+                
                 if (svcObject == null) {
                     // service not found
                     throw new ServletException(Messages.getMessages().
@@ -465,12 +844,22 @@ public class WebActionDispatcher extends HttpServlet {
                     // single action 처리
                     forward = processWebAction(webAction, request, response, diagMap);
                 }
+                failed = false;
             }
             finally {
+                long elapsed = System.nanoTime() - snanos;
+                if (actionMetrics != null) {
+                    actionMetrics.end(elapsed, failed);
+                }
+                else if (WebActionMetrics.isEnabled()) {
+                    // WebAction 을 찾지 못한 요청
+                    WebActionMetrics.forName(null).record(elapsed, true);
+                }
+                
                 // Diagnostic Context 설정
-                long etime = System.currentTimeMillis();
-                diagMap.put("diag.web.action.etime",etime);
-                diagMap.put("diag.web.action.rtime",(etime-stime));
+                long rtime = elapsed / 1000000L;
+                diagMap.put("diag.web.action.etime",stime + rtime);
+                diagMap.put("diag.web.action.rtime",rtime);
             }
 
             // 정상 처리시의 postProcess() 실행
@@ -502,6 +891,9 @@ public class WebActionDispatcher extends HttpServlet {
 
         // postProcess() 처리
         if ( forward != null ) {
+            if (async && forward.isForward()) {
+                return forward;
+            }
             forward.sendView(request, response);
             if (log.isDebugEnabled()) {
                 if (forward.isForward()) {
@@ -511,6 +903,8 @@ public class WebActionDispatcher extends HttpServlet {
                 }
             }
         }
+        
+        return null;
     }
 
     /**
@@ -646,6 +1040,12 @@ public class WebActionDispatcher extends HttpServlet {
         out.println("<ul>");
         out.println("<li> Class : " + this.getClass().getName());
         out.println("<li> Attached File Size Limit : " + attachFileSizeLimit);
+        out.println("<li> Response Compression : " + compressEnabled + " (threshold " + compressThreshold + ")");
+        out.println("<li> ETag : " + etagEnabled + " (max size " + etagMaxSize + ")");
+        out.println("<li> Async Web Action : " + asyncEnabled + " (threads " + asyncThreads + ", queue " + asyncQueue
+                + ", timeout " + asyncTimeout + ")");
+        out.println("<li> Web Action Concurrency Limit : " + WebActionLimits.isEnabled()
+                + " (status " + WebActionLimits.getRejectStatus() + ")");
         out.println("</ul></p>");
 
         out.println("<p>Framework Configurations<br>");
@@ -717,4 +1117,189 @@ public class WebActionDispatcher extends HttpServlet {
         }
         out.println("</ul></p>");
     }
+    
+    /**
+     * 비동기로 처리되는 요청 하나를 실행하고 완료, 시간 초과, 오류를 처리한다.
+     * 실행 쓰레드의 처리 완료와 시간 초과(또는 오류) 중 먼저 발생한 쪽에서만 응답을 완료한다.
+     */
+    private class AsyncDispatchTask implements Runnable, AsyncListener {
+        private final AsyncContext asyncContext;
+        private final AsyncRequestWrapper request;
+        private final String requestURI;
+        private final AsyncResponseWrapper response;
+        private final HttpServletResponse originalResponse;
+        private final CompressionResponseWrapper compressionResponse;
+        private final MultipartRequestWrapper multipartRequest;
+        private final WebActionLimits.Permit permit;
+        private final long stime;
+        private final long snanos;
+        
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        // 실행 쓰레드의 종료와 onComplete() 중 나중에 끝나는 쪽에서 첨부파일을 삭제한다.
+        private final AtomicInteger cleanupCount = new AtomicInteger(2);
+        private volatile boolean timedOut = false;
+        private volatile Future<?> future = null;
+        
+        AsyncDispatchTask(AsyncContext asyncContext, AsyncRequestWrapper request, AsyncResponseWrapper response,
+                HttpServletResponse originalResponse, CompressionResponseWrapper compressionResponse,
+                MultipartRequestWrapper multipartRequest, WebActionLimits.Permit permit, long stime, long snanos) {
+            this.asyncContext = asyncContext;
+            this.request = request;
+            this.requestURI = request.getRequestURI(); // close() 후에도 로그에 사용
+            this.response = response;
+            this.originalResponse = originalResponse;
+            this.compressionResponse = compressionResponse;
+            this.multipartRequest = multipartRequest;
+            this.permit = permit;
+            this.stime = stime;
+            this.snanos = snanos;
+        }
+        
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return; // 실행되기 전에 응답이 완료됨
+            }
+            try {
+                if (finished.get()) {
+                    return; // 실행되기 전에 시간 초과됨
+                }
+                
+                WebActionForward forward = null;
+                Throwable error = null;
+                try {
+                    forward = dispatch(request, response, stime, snanos, true);
+                }
+                catch (Throwable thr) {
+                    error = thr;
+                }
+                
+                if (finished.compareAndSet(false, true)) {
+                    complete(forward, error);
+                }
+                else if (error != null) {
+                    // 시간 초과 등으로 이미 응답이 완료되었다.
+                    log.error("async request already completed. ["+requestURI+"]",error);
+                }
+            }
+            finally {
+                release();
+                cleanup();
+            }
+        }
+        
+        private void complete(WebActionForward forward, Throwable error) {
+            boolean dispatched = false;
+            try {
+                if (error != null) {
+                    if (compressionResponse != null) {
+                        compressionResponse.discard();
+                    }
+                    handleAsyncException(error, request, originalResponse);
+                }
+                else if (forward != null) {
+                    // View 는 Servlet 컨테이너의 쓰레드에서 처리되도록 한다.
+                    if (compressionResponse != null) {
+                        compressionResponse.discard();
+                    }
+                    forward.dispatchView(request, asyncContext);
+                    dispatched = true;
+                    if (log.isDebugEnabled()) {
+                        log.debug("WebAction dispatched to "+forward.getViewURL());
+                    }
+                }
+                else if (compressionResponse != null) {
+                    compressionResponse.finish();
+                }
+            }
+            catch (Throwable thr) {
+                log.error("failed to complete async request. ["+requestURI+"]",thr);
+            }
+            finally {
+                if (!dispatched) {
+                    asyncContext.complete();
+                }
+            }
+        }
+        
+        /**
+         * 실행 쓰레드 풀에 넘기지 못한 경우 503 으로 응답한다.
+         */
+        void reject() {
+            finished.set(true);
+            if (permit != null) {
+                permit.cancel();
+            }
+            abort(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        
+        // 실행 중인 쓰레드를 interrupt 하고 응답을 완료한다.
+        private void abort(int status) {
+            if (future != null) {
+                future.cancel(true);
+            }
+            // 실행 쓰레드가 요청을 읽거나 응답을 쓰고 있는 중이면 끝날 때까지 기다리며, 
+            // 이후의 요청 접근은 IllegalStateException 이 발생하고 응답 출력은 버려진다.
+            request.close();
+            response.close();
+            try {
+                if (compressionResponse != null) {
+                    compressionResponse.discard();
+                }
+                if (status > 0 && !originalResponse.isCommitted()) {
+                    originalResponse.sendError(status);
+                }
+            }
+            catch (IOException ignored) {
+            }
+            finally {
+                asyncContext.complete();
+            }
+        }
+        
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                asyncPermits.release();
+                if (permit != null) {
+                    // 시간 초과된 요청은 제한 값을 줄이도록 drop 으로 반영한다.
+                    permit.release(timedOut);
+                }
+            }
+        }
+        
+        private void cleanup() {
+            // 임시 파일로 저장된 첨부파일을 삭제한다.
+            if (cleanupCount.decrementAndGet() == 0 && multipartRequest != null) {
+                multipartRequest.cleanup();
+            }
+        }
+        
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (finished.compareAndSet(false, true)) {
+                timedOut = true;
+                log.warn("async request timed out after "+asyncTimeout+"ms. ["+requestURI+"]");
+                abort(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+        }
+        
+        public void onError(AsyncEvent event) throws IOException {
+            if (finished.compareAndSet(false, true)) {
+                log.warn("async request failed. ["+requestURI+"]",event.getThrowable());
+                abort(0);
+            }
+        }
+        
+        public void onComplete(AsyncEvent event) throws IOException {
+            if (started.compareAndSet(false, true)) {
+                // 실행되지 않고 종료되었으며 이후에도 실행되지 않는다.
+                release();
+                cleanup();
+            }
+            cleanup();
+        }
+        
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+    }
 }
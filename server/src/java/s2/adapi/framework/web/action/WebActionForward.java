@@ -9,6 +9,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -137,6 +138,24 @@ public class WebActionForward {
     	}
     }
     
+    /**
+     * 비동기 처리(startAsync) 중인 요청을 설정된 View의 URL로 AsyncContext.dispatch() 한다.
+     * Model 데이터는 request의 setAttribute()를 사용하여 저장하며, View 는 Servlet 컨테이너의 쓰레드에서 처리된다.
+     * URL 이 '/' 로 시작하지 않으면 현재 요청의 servlet path 에 대한 상대 경로로 처리한다.
+     * @param request
+     * @param asyncContext
+     */
+    public void dispatchView(HttpServletRequest request, AsyncContext asyncContext) {
+    	setModelAttributes(request);
+    	
+    	String path = getViewURL();
+    	if (!path.startsWith("/")) {
+    		String servletPath = request.getServletPath();
+    		path = servletPath.substring(0, servletPath.lastIndexOf('/') + 1) + path;
+    	}
+    	asyncContext.dispatch(path);
+    }
+    
     /**
      * 설정된 View의 URL로 forward한다. Model 데이터는 request의 setAttribute()를 사용하여 저장한다.
      * @param request
@@ -147,15 +166,19 @@ public class WebActionForward {
     private void processForward(HttpServletRequest request, HttpServletResponse response) 
     		throws ServletException, IOException {
     	
-		// Model data를 request의 setAttribute()를 사용하여 저장
+		setModelAttributes(request);
+		
+		request.getRequestDispatcher(getViewURL()).forward(request,response);
+    }
+    
+    // Model data를 request의 setAttribute()를 사용하여 저장
+    private void setModelAttributes(HttpServletRequest request) {
 		Iterator<String> itor = getModelNames().iterator();
 		String name = null;
 		while(itor.hasNext()) {
 			name = itor.next();
 			request.setAttribute(name,getModel(name));
 		}
-		
-		request.getRequestDispatcher(getViewURL()).forward(request,response);
     }
     
     /**
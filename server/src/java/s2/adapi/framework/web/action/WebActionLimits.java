@@ -0,0 +1,294 @@
+package s2.adapi.framework.web.action;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import s2.adapi.framework.config.Configurator;
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * WebActionDispatcher 에서 WebAction 서비스별 동시 실행 요청 수와 전체 동시 실행 요청 수를 제한하는 저장소이다.
+ * 제한 값을 넘는 요청은 WebAction 을 실행하지 않고 s2adapi.web.limit.status 로 바로 응답한다.
+ * 제한 값은 처리 시간에 따라 자동으로 조정된다. ({@link ConcurrencyLimiter} 참고)
+ * </p>
+ * s2adapi-config.properties 파일의 다음 값으로 설정한다.
+ * <ul>
+ * <li> s2adapi.web.limit.enabled : 동시 실행 요청 수를 제한한다. (디폴트 값: false)
+ * <li> s2adapi.web.limit.algorithm : 제한 값 조정 방법, fixed, aimd, gradient 중 하나 (디폴트 값: gradient)
+ * <li> s2adapi.web.limit.initial : 서비스별 최초 제한 값 (디폴트 값: 20)
+ * <li> s2adapi.web.limit.min : 서비스별 최소 제한 값 (디폴트 값: 1)
+ * <li> s2adapi.web.limit.max : 서비스별 최대 제한 값 (디폴트 값: 200)
+ * <li> s2adapi.web.limit.service.[서비스명] : 해당 서비스의 최대 제한 값, 0 이면 제한하지 않는다.
+ * <li> s2adapi.web.limit.global : 전체 WebAction 의 최대 동시 실행 요청 수, 0 이면 제한하지 않는다. (디폴트 값: 0)
+ * <li> s2adapi.web.limit.latency : aimd 에서 제한 값을 줄이는 처리 시간(ms) (디폴트 값: 1000)
+ * <li> s2adapi.web.limit.status : 거절된 요청의 응답 상태 코드 (디폴트 값: 503)
+ * </ul>
+ * <p>
+ * 서비스별 제한 현황은 snapshot() 으로 조회하거나 WebActionLimitsWebAction, MetricsWebAction 을 통하여 조회할 수 있다.
+ * </p>
+ * @author 김형도
+ * @see WebActionDispatcher
+ */
+public class WebActionLimits {
+	
+	private static Logger log = LoggerFactory.getLogger(WebActionLimits.class);
+	
+	private static final String LIMIT_ENABLED_KEY = "s2adapi.web.limit.enabled";
+	private static final String LIMIT_ALGORITHM_KEY = "s2adapi.web.limit.algorithm";
+	private static final String LIMIT_INITIAL_KEY = "s2adapi.web.limit.initial";
+	private static final String LIMIT_MIN_KEY = "s2adapi.web.limit.min";
+	private static final String LIMIT_MAX_KEY = "s2adapi.web.limit.max";
+	private static final String LIMIT_SERVICE_KEY_PREFIX = "s2adapi.web.limit.service.";
+	private static final String LIMIT_GLOBAL_KEY = "s2adapi.web.limit.global";
+	private static final String LIMIT_LATENCY_KEY = "s2adapi.web.limit.latency";
+	private static final String LIMIT_STATUS_KEY = "s2adapi.web.limit.status";
+	
+	/**
+	 * 전체 WebAction 에 대한 제한 현황을 조회할 때 사용하는 명칭이다.
+	 */
+	public static final String GLOBAL = "(global)";
+	
+	private static boolean enabled = false;
+	private static String algorithm = ConcurrencyLimiter.GRADIENT;
+	private static int initialLimit = 20;
+	private static int minLimit = 1;
+	private static int maxLimit = 200;
+	private static long latency = 1000L;
+	private static int rejectStatus = 503;
+	private static ConcurrencyLimiter globalLimiter = null;
+	static {
+		int globalLimit = 0;
+		try {
+			Configurator configurator = ConfiguratorFactory.getConfigurator();
+			enabled = configurator.getBoolean(LIMIT_ENABLED_KEY, false);
+			algorithm = configurator.getString(LIMIT_ALGORITHM_KEY, ConcurrencyLimiter.GRADIENT).trim().toLowerCase();
+			initialLimit = configurator.getInt(LIMIT_INITIAL_KEY, 20);
+			minLimit = configurator.getInt(LIMIT_MIN_KEY, 1);
+			maxLimit = configurator.getInt(LIMIT_MAX_KEY, 200);
+			latency = configurator.getLong(LIMIT_LATENCY_KEY, 1000L);
+			rejectStatus = configurator.getInt(LIMIT_STATUS_KEY, 503);
+			globalLimit = configurator.getInt(LIMIT_GLOBAL_KEY, 0);
+		}
+		catch (ConfiguratorException e) {
+		}
+		
+		if (!ConcurrencyLimiter.FIXED.equals(algorithm) && !ConcurrencyLimiter.AIMD.equals(algorithm)
+				&& !ConcurrencyLimiter.GRADIENT.equals(algorithm)) {
+			log.warn("unknown web action limit algorithm [" + algorithm + "], use gradient.");
+			algorithm = ConcurrencyLimiter.GRADIENT;
+		}
+		if (globalLimit > 0) {
+			globalLimiter = new ConcurrencyLimiter(GLOBAL, algorithm, globalLimit, Math.min(minLimit, globalLimit),
+					globalLimit, latency);
+		}
+	}
+	
+	private static final ConcurrentMap<String, ConcurrencyLimiter> limiterMap =
+			new ConcurrentHashMap<String, ConcurrencyLimiter>();
+	
+	/**
+	 * s2adapi.web.limit.service.[서비스명] 을 0 으로 지정하여 제한하지 않는 서비스 명
+	 */
+	private static final Set<String> unlimitedServices = ConcurrentHashMap.newKeySet();
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+	
+	/**
+	 * 제한 값을 넘어 거절된 요청의 응답 상태 코드
+	 */
+	public static int getRejectStatus() {
+		return rejectStatus;
+	}
+	
+	/**
+	 * 주어진 서비스의 limiter 를 반환한다. 없으면 새로 생성한다.
+	 * 제한하지 않는 서비스이면 null 을 반환한다.
+	 * @param svcName
+	 * @return
+	 */
+	public static ConcurrencyLimiter forName(String svcName) {
+		ConcurrencyLimiter limiter = limiterMap.get(svcName);
+		if (limiter == null) {
+			if (unlimitedServices.contains(svcName)) {
+				return null;
+			}
+			
+			int serviceMax = maxLimit;
+			try {
+				serviceMax = ConfiguratorFactory.getConfigurator().getInt(LIMIT_SERVICE_KEY_PREFIX + svcName, maxLimit);
+			}
+			catch (ConfiguratorException e) {
+			}
+			if (serviceMax <= 0) {
+				unlimitedServices.add(svcName);
+				return null;
+			}
+			
+			ConcurrencyLimiter created = new ConcurrencyLimiter(svcName, algorithm, Math.min(initialLimit, serviceMax),
+					Math.min(minLimit, serviceMax), serviceMax, latency);
+			limiter = limiterMap.putIfAbsent(svcName, created);
+			if (limiter == null) {
+				limiter = created;
+			}
+		}
+		
+		return limiter;
+	}
+	
+	/**
+	 * 주어진 서비스의 limiter 를 반환한다. 요청된 적이 없거나 제한하지 않는 서비스이면 null 을 반환한다.
+	 * @param svcName
+	 * @return
+	 */
+	public static ConcurrencyLimiter getLimiter(String svcName) {
+		return limiterMap.get(svcName);
+	}
+	
+	/**
+	 * 전체 WebAction 에 대한 limiter 를 반환한다. 지정되지 않았으면 null 이다.
+	 */
+	public static ConcurrencyLimiter getGlobalLimiter() {
+		return globalLimiter;
+	}
+	
+	/**
+	 * 주어진 서비스의 요청을 실행할 수 있으면 Permit 을 반환한다.
+	 * 전체 또는 서비스의 제한 값에 도달하였으면 null 을 반환한다.
+	 * 반환된 Permit 은 요청 처리가 끝나면 반드시 release() 하여야 한다.
+	 * @param svcName 서비스 명, null 이면 전체 제한 값만 적용한다.
+	 * @return
+	 */
+	public static Permit acquire(String svcName) {
+		ConcurrencyLimiter global = globalLimiter;
+		if (global != null && !global.tryAcquire()) {
+			return null;
+		}
+		
+		ConcurrencyLimiter limiter = (svcName == null)?null:forName(svcName);
+		if (limiter != null && !limiter.tryAcquire()) {
+			if (global != null) {
+				global.cancel();
+			}
+			return null;
+		}
+		
+		return new Permit(global, limiter);
+	}
+	
+	/**
+	 * 제한 현황이 있는 모든 서비스 명을 정렬하여 반환한다.
+	 * @return
+	 */
+	public static List<String> getServiceNames() {
+		List<String> names = new ArrayList<String>(limiterMap.keySet());
+		Collections.sort(names);
+		
+		return names;
+	}
+	
+	/**
+	 * 제한 현황을 서비스별로 한 row 씩 ValueObject 에 담아 반환한다. 전체 제한이 있으면 첫 row 에 (global) 로 담는다.
+	 * 각 row 에 담기는 항목은 다음과 같다.
+	 * <ul>
+	 * <li> service, algorithm, limit, max_limit
+	 * <li> in_flight : 실행 중인 요청 수
+	 * <li> accepted, rejected, dropped : 허용, 거절, 시간 초과된 요청 수
+	 * <li> latency_ms : 최근 처리 시간(ms, gradient 인 경우)
+	 * </ul>
+	 * @return
+	 */
+	public static ValueObject snapshot() {
+		ValueObject snapshotVO = new ValueObject();
+		
+		int row = 0;
+		if (globalLimiter != null) {
+			setLimiter(snapshotVO, row++, globalLimiter);
+		}
+		for(String name:getServiceNames()) {
+			ConcurrencyLimiter limiter = limiterMap.get(name);
+			if (limiter != null) {
+				setLimiter(snapshotVO, row++, limiter);
+			}
+		}
+		
+		return snapshotVO;
+	}
+	
+	private static void setLimiter(ValueObject vo, int row, ConcurrencyLimiter limiter) {
+		vo.set(row, "service", limiter.getName());
+		vo.set(row, "algorithm", limiter.getAlgorithm());
+		vo.set(row, "limit", limiter.getLimit());
+		vo.set(row, "max_limit", limiter.getMaxLimit());
+		vo.set(row, "in_flight", limiter.getInFlight());
+		vo.set(row, "accepted", limiter.getAccepted());
+		vo.set(row, "rejected", limiter.getRejected());
+		vo.set(row, "dropped", limiter.getDropped());
+		vo.set(row, "latency_ms", Math.round(limiter.getRecentLatency()));
+	}
+	
+	/**
+	 * acquire() 로 얻은 실행 허가이다. 여러 번 release() 하여도 한 번만 반영된다.
+	 */
+	public static class Permit {
+		private final ConcurrencyLimiter global;
+		private final ConcurrencyLimiter limiter;
+		private final long startNanos = System.nanoTime();
+		private final AtomicBoolean released = new AtomicBoolean(false);
+		
+		Permit(ConcurrencyLimiter global, ConcurrencyLimiter limiter) {
+			this.global = global;
+			this.limiter = limiter;
+		}
+		
+		/**
+		 * 요청 처리가 끝났음을 알리고 처리 시간을 제한 값 조정에 반영한다.
+		 * @param drop 시간 초과 등으로 정상 처리되지 못하였으면 true
+		 */
+		public void release(boolean drop) {
+			if (!released.compareAndSet(false, true)) {
+				return;
+			}
+			
+			long rtt = System.nanoTime() - startNanos;
+			if (limiter != null) {
+				limiter.release(rtt, drop);
+			}
+			if (global != null) {
+				global.release(rtt, drop);
+			}
+		}
+		
+		/**
+		 * WebAction 을 실행하지 못하고 끝난 경우 처리 시간을 반영하지 않고 실행 허가를 반환한다.
+		 */
+		public void cancel() {
+			if (!released.compareAndSet(false, true)) {
+				return;
+			}
+			
+			if (limiter != null) {
+				limiter.cancel();
+			}
+			if (global != null) {
+				global.cancel();
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package s2.adapi.framework.web.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import s2.adapi.framework.dao.metrics.LatencyHistogram;
+
+/**
+ * <p>
+ * WebAction 서비스 하나의 요청 처리 통계를 기록한다.
+ * 요청 건수, 오류 건수, 실행 중인 요청 수와 처리 시간 히스토그램을 가진다.
+ * 처리 시간은 WebActionDispatcher 가 요청을 받은 시점부터 WebAction 의 실행이 끝난 시점까지이다.
+ * </p>
+ * 모든 기록 메소드는 lock 없이 여러 쓰레드에서 동시에 호출할 수 있다.
+ * @author kimhd
+ */
+public class ActionMetrics {
+	
+	private final String actionName;
+	
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder inFlight = new LongAdder();
+	
+	private final LatencyHistogram latency = new LatencyHistogram();
+	
+	ActionMetrics(String name) {
+		actionName = name;
+	}
+	
+	public String getActionName() {
+		return actionName;
+	}
+	
+	/**
+	 * WebAction 의 실행이 시작되었음을 기록한다. 실행이 끝나면 반드시 end() 를 호출하여야 한다.
+	 */
+	public void begin() {
+		inFlight.increment();
+	}
+	
+	/**
+	 * begin() 으로 시작한 WebAction 의 실행 1건을 기록한다.
+	 * @param elapsedNanos System.nanoTime() 으로 측정한 처리 시간
+	 * @param error WebAction 이 exception 을 던졌으면 true
+	 */
+	public void end(long elapsedNanos, boolean error) {
+		inFlight.decrement();
+		record(elapsedNanos, error);
+	}
+	
+	/**
+	 * 실행 중인 요청 수와 상관없이 요청 1건을 기록한다.
+	 * @param elapsedNanos System.nanoTime() 으로 측정한 처리 시간
+	 * @param error 오류 여부
+	 */
+	public void record(long elapsedNanos, boolean error) {
+		requests.increment();
+		if (error) {
+			errors.increment();
+		}
+		latency.record(elapsedNanos);
+	}
+	
+	public long getRequests() {
+		return requests.sum();
+	}
+	
+	public long getErrors() {
+		return errors.sum();
+	}
+	
+	public long getInFlight() {
+		return inFlight.sum();
+	}
+	
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+}
@@ -0,0 +1,283 @@
+package s2.adapi.framework.web.metrics;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import s2.adapi.framework.container.support.ContainerMetrics;
+import s2.adapi.framework.container.support.ServiceCreationMetrics;
+import s2.adapi.framework.dao.metrics.LatencyHistogram;
+import s2.adapi.framework.dao.metrics.SqlMetrics;
+import s2.adapi.framework.dao.metrics.SqlStatementMetrics;
+import s2.adapi.framework.util.json.JsonWriter;
+import s2.adapi.framework.web.action.AbstractWebAction;
+import s2.adapi.framework.web.action.ConcurrencyLimiter;
+import s2.adapi.framework.web.action.WebActionForward;
+import s2.adapi.framework.web.action.WebActionLimits;
+
+/**
+ * <p>
+ * WebActionMetrics, WebActionLimits, SqlMetrics, ContainerMetrics 에 기록된 통계를 한 번에 출력하는 WebAction 이다.
+ * 다음의 두 가지 형식으로 출력할 수 있다.
+ * <ul>
+ * <li> text : Prometheus 의 text exposition 형식 (text/plain; version=0.0.4), 시간은 초 단위이다.
+ *      수행시간은 고정된 le 버킷(1ms ~ 60s)의 histogram 으로 출력하므로 여러 인스턴스의 값을 합산하여 백분위를 구할 수 있다.
+ * <li> json : SqlMetricsWebAction 과 같은 JSON 형식, 시간은 마이크로초(us) 단위이며 p50, p95, p99 를 포함한다.
+ * </ul>
+ * format 파라메터로 형식을 지정하며, 지정하지 않으면 Accept 헤더가 text/plain 또는 openmetrics 를 포함할 때 text 로, 그 외에는 json 으로 출력한다.
+ * </p>
+ * 설정 예)
+ * <pre>
+ *     &lt;service name="metrics.do"
+ *             interface="s2.adapi.framework.web.action.WebAction"
+ *             class="s2.adapi.framework.web.metrics.MetricsWebAction"
+ *             singleton="true"/&gt;
+ * </pre>
+ * 운영 정보가 노출되므로 접근 권한이 있는 사용자만 호출할 수 있도록 설정하여야 한다.
+ * @author kimhd
+ */
+public class MetricsWebAction extends AbstractWebAction {
+	
+	public static final String FORMAT_PARAM = "format";
+	
+	private static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+	
+	// Prometheus histogram 의 le 버킷 상한 값(초), 인스턴스 간에 합산할 수 있도록 고정된 값을 사용한다.
+	private static final double[] BUCKETS = {0.001d, 0.0025d, 0.005d, 0.01d, 0.025d, 0.05d, 0.1d, 0.25d, 0.5d,
+			1.0d, 2.5d, 5.0d, 10.0d, 30.0d, 60.0d};
+	private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+	
+	static {
+		for(int i=0;i<BUCKETS.length;i++) {
+			BUCKET_NANOS[i] = Math.round(BUCKETS[i] * 1000000000.0d);
+		}
+	}
+	
+	@Override
+	public WebActionForward execute(HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		
+		StringBuilder sb = new StringBuilder();
+		if (isTextFormat(request)) {
+			writeText(sb);
+			response.setContentType(TEXT_CONTENT_TYPE);
+		}
+		else {
+			writeJson(sb);
+			response.setContentType("application/json; charset=UTF-8");
+		}
+		response.setHeader("Cache-Control", "no-cache");
+		
+		PrintWriter out = response.getWriter();
+		out.print(sb.toString());
+		out.flush();
+		
+		return null;
+	}
+	
+	private boolean isTextFormat(HttpServletRequest request) {
+		String format = request.getParameter(FORMAT_PARAM);
+		if (format != null) {
+			return "text".equalsIgnoreCase(format);
+		}
+		
+		String accept = request.getHeader("Accept");
+		return accept != null && (accept.contains("text/plain") || accept.contains("openmetrics"));
+	}
+	
+	private void writeJson(StringBuilder sb) throws Exception {
+		Map<String,Object> result = new LinkedHashMap<String,Object>();
+		result.put("unit", "us");
+		result.put("actions", WebActionMetrics.snapshot());
+		result.put("limits", WebActionLimits.snapshot());
+		result.put("sqls", SqlMetrics.snapshot());
+		result.put("services", ContainerMetrics.snapshot());
+		
+		new JsonWriter().write(result, sb);
+	}
+	
+	/**
+	 * Prometheus text exposition 형식으로 출력한다. 같은 이름의 값들은 함께 모아서 출력하여야 한다.
+	 */
+	private void writeText(StringBuilder sb) {
+		// WebAction
+		List<String> actions = WebActionMetrics.getActionNames();
+		header(sb, "s2adapi_web_requests_total", "counter", "Web action requests.");
+		for(String name:actions) {
+			ActionMetrics metrics = WebActionMetrics.getActionMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_web_requests_total", "action", name, metrics.getRequests());
+			}
+		}
+		header(sb, "s2adapi_web_errors_total", "counter", "Web action requests that threw an exception.");
+		for(String name:actions) {
+			ActionMetrics metrics = WebActionMetrics.getActionMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_web_errors_total", "action", name, metrics.getErrors());
+			}
+		}
+		header(sb, "s2adapi_web_in_flight", "gauge", "Web action requests in progress.");
+		for(String name:actions) {
+			ActionMetrics metrics = WebActionMetrics.getActionMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_web_in_flight", "action", name, metrics.getInFlight());
+			}
+		}
+		header(sb, "s2adapi_web_request_duration_seconds", "histogram", "Web action request duration.");
+		for(String name:actions) {
+			ActionMetrics metrics = WebActionMetrics.getActionMetrics(name);
+			if (metrics != null) {
+				histogram(sb, "s2adapi_web_request_duration_seconds", "action", name, metrics.getLatency());
+			}
+		}
+		header(sb, "s2adapi_web_request_duration_max_seconds", "gauge", "Web action maximum request duration.");
+		for(String name:actions) {
+			ActionMetrics metrics = WebActionMetrics.getActionMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_web_request_duration_max_seconds", "action", name,
+						seconds(metrics.getLatency().getMax()));
+			}
+		}
+		
+		// 동시 실행 제한
+		if (WebActionLimits.isEnabled()) {
+			List<ConcurrencyLimiter> limiters = new ArrayList<ConcurrencyLimiter>();
+			if (WebActionLimits.getGlobalLimiter() != null) {
+				limiters.add(WebActionLimits.getGlobalLimiter());
+			}
+			for(String name:WebActionLimits.getServiceNames()) {
+				ConcurrencyLimiter limiter = WebActionLimits.getLimiter(name);
+				if (limiter != null) {
+					limiters.add(limiter);
+				}
+			}
+			
+			header(sb, "s2adapi_web_limit", "gauge", "Current concurrency limit.");
+			for(ConcurrencyLimiter limiter:limiters) {
+				sample(sb, "s2adapi_web_limit", "action", limiter.getName(), limiter.getLimit());
+			}
+			header(sb, "s2adapi_web_limit_rejected_total", "counter", "Requests rejected by the concurrency limit.");
+			for(ConcurrencyLimiter limiter:limiters) {
+				sample(sb, "s2adapi_web_limit_rejected_total", "action", limiter.getName(), limiter.getRejected());
+			}
+			header(sb, "s2adapi_web_limit_dropped_total", "counter", "Admitted requests that timed out.");
+			for(ConcurrencyLimiter limiter:limiters) {
+				sample(sb, "s2adapi_web_limit_dropped_total", "action", limiter.getName(), limiter.getDropped());
+			}
+		}
+		
+		// SQL
+		List<String> sqls = SqlMetrics.getSqlNames();
+		header(sb, "s2adapi_sql_calls_total", "counter", "SQL executions.");
+		for(String name:sqls) {
+			SqlStatementMetrics metrics = SqlMetrics.getStatementMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_sql_calls_total", "sql", name, metrics.getCalls());
+			}
+		}
+		header(sb, "s2adapi_sql_errors_total", "counter", "SQL executions that failed.");
+		for(String name:sqls) {
+			SqlStatementMetrics metrics = SqlMetrics.getStatementMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_sql_errors_total", "sql", name, metrics.getErrors());
+			}
+		}
+		header(sb, "s2adapi_sql_duration_seconds", "histogram", "SQL execution duration including fetch.");
+		for(String name:sqls) {
+			SqlStatementMetrics metrics = SqlMetrics.getStatementMetrics(name);
+			if (metrics != null) {
+				histogram(sb, "s2adapi_sql_duration_seconds", "sql", name, metrics.getTotalTime());
+			}
+		}
+		
+		// 서비스 객체 생성
+		List<String> services = ContainerMetrics.getServiceNames();
+		header(sb, "s2adapi_container_created_total", "counter", "Service objects created by the container.");
+		for(String name:services) {
+			ServiceCreationMetrics metrics = ContainerMetrics.getServiceMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_container_created_total", "service", name, metrics.getCreated());
+			}
+		}
+		header(sb, "s2adapi_container_creation_seconds_total", "counter", "Time spent creating service objects.");
+		for(String name:services) {
+			ServiceCreationMetrics metrics = ContainerMetrics.getServiceMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_container_creation_seconds_total", "service", name, seconds(metrics.getTotalNanos()));
+			}
+		}
+		header(sb, "s2adapi_container_creation_max_seconds", "gauge", "Longest service object creation time.");
+		for(String name:services) {
+			ServiceCreationMetrics metrics = ContainerMetrics.getServiceMetrics(name);
+			if (metrics != null) {
+				sample(sb, "s2adapi_container_creation_max_seconds", "service", name, seconds(metrics.getMaxNanos()));
+			}
+		}
+	}
+	
+	private void header(StringBuilder sb, String name, String type, String help) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+	
+	private void sample(StringBuilder sb, String name, String label, String value, long number) {
+		sb.append(name);
+		labels(sb, label, value, null);
+		sb.append(' ').append(number).append('\n');
+	}
+	
+	private void sample(StringBuilder sb, String name, String label, String value, double number) {
+		sb.append(name);
+		labels(sb, label, value, null);
+		sb.append(' ').append(number).append('\n');
+	}
+	
+	private void histogram(StringBuilder sb, String name, String label, String value, LatencyHistogram histogram) {
+		long[] counts = histogram.getCumulativeCounts(BUCKET_NANOS);
+		for(int i=0;i<BUCKETS.length;i++) {
+			sb.append(name).append("_bucket");
+			labels(sb, label, value, String.valueOf(BUCKETS[i]));
+			sb.append(' ').append(counts[i]).append('\n');
+		}
+		// +Inf 버킷과 _count 는 같은 값이어야 하므로 버킷에서 구한 전체 건수를 사용한다.
+		sb.append(name).append("_bucket");
+		labels(sb, label, value, "+Inf");
+		sb.append(' ').append(counts[BUCKETS.length]).append('\n');
+		sb.append(name).append("_sum");
+		labels(sb, label, value, null);
+		sb.append(' ').append(seconds(histogram.getTotal())).append('\n');
+		sb.append(name).append("_count");
+		labels(sb, label, value, null);
+		sb.append(' ').append(counts[BUCKETS.length]).append('\n');
+	}
+	
+	private void labels(StringBuilder sb, String label, String value, String le) {
+		sb.append('{').append(label).append("=\"");
+		for(int i=0;i<value.length();i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				sb.append('\\').append(c);
+			}
+			else if (c == '\n') {
+				sb.append("\\n");
+			}
+			else {
+				sb.append(c);
+			}
+		}
+		sb.append('"');
+		if (le != null) {
+			sb.append(",le=\"").append(le).append('"');
+		}
+		sb.append('}');
+	}
+	
+	private double seconds(long nanos) {
+		return nanos / 1000000000.0d;
+	}
+}
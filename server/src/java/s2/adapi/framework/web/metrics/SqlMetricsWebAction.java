@@ -0,0 +1,66 @@
+package s2.adapi.framework.web.metrics;
+
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import s2.adapi.framework.dao.metrics.SqlMetrics;
+import s2.adapi.framework.util.json.JsonWriter;
+import s2.adapi.framework.vo.ValueObject;
+import s2.adapi.framework.web.action.AbstractWebAction;
+import s2.adapi.framework.web.action.WebActionForward;
+
+/**
+ * <p>
+ * SqlMetrics 에 기록된 SQL 실행 통계를 JSON 형식으로 출력하는 WebAction 이다.
+ * 다음의 요청 파라메터를 사용할 수 있다.
+ * <ul>
+ * <li> prefix : 지정된 문자열로 시작하는 sqlName 의 통계만 출력한다.
+ * <li> reset : true 이면 출력 후 기록된 통계를 모두 지운다.
+ * </ul>
+ * </p>
+ * 설정 예)
+ * <pre>
+ *     &lt;service name="sqlmetrics.do"
+ *             interface="s2.adapi.framework.web.action.WebAction"
+ *             class="s2.adapi.framework.web.metrics.SqlMetricsWebAction"
+ *             singleton="true"/&gt;
+ * </pre>
+ * 운영 정보가 노출되므로 접근 권한이 있는 사용자만 호출할 수 있도록 설정하여야 한다.
+ * @author kimhd
+ */
+public class SqlMetricsWebAction extends AbstractWebAction {
+	
+	@Override
+	public WebActionForward execute(HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		
+		String prefix = request.getParameter("prefix");
+		boolean reset = "true".equalsIgnoreCase(request.getParameter("reset"));
+		
+		ValueObject snapshotVO = SqlMetrics.snapshot(prefix);
+		if (reset) {
+			SqlMetrics.reset();
+		}
+		
+		Map<String,Object> result = new LinkedHashMap<String,Object>();
+		result.put("enabled", SqlMetrics.isEnabled() ? "true" : "false");
+		result.put("unit", "us");
+		result.put("sqls", snapshotVO);
+		
+		StringBuilder sb = new StringBuilder();
+		new JsonWriter().write(result, sb);
+		
+		response.setContentType("application/json; charset=UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		
+		PrintWriter out = response.getWriter();
+		out.print(sb.toString());
+		out.flush();
+		
+		return null;
+	}
+}
@@ -0,0 +1,52 @@
+package s2.adapi.framework.web.metrics;
+
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import s2.adapi.framework.util.json.JsonWriter;
+import s2.adapi.framework.web.action.AbstractWebAction;
+import s2.adapi.framework.web.action.WebActionForward;
+import s2.adapi.framework.web.action.WebActionLimits;
+
+/**
+ * <p>
+ * WebActionLimits 에 기록된 서비스별 동시 실행 제한 값, 실행 중인 요청 수, 거절된 요청 수를 JSON 형식으로 출력하는 WebAction 이다.
+ * </p>
+ * 설정 예)
+ * <pre>
+ *     &lt;service name="actionlimits.do"
+ *             interface="s2.adapi.framework.web.action.WebAction"
+ *             class="s2.adapi.framework.web.metrics.WebActionLimitsWebAction"
+ *             singleton="true"/&gt;
+ * </pre>
+ * 운영 정보가 노출되므로 접근 권한이 있는 사용자만 호출할 수 있도록 설정하여야 한다.
+ * @author kimhd
+ */
+public class WebActionLimitsWebAction extends AbstractWebAction {
+	
+	@Override
+	public WebActionForward execute(HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		
+		Map<String,Object> result = new LinkedHashMap<String,Object>();
+		result.put("enabled", WebActionLimits.isEnabled() ? "true" : "false");
+		result.put("reject_status", String.valueOf(WebActionLimits.getRejectStatus()));
+		result.put("services", WebActionLimits.snapshot());
+		
+		StringBuilder sb = new StringBuilder();
+		new JsonWriter().write(result, sb);
+		
+		response.setContentType("application/json; charset=UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		
+		PrintWriter out = response.getWriter();
+		out.print(sb.toString());
+		out.flush();
+		
+		return null;
+	}
+}
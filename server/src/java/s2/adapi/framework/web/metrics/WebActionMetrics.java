@@ -0,0 +1,152 @@
+package s2.adapi.framework.web.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import s2.adapi.framework.config.ConfiguratorException;
+import s2.adapi.framework.config.ConfiguratorFactory;
+import s2.adapi.framework.dao.metrics.LatencyHistogram;
+import s2.adapi.framework.vo.ValueObject;
+
+/**
+ * <p>
+ * WebActionDispatcher 가 처리한 요청의 통계를 WebAction 서비스 명 별로 모아 놓는 저장소이다.
+ * WebActionDispatcher 가 자동으로 기록하며, 설정파일의 s2adapi.web.metrics.enabled 값을 false 로 지정하면 기록하지 않는다.
+ * </p>
+ * <p>
+ * 기록된 통계는 snapshot() 으로 조회하거나 MetricsWebAction 을 통하여 조회할 수 있다.
+ * </p>
+ * @author kimhd
+ */
+public class WebActionMetrics {
+	
+	private static final String METRICS_ENABLED_KEY = "s2adapi.web.metrics.enabled";
+	
+	/**
+	 * 요청 URI 에 해당하는 WebAction 을 찾지 못한 요청의 통계를 기록할 명칭이다.
+	 */
+	public static final String UNMATCHED_ACTION = "(unmatched)";
+	
+	private static boolean enabled = true;
+	static {
+		try {
+			enabled = ConfiguratorFactory.getConfigurator().getBoolean(METRICS_ENABLED_KEY, true);
+		}
+		catch (ConfiguratorException e) {
+		}
+	}
+	
+	private static final ConcurrentMap<String, ActionMetrics> metricsMap =
+			new ConcurrentHashMap<String, ActionMetrics>();
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+	
+	/**
+	 * 주어진 서비스 명의 통계 기록 객체를 반환한다. 없으면 새로 생성한다.
+	 * 통계 기록이 꺼져 있으면 null 을 반환한다.
+	 * @param actionName 서비스 명, null 이면 (unmatched) 로 기록한다.
+	 * @return
+	 */
+	public static ActionMetrics forName(String actionName) {
+		if (!enabled) {
+			return null;
+		}
+		
+		String name = (actionName == null)?UNMATCHED_ACTION:actionName;
+		
+		ActionMetrics metrics = metricsMap.get(name);
+		if (metrics == null) {
+			ActionMetrics created = new ActionMetrics(name);
+			metrics = metricsMap.putIfAbsent(name, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		
+		return metrics;
+	}
+	
+	/**
+	 * 주어진 서비스 명의 통계 기록 객체를 반환한다. 기록된 적이 없으면 null 을 반환한다.
+	 * @param actionName
+	 * @return
+	 */
+	public static ActionMetrics getActionMetrics(String actionName) {
+		return metricsMap.get((actionName == null)?UNMATCHED_ACTION:actionName);
+	}
+	
+	/**
+	 * 기록된 모든 서비스 명을 정렬하여 반환한다.
+	 * @return
+	 */
+	public static List<String> getActionNames() {
+		List<String> names = new ArrayList<String>(metricsMap.keySet());
+		Collections.sort(names);
+		
+		return names;
+	}
+	
+	/**
+	 * 기록된 모든 통계를 지운다.
+	 */
+	public static void reset() {
+		metricsMap.clear();
+	}
+	
+	/**
+	 * 기록된 통계를 서비스 별로 한 row 씩 ValueObject 에 담아 반환한다.
+	 * 처리시간은 마이크로초(us) 단위이며 각 row 에 담기는 항목은 다음과 같다.
+	 * <ul>
+	 * <li> action, requests, errors, in_flight
+	 * <li> mean, p50, p95, p99, max
+	 * </ul>
+	 * @param prefix 조회할 서비스 명의 prefix, null 이면 전체를 조회한다.
+	 * @return
+	 */
+	public static ValueObject snapshot(String prefix) {
+		ValueObject snapshotVO = new ValueObject();
+		
+		int row = 0;
+		for(String name:getActionNames()) {
+			if (prefix != null && !name.startsWith(prefix)) {
+				continue;
+			}
+			
+			ActionMetrics metrics = metricsMap.get(name);
+			if (metrics == null) {
+				continue;
+			}
+			
+			LatencyHistogram latency = metrics.getLatency();
+			snapshotVO.set(row, "action", name);
+			snapshotVO.set(row, "requests", metrics.getRequests());
+			snapshotVO.set(row, "errors", metrics.getErrors());
+			snapshotVO.set(row, "in_flight", metrics.getInFlight());
+			snapshotVO.set(row, "mean", toMicros(latency.getMean()));
+			snapshotVO.set(row, "p50", toMicros(latency.getValueAtPercentile(50.0d)));
+			snapshotVO.set(row, "p95", toMicros(latency.getValueAtPercentile(95.0d)));
+			snapshotVO.set(row, "p99", toMicros(latency.getValueAtPercentile(99.0d)));
+			snapshotVO.set(row, "max", toMicros(latency.getMax()));
+			row++;
+		}
+		
+		return snapshotVO;
+	}
+	
+	public static ValueObject snapshot() {
+		return snapshot(null);
+	}
+	
+	private static long toMicros(long nanos) {
+		return nanos / 1000L;
+	}
+}
@@ -1,37 +1,124 @@
 package s2.adapi.framework.web.upload;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 import org.apache.commons.fileupload2.core.FileItemInput;
 
+import s2.adapi.framework.exception.ApplicationException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 // 2025.01.23
 // Java EE -> Jakarta EE 로 migration 하기 위하여 commons fileupload -> fileupload2 로 재구현함
 // 구현 방식이 바뀌어 대부분 수정함
+/**
+ * <p>
+ * Multipart request 로 업로드된 파일이다.
+ * 파일 크기가 memoryThreshold 이하이면 메모리(byte[])에 보관하고, 이보다 크면 임시 디렉토리의 파일로 기록(spill)한다.
+ * 따라서 동시에 여러 사용자가 큰 파일을 업로드하더라도 사용하는 heap 은 (동시 업로드 수 x memoryThreshold) 이하가 된다.
+ * </p>
+ * <p>
+ * 임시 파일은 요청 처리가 끝나면 MultipartRequestWrapper.cleanup() 에서 삭제되므로
+ * 파일을 보관하려면 요청 처리 중에 transferTo() 로 옮기거나 getInputStream() 으로 읽어야 한다.
+ * </p>
+ */
 public class FormFile {
     protected static Logger log = LoggerFactory.getLogger(FormFile.class);
+    
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * 업로드 스트림을 복사할 때 사용하는 쓰레드별 버퍼
+     */
+    private static final ThreadLocal<byte[]> copyBuffer = new ThreadLocal<byte[]>() {
+        protected byte[] initialValue() {
+            return new byte[COPY_BUFFER_SIZE];
+        }
+    };
 
     private String fieldName = null;
     private String contentType = null;
     private String fileName = null;
     private byte[] fileData = null;
+    private File tempFile = null;
+    private long fileSize = 0;
+    private boolean moved = false;
 
     /**
      * <p>
-     * FormFile 클래스의 생성자로써 FileItem 객체를 저장한다.
+     * FormFile 클래스의 생성자로써 업로드된 파일의 내용을 모두 메모리에 읽어서 저장한다.
      * </p>
      *
      * @param fileItem 파일 업로드 리퀘스트로부터 얻어지는 FileItem 객체
-     * @param key FileItem 객체에 대한 키 값
+     * @param sizeLimit 업로드 가능한 파일의 최대 크기(bytes), 초과하는 내용은 버린다.
      */
     public FormFile(FileItemInput fileItem, int sizeLimit) throws IOException
+    {
+        this(fileItem, sizeLimit, sizeLimit, null);
+    }
+    
+    /**
+     * <p>
+     * FormFile 클래스의 생성자로써 업로드된 파일을 읽어서 memoryThreshold 이하이면 메모리에,
+     * 초과하면 tempDir 디렉토리의 임시 파일에 저장한다.
+     * </p>
+     *
+     * @param fileItem 파일 업로드 리퀘스트로부터 얻어지는 FileItem 객체
+     * @param sizeLimit 업로드 가능한 파일의 최대 크기(bytes), 초과하는 내용은 버린다.
+     * @param memoryThreshold 메모리에 보관할 최대 크기(bytes)
+     * @param tempDir 임시 파일을 생성할 디렉토리, null 이면 "java.io.tmpdir" 을 사용한다.
+     */
+    public FormFile(FileItemInput fileItem, long sizeLimit, int memoryThreshold, File tempDir) throws IOException
     {
         this.fieldName = fileItem.getFieldName();
         this.contentType = fileItem.getContentType();
         this.fileName = fileItem.getName();
-        this.fileData = fileItem.getInputStream().readNBytes(sizeLimit);
+        
+        InputStream in = fileItem.getInputStream();
+        byte[] buf = copyBuffer.get();
+        ByteArrayOutputStream mem = new ByteArrayOutputStream(Math.min(memoryThreshold, buf.length));
+        OutputStream out = mem;
+        try {
+            int n = 0;
+            while (fileSize < sizeLimit && (n = in.read(buf, 0, (int)Math.min(buf.length, sizeLimit - fileSize))) >= 0) {
+                if (tempFile == null && fileSize + n > memoryThreshold) {
+                    // 메모리 보관 한도를 넘으면 지금까지의 내용을 임시 파일로 옮긴다.
+                    tempFile = File.createTempFile("s2upload_", ".tmp", tempDir);
+                    out = new FileOutputStream(tempFile);
+                    mem.writeTo(out);
+                    mem = null;
+                }
+                out.write(buf, 0, n);
+                fileSize += n;
+            }
+            
+            if (fileSize >= sizeLimit && in.read() >= 0) {
+                log.warn("upload file exceeds size limit, truncated to " + sizeLimit + " bytes. [" + fileName + "]");
+            }
+        }
+        catch (IOException ex) {
+            delete();
+            throw ex;
+        }
+        finally {
+            if (tempFile != null) {
+                out.close();
+            }
+        }
+        
+        if (tempFile == null) {
+            fileData = mem.toByteArray();
+        }
     }
 
     /**
@@ -47,13 +134,24 @@ public class FormFile {
 
     /**
      * <p>
-     * 파일의 사이즈를 리턴한다.
+     * 파일의 사이즈를 리턴한다. 2GB 이상인 파일은 getSize() 를 사용한다.
      * </p>
      *
      * @return 파일 사이즈
      */
     public int getFileSize() {
-        return fileData.length;
+        return (int)Math.min(fileSize, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * <p>
+     * 파일의 사이즈를 리턴한다.
+     * </p>
+     *
+     * @return 파일 사이즈
+     */
+    public long getSize() {
+        return fileSize;
     }
 
     /**
@@ -69,12 +167,98 @@ public class FormFile {
     /**
      * <p>
      * 파일의 내용을 byte[] 형태로 리턴한다.
+     * 임시 파일로 저장된 경우에는 호출할 때마다 파일 전체를 읽으므로 큰 파일은 getInputStream() 을 사용한다.
      * </p>
      *
      * @return 파일의 내용(byte[])
      */
     public byte[] getFileData() {
-        return fileData;
+        if (fileData != null) {
+            return fileData;
+        }
+        
+        try {
+            return Files.readAllBytes(tempFile.toPath());
+        }
+        catch (IOException ex) {
+            throw new ApplicationException("service.error.07001", ex); // 파일 처리 중 오류가 발생하였습니다.
+        }
+    }
+    
+    /**
+     * <p>
+     * 파일의 내용을 읽을 수 있는 InputStream 을 리턴한다. 사용 후에는 close() 하여야 한다.
+     * </p>
+     *
+     * @return 파일 내용에 대한 InputStream
+     */
+    public InputStream getInputStream() throws IOException {
+        if (fileData != null) {
+            return new ByteArrayInputStream(fileData);
+        }
+        
+        return Files.newInputStream(tempFile.toPath());
+    }
+    
+    /**
+     * <p>
+     * 임시 파일로 저장되었으면 임시 파일의 경로를 리턴하며, 메모리에 저장되었으면 null 을 리턴한다.
+     * 임시 파일은 요청 처리가 끝나면 삭제된다.
+     * </p>
+     *
+     * @return 임시 파일의 경로
+     */
+    public Path getPath() {
+        return (tempFile == null)?null:tempFile.toPath();
+    }
+    
+    /**
+     * <p>
+     * 파일 내용이 메모리에 저장되어 있는지 여부를 리턴한다.
+     * </p>
+     *
+     * @return 메모리에 저장되어 있으면 true, 임시 파일로 저장되어 있으면 false
+     */
+    public boolean isInMemory() {
+        return tempFile == null;
+    }
+    
+    /**
+     * <p>
+     * 파일 내용을 주어진 파일로 저장한다. 임시 파일로 저장되어 있으면 복사하지 않고 이동한다.
+     * </p>
+     *
+     * @param dest 저장할 파일
+     */
+    public void transferTo(File dest) throws IOException {
+        if (fileData != null) {
+            Files.write(dest.toPath(), fileData);
+            return;
+        }
+        
+        try {
+            Files.move(tempFile.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            // 이후에는 옮긴 파일을 읽으며, 옮긴 파일은 삭제하지 않는다.
+            tempFile = dest;
+            moved = true;
+        }
+        catch (IOException ex) {
+            // 다른 파일시스템으로는 이동이 안될 수 있으므로 복사한다.
+            Files.copy(tempFile.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * <p>
+     * 임시 파일을 삭제한다. MultipartRequestWrapper.cleanup() 에서 호출된다.
+     * </p>
+     */
+    public void delete() {
+        if (tempFile != null && !moved) {
+            if (!tempFile.delete() && tempFile.exists()) {
+                log.warn("cannot delete upload temp file. [" + tempFile.getAbsolutePath() + "]");
+            }
+        }
     }
 
     /**
@@ -96,7 +280,7 @@ public class FormFile {
      */
     public String toString()
     {
-        return fieldName + "," + fileName + "," + contentType + "," + fileData.length;
+        return fieldName + "," + fileName + "," + contentType + "," + fileSize;
     }
     
     /**
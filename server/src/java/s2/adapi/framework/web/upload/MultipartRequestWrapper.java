@@ -22,6 +22,7 @@ import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -422,14 +423,30 @@ public class MultipartRequestWrapper implements HttpServletRequest {
     public MultipartRequestWrapper parseMultipart(ServletContext ctx, int sizeLimit) 
     		throws ServletException 
     {
-    	String tempDir = null;
-    	if ( ctx != null ) {
-    		File tempDirFile = (File)ctx.getAttribute("jakarta.servlet.context.tempdir");
-    		tempDir = tempDirFile.getAbsolutePath();
-    	} else {
-    		tempDir = System.getProperty("java.io.tmpdir");
-    	}
-    	return parseMultipart(tempDir, sizeLimit);
+    	return parseMultipart(getTempDir(ctx), sizeLimit);
+    }
+    
+    /**
+     * <p>
+     * multipart내의 form field와 form file 들을 파싱하여 form field는 setParameter()로 저장하고
+     * form file은 <code>FormFile[]</code> 형태로 files Map 객체에 저장한다.
+     * 파일 크기가 memoryThreshold 이하이면 메모리에 보관하고 초과하면 임시 파일로 저장하므로
+     * 큰 파일을 업로드하더라도 heap 사용량이 memoryThreshold 를 넘지 않는다.
+     * 임시 파일은 요청 처리가 끝난 후 cleanup()을 호출하여 삭제하여야 한다.
+     * </p>
+     * <p>
+     * 파일 업로드시 임시 디렉토리는 ServetContext의 "jakarta.servlet.context.tempdir" 속성값을 사용한다.
+     * 주어진 ServetContext 객체가 null 인 경우에는 "java.io.tmpdir" 시스템 프로퍼티 값을 사용한다.
+     * </p>
+     * @param ServletContext 임시 디렉토리 정보를 얻기 위한 파라메터
+     * @param sizeLimit 업로드 가능한 파일의 최대 크기(bytes)
+     * @param memoryThreshold 메모리에 보관할 파일의 최대 크기(bytes)
+     * @return multipart의 파싱이 완료된 MultipartRequestWrapper 자기 자신
+     */
+    public MultipartRequestWrapper parseMultipart(ServletContext ctx, long sizeLimit, int memoryThreshold) 
+    		throws ServletException 
+    {
+    	return parseMultipart(getTempDir(ctx), sizeLimit, memoryThreshold);
     }
     
     /**
@@ -448,6 +465,25 @@ public class MultipartRequestWrapper implements HttpServletRequest {
     public MultipartRequestWrapper parseMultipart(String tempDir, int sizeLimit) 
     		throws ServletException 
     {
+    	return parseMultipart(tempDir, sizeLimit, sizeLimit);
+    }
+    
+    /**
+     * <p>
+     * multipart내의 form field와 form file 들을 파싱하여 form field는 setParameter()로 저장하고
+     * form file은 <code>FormFile[]</code> 형태로 files Map 객체에 저장한다.
+     * 파일 크기가 memoryThreshold 이하이면 메모리에 보관하고 초과하면 tempDir 에 임시 파일로 저장한다.
+     * 임시 파일은 요청 처리가 끝난 후 cleanup()을 호출하여 삭제하여야 한다.
+     * </p>
+     * @param tempDir 임시 디렉토리의 절대 Path
+     * @param sizeLimit 업로드 가능한 파일의 최대 크기(bytes)
+     * @param memoryThreshold 메모리에 보관할 파일의 최대 크기(bytes)
+     * @return multipart의 파싱이 완료된 MultipartRequestWrapper 자기 자신
+     */
+    public MultipartRequestWrapper parseMultipart(String tempDir, long sizeLimit, int memoryThreshold) 
+    		throws ServletException 
+    {
+    	final File tempDirFile = (tempDir == null)?null:new File(tempDir);
     	
 		@SuppressWarnings("rawtypes")
 		JakartaServletFileUpload upload = new JakartaServletFileUpload<>();
@@ -460,11 +496,12 @@ public class MultipartRequestWrapper implements HttpServletRequest {
 					setParameter(name, new String(stream.readAllBytes(), characterEncoding));
 				}
 				else {
-					addFile(new FormFile(item, sizeLimit));
+					addFile(new FormFile(item, sizeLimit, memoryThreshold, tempDirFile));
 				}
 			});
 		}
 		catch(Exception ex) {
+			cleanup();
 			if ( log.isErrorEnabled() ) {
     			log.error("file upload exception.",ex);
     		}
@@ -484,7 +521,7 @@ public class MultipartRequestWrapper implements HttpServletRequest {
     }
     
     /**
-     * 주어진 HttpServletRequest가 MultipartRequestWrapper 인 경우 해당 getFileMap()을 호출하여
+     * 주어진 HttpServletRequest가 MultipartRequestWrapper 이거나 이를 감싼 ServletRequestWrapper 인 경우 해당 getFileMap()을 호출하여
      * 그 결과로 얻어진 <code>Map<String,FormFile[]></code> 객체를 반환한다.
      * MultipartRequestWrapper 객체가 아니라면 null을 반환한다.
      * @param request
@@ -493,13 +530,38 @@ public class MultipartRequestWrapper implements HttpServletRequest {
     public static Map<String,FormFile[]> getFileMap(HttpServletRequest request) {
     	Map<String,FormFile[]> fileMap = null;
     	
-    	if ( request instanceof MultipartRequestWrapper ) {
-    	    fileMap = ((MultipartRequestWrapper)request).getFileMap();	
+    	// 비동기 실행 등으로 다른 wrapper 에 감싸진 경우
+    	ServletRequest req = request;
+    	while (req instanceof ServletRequestWrapper) {
+    		req = ((ServletRequestWrapper)req).getRequest();
+    	}
+    	if ( req instanceof MultipartRequestWrapper ) {
+    	    fileMap = ((MultipartRequestWrapper)req).getFileMap();	
     	}
     	
     	return fileMap;
     }
     
+    /**
+     * 업로드 파일들의 임시 파일을 삭제한다. 요청 처리가 끝나면 호출하여야 한다.
+     */
+    public void cleanup() {
+    	for(FormFile[] formFiles : files.values()) {
+    		for(int i=0;i<formFiles.length;i++) {
+    			formFiles[i].delete();
+    		}
+    	}
+    }
+    
+    private static String getTempDir(ServletContext ctx) {
+    	if ( ctx != null ) {
+    		File tempDirFile = (File)ctx.getAttribute("jakarta.servlet.context.tempdir");
+    		return tempDirFile.getAbsolutePath();
+    	} else {
+    		return System.getProperty("java.io.tmpdir");
+    	}
+    }
+    
     private void addFile(FormFile formFile) {
     	String name = formFile.getFieldName();
     	